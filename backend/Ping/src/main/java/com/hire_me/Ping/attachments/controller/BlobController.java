@@ -0,0 +1,187 @@
+package com.hire_me.Ping.attachments.controller;
+
+import com.hire_me.Ping.attachments.dto.BlobResponse;
+import com.hire_me.Ping.attachments.service.BlobStore;
+import com.hire_me.Ping.attachments.service.BlobStore.StoredBlob;
+import com.hire_me.Ping.attachments.service.PreviewService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// REST controller for attachment bytes (uploads and resumable downloads)
+@RestController
+@RequestMapping("/api/blobs")
+public class BlobController {
+
+  // Tomcat's sendfile hand-off: with these request attributes set, the connector streams the file
+  // straight from the page cache to the socket after the servlet returns.
+  private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+  private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+  private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+  private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+  // Uploads keep the Content-Type their uploader claimed; only these raster formats are rendered
+  // inline. Anything else (text/html, image/svg+xml, ...) could run script in our origin, so it
+  // is served as a download.
+  private static final Set<String> INLINE_TYPES = Set.of("image/png", "image/jpeg", "image/gif", "image/webp");
+
+  private final BlobStore store;
+  private final PreviewService previews;
+
+  public BlobController(BlobStore store, PreviewService previews) {
+    this.store = store;
+    this.previews = previews;
+  }
+
+  // Upload: the raw request body (any Content-Type) is streamed to disk, never held in memory
+  @PostMapping
+  public ResponseEntity<BlobResponse> upload(HttpServletRequest request) throws IOException {
+    BlobResponse blob = store.store(request.getInputStream(), request.getContentType());
+    return ResponseEntity.created(URI.create("/api/blobs/" + blob.sha256())).body(blob);
+  }
+
+  // Download; supports a single byte Range (resume) and If-None-Match / If-Range on the hash ETag
+  @GetMapping("/{sha256}")
+  public void download(@PathVariable String sha256,
+                       HttpServletRequest request,
+                       HttpServletResponse response) throws IOException {
+    StoredBlob blob = store.find(sha256)
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No attachment " + sha256));
+    serve(blob, "\"" + blob.sha256() + "\"", request, response);
+  }
+
+  // Downscaled copy of an IMAGE attachment; 404 until it has been generated (clients are told over
+  // STOMP when it is ready) or if the size is not one of app.attachments.previews.sizes
+  @GetMapping("/{sha256}/previews/{size}")
+  public void preview(@PathVariable String sha256,
+                      @PathVariable int size,
+                      HttpServletRequest request,
+                      HttpServletResponse response) throws IOException {
+    StoredBlob blob = previews.preview(sha256, size)
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No " + size + " preview of " + sha256));
+    serve(blob, "\"" + blob.sha256() + "-" + size + "\"", request, response);
+  }
+
+  // Content never changes for a given ETag, so everything is cacheable forever
+  private static void serve(StoredBlob blob, String etag,
+                            HttpServletRequest request,
+                            HttpServletResponse response) throws IOException {
+    response.setHeader(HttpHeaders.ETAG, etag);
+    response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable");
+    response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+    response.setContentType(blob.contentType() != null ? blob.contentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+    response.setHeader("X-Content-Type-Options", "nosniff");
+    if (!rendersInline(blob.contentType())) {
+      response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().build().toString());
+    }
+
+    if (etagMatches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+      response.setStatus(HttpStatus.NOT_MODIFIED.value());
+      return;
+    }
+
+    long size = blob.size();
+    long start = 0;
+    long length = size;
+    String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+    List<HttpRange> ranges = ifRange == null || ifRange.equals(etag)
+        ? parseRanges(request.getHeader(HttpHeaders.RANGE))
+        : List.of();
+    // several ranges would need a multipart/byteranges body; a full 200 is the allowed fallback
+    if (ranges.size() == 1) {
+      HttpRange range = ranges.get(0);
+      long first = range.getRangeStart(size);
+      long last = range.getRangeEnd(size);
+      if (first >= size || first > last) {
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+        response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+        return;
+      }
+      response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+      response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + first + "-" + last + "/" + size);
+      start = first;
+      length = last - first + 1;
+    }
+
+    response.setContentLengthLong(length);
+    if (!"HEAD".equals(request.getMethod())) {
+      send(request, response, blob.path(), start, length);
+    }
+  }
+
+  // Zero-copy only via sendfile, when the connector offers it. The fallback transferTo into a
+  // channel wrapping the servlet stream is a plain copy through a user-space buffer.
+  private static void send(HttpServletRequest request, HttpServletResponse response,
+                           Path file, long start, long length) throws IOException {
+    if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+      request.setAttribute(SENDFILE_FILENAME, file.toString());
+      request.setAttribute(SENDFILE_START, start);
+      request.setAttribute(SENDFILE_END, start + length);
+      return;
+    }
+    try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+      WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+      long position = start;
+      long end = start + length;
+      while (position < end) {
+        position += in.transferTo(position, end - position, out);
+      }
+    }
+  }
+
+  private static boolean rendersInline(String contentType) {
+    if (contentType == null) {
+      return false;
+    }
+    try {
+      MediaType type = MediaType.parseMediaType(contentType);
+      return INLINE_TYPES.contains((type.getType() + "/" + type.getSubtype()).toLowerCase(Locale.ROOT));
+    } catch (InvalidMediaTypeException e) {
+      return false;
+    }
+  }
+
+  // A malformed Range header is ignored (full response), as HTTP allows
+  private static List<HttpRange> parseRanges(String header) {
+    if (header == null) {
+      return List.of();
+    }
+    try {
+      return HttpRange.parseRanges(header);
+    } catch (IllegalArgumentException e) {
+      return List.of();
+    }
+  }
+
+  private static boolean etagMatches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      String tag = candidate.trim();
+      if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,8 @@
+package com.hire_me.Ping.attachments.dto;
+
+// What an upload returns; post a message with attachmentSha256 = sha256 to share the file
+public record BlobResponse(
+    String sha256,
+    long size,
+    String contentType
+) {}
@@ -0,0 +1,39 @@
+package com.hire_me.Ping.attachments.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * One stored file, keyed by the SHA-256 of its bytes. Identical uploads share the row and the
+ * file on disk; messages point at it through message.attachment_sha256.
+ */
+@Entity
+@Table(name = "attachment_blob")
+public class AttachmentBlob {
+
+    @Id
+    @Column(name = "sha256", length = 64)
+    private String sha256;   // lower-case hex
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    // Content-Type of the first upload; later identical uploads do not change it
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public String getSha256() { return sha256; }
+    public void setSha256(String sha256) { this.sha256 = sha256; }
+
+    public long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(long sizeBytes) { this.sizeBytes = sizeBytes; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+}
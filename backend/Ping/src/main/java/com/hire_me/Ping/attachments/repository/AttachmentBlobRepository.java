@@ -0,0 +1,9 @@
+package com.hire_me.Ping.attachments.repository;
+
+import com.hire_me.Ping.attachments.entity.AttachmentBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AttachmentBlobRepository extends JpaRepository<AttachmentBlob, String> {
+}
@@ -0,0 +1,186 @@
+package com.hire_me.Ping.attachments.service;
+
+import com.hire_me.Ping.attachments.dto.BlobResponse;
+import com.hire_me.Ping.attachments.entity.AttachmentBlob;
+import com.hire_me.Ping.attachments.repository.AttachmentBlobRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed file store on the local filesystem, for IMAGE and FILE messages.
+ *
+ * - An upload is streamed through a 64 KB buffer into a temp file while its SHA-256 is computed,
+ *   so heap use does not grow with the file. The temp file is fsynced and renamed to
+ *   {@code root/ab/cd/abcd...} (the hash, fanned out so no directory gets huge).
+ * - Identical uploads end up at the same path and row: the second rename just replaces
+ *   the file with the same bytes. Clients can skip the upload entirely by asking
+ *   HEAD /api/blobs/{sha256} first.
+ * - Files are immutable once stored, which is what lets downloads carry a strong ETag (the hash)
+ *   and be cached forever.
+ */
+@Service
+public class BlobStore {
+
+  private static final Pattern SHA256 = Pattern.compile("[0-9a-f]{64}");
+  private static final int BUFFER = 64 * 1024;
+
+  /** A stored file, ready to be sent. */
+  public record StoredBlob(String sha256, Path path, long size, String contentType) {}
+
+  /** Produces the bytes of a derived file (a preview, ...). */
+  @FunctionalInterface
+  public interface DerivedWriter {
+    void write(OutputStream out) throws IOException;
+  }
+
+  private final AttachmentBlobRepository blobs;
+  private final Path root;
+  private final Path incoming;
+  private final long maxBytes;
+
+  public BlobStore(AttachmentBlobRepository blobs,
+                   @Value("${app.attachments.root:data/blobs}") String root,
+                   @Value("${app.attachments.max-bytes:104857600}") long maxBytes) {
+    this.blobs = blobs;
+    this.root = Paths.get(root).toAbsolutePath().normalize();
+    this.incoming = this.root.resolve("incoming");   // same filesystem as the blobs: renames stay atomic
+    this.maxBytes = maxBytes;
+    try {
+      Files.createDirectories(incoming);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot create attachment store at " + this.root, e);
+    }
+  }
+
+  /** Streams {@code in} into the store; returns the existing blob if the same bytes were stored before. */
+  public BlobResponse store(InputStream in, String contentType) throws IOException {
+    MessageDigest sha = sha256();
+    Path tmp = Files.createTempFile(incoming, "upload-", ".part");
+    try {
+      long size = 0;
+      try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+        byte[] buf = new byte[BUFFER];
+        ByteBuffer view = ByteBuffer.wrap(buf);
+        int n;
+        while ((n = in.read(buf)) != -1) {
+          size += n;
+          if (size > maxBytes) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                "Attachments are limited to " + maxBytes + " bytes");
+          }
+          sha.update(buf, 0, n);
+          view.clear().limit(n);
+          while (view.hasRemaining()) {
+            out.write(view);
+          }
+        }
+        out.force(true);
+      }
+
+      String hash = HexFormat.of().formatHex(sha.digest());
+      Path target = pathOf(hash);
+      if (!Files.exists(target)) {
+        Files.createDirectories(target.getParent());
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+      }
+      AttachmentBlob blob = record(hash, size, contentType);
+      return new BlobResponse(blob.getSha256(), blob.getSizeBytes(), blob.getContentType());
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  public Optional<StoredBlob> find(String sha256) {
+    if (sha256 == null || !SHA256.matcher(sha256).matches()) {
+      return Optional.empty();   // also keeps anything path-like away from the filesystem
+    }
+    return blobs.findById(sha256)
+        .map(b -> new StoredBlob(b.getSha256(), pathOf(b.getSha256()), b.getSizeBytes(), b.getContentType()));
+  }
+
+  /**
+   * Writes a file derived from blob {@code sha256} next to the original, as
+   * {@code <sha256>.<suffix>}; readers see either nothing or the complete file.
+   */
+  public void writeDerived(String sha256, String suffix, DerivedWriter writer) throws IOException {
+    Path target = derivedPath(sha256, suffix);
+    Path tmp = Files.createTempFile(incoming, "derived-", ".part");
+    try {
+      try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp), BUFFER)) {
+        writer.write(out);
+      }
+      Files.createDirectories(target.getParent());
+      Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  public Optional<Path> derived(String sha256, String suffix) {
+    if (sha256 == null || !SHA256.matcher(sha256).matches()) {
+      return Optional.empty();
+    }
+    Path path = derivedPath(sha256, suffix);
+    return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+  }
+
+  public boolean exists(String sha256) {
+    return sha256 != null && SHA256.matcher(sha256).matches() && blobs.existsById(sha256);
+  }
+
+  // The file is in place before the row, so a row never points at a missing file
+  private AttachmentBlob record(String hash, long size, String contentType) {
+    Optional<AttachmentBlob> existing = blobs.findById(hash);
+    if (existing.isPresent()) {
+      return existing.get();
+    }
+    AttachmentBlob blob = new AttachmentBlob();
+    blob.setSha256(hash);
+    blob.setSizeBytes(size);
+    blob.setContentType(contentType);
+    blob.setCreatedAt(Instant.now());
+    try {
+      return blobs.save(blob);
+    } catch (DataIntegrityViolationException e) {
+      return blobs.findById(hash).orElseThrow(() -> e);   // an identical upload committed first
+    }
+  }
+
+  private Path pathOf(String hash) {
+    return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+  }
+
+  private Path derivedPath(String hash, String suffix) {
+    return pathOf(hash).resolveSibling(hash + "." + suffix);
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);   // every JRE ships SHA-256
+    }
+  }
+}
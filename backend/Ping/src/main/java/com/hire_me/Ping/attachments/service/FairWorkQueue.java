@@ -0,0 +1,91 @@
+package com.hire_me.Ping.attachments.service;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded work queue with one FIFO per key, drained round-robin across keys: a channel that
+ * posts two hundred photos at once gets one job done per turn, like every other channel, instead
+ * of making everyone else wait behind it.
+ *
+ * Both the total and the per-key backlog are capped; {@link #offer} never blocks and just says
+ * no when either is full.
+ */
+final class FairWorkQueue<K, T> {
+
+  private final int maxTotal;
+  private final int maxPerKey;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private final Map<K, ArrayDeque<T>> queues = new HashMap<>();
+  private final ArrayDeque<K> turns = new ArrayDeque<>();   // keys with work, in serving order
+  private int size;
+
+  FairWorkQueue(int maxTotal, int maxPerKey) {
+    this.maxTotal = maxTotal;
+    this.maxPerKey = maxPerKey;
+  }
+
+  boolean offer(K key, T item) {
+    lock.lock();
+    try {
+      if (size >= maxTotal) {
+        return false;
+      }
+      ArrayDeque<T> queue = queues.get(key);
+      if (queue == null) {
+        queue = new ArrayDeque<>();
+        queues.put(key, queue);
+        turns.addLast(key);
+      } else if (queue.size() >= maxPerKey) {
+        return false;
+      }
+      queue.addLast(item);
+      size++;
+      notEmpty.signal();
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Next item in round-robin order, or null if none arrived within the timeout. */
+  T poll(long timeout, TimeUnit unit) throws InterruptedException {
+    long nanos = unit.toNanos(timeout);
+    lock.lock();
+    try {
+      while (size == 0) {
+        if (nanos <= 0) {
+          return null;
+        }
+        nanos = notEmpty.awaitNanos(nanos);
+      }
+      K key = turns.pollFirst();
+      ArrayDeque<T> queue = queues.get(key);
+      T item = queue.pollFirst();
+      size--;
+      if (queue.isEmpty()) {
+        queues.remove(key);
+      } else {
+        turns.addLast(key);
+      }
+      return item;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  int size() {
+    lock.lock();
+    try {
+      return size;
+    } finally {
+      lock.unlock();
+    }
+  }
+}
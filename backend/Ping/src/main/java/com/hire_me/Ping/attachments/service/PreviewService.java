@@ -0,0 +1,314 @@
+package com.hire_me.Ping.attachments.service;
+
+import com.hire_me.Ping.attachments.service.BlobStore.StoredBlob;
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.entity.Message;
+import com.hire_me.Ping.messages.event.MessageChangedEvent;
+import com.hire_me.Ping.messages.ws.MessageEvents;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Downscaled previews of IMAGE attachments, so channel pages never ship full-resolution files.
+ *
+ * A committed IMAGE post only queues a job (the post's response never waits for decoding); a
+ * small worker pool decodes the original once with Java2D/ImageIO and writes every configured
+ * size next to it in BlobStore ({@code <sha256>.<size>.jpg}, or .png when the image has
+ * transparency). When they are on disk, a {@code previews} payload goes to the conversation's
+ * STOMP topic and clients switch from their placeholder to GET /api/blobs/{sha256}/previews/{size}.
+ *
+ * - Fair: jobs queue per conversation and are served round-robin (FairWorkQueue).
+ * - Bounded: past max-pending (or max-per-conversation) new jobs are dropped and counted, rather
+ *   than piling up in memory; the message itself is unaffected and shows the placeholder.
+ * - Deduplicated: previews belong to the blob, not the message. The same image posted again while
+ *   its job is queued joins that job; posted after, it is answered from disk straight away.
+ * - Cheap decode: a large photo is read with source subsampling, so a 48 MP original is never
+ *   materialized at full size; max-pixels rejects decompression bombs before decoding.
+ */
+@Service
+public class PreviewService {
+
+  private static final Logger log = LoggerFactory.getLogger(PreviewService.class);
+
+  record Target(UUID messageId, UUID channelId, UUID dmId) {}
+
+  private static final class Job {
+    final String sha256;
+    final List<Target> targets = new ArrayList<>();   // guarded by inFlight
+
+    Job(String sha256) {
+      this.sha256 = sha256;
+    }
+  }
+
+  private final BlobStore store;
+  private final MessageEvents fanout;
+  private final boolean enabled;
+  private final int[] sizes;   // ascending
+  private final long maxPixels;
+
+  private final FairWorkQueue<UUID, Job> queue;
+  private final Map<String, Job> inFlight = new HashMap<>();
+  private final ExecutorService workers;
+  private volatile boolean running = true;
+
+  private final Counter generated;
+  private final Counter rejected;
+  private final Counter failed;
+
+  public PreviewService(BlobStore store,
+                        MessageEvents fanout,
+                        @Value("${app.attachments.previews.enabled:true}") boolean enabled,
+                        @Value("${app.attachments.previews.sizes:160,480,1080}") int[] sizes,
+                        @Value("${app.attachments.previews.workers:2}") int workers,
+                        @Value("${app.attachments.previews.max-pending:1000}") int maxPending,
+                        @Value("${app.attachments.previews.max-per-conversation:100}") int maxPerConversation,
+                        @Value("${app.attachments.previews.max-pixels:50000000}") long maxPixels,
+                        MeterRegistry meters) {
+    this.store = store;
+    this.fanout = fanout;
+    this.enabled = enabled && sizes.length > 0;
+    this.sizes = Arrays.stream(sizes).sorted().distinct().toArray();
+    this.maxPixels = maxPixels;
+    this.queue = new FairWorkQueue<>(maxPending, maxPerConversation);
+
+    this.generated = Counter.builder("attachments.previews.generated").register(meters);
+    this.rejected = Counter.builder("attachments.previews.rejected").register(meters);
+    this.failed = Counter.builder("attachments.previews.failed").register(meters);
+    Gauge.builder("attachments.previews.pending", queue, FairWorkQueue::size).register(meters);
+
+    int threads = this.enabled ? Math.max(1, workers) : 0;
+    AtomicInteger n = new AtomicInteger();
+    this.workers = threads == 0 ? null : Executors.newFixedThreadPool(threads, r -> {
+      Thread t = new Thread(r, "attachment-previews-" + n.incrementAndGet());
+      t.setDaemon(true);
+      t.setPriority(Thread.NORM_PRIORITY - 1);   // request threads come first
+      return t;
+    });
+    for (int i = 0; i < threads; i++) {
+      this.workers.execute(this::work);
+    }
+  }
+
+  public int[] sizes() {
+    return sizes.clone();
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void onMessageChanged(MessageChangedEvent event) {
+    MessageResponse m = event.message();
+    if (!enabled || event.kind() != MessageChangedEvent.Kind.CREATED
+        || m.contentType() != Message.ContentType.IMAGE || m.attachmentSha256() == null) {
+      return;
+    }
+    request(m.attachmentSha256(), new Target(m.id(), m.channelId(), m.directConversationId()));
+  }
+
+  /** A finished preview of blob {@code sha256}, if {@code size} is configured and it has been generated. */
+  public Optional<StoredBlob> preview(String sha256, int size) {
+    if (Arrays.binarySearch(sizes, size) < 0) {
+      return Optional.empty();
+    }
+    for (String ext : new String[] {"jpg", "png"}) {
+      Optional<Path> path = store.derived(sha256, size + "." + ext);
+      if (path.isPresent()) {
+        try {
+          return Optional.of(new StoredBlob(sha256, path.get(), Files.size(path.get()), "image/" + (ext.equals("jpg") ? "jpeg" : ext)));
+        } catch (IOException e) {
+          return Optional.empty();   // replaced underneath us; the next request finds it again
+        }
+      }
+    }
+    return Optional.empty();
+  }
+
+  void request(String sha256, Target target) {
+    synchronized (inFlight) {
+      Job job = inFlight.get(sha256);
+      if (job != null) {
+        job.targets.add(target);
+        return;
+      }
+      // workers write the files before leaving inFlight, so under this lock "all present" is final
+      if (!ready(sha256)) {
+        job = new Job(sha256);
+        job.targets.add(target);
+        UUID conversation = target.channelId() != null ? target.channelId() : target.dmId();
+        if (queue.offer(conversation, job)) {
+          inFlight.put(sha256, job);
+        } else {
+          rejected.increment();
+        }
+        return;
+      }
+    }
+    push(sha256, List.of(target));
+  }
+
+  private boolean ready(String sha256) {
+    for (int size : sizes) {
+      if (preview(sha256, size).isEmpty()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void work() {
+    while (running) {
+      Job job;
+      try {
+        job = queue.poll(500, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        return;
+      }
+      if (job == null) {
+        continue;
+      }
+      boolean ok = generate(job.sha256);
+      List<Target> targets;
+      synchronized (inFlight) {
+        inFlight.remove(job.sha256);
+        targets = List.copyOf(job.targets);
+      }
+      if (ok) {
+        push(job.sha256, targets);
+      }
+    }
+  }
+
+  private boolean generate(String sha256) {
+    Optional<StoredBlob> blob = store.find(sha256);
+    if (blob.isEmpty()) {
+      return false;
+    }
+    try (ImageInputStream in = ImageIO.createImageInputStream(blob.get().path().toFile())) {
+      Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+      if (readers == null || !readers.hasNext()) {
+        throw new IOException("not an image format this JRE can decode");
+      }
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(in, true, true);
+        int width = reader.getWidth(0);
+        int height = reader.getHeight(0);
+        if ((long) width * height > maxPixels) {
+          throw new IOException(width + "x" + height + " is over app.attachments.previews.max-pixels");
+        }
+        // decode at the lowest resolution that still leaves 2x headroom over the largest preview
+        int longEdge = Math.max(width, height);
+        int step = Math.max(1, longEdge / (2 * sizes[sizes.length - 1]));
+        ImageReadParam param = reader.getDefaultReadParam();
+        if (step > 1) {
+          param.setSourceSubsampling(step, step, 0, 0);
+        }
+        BufferedImage image = reader.read(0, param);
+        boolean alpha = image.getColorModel().hasAlpha();
+        String ext = alpha ? "png" : "jpg";
+
+        // largest first: each smaller preview is scaled from the previous one
+        for (int i = sizes.length - 1; i >= 0; i--) {
+          double scale = Math.min(1.0, (double) sizes[i] / longEdge);
+          int w = Math.max(1, (int) Math.round(width * scale));
+          int h = Math.max(1, (int) Math.round(height * scale));
+          image = scale(image, w, h, alpha);
+          BufferedImage out = image;
+          store.writeDerived(sha256, sizes[i] + "." + ext, os -> {
+            if (!ImageIO.write(out, ext, os)) {
+              throw new IOException("no ImageIO writer for " + ext);
+            }
+          });
+        }
+      } finally {
+        reader.dispose();
+      }
+      generated.increment();
+      return true;
+    } catch (IOException | RuntimeException e) {
+      failed.increment();
+      log.warn("No previews for attachment {}: {}", sha256, e.toString());
+      return false;
+    }
+  }
+
+  // Halve with bilinear filtering until within 2x, then one last step: close to area-averaging
+  // quality at a fraction of the cost of SCALE_SMOOTH.
+  private static BufferedImage scale(BufferedImage src, int width, int height, boolean alpha) {
+    BufferedImage current = src;
+    int w = src.getWidth();
+    int h = src.getHeight();
+    do {
+      w = Math.max(width, w / 2);
+      h = Math.max(height, h / 2);
+      if (w == current.getWidth() && h == current.getHeight() && current.getType() == imageType(alpha)) {
+        return current;
+      }
+      BufferedImage next = new BufferedImage(w, h, imageType(alpha));
+      Graphics2D g = next.createGraphics();
+      try {
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.drawImage(current, 0, 0, w, h, null);
+      } finally {
+        g.dispose();
+      }
+      current = next;
+    } while (w != width || h != height);
+    return current;
+  }
+
+  private static int imageType(boolean alpha) {
+    return alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+  }
+
+  private void push(String sha256, List<Target> targets) {
+    List<Integer> available = Arrays.stream(sizes).boxed().toList();
+    for (Target t : targets) {
+      MessageEvents.Payload payload = MessageEvents.Payload.previews(t.messageId(), sha256, available);
+      if (t.channelId() != null) {
+        fanout.toChannel(t.channelId(), payload);
+      } else if (t.dmId() != null) {
+        fanout.toDm(t.dmId(), payload);
+      }
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    running = false;
+    if (workers != null) {
+      workers.shutdownNow();
+    }
+  }
+}
@@ -2,6 +2,7 @@ package com.hire_me.Ping.channels.entity;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 
 import com.hire_me.Ping.users.entity.User;
@@ -51,6 +52,15 @@ public class ChannelMember {
     @Column(name = "joined_at", nullable = false, updatable = false)
     private Instant joinedAt;
 
+    // Read marker: messages seen (compared with the channel's message count) and the change seq at that point
+    @ColumnDefault("0")
+    @Column(name = "read_count", nullable = false)
+    private long readCount;
+
+    @ColumnDefault("0")
+    @Column(name = "last_read_seq", nullable = false)
+    private long lastReadSeq;
+
     // Default constructor
     public ChannelMember() {}
 
@@ -102,6 +112,22 @@ public class ChannelMember {
         this.joinedAt = joinedAt;
     }
 
+    public long getReadCount() {
+        return readCount;
+    }
+
+    public void setReadCount(long readCount) {
+        this.readCount = readCount;
+    }
+
+    public long getLastReadSeq() {
+        return lastReadSeq;
+    }
+
+    public void setLastReadSeq(long lastReadSeq) {
+        this.lastReadSeq = lastReadSeq;
+    }
+
     // Convenience methods
     public boolean isManager() {
         return role == Role.MANAGER || role == Role.ADMIN;
@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -29,6 +30,31 @@ public interface ChannelMemberRepository extends JpaRepository<ChannelMember, UU
     @Query("SELECT cm FROM ChannelMember cm JOIN FETCH cm.user WHERE cm.channel.id = :channelId")
     List<ChannelMember> findAllByChannelId(UUID channelId);
 
+    /**
+     * Retrieves the IDs of every channel a user belongs to, without loading the channels.
+     * @param userId The ID of the user.
+     * @return The channel IDs.
+     */
+    @Query("SELECT cm.channel.id FROM ChannelMember cm WHERE cm.user.id = :userId")
+    List<UUID> findChannelIdsByUserId(UUID userId);
+
+    /**
+     * Retrieves the user IDs of every member of a channel, without loading users.
+     * @param channelId The ID of the channel.
+     * @return The member user IDs.
+     */
+    @Query("SELECT cm.user.id FROM ChannelMember cm WHERE cm.channel.id = :channelId")
+    List<UUID> findUserIdsByChannelId(UUID channelId);
+
+    /**
+     * Keeps only the given users who are members of the channel, in one query.
+     * @param channelId The ID of the channel.
+     * @param userIds The candidate user IDs.
+     * @return The candidates that are members.
+     */
+    @Query("SELECT cm.user.id FROM ChannelMember cm WHERE cm.channel.id = :channelId AND cm.user.id IN :userIds")
+    List<UUID> findMemberUserIds(UUID channelId, Collection<UUID> userIds);
+
     /**
      * Deletes a membership entry by channel and user IDs.
      * @param channelId The ID of the channel.
@@ -6,6 +6,7 @@ import com.hire_me.Ping.channels.entity.Channel;
 import com.hire_me.Ping.channels.entity.ChannelMember;
 import com.hire_me.Ping.channels.mapper.ChannelMapper;
 import com.hire_me.Ping.channels.repository.ChannelMemberRepository;
+import com.hire_me.Ping.unread.service.ReadMarkerService;
 import com.hire_me.Ping.users.entity.User;
 import com.hire_me.Ping.users.repo.UserRepository;
 import org.springframework.stereotype.Service;
@@ -20,13 +21,15 @@ public class ChannelMemberService {
     private final ChannelMemberRepository memberRepository;
     private final ChannelService channelService;
     private final UserRepository userService;
+    private final ReadMarkerService readMarkers;
     private final ChannelMapper channelMapper = ChannelMapper.INSTANCE;
 
     public ChannelMemberService(ChannelMemberRepository memberRepository, ChannelService channelService,
-            UserRepository userService) {
+            UserRepository userService, ReadMarkerService readMarkers) {
         this.memberRepository = memberRepository;
         this.channelService = channelService;
         this.userService = userService;
+        this.readMarkers = readMarkers;
     }
 
     public List<ChannelMemberResponse> getChannelMembers(UUID channelId) {
@@ -47,6 +50,10 @@ public class ChannelMemberService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         ChannelMember newMember = new ChannelMember(channel, userToAdd, request.getRole());
+        // Joining doesn't make the channel's history unread
+        ReadMarkerService.Position now = readMarkers.position(channelId);
+        newMember.setReadCount(now.messageCount());
+        newMember.setLastReadSeq(now.lastSeq());
 
         ChannelMember savedMember = memberRepository.save(newMember);
         return channelMapper.memberToResponse(savedMember);
@@ -0,0 +1,18 @@
+package com.hire_me.Ping.common.id;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+/**
+ * Put on a UUID {@code @Id} to have Hibernate assign a {@link UuidV7} on insert
+ * (replaces {@code @GeneratedValue(strategy = GenerationType.UUID)}, which is random v4).
+ */
+@IdGeneratorType(TimeOrderedIdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface TimeOrderedId {
+}
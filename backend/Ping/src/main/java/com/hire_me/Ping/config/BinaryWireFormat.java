@@ -0,0 +1,29 @@
+package com.hire_me.Ping.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.http.MediaType;
+
+/**
+ * CBOR as the compact alternative to JSON, for REST (Accept / Content-Type: application/cbor)
+ * and STOMP (see StompCborNegotiation).
+ *
+ * Same field names as the JSON, but UUIDs are 16-byte binary strings and timestamps are
+ * epoch milliseconds, so clients parse neither UUID text nor ISO-8601.
+ */
+public final class BinaryWireFormat {
+
+    private BinaryWireFormat() {}
+
+    public static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+
+    public static ObjectMapper newCborMapper() {
+        return CBORMapper.builder()
+                .addModule(new JavaTimeModule())
+                .enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS)
+                .build();
+    }
+}
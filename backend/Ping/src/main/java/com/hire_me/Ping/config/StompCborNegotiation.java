@@ -0,0 +1,133 @@
+package com.hire_me.Ping.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-session wire format for STOMP.
+ *
+ * A broker frame is shared by every subscriber of a topic, so the format can't be chosen when
+ * the server publishes. Instead a client opts in once, with {@code accept: application/cbor} on
+ * its CONNECT frame, and MESSAGE frames to that session are re-encoded on the way out:
+ *
+ * - the outgoing JSON converter ({@link #jsonConverter}) keeps the original payload object in a
+ *   header, which the broker copies onto every subscriber's copy of the frame;
+ * - the outbound interceptor swaps the body for CBOR, encoded once per published frame and
+ *   shared by all CBOR sessions. The header itself never reaches the wire.
+ *
+ * JSON sessions are untouched. Frames a client SENDs are decoded by content-type.
+ */
+@Component
+public class StompCborNegotiation {
+
+    private static final String SOURCE_HEADER = "ping.wirePayload";
+
+    private final ObjectMapper cbor = BinaryWireFormat.newCborMapper();
+    private final Set<String> cborSessions = ConcurrentHashMap.newKeySet();
+
+    /** JSON converter for outgoing frames that also remembers the object it serialized. */
+    public MappingJackson2MessageConverter jsonConverter() {
+        return new MappingJackson2MessageConverter() {
+            @Override
+            protected Object convertToInternal(Object payload, MessageHeaders headers, Object conversionHint) {
+                MessageHeaderAccessor accessor = headers == null ? null
+                        : MessageHeaderAccessor.getAccessor(headers, MessageHeaderAccessor.class);
+                if (accessor != null && accessor.isMutable()) {
+                    accessor.setHeader(SOURCE_HEADER, new WirePayload(payload));
+                }
+                return super.convertToInternal(payload, headers, conversionHint);
+            }
+        };
+    }
+
+    /** Decodes SEND frames whose content-type is application/cbor. */
+    public MappingJackson2MessageConverter cborConverter() {
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter(BinaryWireFormat.CBOR);
+        converter.setObjectMapper(cbor);
+        converter.setStrictContentTypeMatch(true);   // never the fallback for untyped frames
+        return converter;
+    }
+
+    /** Records the format a session asked for on CONNECT. */
+    public ChannelInterceptor inbound() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+                if (accessor.getCommand() == StompCommand.CONNECT || accessor.getCommand() == StompCommand.STOMP) {
+                    String accept = accessor.getFirstNativeHeader("accept");
+                    if (accept != null && accept.contains(BinaryWireFormat.CBOR.toString())) {
+                        cborSessions.add(accessor.getSessionId());
+                    }
+                }
+                return message;
+            }
+        };
+    }
+
+    /** Re-encodes MESSAGE frames for sessions that negotiated CBOR. */
+    public ChannelInterceptor outbound() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                if (!(message.getHeaders().get(SOURCE_HEADER) instanceof WirePayload source)) {
+                    return message;
+                }
+                // JSON sessions keep the frame as is; non-native headers are not written to the wire
+                if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE
+                        || !cborSessions.contains(SimpMessageHeaderAccessor.getSessionId(message.getHeaders()))) {
+                    return message;
+                }
+                SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+                accessor.removeHeader(SOURCE_HEADER);
+                accessor.setContentType(BinaryWireFormat.CBOR);
+                return MessageBuilder.createMessage(source.cbor(cbor), accessor.getMessageHeaders());
+            }
+        };
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        cborSessions.remove(event.getSessionId());
+    }
+
+    /** Published object plus its lazily encoded CBOR body, shared by all subscribers of one frame. */
+    static final class WirePayload {
+        private final Object value;
+        private volatile byte[] cborBody;
+
+        WirePayload(Object value) {
+            this.value = value;
+        }
+
+        byte[] cbor(ObjectMapper mapper) {
+            byte[] body = cborBody;
+            if (body == null) {
+                try {
+                    body = mapper.writeValueAsBytes(value);
+                } catch (JsonProcessingException e) {
+                    throw new IllegalStateException("Cannot encode STOMP payload as CBOR", e);
+                }
+                cborBody = body;
+            }
+            return body;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.hire_me.Ping.dms.controller;
 
 import com.hire_me.Ping.dms.dto.DmCreateRequest;
+import com.hire_me.Ping.dms.dto.DmDirectRequest;
 import com.hire_me.Ping.dms.dto.DmParticipantRequest;
 import com.hire_me.Ping.dms.dto.DmResponse;
 import com.hire_me.Ping.dms.service.DmService;
@@ -11,6 +12,7 @@ import com.hire_me.Ping.dms.service.DmService;
 // - DmService: the service layer where the real business logic lives
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -44,17 +46,28 @@ public class DmController {
     // without us manually creating objects.
 
     @PostMapping
-    @ResponseStatus(HttpStatus.CREATED)
-    public DmResponse create(@RequestBody DmCreateRequest req) {
+    public ResponseEntity<DmResponse> create(@RequestBody DmCreateRequest req) {
         // @PostMapping = handles POST requests (client wants to create something).
-        // @ResponseStatus(HttpStatus.CREATED) = return status 201 Created if successful.
         // @RequestBody means: take the JSON body from the request and map it into 
         // a DmCreateRequest object automatically.
         // Then we pass that request to the service to actually create the DM.
+        // A 1:1 DM is only created once per pair: if the two users already have one,
+        // that DM is returned with 200 OK instead of 201 Created.
 
-        return service.create(req);
-        // The service does the work and returns a DmResponse (the new DM info).
-        // The controller just hands that response back to the client.
+        DmService.Opened opened = service.create(req);
+        return ResponseEntity.status(opened.created() ? HttpStatus.CREATED : HttpStatus.OK).body(opened.dm());
+        // The service does the work and returns the DM info; the controller hands it back to the client.
+    }
+
+    @PostMapping("/direct")
+    public ResponseEntity<DmResponse> openDirect(@RequestBody DmDirectRequest req) {
+        // This is POST /api/dms/direct with {"userId": ..., "otherUserId": ...}
+        // It returns THE 1:1 DM between the two users, creating it on first use.
+        // Safe to call whenever a user clicks "message": both users clicking at once still get one DM.
+        // 201 Created if this call created it, 200 OK if it already existed.
+
+        DmService.Opened opened = service.openDirect(req.getUserId(), req.getOtherUserId());
+        return ResponseEntity.status(opened.created() ? HttpStatus.CREATED : HttpStatus.OK).body(opened.dm());
     }
 
     @GetMapping("/{id}")
@@ -68,13 +81,16 @@ public class DmController {
     }
 
     @GetMapping("/user/{userId}")
-    public List<DmResponse> listForUser(@PathVariable("userId") UUID userId) {
+    public List<DmResponse> listForUser(@PathVariable("userId") UUID userId,
+                                        @RequestParam(value = "before", required = false) UUID before,
+                                        @RequestParam(value = "limit", defaultValue = "50") int limit) {
         // This endpoint is GET /api/dms/user/{userId}.
-        // It lists all DMs that a specific user is part of.
-        // Example: GET /api/dms/user/550e8400-e29b-41d4-a716-446655440000 returns all DMs for that user.
+        // It lists the DMs that a specific user is part of, newest first, one page at a time.
+        // Example: GET /api/dms/user/550e8400-e29b-41d4-a716-446655440000 returns the first 50;
+        // ?before={id of the last DM received} returns the next page.
 
-        return service.listForUser(userId);
-        // Service returns a list of DmResponse objects, one for each DM the user is in.
+        return service.listForUser(userId, before, limit);
+        // Service returns a list of DmResponse objects, one for each DM on the page.
     }
 
     @PostMapping("/{id}/participants")
@@ -0,0 +1,26 @@
+package com.hire_me.Ping.dms.dto;
+
+import java.util.UUID;
+
+
+public class DmDirectRequest {
+    // Body of POST /api/dms/direct: "open my 1:1 DM with this user".
+    // The order of the two users doesn't matter; the same pair always gets the same DM.
+
+
+    private UUID userId;
+    // The user opening the DM (becomes its creator if it doesn't exist yet).
+
+
+    private UUID otherUserId;
+    // The user they want to message.
+
+
+    // -------- GETTERS AND SETTERS --------
+
+    public UUID getUserId() { return userId; }
+    public void setUserId(UUID userId) { this.userId = userId; }
+
+    public UUID getOtherUserId() { return otherUserId; }
+    public void setOtherUserId(UUID otherUserId) { this.otherUserId = otherUserId; }
+}
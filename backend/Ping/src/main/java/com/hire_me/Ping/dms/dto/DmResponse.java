@@ -38,6 +38,10 @@ public class DmResponse {
     // When this DM was first created (timestamp).
 
 
+    private Instant updatedAt;
+    // When this DM last saw activity (a new message); the inbox is ordered by it.
+
+
     private List<ParticipantInfo> participants = new ArrayList<>();
     // A list of all participants (users) in this DM.
     // Each participant is represented by the nested ParticipantInfo class below.
@@ -106,6 +110,9 @@ public class DmResponse {
     public Instant getCreatedAt() { return createdAt; }
     public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
 
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+
     public List<ParticipantInfo> getParticipants() { return participants; }
     public void setParticipants(List<ParticipantInfo> participants) { this.participants = participants; }
 }
\ No newline at end of file
@@ -1,17 +1,23 @@
 package com.hire_me.Ping.dms.entity;
 
+import com.hire_me.Ping.common.id.TimeOrderedId;
 import jakarta.persistence.*;
 import java.time.Instant;
 import java.util.UUID;
 
 // This class maps to the "direct_conversation" table.
 @Entity
-@Table(name = "direct_conversation")
+@Table(
+  name = "direct_conversation",
+  uniqueConstraints = @UniqueConstraint( // one 1:1 DM per pair of users
+    name = "uk_dm_pair_key", columnNames = "pair_key"
+  )
+)
 public class DirectConversation {
 
-  // Primary key (UUID).
+  // Primary key (time-ordered UUIDv7, assigned on insert).
   @Id
-  @GeneratedValue(strategy = GenerationType.UUID)
+  @TimeOrderedId
   private UUID id;  // Changed from Long to UUID
 
   // True = group DM (3+ people). False = 1:1 DM.
@@ -24,6 +30,11 @@ public class DirectConversation {
   @Column(name = "created_by_user_id")
   private UUID createdByUserId;  // Added missing field
 
+  // 1:1 DMs only (null for groups): the two user ids in canonical order, see pairKey().
+  // Opening a DM is one probe of its unique index, and two concurrent creates cannot both insert.
+  @Column(name = "pair_key", length = 64)
+  private String pairKey;
+
   // When this DM was created.
   @Column(name = "created_at")
   private Instant createdAt;
@@ -45,9 +56,9 @@ public class DirectConversation {
     updatedAt = Instant.now();
   }
 
-  // Default constructor
+  // Default constructor.
+  // Leave id null until insert: a pre-set id makes save() merge, which fails for a row that does not exist yet.
   public DirectConversation() {
-    this.id = UUID.randomUUID();
   }
 
   // --- getters/setters: small methods to read/write fields ---
@@ -69,4 +80,19 @@ public class DirectConversation {
 
   public Instant getUpdatedAt() { return updatedAt; }
   public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+
+  public String getPairKey() { return pairKey; }
+  public void setPairKey(String pairKey) { this.pairKey = pairKey; }
+
+  // Same key whichever user comes first: both ids as hex, smaller first. 64 chars, no hashing,
+  // so two different pairs can never collide.
+  public static String pairKey(UUID a, UUID b) {
+    UUID lo = a.compareTo(b) <= 0 ? a : b;
+    UUID hi = lo == a ? b : a;
+    return hex(lo) + hex(hi);
+  }
+
+  private static String hex(UUID id) {
+    return String.format("%016x%016x", id.getMostSignificantBits(), id.getLeastSignificantBits());
+  }
 }
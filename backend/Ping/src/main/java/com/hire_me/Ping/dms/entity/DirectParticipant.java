@@ -1,6 +1,8 @@
 package com.hire_me.Ping.dms.entity;
 
+import com.hire_me.Ping.common.id.TimeOrderedId;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.Instant;
 import java.util.UUID;
 
@@ -19,9 +21,9 @@ import java.util.UUID;
 )
 public class DirectParticipant {
     
-    // Primary key (UUID).
+    // Primary key (time-ordered UUIDv7, assigned on insert).
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedId
     private UUID id;  // Changed from Long to UUID
     
     // Which DM this row belongs to (FK column kept for simple queries)
@@ -39,6 +41,15 @@ public class DirectParticipant {
     // When the user left the DM. null = still in.
     @Column(name = "left_at")
     private Instant leftAt;
+
+    // Read marker: messages seen (compared with the DM's message count) and the change seq at that point.
+    @ColumnDefault("0")
+    @Column(name = "read_count", nullable = false)
+    private long readCount;
+
+    @ColumnDefault("0")
+    @Column(name = "last_read_seq", nullable = false)
+    private long lastReadSeq;
     
     // Is this user an admin of the DM (can add/remove others for groups).
     @Column(name = "is_admin")
@@ -55,9 +66,9 @@ public class DirectParticipant {
         ALL, MENTIONS_ONLY, NONE
     }
 
-    // Default constructor
+    // Default constructor.
+    // Leave id null until insert: a pre-set id makes save() merge (SELECT + INSERT) instead of persist.
     public DirectParticipant() {
-        this.id = UUID.randomUUID();
     }
 
     @PrePersist
@@ -87,6 +98,12 @@ public class DirectParticipant {
     public Instant getLeftAt() { return leftAt; }
     public void setLeftAt(Instant leftAt) { this.leftAt = leftAt; }
 
+    public long getReadCount() { return readCount; }
+    public void setReadCount(long readCount) { this.readCount = readCount; }
+
+    public long getLastReadSeq() { return lastReadSeq; }
+    public void setLastReadSeq(long lastReadSeq) { this.lastReadSeq = lastReadSeq; }
+
     public boolean isAdmin() { return isAdmin; }
     public void setAdmin(boolean admin) { isAdmin = admin; }
 
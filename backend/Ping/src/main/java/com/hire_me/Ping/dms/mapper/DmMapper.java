@@ -9,8 +9,8 @@ import org.springframework.stereotype.Component;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Component
@@ -43,7 +43,7 @@ public class DmMapper {
         if (req == null || conversationId == null) return null;
 
         DirectParticipant participant = new DirectParticipant();
-        // ID will be auto-generated by @GeneratedValue(strategy = GenerationType.UUID)
+        // ID will be assigned on insert by @TimeOrderedId (UUIDv7)
 
         // Link this participant to the conversation
         participant.setDirectConversationId(conversationId);
@@ -78,6 +78,7 @@ public class DmMapper {
         response.setTitle(conv.getTitle());
         response.setGroup(conv.isGroup());
         response.setCreatedAt(conv.getCreatedAt());
+        response.setUpdatedAt(conv.getUpdatedAt());
 
         if (participants != null) {
             response.setParticipants(participants.stream()
@@ -89,12 +90,17 @@ public class DmMapper {
     }
 
     // ----------------- Entities -> Response DTOs (list) -----------------
-    public List<DmResponse> toResponses(List<DirectConversation> conversations, 
-                                       Function<UUID, List<DirectParticipant>> participantLoader) {
+    // participants: those of all the conversations, in one list; grouped here rather than
+    // loaded per conversation
+    public List<DmResponse> toResponses(List<DirectConversation> conversations,
+                                       List<DirectParticipant> participants) {
         if (conversations == null) return null;
 
+        Map<UUID, List<DirectParticipant>> byConversation = participants.stream()
+            .collect(Collectors.groupingBy(DirectParticipant::getDirectConversationId));
+
         return conversations.stream()
-            .map(conv -> toResponse(conv, participantLoader.apply(conv.getId())))
+            .map(conv -> toResponse(conv, byConversation.getOrDefault(conv.getId(), List.of())))
             .collect(Collectors.toList());
     }
 
@@ -1,6 +1,7 @@
 package com.hire_me.Ping.dms.repo;
 
 import com.hire_me.Ping.dms.entity.DirectConversation;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -34,15 +35,37 @@ public interface DirectConversationRepository extends JpaRepository<DirectConver
     // Useful when you already know which conversations matter and you just need details.
 
 
-    @Query("select c from DirectConversation c where c.isGroup = false and c.id in (" +
+    @Query("SELECT dc FROM DirectConversation dc WHERE dc.id IN (" +
+           "SELECT dp.directConversationId FROM DirectParticipant dp WHERE dp.userId = :userId AND dp.leftAt IS NULL) " +
+           "ORDER BY dc.updatedAt DESC, dc.id DESC")
+    List<DirectConversation> findInboxPage(@Param("userId") UUID userId, Pageable pageable);
+
+    @Query("SELECT dc FROM DirectConversation dc WHERE dc.id IN (" +
+           "SELECT dp.directConversationId FROM DirectParticipant dp WHERE dp.userId = :userId AND dp.leftAt IS NULL) " +
+           "AND (dc.updatedAt, dc.id) < (SELECT c.updatedAt, c.id FROM DirectConversation c WHERE c.id = :cursorId) " +
+           "ORDER BY dc.updatedAt DESC, dc.id DESC")
+    List<DirectConversation> findInboxPageBefore(@Param("userId") UUID userId,
+                                                 @Param("cursorId") UUID cursorId,
+                                                 Pageable pageable);
+    // One page of a user's inbox: the DMs they are active in, most recent activity first
+    // (updatedAt, which DmService moves forward on every new message).
+    // The "before" variant resolves the cursor DM's (updatedAt, id) inside the same statement,
+    // so a page is always one query however deep the user scrolls.
+
+
+    Optional<DirectConversation> findByPairKey(String pairKey);
+    // The 1:1 DM of a pair of users (see DirectConversation.pairKey): one unique-index probe.
+
+
+    @Query("select c from DirectConversation c where c.isGroup = false and c.pairKey is null and c.id in (" +
             " select dp.directConversationId from DirectParticipant dp " +
-            " where dp.userId in (:u1, :u2) and dp.leftAt is null " +
-            " group by dp.directConversationId having count(distinct dp.userId) = 2)")
-    Optional<DirectConversation> findDirectBetween(@Param("u1") UUID user1, @Param("u2") UUID user2);
-    // This query tries to find a one-on-one (non-group) DM between two specific users.
-    // - c.isGroup = false ensures it's not a group chat.
-    // - Inner query: find conversation IDs where BOTH user1 and user2 are present,
-    //   and neither has left (leftAt is null).
-    // - group by + having count(distinct dp.userId) = 2 ensures the conversation has exactly these 2 users.
-    // Returns Optional<DirectConversation> because there might be zero or one result.
-}
\ No newline at end of file
+            " where dp.userId in (:u1, :u2) " +
+            " group by dp.directConversationId having count(distinct dp.userId) = 2)" +
+            " order by c.createdAt, c.id")
+    List<DirectConversation> findUnkeyedDirectBetween(@Param("u1") UUID user1, @Param("u2") UUID user2);
+    // 1:1 DMs created before pair keys existed, oldest first. DmService.openDirect falls back to
+    // this once per pair and gives the oldest one its key; after that findByPairKey finds it.
+    // - Inner query: find conversation IDs where BOTH user1 and user2 have a participant row,
+    //   whether or not one of them has left (openDirect brings them back).
+    // Returns a list because such a pair may have been given duplicates back then.
+}
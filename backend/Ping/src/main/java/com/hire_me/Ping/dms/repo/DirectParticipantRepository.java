@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -24,6 +25,11 @@ public interface DirectParticipantRepository extends JpaRepository<DirectPartici
     // Useful when you want to list everyone in a DM.
 
 
+    List<DirectParticipant> findByDirectConversationIdInOrderByIdAsc(Collection<UUID> directConversationIds);
+    // Participants of many conversations in one IN query (inbox pages); ids are time-ordered,
+    // so each conversation's participants come back in join order.
+
+
     List<DirectParticipant> findByUserIdAndLeftAtIsNull(UUID userId);
     // Returns all conversations where this user is still active.
     // leftAt IS NULL = they have not left the conversation.
@@ -1,5 +1,6 @@
 package com.hire_me.Ping.dms.service;
 
+import com.hire_me.Ping.common.id.UuidV7;
 import com.hire_me.Ping.dms.dto.DmCreateRequest;
 import com.hire_me.Ping.dms.dto.DmParticipantRequest;
 import com.hire_me.Ping.dms.dto.DmResponse;
@@ -8,33 +9,67 @@ import com.hire_me.Ping.dms.entity.DirectParticipant;
 import com.hire_me.Ping.dms.mapper.DmMapper;
 import com.hire_me.Ping.dms.repo.DirectConversationRepository;
 import com.hire_me.Ping.dms.repo.DirectParticipantRepository;
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.event.MessageChangedEvent;
+import com.hire_me.Ping.unread.service.ReadMarkerService;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Timestamp;
 import java.time.Instant;  // Changed from LocalDateTime
 import java.util.*;
 
 @Service
 public class DmService {
+    private static final int MAX_INBOX_PAGE = 100;
+    private static final int OPEN_ATTEMPTS = 3;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO direct_conversation (id, is_group, title, created_by_user_id, created_at, updated_at, pair_key) " +
+            "VALUES (?, FALSE, NULL, ?, ?, ?, ?)";
+
+    private static final String CLAIM_SQL =
+            "UPDATE direct_conversation SET pair_key = ? WHERE id = ? AND pair_key IS NULL";
+
+    // Only ever forward, so a batch or a late replay cannot move a DM back down the inbox
+    private static final String TOUCH_SQL =
+            "UPDATE direct_conversation SET updated_at = ? WHERE id = ? AND (updated_at IS NULL OR updated_at < ?)";
+
     private final DirectConversationRepository conversationRepo;
     private final DirectParticipantRepository participantRepo;
     private final DmMapper mapper;
+    private final ReadMarkerService readMarkers;
+    private final JdbcTemplate jdbc;
 
-    public DmService(DirectConversationRepository conversationRepo, DirectParticipantRepository participantRepo, DmMapper mapper) {
+    public DmService(DirectConversationRepository conversationRepo, DirectParticipantRepository participantRepo, DmMapper mapper,
+                     ReadMarkerService readMarkers, JdbcTemplate jdbc) {
         this.conversationRepo = conversationRepo;
         this.participantRepo = participantRepo;
         this.mapper = mapper;
+        this.readMarkers = readMarkers;
+        this.jdbc = jdbc;
     }
 
+    // A DM from create or openDirect, and whether this call created it
+    public record Opened(DmResponse dm, boolean created) {}
+
     @Transactional
-    public DmResponse create(DmCreateRequest req) {
+    public Opened create(DmCreateRequest req) {
         if (req.getCreatedByUserId() == null) {
             throw new IllegalArgumentException("createdByUserId is required");
         }
 
-        DirectConversation conv = mapper.toConversation(req);
-        conv = conversationRepo.save(conv);
-
         // Ensure creator is present in the participant list as admin by default
         Map<UUID, DmParticipantRequest> byUser = new LinkedHashMap<>();
         if (req.getParticipants() != null) {
@@ -46,11 +81,19 @@ public class DmService {
         }
         byUser.putIfAbsent(req.getCreatedByUserId(), creatorAdmin(req));
 
-        // For 1:1, ensure exactly two distinct users
-        if (!req.isGroup() && byUser.size() != 2) {
-            throw new IllegalArgumentException("1:1 DM must include exactly 2 distinct users (including creator)");
+        // For 1:1, ensure exactly two distinct users; the pair's existing DM is returned if it has one
+        if (!req.isGroup()) {
+            if (byUser.size() != 2) {
+                throw new IllegalArgumentException("1:1 DM must include exactly 2 distinct users (including creator)");
+            }
+            UUID other = byUser.keySet().stream()
+                    .filter(u -> !u.equals(req.getCreatedByUserId())).findFirst().orElseThrow();
+            return openDirect(req.getCreatedByUserId(), other, byUser);
         }
 
+        DirectConversation conv = mapper.toConversation(req);
+        conv = conversationRepo.save(conv);
+
         List<DirectParticipant> parts = new ArrayList<>();
         for (DmParticipantRequest p : byUser.values()) {
             DirectParticipant dp = mapper.toParticipant(conv.getId(), p);
@@ -59,7 +102,116 @@ public class DmService {
         participantRepo.saveAll(parts);
 
         List<DirectParticipant> saved = participantRepo.findByDirectConversationId(conv.getId());
-        return mapper.toResponse(conv, saved);
+        return new Opened(mapper.toResponse(conv, saved), true);
+    }
+
+    /**
+     * Get-or-create of the 1:1 DM between two users, in either order. The common case is one probe
+     * of uk_dm_pair_key. Otherwise the row is inserted under a JDBC savepoint: of two concurrent
+     * opens, the database makes the second insert wait for the first and then fail on the unique
+     * key, which rolls back to the savepoint only, and the loser reads the winner's DM. Either user
+     * who had left the DM is brought back in.
+     */
+    @Transactional
+    public Opened openDirect(UUID userId, UUID otherUserId) {
+        Map<UUID, DmParticipantRequest> settings = new HashMap<>();
+        if (userId != null && otherUserId != null) {
+            settings.put(userId, participant(userId, true));
+            settings.put(otherUserId, participant(otherUserId, false));
+        }
+        return openDirect(userId, otherUserId, settings);
+    }
+
+    // settings: admin flag and notify level of each user, for rows this call creates or brings back;
+    // the opener's own notify level also replaces theirs, nobody else's active row is touched
+    private Opened openDirect(UUID userId, UUID otherUserId, Map<UUID, DmParticipantRequest> settings) {
+        if (userId == null || otherUserId == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "userId and otherUserId are required");
+        }
+        if (userId.equals(otherUserId)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A 1:1 DM needs two different users");
+        }
+        String key = DirectConversation.pairKey(userId, otherUserId);
+        for (int attempt = 0; attempt < OPEN_ATTEMPTS; attempt++) {
+            Optional<DirectConversation> existing = conversationRepo.findByPairKey(key);
+            if (existing.isPresent()) {
+                return new Opened(withBoth(existing.get(), userId, otherUserId, settings), false);
+            }
+            // a pair from before pair keys: its oldest DM gets the key
+            List<DirectConversation> unkeyed = conversationRepo.findUnkeyedDirectBetween(userId, otherUserId);
+            if (!unkeyed.isEmpty()) {
+                if (underSavepoint(CLAIM_SQL, key, unkeyed.get(0).getId()) == 1) {
+                    DirectConversation conv = unkeyed.get(0);
+                    conv.setPairKey(key);   // managed copy, so a later flush does not write the old value back
+                    return new Opened(withBoth(conv, userId, otherUserId, settings), false);
+                }
+                continue;
+            }
+            UUID id = UuidV7.next();   // same time-ordered ids as the entity path
+            Timestamp now = Timestamp.from(Instant.now());
+            if (underSavepoint(INSERT_SQL, id, userId, now, now, key) == 1) {
+                DirectConversation conv = conversationRepo.findById(id).orElseThrow();
+                List<DirectParticipant> parts = new ArrayList<>();
+                parts.add(mapper.toParticipant(id, settings.get(userId)));
+                parts.add(mapper.toParticipant(id, settings.get(otherUserId)));
+                participantRepo.saveAll(parts);
+                return new Opened(mapper.toResponse(conv, parts), true);
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.CONFLICT, "DM between these users is being created; retry");
+    }
+
+    // Makes sure both users are active participants (a user who left a 1:1 DM and opens it again rejoins)
+    private DmResponse withBoth(DirectConversation conv, UUID userId, UUID otherUserId, Map<UUID, DmParticipantRequest> settings) {
+        List<DirectParticipant> parts = participantRepo.findByDirectConversationId(conv.getId());
+        for (UUID user : List.of(userId, otherUserId)) {
+            DmParticipantRequest wanted = settings.get(user);
+            Optional<DirectParticipant> row = parts.stream().filter(p -> p.getUserId().equals(user)).findFirst();
+            if (row.isEmpty()) {
+                DirectParticipant added = participantRepo.save(caughtUp(mapper.toParticipant(conv.getId(), wanted)));
+                parts.add(added);
+            } else if (row.get().getLeftAt() != null) {
+                DirectParticipant back = row.get();
+                back.setLeftAt(null);
+                back.setJoinedAt(Instant.now());
+                back.setAdmin(Boolean.TRUE.equals(wanted.getAdmin()));
+                if (wanted.getNotifyLevel() != null) back.setNotifyLevel(wanted.getNotifyLevel());
+                participantRepo.save(caughtUp(back));
+            } else if (user.equals(userId) && wanted.getNotifyLevel() != null) {
+                row.get().setNotifyLevel(wanted.getNotifyLevel());
+                participantRepo.save(row.get());
+            }
+        }
+        return mapper.toResponse(conv, parts);
+    }
+
+    // 0 = a concurrent open won the unique key; its DM is visible once it committed
+    private int underSavepoint(String sql, Object... args) {
+        try {
+            return jdbc.execute((ConnectionCallback<Integer>) con -> {
+                Savepoint before = con.setSavepoint();
+                try (PreparedStatement ps = con.prepareStatement(sql)) {
+                    for (int i = 0; i < args.length; i++) {
+                        ps.setObject(i + 1, args[i]);
+                    }
+                    int n = ps.executeUpdate();
+                    con.releaseSavepoint(before);
+                    return n;
+                } catch (SQLException e) {
+                    con.rollback(before);
+                    throw e;
+                }
+            });
+        } catch (DuplicateKeyException lostTheRace) {
+            return 0;
+        }
+    }
+
+    private static DmParticipantRequest participant(UUID userId, boolean admin) {
+        DmParticipantRequest p = new DmParticipantRequest();
+        p.setUserId(userId);
+        p.setAdmin(admin);
+        return p;
     }
 
     private DmParticipantRequest creatorAdmin(DmCreateRequest req) {
@@ -77,12 +229,19 @@ public class DmService {
         return mapper.toResponse(conv, parts);
     }
 
+    // Inbox page, most recently active DM first; ?before={dmId} continues after the last one seen.
+    // A DM that gets a message between two pages moves up, so the next page may skip it:
+    // the client keeps what it has and dedupes by id.
+    // Two queries per page whatever its size: the conversations, then all their participants.
     @Transactional(readOnly = true)
-    public List<DmResponse> listForUser(UUID userId) {
-        List<UUID> ids = conversationRepo.findActiveConversationIdsByUser(userId);
-        if (ids.isEmpty()) return Collections.emptyList();
-        List<DirectConversation> convs = conversationRepo.findAllByIds(ids);
-        return mapper.toResponses(convs, participantRepo::findByDirectConversationId);
+    public List<DmResponse> listForUser(UUID userId, UUID before, int limit) {
+        PageRequest page = PageRequest.of(0, Math.max(1, Math.min(limit, MAX_INBOX_PAGE)));
+        List<DirectConversation> convs = before == null
+                ? conversationRepo.findInboxPage(userId, page)
+                : conversationRepo.findInboxPageBefore(userId, before, page);
+        if (convs.isEmpty()) return Collections.emptyList();
+        List<UUID> ids = convs.stream().map(DirectConversation::getId).toList();
+        return mapper.toResponses(convs, participantRepo.findByDirectConversationIdInOrderByIdAsc(ids));
     }
 
     @Transactional
@@ -101,16 +260,24 @@ public class DmService {
                 DirectParticipant rejoin = mapper.toParticipant(conversationId, req);
                 rejoin.setJoinedAt(Instant.now());  // Changed from LocalDateTime.now()
                 rejoin.setLeftAt(null);
-                participantRepo.save(rejoin);
+                participantRepo.save(caughtUp(rejoin));
             }
         } else {
-            participantRepo.save(mapper.toParticipant(conversationId, req));
+            participantRepo.save(caughtUp(mapper.toParticipant(conversationId, req)));
         }
 
         List<DirectParticipant> parts = participantRepo.findByDirectConversationId(conversationId);
         return mapper.toResponse(conv, parts);
     }
 
+    // Joining doesn't make the DM's history unread
+    private DirectParticipant caughtUp(DirectParticipant participant) {
+        ReadMarkerService.Position now = readMarkers.position(participant.getDirectConversationId());
+        participant.setReadCount(now.messageCount());
+        participant.setLastReadSeq(now.lastSeq());
+        return participant;
+    }
+
     @Transactional
     public DmResponse removeParticipant(UUID conversationId, UUID userId) {
         DirectConversation conv = conversationRepo.findById(conversationId)
@@ -121,5 +288,15 @@ public class DmService {
         List<DirectParticipant> parts = participantRepo.findByDirectConversationId(conversationId);
         return mapper.toResponse(conv, parts);
     }
-}
 
+    // A new message is activity: it moves the DM to the top of its members' inboxes.
+    // Runs inside the posting transaction, like ReadMarkerService's own-message bump.
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onMessageChanged(MessageChangedEvent event) {
+        if (event.kind() != MessageChangedEvent.Kind.CREATED) return;
+        MessageResponse m = event.message();
+        if (m.directConversationId() == null) return;
+        Timestamp at = Timestamp.from(m.createdAt());
+        jdbc.update(TOUCH_SQL, at, m.directConversationId(), at);
+    }
+}
@@ -1,12 +1,13 @@
 package com.hire_me.Ping.dms.ws;
 
+import java.util.UUID;
+
 public final class DmTopics {
     private DmTopics() {}
 
     public static final String ROOT = "/topic/dms";
 
-    public static String conversation(Long dmId) {
+    public static String conversation(UUID dmId) {
         return ROOT + "/" + dmId;
     }
 }
-
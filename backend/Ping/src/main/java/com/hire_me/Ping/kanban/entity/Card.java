@@ -1,5 +1,6 @@
 package com.hire_me.Ping.kanban.entity;
 
+import com.hire_me.Ping.common.id.TimeOrderedId;
 import jakarta.persistence.*;
 import java.time.Instant;
 import java.util.ArrayList;
@@ -14,7 +15,7 @@ import java.util.UUID;
 public class Card {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedId
     @Column(columnDefinition = "uuid")
     private UUID id;
 
@@ -0,0 +1,135 @@
+package com.hire_me.Ping.messages.cache;
+
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Recent (sender, Idempotency-Key) pairs and the post each one produced, so a client retrying a
+ * post gets the original MessageResponse back without another DB round trip.
+ *
+ * - The first request with a key claims it with a pending future; a retry arriving while the
+ *   original is still being written waits on that future instead of inserting a duplicate.
+ * - A failed post releases its claim, so a later retry writes for real.
+ * - Entries expire after a fixed TTL and the cache holds at most {@code max-entries}; with one
+ *   TTL for everything, insertion order is expiry order, so trimming is a walk from the head
+ *   of a FIFO. Past that window the unique (sender_user_id, idempotency_key) constraint on
+ *   message still catches the retry (see MessageService), also across nodes.
+ */
+@Component
+public class IdempotencyCache {
+
+  record Key(UUID senderId, String key) {}
+
+  private static final class Entry {
+    final Key key;
+    final CompletableFuture<MessageResponse> result;
+    final long expiresAtMs;
+
+    Entry(Key key, CompletableFuture<MessageResponse> result, long expiresAtMs) {
+      this.key = key;
+      this.result = result;
+      this.expiresAtMs = expiresAtMs;
+    }
+  }
+
+  private final boolean enabled;
+  private final long ttlMs;
+  private final int maxEntries;
+  private final LongSupplier clockMs;
+
+  private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+  private final Queue<Entry> order = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger queued = new AtomicInteger();   // order.size() is O(n)
+
+  private final Counter hits;
+
+  @Autowired
+  public IdempotencyCache(@Value("${app.messages.idempotency.enabled:true}") boolean enabled,
+                          @Value("${app.messages.idempotency.ttl-ms:600000}") long ttlMs,
+                          @Value("${app.messages.idempotency.max-entries:100000}") int maxEntries,
+                          MeterRegistry meters) {
+    this(enabled, ttlMs, maxEntries, System::currentTimeMillis, meters);
+  }
+
+  IdempotencyCache(boolean enabled, long ttlMs, int maxEntries, LongSupplier clockMs, MeterRegistry meters) {
+    this.enabled = enabled && maxEntries > 0;
+    this.ttlMs = ttlMs;
+    this.maxEntries = maxEntries;
+    this.clockMs = clockMs;
+
+    this.hits = Counter.builder("messages.idempotency.replays").register(meters);
+    Gauge.builder("messages.idempotency.entries", entries, Map::size).register(meters);
+  }
+
+  /**
+   * Claims {@code key} for the caller with {@code mine}, the future the caller will complete
+   * with its post. Returns null if the caller now owns the key (and must complete {@code mine}
+   * or {@link #release} it), otherwise the original post's result, which may still be in flight.
+   */
+  public CompletableFuture<MessageResponse> claim(UUID senderId, String key, CompletableFuture<MessageResponse> mine) {
+    if (!enabled) {
+      return null;
+    }
+    Key k = new Key(senderId, key);
+    long now = clockMs.getAsLong();
+    Entry entry = new Entry(k, mine, now + ttlMs);
+    while (true) {
+      Entry existing = entries.putIfAbsent(k, entry);
+      if (existing == null) {
+        enqueue(entry, now);
+        return null;
+      }
+      if (existing.expiresAtMs > now) {
+        hits.increment();
+        return existing.result;
+      }
+      if (entries.replace(k, existing, entry)) {
+        enqueue(entry, now);
+        return null;
+      }
+    }
+  }
+
+  /** Gives up a claim after a failed post, so a retry writes for real instead of replaying the failure. */
+  public void release(UUID senderId, String key, CompletableFuture<MessageResponse> mine) {
+    Key k = new Key(senderId, key);
+    Entry e = entries.get(k);
+    if (e != null && e.result == mine) {
+      entries.remove(k, e);
+    }
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  // Drop expired entries, then the oldest ones while over the bound. Evicting a claim still in flight
+  // is harmless: its waiters hold the future, and the DB constraint catches anyone arriving later.
+  // Released claims linger in the FIFO until they reach the head, hence the second bound on it.
+  private void enqueue(Entry entry, long now) {
+    order.add(entry);
+    queued.incrementAndGet();
+    Entry head;
+    while ((head = order.peek()) != null
+        && (head.expiresAtMs <= now || entries.size() > maxEntries || queued.get() > 2 * maxEntries)) {
+      if (order.remove(head)) {
+        queued.decrementAndGet();
+        entries.remove(head.key, head);
+      }
+    }
+  }
+}
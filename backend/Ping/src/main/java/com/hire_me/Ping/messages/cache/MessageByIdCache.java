@@ -0,0 +1,210 @@
+package com.hire_me.Ping.messages.cache;
+
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.event.MessageChangedEvent;
+import com.hire_me.Ping.messages.event.MessagesArchivedEvent;
+import com.hire_me.Ping.messages.event.MessagesPurgedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Read-through cache of single messages by id, for the lookups that come back to the same recent
+ * messages over and over: opening a message from a notification, editing and deleting it,
+ * replying to it (see MessageService).
+ *
+ * - Bounded: {@code max-entries} split over 16 LRU stripes, least recently used evicted first,
+ *   and every entry expires {@code ttl-ms} after it was loaded.
+ * - Invalidated AFTER_COMMIT when a message is edited or deleted (and a thread root when it gets
+ *   a reply, as its reply count moved), purged or moved to the cold tier. A load that raced with
+ *   an invalidation is not installed (per-stripe stamps, as in RecentMessageCache).
+ * - Node-local. With a MessageCacheInvalidations bean the ids are also sent to the other nodes,
+ *   which call {@link #evictLocal}; without one, the TTL bounds how stale another node can be.
+ */
+@Component
+public class MessageByIdCache {
+
+  private static final int STRIPES = 16;
+
+  private record Entry(MessageResponse message, long expiresAtMs) {}
+
+  private static final class Stripe extends LinkedHashMap<UUID, Entry> {
+    private final int capacity;
+    private long evicted;
+
+    Stripe(int capacity) {
+      super(16, 0.75f, true);
+      this.capacity = capacity;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) {
+      if (size() > capacity) {
+        evicted++;
+        return true;
+      }
+      return false;
+    }
+  }
+
+  private final boolean enabled;
+  private final long ttlMs;
+  private final LongSupplier clockMs;
+  private final ObjectProvider<MessageCacheInvalidations> peers;
+
+  private final Stripe[] stripes = new Stripe[STRIPES];
+  private final AtomicLongArray stamps = new AtomicLongArray(STRIPES);
+
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter expired;
+
+  @Autowired
+  public MessageByIdCache(@Value("${app.messages.by-id-cache.enabled:true}") boolean enabled,
+                          @Value("${app.messages.by-id-cache.max-entries:10000}") int maxEntries,
+                          @Value("${app.messages.by-id-cache.ttl-ms:300000}") long ttlMs,
+                          ObjectProvider<MessageCacheInvalidations> peers,
+                          MeterRegistry meters) {
+    this(enabled, maxEntries, ttlMs, System::currentTimeMillis, peers, meters);
+  }
+
+  MessageByIdCache(boolean enabled, int maxEntries, long ttlMs, LongSupplier clockMs,
+                   ObjectProvider<MessageCacheInvalidations> peers, MeterRegistry meters) {
+    this.enabled = enabled && maxEntries > 0 && ttlMs > 0;
+    this.ttlMs = ttlMs;
+    this.clockMs = clockMs;
+    this.peers = peers;
+    int perStripe = Math.max(1, (maxEntries + STRIPES - 1) / STRIPES);
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new Stripe(perStripe);
+    }
+
+    this.hits = Counter.builder("messages.by_id_cache.requests").tag("result", "hit").register(meters);
+    this.misses = Counter.builder("messages.by_id_cache.requests").tag("result", "miss").register(meters);
+    this.expired = Counter.builder("messages.by_id_cache.evictions").tag("cause", "expired").register(meters);
+    FunctionCounter.builder("messages.by_id_cache.evictions", this, MessageByIdCache::sizeEvictions)
+        .tag("cause", "size").register(meters);
+    Gauge.builder("messages.by_id_cache.entries", this, MessageByIdCache::size).register(meters);
+    Gauge.builder("messages.by_id_cache.hit_ratio", this, c -> {
+      double total = c.hits.count() + c.misses.count();
+      return total == 0 ? 0 : c.hits.count() / total;
+    }).register(meters);
+  }
+
+  /**
+   * The cached message, or else {@code loader}'s (installed unless the message was invalidated
+   * while it loaded). An empty load is not cached.
+   */
+  public Optional<MessageResponse> get(UUID messageId, Function<UUID, Optional<MessageResponse>> loader) {
+    if (!enabled) {
+      return loader.apply(messageId);
+    }
+    int s = stripe(messageId);
+    Stripe stripe = stripes[s];
+    long now = clockMs.getAsLong();
+    synchronized (stripe) {
+      Entry e = stripe.get(messageId);
+      if (e != null) {
+        if (e.expiresAtMs() > now) {
+          hits.increment();
+          return Optional.of(e.message());
+        }
+        stripe.remove(messageId);
+        expired.increment();
+      }
+    }
+    misses.increment();
+
+    long stamp = stamps.get(s);
+    Optional<MessageResponse> loaded = loader.apply(messageId);
+    loaded.ifPresent(m -> {
+      synchronized (stripe) {
+        if (stamps.get(s) == stamp) {
+          stripe.put(messageId, new Entry(m, clockMs.getAsLong() + ttlMs));
+        }
+      }
+    });
+    return loaded;
+  }
+
+  /** Drops the ids on this node and tells the other nodes (if a transport is configured). */
+  public void evict(Collection<UUID> messageIds) {
+    if (messageIds.isEmpty()) {
+      return;
+    }
+    evictLocal(messageIds);
+    peers.ifAvailable(p -> p.broadcast(messageIds));
+  }
+
+  /** Drops the ids on this node only: for invalidations received from another node. */
+  public void evictLocal(Collection<UUID> messageIds) {
+    for (UUID id : messageIds) {
+      int s = stripe(id);
+      synchronized (stripes[s]) {
+        stamps.incrementAndGet(s);
+        stripes[s].remove(id);
+      }
+    }
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void onMessageChanged(MessageChangedEvent event) {
+    MessageResponse m = event.message();
+    if (event.kind() != MessageChangedEvent.Kind.CREATED) {
+      evict(List.of(m.id()));
+    } else if (m.parentMessageId() != null) {
+      evict(List.of(m.parentMessageId()));
+    }
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void onMessagesPurged(MessagesPurgedEvent event) {
+    evict(event.messageIds());
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void onMessagesArchived(MessagesArchivedEvent event) {
+    evict(event.messageIds());
+  }
+
+  int size() {
+    int n = 0;
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        n += stripe.size();
+      }
+    }
+    return n;
+  }
+
+  private long sizeEvictions() {
+    long n = 0;
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        n += stripe.evicted;
+      }
+    }
+    return n;
+  }
+
+  private static int stripe(UUID id) {
+    return (int) (id.getLeastSignificantBits() & (STRIPES - 1));
+  }
+}
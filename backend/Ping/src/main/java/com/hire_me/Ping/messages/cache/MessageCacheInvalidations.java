@@ -0,0 +1,16 @@
+package com.hire_me.Ping.messages.cache;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Carries MessageByIdCache invalidations to the other nodes of a multi-node deployment (Redis
+ * pub/sub, Postgres LISTEN/NOTIFY, a STOMP broker relay, ...). An implementation sends the ids
+ * and, on every node that receives them, calls {@link MessageByIdCache#evictLocal}. No bean: the
+ * cache stays node-local.
+ */
+public interface MessageCacheInvalidations {
+
+  /** Called after commit with the ids this node just invalidated; must not block for long. */
+  void broadcast(Collection<UUID> messageIds);
+}
@@ -0,0 +1,327 @@
+package com.hire_me.Ping.messages.cache;
+
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.event.MessageChangedEvent;
+import com.hire_me.Ping.messages.event.MessagesArchivedEvent;
+import com.hire_me.Ping.messages.event.MessagesImportedEvent;
+import com.hire_me.Ping.messages.event.MessagesPurgedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Hot-tail cache: the newest N messages of recently read channels, so the first page of
+ * GET /api/channels/{id}/messages does not need a DB round trip.
+ *
+ * - Filled from the DB on a miss (see MessageService.listChannel), then kept current by
+ *   MessageChangedEvents AFTER_COMMIT, so it never shows uncommitted or rolled-back rows.
+ * - Bounded by channel count and an estimated byte budget; the least recently read
+ *   channel is evicted first.
+ * - A fill that raced with a commit is dropped (per-stripe change stamps, re-checked and
+ *   installed under the stripe's lock, as in MessageByIdCache), so a slow DB read can never
+ *   overwrite a newer tail.
+ */
+@Component
+public class RecentMessageCache {
+
+  private static final int STRIPES = 64;
+
+  // Ordering used by the channel pages: (createdAt, id), ids compared bytewise like the DB does
+  static final Comparator<MessageResponse> ORDER = Comparator
+      .comparing(MessageResponse::createdAt)
+      .thenComparing(m -> m.id().toString());
+
+  private final boolean enabled;
+  private final int perChannel;
+  private final int maxChannels;
+  private final long maxBytes;
+
+  private final Map<UUID, Tail> tails = new ConcurrentHashMap<>();
+  private final AtomicLong totalBytes = new AtomicLong();
+  private final AtomicLong clock = new AtomicLong();
+  private final AtomicLongArray stamps = new AtomicLongArray(STRIPES);   // bumped under the stripe's lock
+  private final Object[] locks = new Object[STRIPES];
+
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter evictions;
+
+  public RecentMessageCache(@Value("${app.messages.hot-cache.enabled:true}") boolean enabled,
+                            @Value("${app.messages.hot-cache.per-channel:100}") int perChannel,
+                            @Value("${app.messages.hot-cache.max-channels:2000}") int maxChannels,
+                            @Value("${app.messages.hot-cache.max-bytes:67108864}") long maxBytes,
+                            MeterRegistry meters) {
+    this.enabled = enabled && perChannel > 0;
+    this.perChannel = perChannel;
+    this.maxChannels = maxChannels;
+    this.maxBytes = maxBytes;
+    for (int i = 0; i < STRIPES; i++) {
+      locks[i] = new Object();
+    }
+
+    this.hits = Counter.builder("messages.hot_cache.requests").tag("result", "hit").register(meters);
+    this.misses = Counter.builder("messages.hot_cache.requests").tag("result", "miss").register(meters);
+    this.evictions = Counter.builder("messages.hot_cache.evictions").register(meters);
+    Gauge.builder("messages.hot_cache.channels", tails, Map::size).register(meters);
+    Gauge.builder("messages.hot_cache.bytes", totalBytes, AtomicLong::get).baseUnit("bytes").register(meters);
+  }
+
+  /** How many rows a miss should load so the tail can be filled (0 when the cache is off). */
+  public int capacity() {
+    return enabled ? perChannel : 0;
+  }
+
+  /**
+   * Newest {@code limit} messages, newest first, or null if the cache cannot answer
+   * (disabled, channel cold, or the tail is shorter than the request).
+   */
+  public List<MessageResponse> newest(UUID channelId, int limit) {
+    if (!enabled || limit > perChannel) {
+      return null;
+    }
+    Tail tail = tails.get(channelId);
+    List<MessageResponse> page = tail == null ? null : tail.newest(limit, clock.incrementAndGet());
+    if (page == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return page;
+  }
+
+  /** Take before reading the DB on a miss; pass to {@link #fill}. */
+  public long beginLoad(UUID channelId) {
+    return stamps.get(stripe(channelId));
+  }
+
+  /**
+   * Install a freshly loaded newest-first page. {@code requested} is the limit used for the
+   * query: fewer rows back means the channel's whole history is in the tail.
+   */
+  public void fill(UUID channelId, List<MessageResponse> newestFirst, long stamp, int requested) {
+    int s = stripe(channelId);
+    if (!enabled || stamps.get(s) != stamp) {
+      return;
+    }
+    Tail tail = new Tail(perChannel);
+    for (int i = Math.min(newestFirst.size(), perChannel) - 1; i >= 0; i--) {
+      tail.insert(newestFirst.get(i));
+    }
+    tail.complete = newestFirst.size() < requested;
+    tail.lastAccess = clock.incrementAndGet();
+
+    Tail previous;
+    synchronized (locks[s]) {
+      if (stamps.get(s) != stamp) {
+        return;   // a commit landed while the tail was being built
+      }
+      previous = tails.put(channelId, tail);
+    }
+    totalBytes.addAndGet(tail.bytes - (previous == null ? 0 : previous.evict()));
+    enforceBounds();
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void onMessageChanged(MessageChangedEvent event) {
+    MessageResponse message = event.message();
+    if (!enabled || message.channelId() == null) {
+      return;
+    }
+    if (message.parentMessageId() != null) {
+      // thread replies are not part of the channel page; their root arrives as UPDATED. A deleted
+      // reply shrinks the root's summary, which replace() would not take (it keeps the larger one)
+      if (event.kind() == MessageChangedEvent.Kind.DELETED) {
+        invalidate(message.channelId());
+      }
+      return;
+    }
+    Tail tail;
+    int s = stripe(message.channelId());
+    synchronized (locks[s]) {
+      stamps.incrementAndGet(s);
+      tail = tails.get(message.channelId());
+    }
+    if (tail == null) {
+      return;   // cold channel: the next read loads it from the DB
+    }
+    long delta = event.kind() == MessageChangedEvent.Kind.CREATED
+        ? tail.insert(message)
+        : tail.replace(message);
+    totalBytes.addAndGet(delta);
+    enforceBounds();
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void onMessagesImported(MessagesImportedEvent event) {
+    invalidate(event.channelId());
+  }
+
+  // Retention can purge anywhere in a tail; reloading the few affected channels is simplest
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void onMessagesPurged(MessagesPurgedEvent event) {
+    event.conversationIds().forEach(this::invalidate);
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void onMessagesArchived(MessagesArchivedEvent event) {
+    invalidate(event.conversationId());
+  }
+
+  public void invalidate(UUID channelId) {
+    Tail removed;
+    int s = stripe(channelId);
+    synchronized (locks[s]) {
+      stamps.incrementAndGet(s);
+      removed = tails.remove(channelId);
+    }
+    if (removed != null) {
+      totalBytes.addAndGet(-removed.evict());
+    }
+  }
+
+  // Evict least recently read channels until both budgets hold.
+  private void enforceBounds() {
+    while (tails.size() > maxChannels || totalBytes.get() > maxBytes) {
+      Map.Entry<UUID, Tail> coldest = null;
+      for (Map.Entry<UUID, Tail> e : tails.entrySet()) {
+        if (coldest == null || e.getValue().lastAccess < coldest.getValue().lastAccess) {
+          coldest = e;
+        }
+      }
+      if (coldest == null) {
+        return;
+      }
+      if (tails.remove(coldest.getKey(), coldest.getValue())) {
+        totalBytes.addAndGet(-coldest.getValue().evict());
+        evictions.increment();
+      }
+    }
+  }
+
+  private static int stripe(UUID channelId) {
+    return (channelId.hashCode() & 0x7fffffff) % STRIPES;
+  }
+
+  // Rough heap cost of one cached response (record + UUIDs + Instants + content chars)
+  static long estimateBytes(MessageResponse m) {
+    return 200 + 2L * (m.content() == null ? 0 : m.content().length());
+  }
+
+  /**
+   * Fixed-size ring of the newest messages of one channel, oldest at {@code start}.
+   * Commits can land slightly out of order, so inserts walk back from the newest end.
+   */
+  static final class Tail {
+    private final MessageResponse[] ring;
+    private int start;
+    private int size;
+    boolean complete;           // true = ring holds the channel's entire history
+    volatile long lastAccess;
+    long bytes;
+    private boolean evicted;    // detached from the map: late updates must not touch totalBytes
+
+    Tail(int capacity) {
+      this.ring = new MessageResponse[capacity];
+    }
+
+    private MessageResponse at(int i) {
+      return ring[(start + i) % ring.length];
+    }
+
+    private void set(int i, MessageResponse m) {
+      ring[(start + i) % ring.length] = m;
+    }
+
+    synchronized List<MessageResponse> newest(int limit, long tick) {
+      if (limit > size && !complete) {
+        return null;
+      }
+      lastAccess = tick;
+      int n = Math.min(limit, size);
+      List<MessageResponse> out = new ArrayList<>(n);
+      for (int i = size - 1; i >= size - n; i--) {
+        out.add(at(i));
+      }
+      return out;
+    }
+
+    /** Returns the change in estimated bytes. */
+    synchronized long insert(MessageResponse m) {
+      if (evicted) {
+        return 0;
+      }
+      int pos = size;
+      while (pos > 0 && ORDER.compare(at(pos - 1), m) > 0) {
+        pos--;
+      }
+      long delta = 0;
+      if (size == ring.length) {
+        if (pos == 0) {
+          return 0;   // older than everything in a full tail: not part of the window
+        }
+        delta -= estimateBytes(at(0));
+        ring[start] = null;
+        start = (start + 1) % ring.length;
+        size--;
+        pos--;
+        complete = false;
+      }
+      for (int i = size; i > pos; i--) {
+        set(i, at(i - 1));
+      }
+      set(pos, m);
+      size++;
+      delta += estimateBytes(m);
+      bytes += delta;
+      return delta;
+    }
+
+    synchronized long replace(MessageResponse m) {
+      if (evicted) {
+        return 0;
+      }
+      for (int i = size - 1; i >= 0; i--) {
+        MessageResponse old = at(i);
+        if (old.id().equals(m.id())) {
+          m = withLatestThread(old, m);
+          set(i, m);
+          long delta = estimateBytes(m) - estimateBytes(old);
+          bytes += delta;
+          return delta;
+        }
+      }
+      return 0;
+    }
+
+    // Reply bumps to one root commit concurrently and their events can arrive in either order;
+    // the thread summary only grows (a deleted reply invalidates the tail instead), so keep the
+    // larger one whichever update landed last.
+    private static MessageResponse withLatestThread(MessageResponse old, MessageResponse m) {
+      if (old.replyCount() <= m.replyCount()) {
+        return m;
+      }
+      return new MessageResponse(m.id(), m.channelId(), m.directConversationId(), m.senderUserId(),
+          m.content(), m.contentType(), m.deleted(), m.createdAt(), m.editedAt(),
+          m.parentMessageId(), old.replyCount(), old.lastReplyAt(), m.attachmentSha256());
+    }
+
+    /** Detach and return the bytes this tail was accounting for. */
+    synchronized long evict() {
+      evicted = true;
+      return bytes;
+    }
+  }
+}
@@ -0,0 +1,487 @@
+package com.hire_me.Ping.messages.cold;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.entity.ColdMessage;
+import com.hire_me.Ping.messages.mapper.MessageMapper;
+import com.hire_me.Ping.messages.repository.ColdMessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cold tier of the message table: whole months of a conversation that ColdTierMover moved out
+ * of {@code message}, kept on local disk as gzip NDJSON segments, one per (month, conversation):
+ * {@code root/2025-03/<conversationId>.ndjson.gz}. A segment holds the same rows as an export
+ * (MessageArchiveService), so it is also a valid dump of that month.
+ *
+ * Reads are positional, like the keyset queries on the hot table: everything before / from a
+ * (createdAt, id) position, so MessageService can merge both tiers into one page. A segment
+ * is decoded once and then served from a small LRU of decoded segments; deep history is read
+ * rarely, and mostly a page after the previous one.
+ *
+ * Lookups by message id alone go through the {@code cold_message} table (ColdMessage), which
+ * ColdTierMover keeps in step with the segments.
+ *
+ * Segments are immutable once renamed into place; adding rows to a month or taking some out
+ * rewrites it whole, one writer at a time.
+ */
+@Component
+public class ColdMessageStore {
+
+  private static final String SUFFIX = ".ndjson.gz";
+  // Same order as the (created_at, id) indexes: databases compare uuids bytewise, i.e. as strings
+  private static final Comparator<MessageResponse> POSITION =
+      Comparator.comparing(MessageResponse::createdAt).thenComparing(m -> m.id().toString());
+
+  /** One decoded segment: every row, and the top-level ones that conversation pages show, oldest first. */
+  private record Segment(List<MessageResponse> rows, List<MessageResponse> topLevel, Map<UUID, MessageResponse> byId) {}
+
+  private record Key(YearMonth month, UUID conversationId) {}
+
+  private final Path root;
+  private final MessageMapper mapper;
+  private final ColdMessageRepository locations;
+  private final ObjectReader lineReader;
+  private final ObjectWriter lineWriter;
+  private final int cacheSegments;
+
+  private final Map<UUID, NavigableSet<YearMonth>> catalog = new ConcurrentHashMap<>();
+  private final Map<Key, Segment> cache;   // guarded by itself, access order
+  private long invalidations;               // guarded by cache; a load started before one is not cached
+
+  private final Counter segmentLoads;
+
+  public ColdMessageStore(@Value("${app.messages.cold.root:data/cold}") String root,
+                          @Value("${app.messages.cold.cache-segments:64}") int cacheSegments,
+                          MessageMapper mapper,
+                          ColdMessageRepository locations,
+                          ObjectMapper objectMapper,
+                          MeterRegistry meters) throws IOException {
+    this.root = Paths.get(root).toAbsolutePath();
+    this.mapper = mapper;
+    this.locations = locations;
+    this.lineReader = objectMapper.readerFor(MessageResponse.class);
+    this.lineWriter = objectMapper.writerFor(MessageResponse.class)
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    this.cacheSegments = Math.max(1, cacheSegments);
+    this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Segment> eldest) {
+        return size() > ColdMessageStore.this.cacheSegments;
+      }
+    };
+    this.segmentLoads = Counter.builder("messages.cold.segment_loads").register(meters);
+    Gauge.builder("messages.cold.conversations", catalog, Map::size).register(meters);
+
+    Files.createDirectories(this.root);
+    scan();
+  }
+
+  public static YearMonth monthOf(Instant at) {
+    return YearMonth.from(at.atZone(ZoneOffset.UTC));
+  }
+
+  public static Instant startOf(YearMonth month) {
+    return month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+  }
+
+  /** Whether any of the conversation's history is in the cold tier; a map lookup, cheap enough for every page. */
+  public boolean has(UUID conversationId) {
+    return catalog.containsKey(conversationId);
+  }
+
+  /** The conversations with cold history. */
+  public Set<UUID> conversations() {
+    return Set.copyOf(catalog.keySet());
+  }
+
+  /** The conversation's newest cold month, or null. */
+  public YearMonth newestMonth(UUID conversationId) {
+    NavigableSet<YearMonth> months = catalog.get(conversationId);
+    return months == null || months.isEmpty() ? null : months.last();
+  }
+
+  /** Up to {@code limit} top-level messages older than (at, id), newest first; a null position means "from the newest". */
+  public List<MessageResponse> before(UUID conversationId, Instant at, UUID id, int limit) {
+    NavigableSet<YearMonth> months = catalog.get(conversationId);
+    if (months == null || limit <= 0) {
+      return List.of();
+    }
+    Iterable<YearMonth> walk = at == null ? months.descendingSet() : months.headSet(monthOf(at), true).descendingSet();
+    List<MessageResponse> out = new ArrayList<>(limit);
+    for (YearMonth month : walk) {
+      List<MessageResponse> rows = segment(month, conversationId).topLevel();
+      int i = at == null ? rows.size() : lowerBound(rows, at, id);   // rows[0, i) are strictly older
+      while (--i >= 0) {
+        out.add(rows.get(i));
+        if (out.size() == limit) {
+          return out;
+        }
+      }
+    }
+    return out;
+  }
+
+  /** Up to {@code limit} top-level messages at or after (at, id) ({@code inclusive}) or strictly after, oldest first. */
+  public List<MessageResponse> from(UUID conversationId, Instant at, UUID id, boolean inclusive, int limit) {
+    NavigableSet<YearMonth> months = catalog.get(conversationId);
+    if (months == null || limit <= 0) {
+      return List.of();
+    }
+    List<MessageResponse> out = new ArrayList<>(limit);
+    for (YearMonth month : months.tailSet(monthOf(at), true)) {
+      List<MessageResponse> rows = segment(month, conversationId).topLevel();
+      int i = lowerBound(rows, at, id);
+      if (!inclusive && i < rows.size() && rows.get(i).id().equals(id)) {
+        i++;
+      }
+      for (; i < rows.size(); i++) {
+        out.add(rows.get(i));
+        if (out.size() == limit) {
+          return out;
+        }
+      }
+    }
+    return out;
+  }
+
+  /** A cold message of the conversation (thread replies included), newest months searched first. */
+  public Optional<MessageResponse> find(UUID conversationId, UUID messageId) {
+    NavigableSet<YearMonth> months = catalog.get(conversationId);
+    if (months == null) {
+      return Optional.empty();
+    }
+    for (YearMonth month : months.descendingSet()) {
+      MessageResponse m = segment(month, conversationId).byId().get(messageId);
+      if (m != null) {
+        return Optional.of(m);
+      }
+    }
+    return Optional.empty();
+  }
+
+  /** A cold message by id alone, located through the cold_message table. */
+  public Optional<MessageResponse> find(UUID messageId) {
+    return locations.findById(messageId).map(this::load);
+  }
+
+  /** The thread's cold replies, oldest first. */
+  public List<MessageResponse> replies(UUID rootId) {
+    List<MessageResponse> out = new ArrayList<>();
+    for (ColdMessage at : locations.findByThreadRootId(rootId)) {
+      if (!at.getMessageId().equals(rootId)) {
+        MessageResponse m = load(at);
+        if (m != null) {
+          out.add(m);
+        }
+      }
+    }
+    out.sort(POSITION);
+    return out;
+  }
+
+  // null if the segment is gone (dropped by retention after the location was read)
+  private MessageResponse load(ColdMessage at) {
+    YearMonth month = YearMonth.parse(at.getMonth());
+    NavigableSet<YearMonth> months = catalog.get(at.getConversationId());
+    if (months == null || !months.contains(month)) {
+      return null;
+    }
+    return segment(month, at.getConversationId()).byId().get(at.getMessageId());
+  }
+
+  /**
+   * Adds rows to the (month, conversation) segment: {@code rows} is called with a sink, then the
+   * existing rows are copied over unless the sink already had them, so a row moved again (a
+   * move that crashed before deleting from the table, or a row changed while it was moving)
+   * replaces its older copy. The new segment is fsynced and renamed over the old one.
+   */
+  public synchronized void append(YearMonth month, UUID conversationId, Consumer<Consumer<MessageResponse>> rows) throws IOException {
+    rewrite(month, conversationId, rows, id -> true);
+    catalog.computeIfAbsent(conversationId, k -> new ConcurrentSkipListSet<>()).add(month);
+  }
+
+  /** Rows of the (month, conversation) segment as stored (deleted ones with their content). */
+  public List<MessageResponse> stored(YearMonth month, UUID conversationId, Set<UUID> ids) throws IOException {
+    List<MessageResponse> out = new ArrayList<>(ids.size());
+    try {
+      readRaw(pathOf(month, conversationId), m -> {
+        if (ids.contains(m.id())) {
+          out.add(m);
+        }
+      });
+    } catch (NoSuchFileException e) {
+      // dropped, or emptied by a concurrent thaw
+    }
+    return out;
+  }
+
+  /**
+   * Rewrites the (month, conversation) segment without these rows (thawed back into the table);
+   * a segment left empty is deleted.
+   */
+  public synchronized void remove(YearMonth month, UUID conversationId, Set<UUID> ids) throws IOException {
+    Path target = pathOf(month, conversationId);
+    if (!Files.exists(target)) {
+      return;
+    }
+    if (rewrite(month, conversationId, sink -> {}, id -> !ids.contains(id)) == 0) {
+      Files.deleteIfExists(target);
+      invalidate(new Key(month, conversationId));
+      forget(month, conversationId);
+    }
+  }
+
+  // Writes rows, then the existing rows that pass keep and were not written already, and renames the result into place
+  private int rewrite(YearMonth month, UUID conversationId, Consumer<Consumer<MessageResponse>> rows,
+                      Predicate<UUID> keep) throws IOException {
+    Path target = pathOf(month, conversationId);
+    Files.createDirectories(target.getParent());
+    Path tmp = Files.createTempFile(target.getParent(), conversationId.toString(), ".part");
+    Set<UUID> ids = new HashSet<>();
+    try {
+      try (OutputStream file = Files.newOutputStream(tmp);
+           OutputStream gz = new GZIPOutputStream(new BufferedOutputStream(file, 64 * 1024), 64 * 1024);
+           JsonGenerator gen = lineWriter.getFactory().createGenerator(gz)) {
+        Consumer<MessageResponse> sink = m -> {
+          if (ids.add(m.id())) {
+            try {
+              lineWriter.writeValue(gen, m);
+              gen.writeRaw('\n');
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          }
+        };
+        rows.accept(sink);
+        if (Files.exists(target)) {
+          readRaw(target, m -> {
+            if (keep.test(m.id())) {
+              sink.accept(m);
+            }
+          });
+        }
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+        ch.force(true);
+      }
+      Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+    invalidate(new Key(month, conversationId));
+    return ids.size();
+  }
+
+  /** What dropBefore deleted: the conversations it touched, the message ids, and the segment files' size. */
+  public record Dropped(Set<UUID> conversationIds, List<UUID> messageIds, long bytes) {}
+
+  /**
+   * Deletes the segments of months before {@code month} for the conversations {@code which}
+   * accepts (retention: months entirely past a cutoff).
+   */
+  public synchronized Dropped dropBefore(YearMonth month, Predicate<UUID> which) throws IOException {
+    Set<UUID> conversations = new HashSet<>();
+    List<UUID> ids = new ArrayList<>();
+    long bytes = 0;
+    for (Map.Entry<UUID, NavigableSet<YearMonth>> e : catalog.entrySet()) {
+      UUID conversationId = e.getKey();
+      if (!which.test(conversationId)) {
+        continue;
+      }
+      for (YearMonth m : new ArrayList<>(e.getValue().headSet(month, false))) {
+        Path path = pathOf(m, conversationId);
+        readRaw(path, row -> ids.add(row.id()));
+        bytes += Files.size(path);
+        Files.deleteIfExists(path);
+        conversations.add(conversationId);
+        invalidate(new Key(m, conversationId));
+        forget(m, conversationId);
+      }
+    }
+    return new Dropped(conversations, ids, bytes);
+  }
+
+  /** Every cold row of the conversation as stored (deleted ones with their content), oldest first. */
+  public void forEachStored(UUID conversationId, Consumer<MessageResponse> sink) throws IOException {
+    NavigableSet<YearMonth> months = catalog.get(conversationId);
+    if (months == null) {
+      return;
+    }
+    for (YearMonth month : months) {
+      List<MessageResponse> rows = new ArrayList<>();
+      readRaw(pathOf(month, conversationId), rows::add);
+      rows.sort(POSITION);
+      rows.forEach(sink);
+    }
+  }
+
+  // ---------------------------------------------------------------------------------------------
+
+  private Segment segment(YearMonth month, UUID conversationId) {
+    Key key = new Key(month, conversationId);
+    long seen;
+    synchronized (cache) {
+      Segment cached = cache.get(key);
+      if (cached != null) {
+        return cached;
+      }
+      seen = invalidations;
+    }
+    List<MessageResponse> rows = new ArrayList<>();
+    try {
+      readRaw(pathOf(month, conversationId), raw -> rows.add(visible(raw)));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unreadable cold segment " + pathOf(month, conversationId), e);
+    }
+    rows.sort(POSITION);   // appends put new rows after the old ones, not necessarily in order
+    List<MessageResponse> topLevel = new ArrayList<>(rows.size());
+    Map<UUID, MessageResponse> byId = new HashMap<>(rows.size() * 2);
+    for (MessageResponse m : rows) {
+      byId.put(m.id(), m);
+      if (m.parentMessageId() == null) {
+        topLevel.add(m);
+      }
+    }
+    Segment segment = new Segment(Collections.unmodifiableList(rows), Collections.unmodifiableList(topLevel), byId);
+    segmentLoads.increment();
+    synchronized (cache) {
+      // The file may have been rewritten or dropped while it was read: serve what was read, don't keep it
+      if (invalidations == seen) {
+        cache.put(key, segment);
+      }
+    }
+    return segment;
+  }
+
+  private void forget(YearMonth month, UUID conversationId) {
+    NavigableSet<YearMonth> months = catalog.get(conversationId);
+    if (months != null) {
+      months.remove(month);
+      if (months.isEmpty()) {
+        catalog.remove(conversationId, months);
+      }
+    }
+  }
+
+  private void invalidate(Key key) {
+    synchronized (cache) {
+      cache.remove(key);
+      invalidations++;
+    }
+  }
+
+  private void readRaw(Path path, Consumer<MessageResponse> sink) throws IOException {
+    try (InputStream in = new GZIPInputStream(new BufferedInputStream(Files.newInputStream(path), 64 * 1024), 64 * 1024);
+         MappingIterator<MessageResponse> lines = lineReader.readValues(in)) {
+      while (lines.hasNext()) {
+        sink.accept(lines.next());
+      }
+    }
+  }
+
+  // Segments keep the original content of deleted messages (like an export); readers get what the table would give them
+  private MessageResponse visible(MessageResponse raw) {
+    if (!raw.deleted()) {
+      return raw;
+    }
+    return mapper.toResponse(mapper.toEntity(raw));
+  }
+
+  // Index of the first row at or after (at, id)
+  private static int lowerBound(List<MessageResponse> rows, Instant at, UUID id) {
+    String idKey = id == null ? "" : id.toString();
+    int lo = 0;
+    int hi = rows.size();
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      MessageResponse m = rows.get(mid);
+      int c = m.createdAt().compareTo(at);
+      if (c == 0) {
+        c = m.id().toString().compareTo(idKey);
+      }
+      if (c < 0) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  private Path pathOf(YearMonth month, UUID conversationId) {
+    return root.resolve(month.toString()).resolve(conversationId + SUFFIX);
+  }
+
+  // Rebuilds the catalog from the directory layout; anything that does not parse is ignored
+  private void scan() throws IOException {
+    try (DirectoryStream<Path> months = Files.newDirectoryStream(root, Files::isDirectory)) {
+      for (Path dir : months) {
+        YearMonth month;
+        try {
+          month = YearMonth.parse(dir.getFileName().toString());
+        } catch (DateTimeParseException e) {
+          continue;
+        }
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+          for (Path segment : segments) {
+            String name = segment.getFileName().toString();
+            try {
+              UUID conversationId = UUID.fromString(name.substring(0, name.length() - SUFFIX.length()));
+              catalog.computeIfAbsent(conversationId, k -> new ConcurrentSkipListSet<>()).add(month);
+            } catch (IllegalArgumentException e) {
+              // not a segment
+            }
+          }
+        }
+      }
+    }
+  }
+}
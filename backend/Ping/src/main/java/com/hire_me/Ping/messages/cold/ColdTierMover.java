@@ -0,0 +1,354 @@
+package com.hire_me.Ping.messages.cold;
+
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.entity.ColdMessage;
+import com.hire_me.Ping.messages.event.MessagesArchivedEvent;
+import com.hire_me.Ping.messages.repository.ColdMessageRepository;
+import com.hire_me.Ping.messages.service.MessageArchiveService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves whole months out of the message table into ColdMessageStore once they are older than
+ * {@code hot-months} (the current month included), oldest month first.
+ *
+ * Per conversation and month: the rows are streamed into the month's segment, which is synced
+ * to disk, and only then deleted from the table, in chunks of {@code delete-chunk} rows with
+ * their own short transactions and a pause between them; the same transaction records where each
+ * row went in {@code cold_message}. A delete only matches the row as it was copied (deleted flag,
+ * edit time and reply count), so a message edited while its month was moving stays in the table,
+ * where reads prefer it, and is moved again by the next run. Each chunk publishes a
+ * MessagesArchivedEvent so cached pages are reloaded.
+ *
+ * Threads move whole: a thread with a reply newer than the cutoff stays in the table, root and
+ * old replies too, until that reply is old enough. Its root's summary is only ever written in
+ * the table (MessageWriter), so it must not be cold while its replies are not.
+ *
+ * Reactions and search index entries stay: they are keyed by message id, which is still valid.
+ *
+ * Cold rows are written by thawing them: {@link #thaw} puts a message's thread back into the
+ * table before MessageService edits, deletes or replies to it, and the next run moves it out
+ * again once it has been left alone long enough. Soft-deleted rows that were moved keep their
+ * content in the segment until retention drops their month.
+ */
+@Service
+public class ColdTierMover {
+
+  private static final Logger log = LoggerFactory.getLogger(ColdTierMover.class);
+
+  private static final String OLDEST_SQL = "SELECT MIN(created_at) FROM message";
+
+  private static final String BUSY_THREADS_SQL =
+      "SELECT DISTINCT parent_message_id FROM message WHERE parent_message_id IS NOT NULL AND created_at >= ?";
+
+  private static final String CONVERSATIONS_SQL =
+      "SELECT DISTINCT channel_id, direct_conversation_id FROM message WHERE created_at >= ? AND created_at < ?";
+
+  private static final String DELETE_SQL =
+      "DELETE FROM message WHERE id = ? AND deleted = ? AND reply_count = ? AND edited_at IS NOT DISTINCT FROM ?";
+
+  private static final String LOCATE_SQL =
+      "INSERT INTO cold_message (message_id, conversation_id, cold_month, thread_root_id) VALUES (?, ?, ?, ?)";
+
+  private static final String UNLOCATE_SQL = "DELETE FROM cold_message WHERE message_id = ?";
+
+  // What a delete must still match to remove a copied row, and where its thread is
+  private record Copied(UUID id, boolean deleted, int replyCount, Instant editedAt, UUID threadRootId) {}
+
+  private final ColdMessageStore store;
+  private final MessageArchiveService archive;
+  private final ColdMessageRepository locations;
+  private final JdbcTemplate jdbc;
+  private final ApplicationEventPublisher events;
+  private final TransactionTemplate tx;
+  private final TransactionTemplate thawTx;
+  private final int hotMonths;
+  private final int deleteChunk;
+  private final long pauseMs;
+
+  private final AtomicBoolean running = new AtomicBoolean();
+  private final ScheduledExecutorService scheduler;
+
+  private final Counter moved;
+  private final Counter thawed;
+  private final Timer runs;
+
+  public ColdTierMover(ColdMessageStore store,
+                       MessageArchiveService archive,
+                       ColdMessageRepository locations,
+                       JdbcTemplate jdbc,
+                       ApplicationEventPublisher events,
+                       PlatformTransactionManager txManager,
+                       @Value("${app.messages.cold.enabled:true}") boolean enabled,
+                       @Value("${app.messages.cold.hot-months:6}") int hotMonths,
+                       @Value("${app.messages.cold.interval-ms:3600000}") long intervalMs,
+                       @Value("${app.messages.cold.delete-chunk:500}") int deleteChunk,
+                       @Value("${app.messages.cold.pause-ms:100}") long pauseMs,
+                       MeterRegistry meters) {
+    this.store = store;
+    this.archive = archive;
+    this.locations = locations;
+    this.jdbc = jdbc;
+    this.events = events;
+    this.tx = new TransactionTemplate(txManager);
+    this.thawTx = new TransactionTemplate(txManager);
+    this.thawTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.hotMonths = Math.max(1, hotMonths);
+    this.deleteChunk = Math.max(1, deleteChunk);
+    this.pauseMs = pauseMs;
+
+    this.moved = Counter.builder("messages.cold.moved").register(meters);
+    this.thawed = Counter.builder("messages.cold.thawed").register(meters);
+    this.runs = Timer.builder("messages.cold.run").register(meters);
+
+    if (enabled) {
+      this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "cold-tier-mover");
+        t.setDaemon(true);
+        return t;
+      });
+      scheduler.scheduleWithFixedDelay(this::runQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    } else {
+      this.scheduler = null;
+    }
+  }
+
+  /** Start of the oldest month that stays in the table. */
+  public Instant cutoff() {
+    return ColdMessageStore.startOf(YearMonth.now(ZoneOffset.UTC).minusMonths(hotMonths - 1));
+  }
+
+  /**
+   * Moves every month before {@link #cutoff()}, on the calling thread.
+   *
+   * @return rows moved; 0 if a run is already in progress
+   */
+  public long runOnce() {
+    if (!running.compareAndSet(false, true)) {
+      return 0;
+    }
+    long started = System.nanoTime();
+    long total = 0;
+    try {
+      Instant cutoff = cutoff();
+      Timestamp oldest = jdbc.queryForObject(OLDEST_SQL, Timestamp.class);
+      if (oldest != null) {
+        // every month up to the cutoff: rows that stay (busy threads, rows changed while moving) don't stop the run
+        Set<UUID> busy = new HashSet<>(jdbc.queryForList(BUSY_THREADS_SQL, UUID.class, Timestamp.from(cutoff)));
+        for (YearMonth month = ColdMessageStore.monthOf(oldest.toInstant());
+             ColdMessageStore.startOf(month).isBefore(cutoff); month = month.plusMonths(1)) {
+          total += moveMonth(month, busy);
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      running.set(false);
+    }
+    long elapsed = System.nanoTime() - started;
+    runs.record(elapsed, TimeUnit.NANOSECONDS);
+    if (total > 0) {
+      log.info("Moved {} messages to the cold tier in {} ms", total, elapsed / 1_000_000);
+    }
+    return total;
+  }
+
+  private void runQuietly() {
+    try {
+      runOnce();
+    } catch (RuntimeException e) {
+      log.warn("Cold tier move failed", e);
+    }
+  }
+
+  /**
+   * Puts the thread of a cold message (root and replies, whatever of it is cold) back into the
+   * table, so MessageService can change it like any other message. Commits on its own, even
+   * inside a caller's transaction, and only then takes the rows out of their segments: after a
+   * crash in between a row is in both tiers, reads prefer the table, and the next move replaces
+   * the segment's copy. Concurrent thaws of one thread restore each row once: whoever deletes
+   * its cold_message row inserts it.
+   *
+   * @return false if the message is not in the cold tier
+   */
+  public boolean thaw(UUID messageId) {
+    ColdMessage at = locations.findById(messageId).orElse(null);
+    if (at == null) {
+      return false;
+    }
+    UUID conversationId = at.getConversationId();
+    Map<YearMonth, Set<UUID>> months = new TreeMap<>();
+    for (ColdMessage c : locations.findByThreadRootId(at.getThreadRootId())) {
+      months.computeIfAbsent(YearMonth.parse(c.getMonth()), k -> new HashSet<>()).add(c.getMessageId());
+    }
+    List<MessageResponse> rows = new ArrayList<>();
+    try {
+      for (Map.Entry<YearMonth, Set<UUID>> e : months.entrySet()) {
+        rows.addAll(store.stored(e.getKey(), conversationId, e.getValue()));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    Integer n = thawTx.execute(status -> {
+      int[] counts = jdbc.batchUpdate(UNLOCATE_SQL, rows, rows.size(), (ps, row) -> ps.setObject(1, row.id()))[0];
+      List<MessageResponse> mine = new ArrayList<>(rows.size());
+      for (int i = 0; i < counts.length; i++) {
+        if (counts[i] != 0) {
+          mine.add(rows.get(i));
+        }
+      }
+      archive.restore(mine);
+      if (!mine.isEmpty()) {
+        events.publishEvent(new MessagesArchivedEvent(conversationId, mine.stream().map(MessageResponse::id).toList()));
+      }
+      return mine.size();
+    });
+
+    try {
+      for (Map.Entry<YearMonth, Set<UUID>> e : months.entrySet()) {
+        store.remove(e.getKey(), conversationId, e.getValue());
+      }
+    } catch (IOException e) {
+      // the rows are in the table, which reads prefer; the next move rewrites the segment
+      log.warn("Thawed thread of {} but could not rewrite its segments", messageId, e);
+    }
+    thawed.increment(n == null ? 0 : n);
+    return true;
+  }
+
+  private long moveMonth(YearMonth month, Set<UUID> busy) throws IOException {
+    Instant from = ColdMessageStore.startOf(month);
+    Instant until = ColdMessageStore.startOf(month.plusMonths(1));
+    List<UUID[]> conversations = jdbc.query(CONVERSATIONS_SQL,
+        (rs, i) -> new UUID[] {rs.getObject(1, UUID.class), rs.getObject(2, UUID.class)},
+        Timestamp.from(from), Timestamp.from(until));
+
+    long total = 0;
+    for (UUID[] c : conversations) {
+      UUID channelId = c[0];
+      UUID dmId = c[1];
+      UUID conversationId = channelId != null ? channelId : dmId;
+      if (conversationId == null) {
+        continue;
+      }
+      List<Copied> copied = new ArrayList<>();
+      store.append(month, conversationId, sink -> archive.readRange(conversationId, channelId == null, from, until, row -> {
+        UUID root = row.parentMessageId() != null ? row.parentMessageId() : row.id();
+        if (busy.contains(root)) {
+          return;
+        }
+        sink.accept(row);
+        copied.add(new Copied(row.id(), row.deleted(), row.replyCount(), row.editedAt(), root));
+      }));
+      if (!copied.isEmpty()) {
+        total += delete(conversationId, month, copied);
+      }
+    }
+    return total;
+  }
+
+  private long delete(UUID conversationId, YearMonth month, List<Copied> copied) {
+    long total = 0;
+    for (int i = 0; i < copied.size(); i += deleteChunk) {
+      List<Copied> chunk = copied.subList(i, Math.min(copied.size(), i + deleteChunk));
+      Integer n = tx.execute(status -> {
+        int[] counts = jdbc.batchUpdate(DELETE_SQL, new BatchPreparedStatementSetter() {
+          @Override
+          public void setValues(PreparedStatement ps, int j) throws SQLException {
+            Copied row = chunk.get(j);
+            ps.setObject(1, row.id());
+            ps.setBoolean(2, row.deleted());
+            ps.setInt(3, row.replyCount());
+            if (row.editedAt() != null) {
+              ps.setTimestamp(4, Timestamp.from(row.editedAt()));
+            } else {
+              ps.setNull(4, Types.TIMESTAMP_WITH_TIMEZONE);
+            }
+          }
+
+          @Override
+          public int getBatchSize() {
+            return chunk.size();
+          }
+        });
+        List<Copied> gone = new ArrayList<>(chunk.size());
+        for (int j = 0; j < counts.length; j++) {
+          // drivers may answer SUCCESS_NO_INFO (-2) for batched statements
+          if (counts[j] != 0) {
+            gone.add(chunk.get(j));
+          }
+        }
+        if (!gone.isEmpty()) {
+          jdbc.batchUpdate(LOCATE_SQL, gone, gone.size(), (ps, row) -> {
+            ps.setObject(1, row.id());
+            ps.setObject(2, conversationId);
+            ps.setString(3, month.toString());
+            ps.setObject(4, row.threadRootId());
+          });
+          events.publishEvent(new MessagesArchivedEvent(conversationId, gone.stream().map(Copied::id).toList()));
+        }
+        return gone.size();
+      });
+      total += n == null ? 0 : n;
+      moved.increment(n == null ? 0 : n);
+      if (i + deleteChunk < copied.size() && !pause()) {
+        break;
+      }
+    }
+    return total;
+  }
+
+  private boolean pause() {
+    if (pauseMs <= 0) {
+      return true;
+    }
+    try {
+      Thread.sleep(pauseMs);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+}
@@ -3,11 +3,18 @@ package com.hire_me.Ping.messages.controller;
 import com.hire_me.Ping.messages.dto.MessageCreateRequest;
 import com.hire_me.Ping.messages.dto.MessageUpdateRequest;
 import com.hire_me.Ping.messages.entity.Message.ContentType;
+import com.hire_me.Ping.messages.service.MessageArchiveService;
+import com.hire_me.Ping.messages.service.MessageRevisionService;
 import com.hire_me.Ping.messages.service.MessageService;
 import com.hire_me.Ping.messages.service.MessageService.PageParams;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
 import java.util.UUID;
 
 // REST controller for message-related endpoints
@@ -15,32 +22,77 @@ import java.util.UUID;
 @RequestMapping("/api")
 public class MessageController {
 
+  private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+  private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
   private final MessageService service;
+  private final MessageArchiveService archive;
+  private final MessageRevisionService revisions;
 
   // Constructor injection
-  public MessageController(MessageService service) {
+  public MessageController(MessageService service, MessageArchiveService archive,
+                           MessageRevisionService revisions) {
     this.service = service;
+    this.archive = archive;
+    this.revisions = revisions;
   }
 
   /* -------- Channel messages -------- */
 
   // List messages in a channel
   @GetMapping("/channels/{channelId}/messages")
+  // ?before={messageId} pages older, ?after={messageId} pages newer; results are newest-first
   public ResponseEntity<?> listChannel(@PathVariable UUID channelId,
+                                       @RequestParam(required = false) UUID before,
                                        @RequestParam(required = false) UUID after,
                                        @RequestParam(defaultValue = "50") int limit) {
-    return ResponseEntity.ok(service.listChannel(channelId, new PageParams(after, limit)));
+    return ResponseEntity.ok(service.listChannel(channelId, new PageParams(before, after, limit)));
+  }
+
+  // Jump to a message or a date: ?around={messageId|timestamp}&before=25&after=25, newest-first
+  @GetMapping(value = "/channels/{channelId}/messages", params = "around")
+  public ResponseEntity<?> channelWindow(@PathVariable UUID channelId,
+                                         @RequestParam String around,
+                                         @RequestParam(defaultValue = "25") int before,
+                                         @RequestParam(defaultValue = "25") int after) {
+    return ResponseEntity.ok(service.channelWindow(channelId, around, before, after));
   }
 
   // Post a new message to a channel
   @PostMapping("/channels/{channelId}/messages")
+  // An Idempotency-Key header makes client retries safe: a repeat returns the original message
   public ResponseEntity<?> postChannel(@PathVariable UUID channelId,
-                                       @RequestBody MessageCreateRequest req) {
-    // default to TEXT if client omitted
+                                       @RequestBody MessageCreateRequest req,
+                                       @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+    // default to TEXT (FILE with an attachment) if client omitted
     if (req.contentType() == null) {
-      req = new MessageCreateRequest(req.senderUserId(), req.content(), ContentType.TEXT);
+      req = withDefaultType(req);
     }
-    return ResponseEntity.ok(service.postToChannel(channelId, req));
+    return ResponseEntity.ok(service.postToChannel(channelId, req, idempotencyKey));
+  }
+
+  // What changed in a channel since ?sinceSeq= (omit it to get the current seq)
+  @GetMapping("/channels/{channelId}/changes")
+  public ResponseEntity<?> channelChanges(@PathVariable UUID channelId,
+                                          @RequestParam(required = false) Long sinceSeq,
+                                          @RequestParam(defaultValue = "500") int limit) {
+    return ResponseEntity.ok(service.changesSince(channelId, sinceSeq, limit));
+  }
+
+  // Full channel history as NDJSON, oldest first, streamed from a DB cursor
+  @GetMapping("/channels/{channelId}/messages/export")
+  public ResponseEntity<StreamingResponseBody> exportChannel(@PathVariable UUID channelId) {
+    StreamingResponseBody body = out -> archive.exportChannel(channelId, out);
+    return ResponseEntity.ok()
+        .contentType(NDJSON)
+        .header("Content-Disposition", "attachment; filename=\"channel-" + channelId + ".ndjson\"")
+        .body(body);
+  }
+
+  // Bulk import of an NDJSON dump (as produced by export) into a channel
+  @PostMapping(value = "/channels/{channelId}/messages/import", consumes = "application/x-ndjson")
+  public ResponseEntity<?> importChannel(@PathVariable UUID channelId, InputStream body) throws IOException {
+    return ResponseEntity.ok(Map.of("imported", archive.importChannel(channelId, body)));
   }
 
   /* -------- DM messages -------- */
@@ -48,19 +100,61 @@ public class MessageController {
   // List messages in a direct conversation (DM)
   @GetMapping("/dms/{dmId}/messages")
   public ResponseEntity<?> listDm(@PathVariable UUID dmId,
+                                  @RequestParam(required = false) UUID before,
                                   @RequestParam(required = false) UUID after,
                                   @RequestParam(defaultValue = "50") int limit) {
-    return ResponseEntity.ok(service.listDm(dmId, new PageParams(after, limit)));
+    return ResponseEntity.ok(service.listDm(dmId, new PageParams(before, after, limit)));
+  }
+
+  // Jump to a message or a date in a DM (see channelWindow)
+  @GetMapping(value = "/dms/{dmId}/messages", params = "around")
+  public ResponseEntity<?> dmWindow(@PathVariable UUID dmId,
+                                    @RequestParam String around,
+                                    @RequestParam(defaultValue = "25") int before,
+                                    @RequestParam(defaultValue = "25") int after) {
+    return ResponseEntity.ok(service.dmWindow(dmId, around, before, after));
+  }
+
+  // What changed in a DM since ?sinceSeq= (omit it to get the current seq)
+  @GetMapping("/dms/{dmId}/changes")
+  public ResponseEntity<?> dmChanges(@PathVariable UUID dmId,
+                                     @RequestParam(required = false) Long sinceSeq,
+                                     @RequestParam(defaultValue = "500") int limit) {
+    return ResponseEntity.ok(service.changesSince(dmId, sinceSeq, limit));
   }
 
   // Post a new message to a direct conversation (DM)
   @PostMapping("/dms/{dmId}/messages")
   public ResponseEntity<?> postDm(@PathVariable UUID dmId,
-                                  @RequestBody MessageCreateRequest req) {
+                                  @RequestBody MessageCreateRequest req,
+                                  @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
     if (req.contentType() == null) {
-      req = new MessageCreateRequest(req.senderUserId(), req.content(), ContentType.TEXT);
+      req = withDefaultType(req);
     }
-    return ResponseEntity.ok(service.postToDm(dmId, req));
+    return ResponseEntity.ok(service.postToDm(dmId, req, idempotencyKey));
+  }
+
+  /* -------- Threads -------- */
+
+  // Reply in the thread of a message (a reply to a reply joins the same thread)
+  @PostMapping("/messages/{messageId}/replies")
+  public ResponseEntity<?> reply(@PathVariable UUID messageId,
+                                 @RequestBody MessageCreateRequest req) {
+    return ResponseEntity.ok(service.reply(messageId, req));
+  }
+
+  // One message, e.g. opened from a notification
+  @GetMapping("/messages/{messageId}")
+  public ResponseEntity<?> get(@PathVariable UUID messageId) {
+    return ResponseEntity.ok(service.findById(messageId));
+  }
+
+  // Thread replies oldest-first; ?after={replyId} continues from the last one seen
+  @GetMapping("/messages/{messageId}/replies")
+  public ResponseEntity<?> listReplies(@PathVariable UUID messageId,
+                                       @RequestParam(required = false) UUID after,
+                                       @RequestParam(defaultValue = "50") int limit) {
+    return ResponseEntity.ok(service.listReplies(messageId, after, limit));
   }
 
   /* -------- Edit/Delete -------- */
@@ -72,10 +166,26 @@ public class MessageController {
     return ResponseEntity.ok(service.edit(messageId, req));
   }
 
+  // Edit history, oldest first; revision 0 is the content as posted
+  @GetMapping("/messages/{messageId}/revisions")
+  public ResponseEntity<?> listRevisions(@PathVariable UUID messageId) {
+    return ResponseEntity.ok(revisions.list(messageId));
+  }
+
+  @GetMapping("/messages/{messageId}/revisions/{revision}")
+  public ResponseEntity<?> getRevision(@PathVariable UUID messageId, @PathVariable int revision) {
+    return ResponseEntity.ok(revisions.get(messageId, revision));
+  }
+
   // Delete a message
   @DeleteMapping("/messages/{messageId}")
   public ResponseEntity<?> delete(@PathVariable UUID messageId) {
     service.delete(messageId);
     return ResponseEntity.noContent().build();
   }
+
+  private static MessageCreateRequest withDefaultType(MessageCreateRequest req) {
+    ContentType type = req.attachmentSha256() != null ? ContentType.FILE : ContentType.TEXT;
+    return new MessageCreateRequest(req.senderUserId(), req.content(), type, req.attachmentSha256());
+  }
 }
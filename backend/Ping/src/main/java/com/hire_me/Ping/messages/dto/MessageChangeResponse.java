@@ -0,0 +1,13 @@
+package com.hire_me.Ping.messages.dto;
+
+import com.hire_me.Ping.messages.entity.MessageChange;
+import java.util.UUID;
+
+// One entry of a delta: the latest change to a message since the client's seq.
+// message is the current state (null for DELETED)
+public record MessageChangeResponse(
+    long seq,
+    MessageChange.Kind kind,
+    UUID messageId,
+    MessageResponse message
+) {}
@@ -0,0 +1,11 @@
+package com.hire_me.Ping.messages.dto;
+
+import java.util.List;
+
+// Delta for a channel/DM. Store nextSeq and pass it as ?sinceSeq= next time;
+// hasMore = call again right away with nextSeq
+public record MessageChangesResponse(
+    List<MessageChangeResponse> changes,
+    long nextSeq,
+    boolean hasMore
+) {}
@@ -7,5 +7,10 @@ import java.util.UUID;
 public record MessageCreateRequest(
     UUID senderUserId,
     String content,
-    Message.ContentType contentType
-) {}
+    Message.ContentType contentType,
+    String attachmentSha256   // from POST /api/blobs; optional
+) {
+  public MessageCreateRequest(UUID senderUserId, String content, Message.ContentType contentType) {
+    this(senderUserId, content, contentType, null);
+  }
+}
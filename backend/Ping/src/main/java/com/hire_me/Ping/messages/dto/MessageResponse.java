@@ -14,5 +14,9 @@ public record MessageResponse(
     Message.ContentType contentType,
     boolean deleted,
     Instant createdAt,
-    Instant editedAt
+    Instant editedAt,
+    UUID parentMessageId,   // set on thread replies
+    int replyCount,         // thread summary, set on thread roots
+    Instant lastReplyAt,
+    String attachmentSha256 // GET /api/blobs/{sha256}; null = no attachment
 ) {}
@@ -0,0 +1,11 @@
+package com.hire_me.Ping.messages.dto;
+
+import java.time.Instant;
+
+// One revision of a message's content; revision 0 is the content as posted,
+// createdAt when it became current (the post, or the edit that produced it)
+public record MessageRevisionResponse(
+    int revision,
+    String content,
+    Instant createdAt
+) {}
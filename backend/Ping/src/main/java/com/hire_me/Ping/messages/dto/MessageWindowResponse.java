@@ -0,0 +1,14 @@
+package com.hire_me.Ping.messages.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+// Messages around an anchor, newest-first like every page. anchorId = the message the window is
+// centred on (null if a timestamp anchor is past the newest message); hasOlder / hasNewer = keep
+// paging with ?before= / ?after= from the last / first message
+public record MessageWindowResponse(
+    List<MessageResponse> messages,
+    UUID anchorId,
+    boolean hasOlder,
+    boolean hasNewer
+) {}
@@ -0,0 +1,44 @@
+package com.hire_me.Ping.messages.entity;
+
+import jakarta.persistence.*;
+import java.util.UUID;
+
+/**
+ * Where a message that ColdTierMover moved out of the {@code message} table lives now: its
+ * conversation and month, i.e. its ColdMessageStore segment. Written in the transaction that
+ * deletes the row from the table, removed when the row is thawed back or its month is dropped,
+ * so lookups by message id (edit, delete, reply, search hits) don't have to know the conversation.
+ * {@code threadRootId} is the row's parent, or the row itself for a top-level message:
+ * a thread is thawed as a whole.
+ */
+@Entity
+@Table(name = "cold_message",
+       indexes = @Index(name = "idx_cold_thread", columnList = "thread_root_id"))
+public class ColdMessage {
+
+    @Id
+    @Column(name = "message_id")
+    private UUID messageId;
+
+    @Column(name = "conversation_id", nullable = false)
+    private UUID conversationId;
+
+    // YearMonth.toString(), e.g. 2025-03: the segment's directory
+    @Column(name = "cold_month", length = 7, nullable = false)
+    private String month;
+
+    @Column(name = "thread_root_id", nullable = false)
+    private UUID threadRootId;
+
+    public UUID getMessageId() { return messageId; }
+    public void setMessageId(UUID messageId) { this.messageId = messageId; }
+
+    public UUID getConversationId() { return conversationId; }
+    public void setConversationId(UUID conversationId) { this.conversationId = conversationId; }
+
+    public String getMonth() { return month; }
+    public void setMonth(String month) { this.month = month; }
+
+    public UUID getThreadRootId() { return threadRootId; }
+    public void setThreadRootId(UUID threadRootId) { this.threadRootId = threadRootId; }
+}
@@ -0,0 +1,37 @@
+package com.hire_me.Ping.messages.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import java.util.UUID;
+
+/**
+ * Last sequence number handed out in a channel or DM (keyed by the channel id or DM id).
+ * Only touched through MessageChangeLog's atomic UPDATE, which row-locks it until the writing
+ * transaction ends, so numbers are gap-free and commit in order per conversation.
+ * {@code messageCount} counts live top-level messages (creates add, deletes take away) and backs
+ * unread badges (unread = messageCount - readCount).
+ */
+@Entity
+@Table(name = "conversation_sequence")
+public class ConversationSequence {
+
+    @Id
+    @Column(name = "conversation_id")
+    private UUID conversationId;
+
+    @Column(name = "last_seq", nullable = false)
+    private long lastSeq;
+
+    @ColumnDefault("0")
+    @Column(name = "message_count", nullable = false)
+    private long messageCount;
+
+    public UUID getConversationId() { return conversationId; }
+    public void setConversationId(UUID conversationId) { this.conversationId = conversationId; }
+
+    public long getLastSeq() { return lastSeq; }
+    public void setLastSeq(long lastSeq) { this.lastSeq = lastSeq; }
+
+    public long getMessageCount() { return messageCount; }
+    public void setMessageCount(long messageCount) { this.messageCount = messageCount; }
+}
@@ -1,6 +1,8 @@
 package com.hire_me.Ping.messages.entity;
 
+import com.hire_me.Ping.common.id.TimeOrderedId;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.Instant;
 import java.util.UUID;
 
@@ -8,21 +10,28 @@ import java.util.UUID;
 @Table(
   name = "message",
   indexes = {
-    @Index(name = "idx_msg_channel_created", columnList = "channel_id, created_at"),
-    @Index(name = "idx_msg_dm_created", columnList = "direct_conversation_id, created_at"),
+    @Index(name = "idx_msg_channel_created", columnList = "channel_id, created_at, id"),
+    @Index(name = "idx_msg_dm_created", columnList = "direct_conversation_id, created_at, id"),
+    @Index(name = "idx_msg_parent_created", columnList = "parent_message_id, created_at, id"),
     @Index(name = "idx_msg_sender_created", columnList = "sender_user_id, created_at"),
     @Index(name = "idx_msg_created_at", columnList = "created_at"),
-    @Index(name = "idx_msg_deleted", columnList = "deleted")
+    @Index(name = "idx_msg_deleted", columnList = "deleted, deleted_at")   // retention purge of soft-deleted rows
+  },
+  uniqueConstraints = {
+    // a client retry carrying the same Idempotency-Key can never insert a second row
+    @UniqueConstraint(name = "uk_msg_sender_idempotency_key", columnNames = {"sender_user_id", "idempotency_key"})
   }
 )
 public class Message {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
-    private UUID id;  // Should already be UUID
+    @TimeOrderedId
+    private UUID id;  // UUIDv7: inserts append to the PK index and ids sort by creation time
     
-    @Column(name = "content")
-    private String content;
+    // Long bodies are stored compressed and inflated on first read (MessageContent)
+    @Convert(converter = MessageContentConverter.class)
+    @Column(name = "content", length = 65535)
+    private MessageContent content;
     
     @Enumerated(EnumType.STRING)
     @Column(name = "content_type")
@@ -45,6 +54,34 @@ public class Message {
     
     @Column(name = "deleted")
     private boolean deleted;
+
+    // When the message was soft-deleted; retention hard-purges it a policy-defined time later
+    @Column(name = "deleted_at")
+    private Instant deletedAt;
+
+    // Thread root this message replies to; null for top-level messages (threads are one level deep)
+    @Column(name = "parent_message_id")
+    private UUID parentMessageId;
+
+    // Thread summary kept on the root. Only ever changed by MessageRepository.bumpThread (new replies)
+    // and recountThread (replies deleted or purged), atomic in-place updates that MessageWriter runs
+    // under the root's row lock, roots in a fixed order: the bump's UPDATE takes the lock itself, a
+    // recount takes it first with lockThreadRoot. updatable = false keeps an edit of the root from
+    // writing back a stale count.
+    @ColumnDefault("0")
+    @Column(name = "reply_count", nullable = false, updatable = false)
+    private int replyCount;
+
+    @Column(name = "last_reply_at", updatable = false)
+    private Instant lastReplyAt;
+
+    // SHA-256 of the attached file in BlobStore (IMAGE/FILE messages); null = no attachment
+    @Column(name = "attachment_sha256", length = 64)
+    private String attachmentSha256;
+
+    // Client-chosen Idempotency-Key of the post that created this row (null = none sent)
+    @Column(name = "idempotency_key", length = 64, updatable = false)
+    private String idempotencyKey;
     
     @PrePersist
     protected void onCreate() {
@@ -59,8 +96,8 @@ public class Message {
     public UUID getId() { return id; }
     public void setId(UUID id) { this.id = id; }
     
-    public String getContent() { return content; }
-    public void setContent(String content) { this.content = content; }
+    public String getContent() { return content == null ? null : content.text(); }
+    public void setContent(String content) { this.content = MessageContent.of(content); }
     
     public ContentType getContentType() { return contentType; }
     public void setContentType(ContentType contentType) { this.contentType = contentType; }
@@ -82,4 +119,22 @@ public class Message {
     
     public boolean isDeleted() { return deleted; }
     public void setDeleted(boolean deleted) { this.deleted = deleted; }
+
+    public Instant getDeletedAt() { return deletedAt; }
+    public void setDeletedAt(Instant deletedAt) { this.deletedAt = deletedAt; }
+
+    public UUID getParentMessageId() { return parentMessageId; }
+    public void setParentMessageId(UUID parentMessageId) { this.parentMessageId = parentMessageId; }
+
+    public int getReplyCount() { return replyCount; }
+    public void setReplyCount(int replyCount) { this.replyCount = replyCount; }
+
+    public Instant getLastReplyAt() { return lastReplyAt; }
+    public void setLastReplyAt(Instant lastReplyAt) { this.lastReplyAt = lastReplyAt; }
+
+    public String getAttachmentSha256() { return attachmentSha256; }
+    public void setAttachmentSha256(String attachmentSha256) { this.attachmentSha256 = attachmentSha256; }
+
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public void setIdempotencyKey(String idempotencyKey) { this.idempotencyKey = idempotencyKey; }
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+package com.hire_me.Ping.messages.entity;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * One create/edit/delete of a message, numbered per conversation.
+ * Deliberately tiny (no content): the delta endpoint joins back to the current message row.
+ */
+@Entity
+@Table(name = "message_change",
+       indexes = @Index(name = "idx_change_message", columnList = "message_id"))   // a message's create seq, on delete
+@IdClass(MessageChange.Key.class)
+public class MessageChange {
+
+    public enum Kind { CREATED, UPDATED, DELETED }
+
+    @Id
+    @Column(name = "conversation_id")
+    private UUID conversationId;
+
+    @Id
+    @Column(name = "seq")
+    private long seq;
+
+    @Column(name = "message_id", nullable = false)
+    private UUID messageId;
+
+    @Enumerated(EnumType.ORDINAL)
+    @Column(name = "kind", nullable = false)
+    private Kind kind;
+
+    public UUID getConversationId() { return conversationId; }
+    public void setConversationId(UUID conversationId) { this.conversationId = conversationId; }
+
+    public long getSeq() { return seq; }
+    public void setSeq(long seq) { this.seq = seq; }
+
+    public UUID getMessageId() { return messageId; }
+    public void setMessageId(UUID messageId) { this.messageId = messageId; }
+
+    public Kind getKind() { return kind; }
+    public void setKind(Kind kind) { this.kind = kind; }
+
+    public static class Key implements Serializable {
+        private UUID conversationId;
+        private long seq;
+
+        public Key() {}
+
+        public Key(UUID conversationId, long seq) {
+            this.conversationId = conversationId;
+            this.seq = seq;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key k && seq == k.seq && Objects.equals(conversationId, k.conversationId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(conversationId, seq);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.hire_me.Ping.messages.entity;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A message body as stored in message.content, decoded on first use.
+ *
+ * Column format: plain text, unless it starts with {@link #MARKER} (a Unicode noncharacter no
+ * client sends), followed by a mode char:
+ * - 'D': Base64 of the raw-Deflate-compressed UTF-8 text, for bodies of at least
+ *   {@code min-length} chars that shrink (pasted logs and code blocks typically do by 4-8x, which
+ *   survives Base64's 4/3)
+ * - 'P': plain text that itself starts with the marker
+ * Rows written before compression existed are plain text and read unchanged.
+ *
+ * Loading a row only keeps the stored string; {@link #text()} inflates it when something reads the
+ * content (MessageMapper skips it for deleted messages, the purge and thread queries never do).
+ */
+public final class MessageContent {
+
+  public static final char MARKER = '\uFDD0';
+  private static final char DEFLATE = 'D';
+  private static final char PLAIN = 'P';
+
+  private String stored;   // null until encoded
+  private String text;     // null until decoded
+
+  private MessageContent(String stored, String text) {
+    this.stored = stored;
+    this.text = text;
+  }
+
+  public static MessageContent of(String text) {
+    return text == null ? null : new MessageContent(null, text);
+  }
+
+  public static MessageContent fromColumn(String stored) {
+    if (stored == null) {
+      return null;
+    }
+    return new MessageContent(stored, stored.isEmpty() || stored.charAt(0) != MARKER ? stored : null);
+  }
+
+  /** The column value of {@code text}, Deflate-compressed if it is long enough and shrinks. */
+  public static String encode(String text, int minLength) {
+    if (text == null) {
+      return null;
+    }
+    if (minLength > 0 && text.length() >= minLength) {
+      byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+      Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+      try {
+        deflater.setInput(utf8);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(utf8.length / 4 + 64);
+        byte[] buf = new byte[8192];
+        while (!deflater.finished()) {
+          out.write(buf, 0, deflater.deflate(buf));
+        }
+        String packed = Base64.getEncoder().encodeToString(out.toByteArray());
+        if (packed.length() + 2 < text.length()) {
+          return MARKER + "" + DEFLATE + packed;
+        }
+      } finally {
+        deflater.end();
+      }
+    }
+    return !text.isEmpty() && text.charAt(0) == MARKER ? MARKER + "" + PLAIN + text : text;
+  }
+
+  /** The text of a column value (export, cold tier and other plain-JDBC readers). */
+  public static String decode(String stored) {
+    if (stored == null || stored.isEmpty() || stored.charAt(0) != MARKER) {
+      return stored;
+    }
+    if (stored.length() < 2) {
+      throw new IllegalStateException("Truncated message content");
+    }
+    return switch (stored.charAt(1)) {
+      case PLAIN -> stored.substring(2);
+      case DEFLATE -> inflate(Base64.getDecoder().decode(stored.substring(2)));
+      default -> throw new IllegalStateException("Unknown message content encoding: " + stored.charAt(1));
+    };
+  }
+
+  private static String inflate(byte[] packed) {
+    Inflater inflater = new Inflater(true);
+    try {
+      inflater.setInput(packed);
+      ByteArrayOutputStream out = new ByteArrayOutputStream(packed.length * 4);
+      byte[] buf = new byte[8192];
+      while (!inflater.finished()) {
+        int n = inflater.inflate(buf);
+        if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new IllegalStateException("Truncated compressed message content");
+        }
+        out.write(buf, 0, n);
+      }
+      return out.toString(StandardCharsets.UTF_8);
+    } catch (DataFormatException e) {
+      throw new IllegalStateException("Corrupt compressed message content", e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  public String text() {
+    String t = text;
+    if (t == null) {
+      text = t = decode(stored);
+    }
+    return t;
+  }
+
+  String stored(int minLength) {
+    String s = stored;
+    if (s == null) {
+      stored = s = encode(text, minLength);
+    }
+    return s;
+  }
+
+  // Same text; compares stored forms when both are at hand so a dirty check does not inflate
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof MessageContent other)) {
+      return false;
+    }
+    if (stored != null && other.stored != null) {
+      return stored.equals(other.stored);
+    }
+    return text().equals(other.text());
+  }
+
+  @Override
+  public int hashCode() {
+    return text().hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return text();
+  }
+}
@@ -0,0 +1,42 @@
+package com.hire_me.Ping.messages.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.hibernate.annotations.Mutability;
+import org.hibernate.type.descriptor.java.Immutability;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maps Message.content to its column (see MessageContent for the format). A Spring bean, which
+ * Hibernate picks up through Boot's bean container, so the threshold comes from configuration;
+ * plain-JDBC writers (archive import) encode with it too. Immutable: a changed body is a new
+ * MessageContent, and the dirty check is a reference compare for unchanged ones.
+ */
+@Component
+@Converter
+@Mutability(Immutability.class)
+public class MessageContentConverter implements AttributeConverter<MessageContent, String> {
+
+  private final int minLength;
+
+  public MessageContentConverter(@Value("${app.messages.compression.enabled:true}") boolean enabled,
+                                 @Value("${app.messages.compression.min-length:1024}") int minLength) {
+    this.minLength = enabled ? Math.max(1, minLength) : 0;
+  }
+
+  /** The column value for {@code text}. */
+  public String encode(String text) {
+    return MessageContent.encode(text, minLength);
+  }
+
+  @Override
+  public String convertToDatabaseColumn(MessageContent content) {
+    return content == null ? null : content.stored(minLength);
+  }
+
+  @Override
+  public MessageContent convertToEntityAttribute(String stored) {
+    return MessageContent.fromColumn(stored);
+  }
+}
@@ -0,0 +1,90 @@
+package com.hire_me.Ping.messages.entity;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * One revision of an edited message's content. Revision 0 is the content as posted, revision n
+ * the content after the n-th edit. Most rows hold a TextDelta from the previous revision; every
+ * few revisions a full SNAPSHOT bounds how many deltas a rebuild has to apply. Messages that were
+ * never edited have no rows.
+ */
+@Entity
+@Table(name = "message_revision")
+@IdClass(MessageRevision.Key.class)
+public class MessageRevision {
+
+    public enum Kind {
+        SNAPSHOT, DELTA
+    }
+
+    @Id
+    @Column(name = "message_id")
+    private UUID messageId;
+
+    @Id
+    @Column(name = "revision")
+    private int revision;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", nullable = false, length = 8)
+    private Kind kind;
+
+    // Full content (SNAPSHOT) or an encoded TextDelta (DELTA)
+    @Column(name = "body", nullable = false, columnDefinition = "TEXT")
+    private String body;
+
+    // When this revision became current: the post for revision 0, the edit for the others
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public MessageRevision() {}
+
+    public MessageRevision(UUID messageId, int revision, Kind kind, String body, Instant createdAt) {
+        this.messageId = messageId;
+        this.revision = revision;
+        this.kind = kind;
+        this.body = body;
+        this.createdAt = createdAt;
+    }
+
+    public UUID getMessageId() { return messageId; }
+    public void setMessageId(UUID messageId) { this.messageId = messageId; }
+
+    public int getRevision() { return revision; }
+    public void setRevision(int revision) { this.revision = revision; }
+
+    public Kind getKind() { return kind; }
+    public void setKind(Kind kind) { this.kind = kind; }
+
+    public String getBody() { return body; }
+    public void setBody(String body) { this.body = body; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    public static class Key implements Serializable {
+        private UUID messageId;
+        private int revision;
+
+        public Key() {}
+
+        public Key(UUID messageId, int revision) {
+            this.messageId = messageId;
+            this.revision = revision;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key k && Objects.equals(messageId, k.messageId) && revision == k.revision;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(messageId, revision);
+        }
+    }
+}
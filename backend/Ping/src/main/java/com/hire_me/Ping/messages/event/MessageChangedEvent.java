@@ -0,0 +1,17 @@
+package com.hire_me.Ping.messages.event;
+
+import com.hire_me.Ping.messages.dto.MessageResponse;
+
+/**
+ * Application event published by MessageService inside the write transaction.
+ * {@code seq} is the change's number in its channel/DM (see MessageChangeLog).
+ * Listeners that keep derived state (caches, fan-out, indexes) should use
+ * {@code @TransactionalEventListener(phase = AFTER_COMMIT)} so rolled-back writes are never seen.
+ */
+public record MessageChangedEvent(
+    Kind kind,
+    MessageResponse message,
+    long seq
+) {
+  public enum Kind { CREATED, UPDATED, DELETED }
+}
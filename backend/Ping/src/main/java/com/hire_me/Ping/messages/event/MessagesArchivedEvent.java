@@ -0,0 +1,15 @@
+package com.hire_me.Ping.messages.event;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Published by ColdTierMover for each chunk of messages moved out of the table into the cold
+ * tier, and for each thread it thaws back in. The messages still exist (MessageService reads
+ * them from either tier), so only state derived from the table's rows, like cached pages,
+ * needs dropping after commit.
+ */
+public record MessagesArchivedEvent(
+    UUID conversationId,
+    Collection<UUID> messageIds
+) {}
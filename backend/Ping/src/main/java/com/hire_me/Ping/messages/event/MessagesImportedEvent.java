@@ -0,0 +1,12 @@
+package com.hire_me.Ping.messages.event;
+
+import java.util.UUID;
+
+/**
+ * Published once per bulk import instead of a MessageChangedEvent per row.
+ * Listeners holding derived state for the channel should drop or rebuild it after commit.
+ */
+public record MessagesImportedEvent(
+    UUID channelId,
+    long count
+) {}
@@ -0,0 +1,14 @@
+package com.hire_me.Ping.messages.event;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Published by the retention purge for each chunk of hard-deleted messages, instead of a
+ * MessageChangedEvent per row. Listeners holding derived state should drop these messages
+ * (or everything they hold for these conversations) after commit.
+ */
+public record MessagesPurgedEvent(
+    Collection<UUID> conversationIds,
+    Collection<UUID> messageIds
+) {}
@@ -0,0 +1,188 @@
+package com.hire_me.Ping.messages.ingest;
+
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.entity.Message;
+import com.hire_me.Ping.messages.service.MessageWriter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional group-commit path for new messages (app.messages.ingest.batched=true).
+ *
+ * Posts go into a bounded queue; one writer thread drains it and commits up to
+ * {@code max-batch} messages per transaction, waiting at most {@code max-delay-ms} for a
+ * batch to fill. Each caller's future completes only after ITS batch has committed, so the
+ * API stays durable while the connection pool sees one writer instead of one per request.
+ *
+ * No caller waits forever: an interrupted writer commits what it holds and what is queued
+ * before it exits, and every future times out after {@code commit-timeout-ms} regardless.
+ */
+@Component
+public class MessageIngestPipeline {
+
+  private static final Logger log = LoggerFactory.getLogger(MessageIngestPipeline.class);
+
+  private final MessageWriter writer;
+  private final boolean enabled;
+  private final int maxBatch;
+  private final long maxDelayNanos;
+  private final long offerTimeoutMs;
+  private final long commitTimeoutMs;
+  private final BlockingQueue<Pending> queue;
+
+  private volatile boolean running;
+  private Thread thread;
+
+  public MessageIngestPipeline(MessageWriter writer,
+                               @Value("${app.messages.ingest.batched:false}") boolean enabled,
+                               @Value("${app.messages.ingest.max-batch:256}") int maxBatch,
+                               @Value("${app.messages.ingest.max-delay-ms:5}") long maxDelayMs,
+                               @Value("${app.messages.ingest.queue-capacity:10000}") int queueCapacity,
+                               @Value("${app.messages.ingest.offer-timeout-ms:1000}") long offerTimeoutMs,
+                               @Value("${app.messages.ingest.commit-timeout-ms:10000}") long commitTimeoutMs) {
+    this.writer = writer;
+    this.enabled = enabled;
+    this.maxBatch = Math.max(1, maxBatch);
+    this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+    this.offerTimeoutMs = offerTimeoutMs;
+    this.commitTimeoutMs = commitTimeoutMs;
+    this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @PostConstruct
+  void start() {
+    if (!enabled) return;
+    running = true;
+    thread = new Thread(this::run, "message-ingest-writer");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @PreDestroy
+  void stop() throws InterruptedException {
+    running = false;
+    if (thread != null) {
+      thread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+  }
+
+  /**
+   * Enqueue and return a future that completes once the message is committed, or with a
+   * TimeoutException after commit-timeout-ms (the post may still commit later).
+   */
+  public CompletableFuture<MessageResponse> submit(Message message) {
+    if (!running) {
+      throw new IllegalStateException("Message ingest pipeline is not running");
+    }
+    Pending pending = new Pending(message,
+        new CompletableFuture<MessageResponse>().orTimeout(commitTimeoutMs, TimeUnit.MILLISECONDS));
+    try {
+      if (!queue.offer(pending, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+        throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Message ingest queue is full");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while queueing message", e);
+    }
+    return pending.future();
+  }
+
+  private void run() {
+    List<Pending> batch = new ArrayList<>(maxBatch);
+    boolean interrupted = false;
+    // keep draining after stop() so nobody is left waiting on an accepted post
+    while (!interrupted && (running || !queue.isEmpty())) {
+      try {
+        Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) continue;
+        batch.add(first);
+
+        long deadline = System.nanoTime() + maxDelayNanos;
+        while (batch.size() < maxBatch) {
+          if (queue.drainTo(batch, maxBatch - batch.size()) > 0) continue;
+          long remaining = deadline - System.nanoTime();
+          if (remaining <= 0) break;
+          Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+          if (next == null) break;
+          batch.add(next);
+        }
+
+        flush(batch);
+      } catch (InterruptedException e) {
+        // poll() cleared the flag, so the remaining commits can run; restored on the way out
+        interrupted = true;
+        running = false;
+        drainRemaining(batch);
+      } catch (RuntimeException e) {
+        log.error("Message ingest writer failed", e);
+        fail(batch, e);
+      } finally {
+        batch.clear();
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // Interrupted: commit the batch in hand, then whatever is still queued, maxBatch at a time
+  private void drainRemaining(List<Pending> batch) {
+    while (true) {
+      queue.drainTo(batch, maxBatch - batch.size());
+      if (batch.isEmpty()) return;
+      try {
+        flush(batch);
+      } catch (RuntimeException e) {
+        log.error("Message ingest writer failed while stopping", e);
+        fail(batch, e);
+      }
+      batch.clear();
+    }
+  }
+
+  // No-op for futures already completed
+  private static void fail(List<Pending> batch, Throwable e) {
+    for (Pending p : batch) {
+      p.future().completeExceptionally(e);
+    }
+  }
+
+  private void flush(List<Pending> batch) {
+    try {
+      List<MessageResponse> saved = writer.insertAll(batch.stream().map(Pending::message).toList());
+      for (int i = 0; i < batch.size(); i++) {
+        batch.get(i).future().complete(saved.get(i));
+      }
+    } catch (RuntimeException e) {
+      if (batch.size() == 1) {
+        batch.get(0).future().completeExceptionally(e);
+        return;
+      }
+      // One bad row rolls back the whole batch: retry one by one so only that caller fails
+      log.warn("Batch of {} messages failed, retrying individually: {}", batch.size(), e.getMessage());
+      for (Pending p : batch) {
+        p.message().setId(null);
+        flush(List.of(p));
+      }
+    }
+  }
+
+  private record Pending(Message message, CompletableFuture<MessageResponse> future) {}
+}
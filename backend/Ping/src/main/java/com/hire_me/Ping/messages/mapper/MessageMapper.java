@@ -25,7 +25,31 @@ public class MessageMapper {
         m.getContentType(),
         m.isDeleted(),
         m.getCreatedAt(),
-        m.getEditedAt()
+        m.getEditedAt(),
+        m.getParentMessageId(),
+        m.getReplyCount(),
+        m.getLastReplyAt(),
+        m.getAttachmentSha256()
     );
   }
+
+  // Back to a detached entity, for code that has a response but needs a Message (change log, cold
+  // tier). For a deleted message this carries whatever content the response had.
+  public Message toEntity(MessageResponse r) {
+    Message m = new Message();
+    m.setId(r.id());
+    m.setChannelId(r.channelId());
+    m.setDirectConversationId(r.directConversationId());
+    m.setSenderUserId(r.senderUserId());
+    m.setContent(r.content());
+    m.setContentType(r.contentType());
+    m.setDeleted(r.deleted());
+    m.setCreatedAt(r.createdAt());
+    m.setEditedAt(r.editedAt());
+    m.setParentMessageId(r.parentMessageId());
+    m.setReplyCount(r.replyCount());
+    m.setLastReplyAt(r.lastReplyAt());
+    m.setAttachmentSha256(r.attachmentSha256());
+    return m;
+  }
 }
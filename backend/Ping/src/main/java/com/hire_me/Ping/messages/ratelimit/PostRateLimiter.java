@@ -0,0 +1,159 @@
+package com.hire_me.Ping.messages.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token-bucket limits on message posts, one bucket per sender and one per conversation
+ * (channel or DM), so one runaway script can neither flood a conversation nor hog the writer.
+ *
+ * A post needs a token from both buckets; if the conversation bucket says no, the sender's token
+ * is handed back. The hot path is a map lookup and a CAS per bucket (see TokenBucket).
+ *
+ * Buckets idle long enough to have refilled completely are swept in the background: a fresh
+ * bucket created on the next post is indistinguishable from the evicted one.
+ */
+@Component
+public class PostRateLimiter {
+
+  record Limit(long capacity, long refillPerMs) {
+    static Limit of(int perSecond, int burst) {
+      if (perSecond < 1 || burst < 1) {
+        throw new IllegalArgumentException("Rate limits need rate >= 1/s and burst >= 1");
+      }
+      return new Limit(Math.min((long) burst * TokenBucket.ONE, TokenBucket.MAX_CAPACITY), perSecond);
+    }
+
+    long refillMs() {
+      return capacity / refillPerMs;
+    }
+  }
+
+  private final boolean enabled;
+  private final Limit perUser;
+  private final Limit perConversation;
+  private final long idleEvictMs;
+  private final LongSupplier clockMs;
+
+  private final Map<UUID, TokenBucket> users = new ConcurrentHashMap<>();
+  private final Map<UUID, TokenBucket> conversations = new ConcurrentHashMap<>();
+
+  private final Counter rejectedUser;
+  private final Counter rejectedConversation;
+  private final ScheduledExecutorService sweeper;
+
+  @Autowired
+  public PostRateLimiter(@Value("${app.messages.rate-limit.enabled:true}") boolean enabled,
+                         @Value("${app.messages.rate-limit.per-user.rate:5}") int userRate,
+                         @Value("${app.messages.rate-limit.per-user.burst:20}") int userBurst,
+                         @Value("${app.messages.rate-limit.per-conversation.rate:50}") int conversationRate,
+                         @Value("${app.messages.rate-limit.per-conversation.burst:200}") int conversationBurst,
+                         @Value("${app.messages.rate-limit.idle-evict-ms:60000}") long idleEvictMs,
+                         MeterRegistry meters) {
+    this(enabled, Limit.of(userRate, userBurst), Limit.of(conversationRate, conversationBurst),
+        idleEvictMs, monotonicMs(), meters, true);
+  }
+
+  PostRateLimiter(boolean enabled, Limit perUser, Limit perConversation, long idleEvictMs,
+                  LongSupplier clockMs, MeterRegistry meters, boolean sweep) {
+    this.enabled = enabled;
+    this.perUser = perUser;
+    this.perConversation = perConversation;
+    this.idleEvictMs = idleEvictMs;
+    this.clockMs = clockMs;
+
+    this.rejectedUser = Counter.builder("messages.rate_limit.rejected").tag("scope", "user").register(meters);
+    this.rejectedConversation = Counter.builder("messages.rate_limit.rejected").tag("scope", "conversation").register(meters);
+    Gauge.builder("messages.rate_limit.buckets", () -> users.size() + conversations.size()).register(meters);
+
+    if (enabled && sweep) {
+      this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "post-rate-limit-sweeper");
+        t.setDaemon(true);
+        return t;
+      });
+      long period = Math.max(1000, idleEvictMs / 2);
+      this.sweeper.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    } else {
+      this.sweeper = null;
+    }
+  }
+
+  /**
+   * Takes one post from the sender's and the conversation's budgets.
+   *
+   * @throws RateLimitedException (429) when either is exhausted
+   */
+  public void acquire(UUID senderId, UUID conversationId) {
+    if (!enabled) {
+      return;
+    }
+    long now = clockMs.getAsLong();
+
+    TokenBucket user = bucket(users, senderId, perUser, now);
+    long wait = user.tryAcquire(now, perUser.capacity(), perUser.refillPerMs());
+    if (wait > 0) {
+      rejectedUser.increment();
+      throw new RateLimitedException("Too many messages from this sender", wait);
+    }
+
+    TokenBucket conversation = bucket(conversations, conversationId, perConversation, now);
+    wait = conversation.tryAcquire(now, perConversation.capacity(), perConversation.refillPerMs());
+    if (wait > 0) {
+      user.refund(perUser.capacity());
+      rejectedConversation.increment();
+      throw new RateLimitedException("Too many messages in this conversation", wait);
+    }
+  }
+
+  // get() first: the common case (bucket exists) then allocates nothing
+  private static TokenBucket bucket(Map<UUID, TokenBucket> map, UUID key, Limit limit, long now) {
+    TokenBucket b = map.get(key);
+    return b != null ? b : map.computeIfAbsent(key, k -> new TokenBucket(limit.capacity(), now));
+  }
+
+  int bucketCount() {
+    return users.size() + conversations.size();
+  }
+
+  void evictIdle() {
+    long now = clockMs.getAsLong();
+    evictIdle(users, now, Math.max(idleEvictMs, perUser.refillMs()));
+    evictIdle(conversations, now, Math.max(idleEvictMs, perConversation.refillMs()));
+  }
+
+  // A post racing the sweep may take its token from a bucket that is dropped right after; the next
+  // post then starts from a full bucket, which one idle that long nearly was anyway.
+  private static void evictIdle(Map<UUID, TokenBucket> map, long now, long idleMs) {
+    map.forEach((key, bucket) -> {
+      if (now - bucket.lastRefillMs() >= idleMs) {
+        map.remove(key, bucket);
+      }
+    });
+  }
+
+  private static LongSupplier monotonicMs() {
+    long origin = System.nanoTime();
+    return () -> (System.nanoTime() - origin) / 1_000_000;
+  }
+
+  @PreDestroy
+  void shutdown() {
+    if (sweeper != null) {
+      sweeper.shutdownNow();
+    }
+  }
+}
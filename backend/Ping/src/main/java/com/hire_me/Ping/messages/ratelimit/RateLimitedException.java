@@ -0,0 +1,33 @@
+package com.hire_me.Ping.messages.ratelimit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/** 429 with a Retry-After header (whole seconds, rounded up) telling the client when to try again. */
+public class RateLimitedException extends ResponseStatusException {
+
+  private final long retryAfterSeconds;
+
+  public RateLimitedException(String reason, long retryAfterMs) {
+    super(HttpStatus.TOO_MANY_REQUESTS, reason);
+    this.retryAfterSeconds = Math.max(1, (retryAfterMs + 999) / 1000);
+  }
+
+  public long getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+
+  @Override
+  public HttpHeaders getHeaders() {
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+    return headers;
+  }
+
+  // Thrown at a client looping as fast as it can: skip the stack walk, the status says it all
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
+}
@@ -0,0 +1,72 @@
+package com.hire_me.Ping.messages.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One token bucket packed into a single long, so taking a token is a read, a little arithmetic
+ * and one CAS: no lock, no allocation.
+ *
+ * - high 22 bits: available tokens in thousandths (a burst of up to 4194 tokens)
+ * - low 42 bits:  time of the last refill in ms on the limiter's monotonic clock (~139 years)
+ *
+ * Refill is lazy: whoever acquires next credits the time since the last refill.
+ */
+final class TokenBucket {
+
+  static final long ONE = 1000;   // one token, in milli-tokens
+
+  private static final int TIME_BITS = 42;
+  private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+  static final long MAX_CAPACITY = ((1L << (64 - TIME_BITS)) - 1) / ONE * ONE;
+
+  private final AtomicLong state;
+
+  TokenBucket(long capacity, long nowMs) {
+    this.state = new AtomicLong(pack(capacity, nowMs));
+  }
+
+  /**
+   * Takes one token. Returns 0 on success, otherwise the ms until a token will be available.
+   *
+   * @param capacity    bucket size in milli-tokens
+   * @param refillPerMs milli-tokens added per ms (= tokens per second)
+   */
+  long tryAcquire(long nowMs, long capacity, long refillPerMs) {
+    while (true) {
+      long s = state.get();
+      long last = s & TIME_MASK;
+      long tokens = s >>> TIME_BITS;
+      if (nowMs > last) {
+        // capping elapsed at capacity ms keeps the product far from overflow (refillPerMs >= 1)
+        long elapsed = Math.min(nowMs - last, capacity);
+        tokens = Math.min(capacity, tokens + elapsed * refillPerMs);
+        last = nowMs;
+      }
+      if (tokens < ONE) {
+        return (ONE - tokens + refillPerMs - 1) / refillPerMs;
+      }
+      if (state.compareAndSet(s, pack(tokens - ONE, last))) {
+        return 0;
+      }
+    }
+  }
+
+  /** Gives back a token taken by a request that was then rejected by another bucket. */
+  void refund(long capacity) {
+    while (true) {
+      long s = state.get();
+      long tokens = Math.min(capacity, (s >>> TIME_BITS) + ONE);
+      if (state.compareAndSet(s, pack(tokens, s & TIME_MASK))) {
+        return;
+      }
+    }
+  }
+
+  long lastRefillMs() {
+    return state.get() & TIME_MASK;
+  }
+
+  private static long pack(long tokens, long timeMs) {
+    return (tokens << TIME_BITS) | (timeMs & TIME_MASK);
+  }
+}
@@ -0,0 +1,24 @@
+package com.hire_me.Ping.messages.repository;
+
+import com.hire_me.Ping.messages.entity.ColdMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ColdMessageRepository extends JpaRepository<ColdMessage, UUID> {
+
+  // A thread's cold rows, root included when it is cold too
+  List<ColdMessage> findByThreadRootId(UUID threadRootId);
+
+  // Retention: cold months that are being dropped
+  @Modifying
+  @Query("DELETE FROM ColdMessage c WHERE c.messageId IN :messageIds")
+  int deleteByMessageIdIn(@Param("messageIds") Collection<UUID> messageIds);
+}
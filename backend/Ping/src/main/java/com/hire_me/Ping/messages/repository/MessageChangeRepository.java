@@ -0,0 +1,21 @@
+package com.hire_me.Ping.messages.repository;
+
+import com.hire_me.Ping.messages.entity.MessageChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface MessageChangeRepository extends JpaRepository<MessageChange, MessageChange.Key> {
+
+  // Range scan on the (conversation_id, seq) primary key
+  List<MessageChange> findByConversationIdAndSeqGreaterThanOrderBySeqAsc(UUID conversationId, long sinceSeq, Pageable pageable);
+
+  @Query("SELECT s.lastSeq FROM ConversationSequence s WHERE s.conversationId = :conversationId")
+  Long findLastSeq(@Param("conversationId") UUID conversationId);
+}
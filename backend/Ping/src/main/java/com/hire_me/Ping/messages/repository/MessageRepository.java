@@ -1,29 +1,153 @@
 package com.hire_me.Ping.messages.repository;
 
 import com.hire_me.Ping.messages.entity.Message;
+import com.hire_me.Ping.messages.entity.MessageContent;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface MessageRepository extends JpaRepository<Message, UUID> {
 
-  // Channel message queries
-  List<Message> findByChannelIdOrderByCreatedAtDesc(UUID channelId, Pageable pageable);
-  
-  List<Message> findByChannelIdAndIdAfterOrderByCreatedAtDesc(UUID channelId, UUID afterId, Pageable pageable);
+  // Channel message queries. Conversation pages hold top-level messages only; thread replies
+  // are reached through their root (findRepliesAfter), whose row carries the thread summary.
+  List<Message> findByChannelIdAndParentMessageIdIsNullOrderByCreatedAtDescIdDesc(UUID channelId, Pageable pageable);
 
-  // DM message queries  
-  List<Message> findByDirectConversationIdOrderByCreatedAtDesc(UUID directConversationId, Pageable pageable);
-  
-  List<Message> findByDirectConversationIdAndIdAfterOrderByCreatedAtDesc(UUID directConversationId, UUID afterId, Pageable pageable);
+  // Keyset pages: the cursor message's (created_at, id) is resolved inside the same statement,
+  // so each page is a single seek + range scan on idx_msg_channel_created.
+  @Query("SELECT m FROM Message m WHERE m.channelId = :channelId AND m.parentMessageId IS NULL " +
+         "AND (m.createdAt, m.id) < (SELECT c.createdAt, c.id FROM Message c WHERE c.id = :cursorId) " +
+         "ORDER BY m.createdAt DESC, m.id DESC")
+  List<Message> findChannelPageBefore(@Param("channelId") UUID channelId,
+                                      @Param("cursorId") UUID cursorId,
+                                      Pageable pageable);
+
+  // Ascending so the LIMIT keeps the rows closest to the cursor; callers flip it back to newest-first.
+  @Query("SELECT m FROM Message m WHERE m.channelId = :channelId AND m.parentMessageId IS NULL " +
+         "AND (m.createdAt, m.id) > (SELECT c.createdAt, c.id FROM Message c WHERE c.id = :cursorId) " +
+         "ORDER BY m.createdAt ASC, m.id ASC")
+  List<Message> findChannelPageAfter(@Param("channelId") UUID channelId,
+                                     @Param("cursorId") UUID cursorId,
+                                     Pageable pageable);
+
+  // Around-anchor windows: a position (createdAt, id) instead of a cursor message, so a timestamp
+  // works too (pass the smallest uuid). Each side is one seek on idx_msg_channel_created.
+  @Query("SELECT m FROM Message m WHERE m.channelId = :channelId AND m.parentMessageId IS NULL " +
+         "AND (m.createdAt, m.id) < (:createdAt, :id) " +
+         "ORDER BY m.createdAt DESC, m.id DESC")
+  List<Message> findChannelOlderThan(@Param("channelId") UUID channelId,
+                                     @Param("createdAt") Instant createdAt,
+                                     @Param("id") UUID id,
+                                     Pageable pageable);
+
+  @Query("SELECT m FROM Message m WHERE m.channelId = :channelId AND m.parentMessageId IS NULL " +
+         "AND (m.createdAt, m.id) >= (:createdAt, :id) " +
+         "ORDER BY m.createdAt ASC, m.id ASC")
+  List<Message> findChannelFrom(@Param("channelId") UUID channelId,
+                                @Param("createdAt") Instant createdAt,
+                                @Param("id") UUID id,
+                                Pageable pageable);
+
+  // DM message queries
+  List<Message> findByDirectConversationIdAndParentMessageIdIsNullOrderByCreatedAtDescIdDesc(UUID directConversationId, Pageable pageable);
+
+  @Query("SELECT m FROM Message m WHERE m.directConversationId = :dmId AND m.parentMessageId IS NULL " +
+         "AND (m.createdAt, m.id) < (SELECT c.createdAt, c.id FROM Message c WHERE c.id = :cursorId) " +
+         "ORDER BY m.createdAt DESC, m.id DESC")
+  List<Message> findDmPageBefore(@Param("dmId") UUID dmId,
+                                 @Param("cursorId") UUID cursorId,
+                                 Pageable pageable);
+
+  @Query("SELECT m FROM Message m WHERE m.directConversationId = :dmId AND m.parentMessageId IS NULL " +
+         "AND (m.createdAt, m.id) > (SELECT c.createdAt, c.id FROM Message c WHERE c.id = :cursorId) " +
+         "ORDER BY m.createdAt ASC, m.id ASC")
+  List<Message> findDmPageAfter(@Param("dmId") UUID dmId,
+                                @Param("cursorId") UUID cursorId,
+                                Pageable pageable);
+
+  @Query("SELECT m FROM Message m WHERE m.directConversationId = :dmId AND m.parentMessageId IS NULL " +
+         "AND (m.createdAt, m.id) < (:createdAt, :id) " +
+         "ORDER BY m.createdAt DESC, m.id DESC")
+  List<Message> findDmOlderThan(@Param("dmId") UUID dmId,
+                                @Param("createdAt") Instant createdAt,
+                                @Param("id") UUID id,
+                                Pageable pageable);
+
+  @Query("SELECT m FROM Message m WHERE m.directConversationId = :dmId AND m.parentMessageId IS NULL " +
+         "AND (m.createdAt, m.id) >= (:createdAt, :id) " +
+         "ORDER BY m.createdAt ASC, m.id ASC")
+  List<Message> findDmFrom(@Param("dmId") UUID dmId,
+                           @Param("createdAt") Instant createdAt,
+                           @Param("id") UUID id,
+                           Pageable pageable);
+
+  // Thread replies, oldest first (threads read top-down), keyset-paged on idx_msg_parent_created
+  List<Message> findByParentMessageIdOrderByCreatedAtAscIdAsc(UUID parentMessageId, Pageable pageable);
+
+  @Query("SELECT m FROM Message m WHERE m.parentMessageId = :parentId " +
+         "AND (m.createdAt, m.id) > (SELECT c.createdAt, c.id FROM Message c WHERE c.id = :cursorId) " +
+         "ORDER BY m.createdAt ASC, m.id ASC")
+  List<Message> findRepliesAfter(@Param("parentId") UUID parentId,
+                                 @Param("cursorId") UUID cursorId,
+                                 Pageable pageable);
+
+  // In-place increment: concurrent replies to one root serialize on its row lock, none is lost.
+  // Clears the persistence context so a root loaded earlier in the transaction is re-read fresh.
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("UPDATE Message m SET m.replyCount = m.replyCount + :replies, " +
+         "m.lastReplyAt = CASE WHEN m.lastReplyAt IS NULL OR m.lastReplyAt < :lastReplyAt " +
+         "THEN :lastReplyAt ELSE m.lastReplyAt END " +
+         "WHERE m.id = :rootId")
+  int bumpThread(@Param("rootId") UUID rootId,
+                 @Param("replies") int replies,
+                 @Param("lastReplyAt") Instant lastReplyAt);
+
+  // Takes a thread root's row lock ahead of recountThread: a reply's bumpThread holds it until its
+  // commit, so the recount, a statement of its own, starts after every bump it has to see
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT m FROM Message m WHERE m.id = :id")
+  Optional<Message> lockThreadRoot(@Param("id") UUID id);
+
+  // Thread summary recomputed from the root's live replies, for when replies go away
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("UPDATE Message m SET " +
+         "m.replyCount = (SELECT CAST(COUNT(r) AS Integer) FROM Message r WHERE r.parentMessageId = :rootId AND r.deleted = false), " +
+         "m.lastReplyAt = (SELECT MAX(r.createdAt) FROM Message r WHERE r.parentMessageId = :rootId AND r.deleted = false) " +
+         "WHERE m.id = :rootId")
+  int recountThread(@Param("rootId") UUID rootId);
+
+  // Edit in place (no read first); 0 = no such message, or it has been deleted
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("UPDATE Message m SET m.content = :content, m.editedAt = :editedAt WHERE m.id = :id AND m.deleted = false")
+  int editContent(@Param("id") UUID id,
+                  @Param("content") MessageContent content,
+                  @Param("editedAt") Instant editedAt);
+
+  // Soft delete in place. 0 = no such message, or it was deleted already
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("UPDATE Message m SET m.deleted = true, m.deletedAt = :deletedAt WHERE m.id = :id AND m.deleted = false")
+  int markDeleted(@Param("id") UUID id,
+                  @Param("deletedAt") Instant deletedAt);
+
+  // Full-table scan in primary-key order for bulk consumers (search rebuild); pass the last id seen.
+  List<Message> findByDeletedFalseAndIdGreaterThanOrderByIdAsc(UUID afterId, Pageable pageable);
 
   // Sender queries
   List<Message> findBySenderUserIdOrderByCreatedAtDesc(UUID senderUserId, Pageable pageable);
-  
+
+  // The post a retried Idempotency-Key refers to (unique per sender)
+  Optional<Message> findBySenderUserIdAndIdempotencyKey(UUID senderUserId, String idempotencyKey);
+
   // Additional useful queries
   List<Message> findByChannelIdAndDeletedFalseOrderByCreatedAtDesc(UUID channelId, Pageable pageable);
   List<Message> findByDirectConversationIdAndDeletedFalseOrderByCreatedAtDesc(UUID directConversationId, Pageable pageable);
@@ -0,0 +1,30 @@
+package com.hire_me.Ping.messages.repository;
+
+import com.hire_me.Ping.messages.entity.MessageRevision;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface MessageRevisionRepository extends JpaRepository<MessageRevision, MessageRevision.Key> {
+
+  List<MessageRevision> findByMessageIdOrderByRevisionAsc(UUID messageId);
+
+  // What rebuilding {@code revision} needs: the newest snapshot at or before it, and the deltas after
+  @Query("SELECT r FROM MessageRevision r WHERE r.messageId = :messageId AND r.revision <= :revision " +
+         "AND r.revision >= (SELECT MAX(s.revision) FROM MessageRevision s WHERE s.messageId = :messageId " +
+         "AND s.kind = com.hire_me.Ping.messages.entity.MessageRevision.Kind.SNAPSHOT AND s.revision <= :revision) " +
+         "ORDER BY r.revision ASC")
+  List<MessageRevision> findChain(@Param("messageId") UUID messageId, @Param("revision") int revision);
+
+  // Purge and retention: the history of messages that are being hard-deleted
+  @Modifying
+  @Query("DELETE FROM MessageRevision r WHERE r.messageId IN :messageIds")
+  int deleteByMessageIdIn(@Param("messageIds") Collection<UUID> messageIds);
+}
@@ -0,0 +1,333 @@
+package com.hire_me.Ping.messages.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.hire_me.Ping.common.id.UuidV7;
+import com.hire_me.Ping.messages.cold.ColdMessageStore;
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.entity.Message;
+import com.hire_me.Ping.messages.entity.MessageContent;
+import com.hire_me.Ping.messages.entity.MessageContentConverter;
+import com.hire_me.Ping.messages.event.MessagesImportedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Bulk channel history in NDJSON (one MessageResponse object per line, oldest first).
+ *
+ * Both directions go through plain JDBC rather than JPA: export reads a forward-only cursor
+ * with a fetch size, so memory stays constant and nothing enters a persistence context;
+ * import sends multi-row JDBC batches and numbers the new rows in the change log. Deleted
+ * messages are exported with their original content so a dump is a faithful copy of the table
+ * (and of the channel's months in the cold tier). Content is decoded and encoded here, as
+ * MessageContentConverter does for JPA: dumps and the cold tier hold plain text.
+ */
+@Service
+public class MessageArchiveService {
+
+  private static final String COLUMNS =
+      "SELECT id, channel_id, direct_conversation_id, sender_user_id, content, content_type, " +
+      "deleted, created_at, edited_at, parent_message_id, reply_count, last_reply_at, attachment_sha256 FROM message ";
+
+  private static final String EXPORT_SQL = COLUMNS + "WHERE channel_id = ? ORDER BY created_at, id";
+
+  private static final String CHANNEL_RANGE_SQL = COLUMNS +
+      "WHERE channel_id = ? AND created_at >= ? AND created_at < ? ORDER BY created_at, id";
+
+  private static final String DM_RANGE_SQL = COLUMNS +
+      "WHERE direct_conversation_id = ? AND created_at >= ? AND created_at < ? ORDER BY created_at, id";
+
+  private static final String INSERT_SQL =
+      "INSERT INTO message (id, channel_id, sender_user_id, content, content_type, deleted, created_at, edited_at, " +
+      "parent_message_id, reply_count, last_reply_at, attachment_sha256, deleted_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+  private static final String RESTORE_SQL =
+      "INSERT INTO message (id, channel_id, direct_conversation_id, sender_user_id, content, content_type, deleted, " +
+      "created_at, edited_at, parent_message_id, reply_count, last_reply_at, attachment_sha256, deleted_at) " +
+      "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+  private final JdbcTemplate jdbc;
+  private final TransactionTemplate readOnlyTx;
+  private final TransactionTemplate writeTx;
+  private final ObjectWriter lineWriter;
+  private final ObjectReader lineReader;
+  private final ApplicationEventPublisher events;
+  private final MessageChangeLog changeLog;
+  private final ColdMessageStore cold;
+  private final MessageContentConverter contents;
+  private final int fetchSize;
+  private final int batchSize;
+
+  public MessageArchiveService(JdbcTemplate jdbc,
+                               PlatformTransactionManager txManager,
+                               ObjectMapper objectMapper,
+                               ApplicationEventPublisher events,
+                               MessageChangeLog changeLog,
+                               ColdMessageStore cold,
+                               MessageContentConverter contents,
+                               @Value("${app.messages.archive.fetch-size:1000}") int fetchSize,
+                               @Value("${app.messages.archive.batch-size:1000}") int batchSize) {
+    this.jdbc = jdbc;
+    this.readOnlyTx = new TransactionTemplate(txManager);
+    this.readOnlyTx.setReadOnly(true);
+    this.writeTx = new TransactionTemplate(txManager);
+    // the generator buffers; flushing after every row would turn each line into its own socket write
+    this.lineWriter = objectMapper.writerFor(MessageResponse.class)
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    this.lineReader = objectMapper.readerFor(MessageResponse.class);
+    this.events = events;
+    this.changeLog = changeLog;
+    this.cold = cold;
+    this.contents = contents;
+    this.fetchSize = fetchSize;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Streams the channel's full history to {@code out}: its cold months first, then the table.
+   * Runs inside a read-only transaction because the Postgres driver only honours the fetch size
+   * (server-side cursor) with autocommit off.
+   */
+  public void exportChannel(UUID channelId, OutputStream out) throws IOException {
+    try (JsonGenerator gen = lineWriter.getFactory().createGenerator(out)) {
+      Consumer<MessageResponse> sink = row -> {
+        try {
+          lineWriter.writeValue(gen, row);
+          gen.writeRaw('\n');
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);   // client went away; aborts the cursor
+        }
+      };
+      cold.forEachStored(channelId, sink);
+      readOnlyTx.executeWithoutResult(status -> jdbc.query(con -> {
+        var ps = con.prepareStatement(EXPORT_SQL);
+        ps.setFetchSize(fetchSize);
+        ps.setObject(1, channelId);
+        return ps;
+      }, (RowCallbackHandler) rs -> sink.accept(row(rs))));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Streams the rows of one channel or DM created in [from, until), oldest first, in the export
+   * format (ColdTierMover copies a month out of the table with it).
+   */
+  public void readRange(UUID conversationId, boolean dm, Instant from, Instant until, Consumer<MessageResponse> sink) {
+    readOnlyTx.executeWithoutResult(status -> jdbc.query(con -> {
+      var ps = con.prepareStatement(dm ? DM_RANGE_SQL : CHANNEL_RANGE_SQL);
+      ps.setFetchSize(fetchSize);
+      ps.setObject(1, conversationId);
+      ps.setTimestamp(2, Timestamp.from(from));
+      ps.setTimestamp(3, Timestamp.from(until));
+      return ps;
+    }, (RowCallbackHandler) rs -> sink.accept(row(rs))));
+  }
+
+  /**
+   * Inserts rows in the export format back into the table exactly as they were, ids, conversation
+   * and thread summary included (ColdTierMover thaws cold rows with it). Joins the caller's
+   * transaction; nothing is numbered in the change log, the messages never stopped existing.
+   */
+  public void restore(List<MessageResponse> rows) {
+    if (rows.isEmpty()) return;
+    Timestamp restoredAt = Timestamp.from(Instant.now());   // as on import: the export format has no deleted_at
+    jdbc.batchUpdate(RESTORE_SQL, new BatchPreparedStatementSetter() {
+      @Override
+      public void setValues(PreparedStatement ps, int i) throws SQLException {
+        MessageResponse m = rows.get(i);
+        ps.setObject(1, m.id());
+        ps.setObject(2, m.channelId());
+        ps.setObject(3, m.directConversationId());
+        ps.setObject(4, m.senderUserId());
+        ps.setString(5, contents.encode(m.content()));
+        ps.setString(6, m.contentType() != null ? m.contentType().name() : null);
+        ps.setBoolean(7, m.deleted());
+        ps.setTimestamp(8, Timestamp.from(m.createdAt()));
+        setInstant(ps, 9, m.editedAt());
+        ps.setObject(10, m.parentMessageId());
+        ps.setInt(11, m.replyCount());
+        setInstant(ps, 12, m.lastReplyAt());
+        ps.setString(13, m.attachmentSha256());
+        if (m.deleted()) {
+          ps.setTimestamp(14, restoredAt);
+        } else {
+          ps.setNull(14, Types.TIMESTAMP_WITH_TIMEZONE);
+        }
+      }
+
+      @Override
+      public int getBatchSize() {
+        return rows.size();
+      }
+    });
+  }
+
+  private static void setInstant(PreparedStatement ps, int index, Instant at) throws SQLException {
+    if (at != null) {
+      ps.setTimestamp(index, Timestamp.from(at));
+    } else {
+      ps.setNull(index, Types.TIMESTAMP_WITH_TIMEZONE);
+    }
+  }
+
+  private static MessageResponse row(ResultSet rs) throws SQLException {
+    return new MessageResponse(
+        rs.getObject("id", UUID.class),
+        rs.getObject("channel_id", UUID.class),
+        rs.getObject("direct_conversation_id", UUID.class),
+        rs.getObject("sender_user_id", UUID.class),
+        MessageContent.decode(rs.getString("content")),
+        contentType(rs.getString("content_type")),
+        rs.getBoolean("deleted"),
+        instant(rs.getTimestamp("created_at")),
+        instant(rs.getTimestamp("edited_at")),
+        rs.getObject("parent_message_id", UUID.class),
+        rs.getInt("reply_count"),
+        instant(rs.getTimestamp("last_reply_at")),
+        rs.getString("attachment_sha256"));
+  }
+
+  /**
+   * Inserts every line of an NDJSON dump into {@code channelId} in one transaction.
+   * Rows get fresh ids (the dump may come from this very table); timestamps, sender, content
+   * and the deleted flag are kept. Blank lines are skipped.
+   *
+   * Threads survive the round trip: a dump is oldest first, so every root precedes its replies and
+   * only ids of roots that have replies need remembering to re-point them. A reply whose root is
+   * not in the dump is imported as a top-level message.
+   *
+   * @return number of rows inserted
+   */
+  public long importChannel(UUID channelId, InputStream in) throws IOException {
+    try (MappingIterator<MessageResponse> lines = lineReader.readValues(in)) {
+      Long count = writeTx.execute(status -> {
+        long total = 0;
+        List<Row> batch = new ArrayList<>(batchSize);
+        Map<UUID, UUID> threadRoots = new HashMap<>();
+        while (lines.hasNext()) {
+          batch.add(toRow(lines.next(), threadRoots));
+          if (batch.size() == batchSize) {
+            total += flush(channelId, batch);
+          }
+        }
+        total += flush(channelId, batch);
+        if (total > 0) {
+          events.publishEvent(new MessagesImportedEvent(channelId, total));
+        }
+        return total;
+      });
+      return count == null ? 0 : count;
+    }
+  }
+
+  private Row toRow(MessageResponse m, Map<UUID, UUID> threadRoots) {
+    if (m.senderUserId() == null || m.content() == null) {
+      throw new IllegalArgumentException("Every imported message needs senderUserId and content");
+    }
+    UUID id = UuidV7.next();
+    UUID parent = m.parentMessageId() == null ? null : threadRoots.get(m.parentMessageId());
+    if (parent == null && m.replyCount() > 0 && m.id() != null) {
+      threadRoots.put(m.id(), id);
+    }
+    return new Row(
+        id,
+        m.senderUserId(),
+        m.content(),
+        m.contentType() != null ? m.contentType() : Message.ContentType.TEXT,
+        m.deleted(),
+        m.createdAt() != null ? m.createdAt() : Instant.now(),
+        m.editedAt(),
+        parent,
+        parent == null ? m.replyCount() : 0,
+        parent == null ? m.lastReplyAt() : null,
+        m.attachmentSha256());
+  }
+
+  // Explicit setters: with untyped values JdbcTemplate probes parameter metadata for every null
+  private int flush(UUID channelId, List<Row> batch) {
+    if (batch.isEmpty()) return 0;
+    int n = batch.size();
+    Timestamp importedAt = Timestamp.from(Instant.now());   // retention counts deleted rows from their import
+    jdbc.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+      @Override
+      public void setValues(PreparedStatement ps, int i) throws SQLException {
+        Row r = batch.get(i);
+        ps.setObject(1, r.id());
+        ps.setObject(2, channelId);
+        ps.setObject(3, r.senderUserId());
+        ps.setString(4, contents.encode(r.content()));
+        ps.setString(5, r.contentType().name());
+        ps.setBoolean(6, r.deleted());
+        ps.setTimestamp(7, Timestamp.from(r.createdAt()));
+        if (r.editedAt() != null) {
+          ps.setTimestamp(8, Timestamp.from(r.editedAt()));
+        } else {
+          ps.setNull(8, Types.TIMESTAMP_WITH_TIMEZONE);
+        }
+        ps.setObject(9, r.parentMessageId());
+        ps.setInt(10, r.replyCount());
+        if (r.lastReplyAt() != null) {
+          ps.setTimestamp(11, Timestamp.from(r.lastReplyAt()));
+        } else {
+          ps.setNull(11, Types.TIMESTAMP_WITH_TIMEZONE);
+        }
+        ps.setString(12, r.attachmentSha256());
+        if (r.deleted()) {
+          ps.setTimestamp(13, importedAt);
+        } else {
+          ps.setNull(13, Types.TIMESTAMP_WITH_TIMEZONE);
+        }
+      }
+
+      @Override
+      public int getBatchSize() {
+        return n;
+      }
+    });
+    int topLevel = (int) batch.stream().filter(r -> r.parentMessageId() == null).count();
+    changeLog.recordCreated(channelId, batch.stream().map(Row::id).toList(), topLevel);
+    batch.clear();
+    return n;
+  }
+
+  private record Row(UUID id, UUID senderUserId, String content, Message.ContentType contentType,
+                     boolean deleted, Instant createdAt, Instant editedAt,
+                     UUID parentMessageId, int replyCount, Instant lastReplyAt, String attachmentSha256) {}
+
+  private static Instant instant(Timestamp ts) {
+    return ts == null ? null : ts.toInstant();
+  }
+
+  private static Message.ContentType contentType(String value) {
+    return value == null ? null : Message.ContentType.valueOf(value);
+  }
+}
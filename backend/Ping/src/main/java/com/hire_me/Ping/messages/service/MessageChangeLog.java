@@ -0,0 +1,141 @@
+package com.hire_me.Ping.messages.service;
+
+import com.hire_me.Ping.messages.entity.Message;
+import com.hire_me.Ping.messages.entity.MessageChange;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Numbers every message create/edit/delete per conversation (channel or DM) and appends it to
+ * message_change, inside the caller's transaction.
+ *
+ * Sequence numbers come from an atomic {@code UPDATE ... SET last_seq = last_seq + n}: the row
+ * stays locked until the writer commits or rolls back, so a conversation's numbers are gap-free
+ * and become visible in order. Plain JDBC on purpose: bulk UPDATE through JPA would go stale in
+ * the persistence context, and change rows are never read back in the same transaction.
+ */
+@Component
+@Transactional(propagation = Propagation.MANDATORY)
+public class MessageChangeLog {
+
+  private static final String BUMP_SQL =
+      "UPDATE conversation_sequence SET last_seq = last_seq + ?, message_count = message_count + ? " +
+      "WHERE conversation_id = ?";
+  private static final String READ_SQL =
+      "SELECT last_seq FROM conversation_sequence WHERE conversation_id = ?";
+  private static final String APPEND_SQL =
+      "INSERT INTO message_change (conversation_id, seq, message_id, kind) VALUES (?, ?, ?, ?)";
+
+  private static final String CREATE_SQL =
+      "INSERT INTO conversation_sequence (conversation_id, last_seq, message_count) VALUES (?, 0, 0)";
+
+  private final JdbcTemplate jdbc;
+
+  public MessageChangeLog(JdbcTemplate jdbc) {
+    this.jdbc = jdbc;
+  }
+
+  /** Records one change; returns its sequence number. */
+  public long record(MessageChange.Kind kind, Message message) {
+    return record(kind, List.of(message))[0];
+  }
+
+  /** Records a change per message (any mix of conversations); returns their sequence numbers in input order. */
+  public long[] record(MessageChange.Kind kind, List<Message> messages) {
+    Map<UUID, List<Integer>> byConversation = new LinkedHashMap<>();
+    for (int i = 0; i < messages.size(); i++) {
+      byConversation.computeIfAbsent(conversationOf(messages.get(i)), k -> new ArrayList<>()).add(i);
+    }
+
+    long[] seqs = new long[messages.size()];
+    List<Object[]> rows = new ArrayList<>(messages.size());
+    // lock counters in a fixed order so two batches spanning the same conversations cannot deadlock
+    List<UUID> order = new ArrayList<>(byConversation.keySet());
+    order.sort(Comparator.comparing(UUID::toString));
+    for (UUID conversation : order) {
+      List<Integer> positions = byConversation.get(conversation);
+      int newMessages = 0;
+      if (kind == MessageChange.Kind.CREATED) {
+        for (int i : positions) {
+          if (messages.get(i).getParentMessageId() == null) newMessages++;
+        }
+      }
+      long seq = allocate(conversation, positions.size(), newMessages);
+      for (int i : positions) {
+        seqs[i] = seq;
+        rows.add(new Object[] { conversation, seq, messages.get(i).getId(), kind.ordinal() });
+        seq++;
+      }
+    }
+    jdbc.batchUpdate(APPEND_SQL, rows);
+    return seqs;
+  }
+
+  /**
+   * Records CREATED for rows inserted outside JPA (bulk import), all in one conversation;
+   * {@code topLevel} of them are not thread replies and count towards unread badges.
+   */
+  public void recordCreated(UUID conversationId, List<UUID> messageIds, int topLevel) {
+    if (messageIds.isEmpty()) return;
+    long seq = allocate(conversationId, messageIds.size(), topLevel);
+    List<Object[]> rows = new ArrayList<>(messageIds.size());
+    for (UUID id : messageIds) {
+      rows.add(new Object[] { conversationId, seq++, id, MessageChange.Kind.CREATED.ordinal() });
+    }
+    jdbc.batchUpdate(APPEND_SQL, rows);
+  }
+
+  /**
+   * Reserves {@code n} consecutive numbers and adds {@code newMessages} to the conversation's
+   * message count (top-level messages only: replies stay out of unread badges); returns the first.
+   */
+  private long allocate(UUID conversationId, int n, int newMessages) {
+    if (jdbc.update(BUMP_SQL, n, newMessages, conversationId) == 0) {
+      createCounter(conversationId);
+      jdbc.update(BUMP_SQL, n, newMessages, conversationId);
+    }
+    Long last = jdbc.queryForObject(READ_SQL, Long.class, conversationId);
+    return last - n + 1;
+  }
+
+  // First write to a conversation: create its counter under a JDBC savepoint, so losing the race
+  // to another writer is a caught duplicate key instead of an aborted caller transaction. Not a
+  // transaction of its own: that takes a second pool connection while holding the first, and a
+  // burst of first writes then exhausts the pool waiting on itself.
+  private void createCounter(UUID conversationId) {
+    try {
+      jdbc.execute((ConnectionCallback<Integer>) con -> {
+        Savepoint beforeCreate = con.setSavepoint();
+        try (PreparedStatement ps = con.prepareStatement(CREATE_SQL)) {
+          ps.setObject(1, conversationId);
+          int created = ps.executeUpdate();
+          con.releaseSavepoint(beforeCreate);
+          return created;
+        } catch (SQLException e) {
+          con.rollback(beforeCreate);
+          throw e;
+        }
+      });
+    } catch (DuplicateKeyException alreadyCreated) {
+      // another writer got there first; its row is committed and ours to bump
+    }
+  }
+
+  static UUID conversationOf(Message m) {
+    return m.getChannelId() != null ? m.getChannelId() : m.getDirectConversationId();
+  }
+}
@@ -0,0 +1,115 @@
+package com.hire_me.Ping.messages.service;
+
+import com.hire_me.Ping.messages.dto.MessageRevisionResponse;
+import com.hire_me.Ping.messages.entity.Message;
+import com.hire_me.Ping.messages.entity.MessageRevision;
+import com.hire_me.Ping.messages.repository.MessageRepository;
+import com.hire_me.Ping.messages.repository.MessageRevisionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Edit history of messages, for auditing. MessageService.edit calls {@link #record} in the edit's
+ * transaction, after the message row is updated: the row lock orders concurrent edits of one
+ * message, so each sees the revisions committed before it.
+ *
+ * The first edit stores the original content as revision 0; then each edit adds a TextDelta
+ * from the previous revision, or a full snapshot every {@code snapshot-every} revisions (and
+ * whenever the delta would not be smaller). Rebuilding a revision reads one snapshot and at most
+ * {@code snapshot-every - 1} deltas, all in one indexed query. Unedited messages cost nothing.
+ */
+@Service
+public class MessageRevisionService {
+
+  private final MessageRevisionRepository revisions;
+  private final MessageRepository messages;
+  private final int snapshotEvery;
+
+  public MessageRevisionService(MessageRevisionRepository revisions,
+                                MessageRepository messages,
+                                @Value("${app.messages.revisions.snapshot-every:10}") int snapshotEvery) {
+    this.revisions = revisions;
+    this.messages = messages;
+    this.snapshotEvery = Math.max(1, snapshotEvery);
+  }
+
+  /**
+   * Records an edit from {@code previous} (current since {@code previousAt}) to {@code next}.
+   * {@code previous} is only used on the first edit; later ones rebuild it from the history,
+   * which is authoritative even if the caller's copy is stale.
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void record(UUID messageId, String previous, Instant previousAt, String next, Instant editedAt) {
+    List<MessageRevision> chain = revisions.findChain(messageId, Integer.MAX_VALUE);
+    int revision;
+    if (chain.isEmpty()) {
+      revisions.save(new MessageRevision(messageId, 0, MessageRevision.Kind.SNAPSHOT, previous, previousAt));
+      revision = 1;
+    } else {
+      previous = rebuild(chain);
+      revision = chain.get(chain.size() - 1).getRevision() + 1;
+    }
+    String delta = TextDelta.diff(previous, next);
+    boolean snapshot = revision % snapshotEvery == 0 || delta.length() >= next.length();
+    revisions.save(new MessageRevision(messageId, revision,
+        snapshot ? MessageRevision.Kind.SNAPSHOT : MessageRevision.Kind.DELTA,
+        snapshot ? next : delta, editedAt));
+  }
+
+  /** Every revision, oldest first; a message never edited has just revision 0. */
+  @Transactional(readOnly = true)
+  public List<MessageRevisionResponse> list(UUID messageId) {
+    List<MessageRevision> all = revisions.findByMessageIdOrderByRevisionAsc(messageId);
+    if (all.isEmpty()) {
+      return List.of(original(messageId));
+    }
+    List<MessageRevisionResponse> out = new ArrayList<>(all.size());
+    String content = null;
+    for (MessageRevision r : all) {
+      content = r.getKind() == MessageRevision.Kind.SNAPSHOT ? r.getBody() : TextDelta.apply(content, r.getBody());
+      out.add(new MessageRevisionResponse(r.getRevision(), content, r.getCreatedAt()));
+    }
+    return out;
+  }
+
+  @Transactional(readOnly = true)
+  public MessageRevisionResponse get(UUID messageId, int revision) {
+    List<MessageRevision> chain = revision < 0 ? List.of() : revisions.findChain(messageId, revision);
+    if (chain.isEmpty()) {
+      if (revision == 0) {
+        return original(messageId);
+      }
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No revision " + revision + " of message " + messageId);
+    }
+    MessageRevision last = chain.get(chain.size() - 1);
+    if (last.getRevision() != revision) {
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No revision " + revision + " of message " + messageId);
+    }
+    return new MessageRevisionResponse(revision, rebuild(chain), last.getCreatedAt());
+  }
+
+  // A snapshot followed by the deltas after it
+  private static String rebuild(List<MessageRevision> chain) {
+    String content = chain.get(0).getBody();
+    for (int i = 1; i < chain.size(); i++) {
+      content = TextDelta.apply(content, chain.get(i).getBody());
+    }
+    return content;
+  }
+
+  // Never edited: the message itself is revision 0 (deleted ones included; this is the audit view)
+  private MessageRevisionResponse original(UUID messageId) {
+    Message m = messages.findById(messageId)
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Message not found: " + messageId));
+    return new MessageRevisionResponse(0, m.getContent(), m.getCreatedAt());
+  }
+}
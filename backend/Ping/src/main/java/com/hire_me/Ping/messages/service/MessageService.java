@@ -1,72 +1,195 @@
 package com.hire_me.Ping.messages.service;
 
+import com.hire_me.Ping.attachments.service.BlobStore;
+import com.hire_me.Ping.messages.cache.IdempotencyCache;
+import com.hire_me.Ping.messages.cache.MessageByIdCache;
+import com.hire_me.Ping.messages.cache.RecentMessageCache;
+import com.hire_me.Ping.messages.cold.ColdMessageStore;
+import com.hire_me.Ping.messages.cold.ColdTierMover;
+import com.hire_me.Ping.messages.dto.MessageChangeResponse;
+import com.hire_me.Ping.messages.dto.MessageChangesResponse;
 import com.hire_me.Ping.messages.dto.MessageCreateRequest;
 import com.hire_me.Ping.messages.dto.MessageResponse;
 import com.hire_me.Ping.messages.dto.MessageUpdateRequest;
+import com.hire_me.Ping.messages.dto.MessageWindowResponse;
 import com.hire_me.Ping.messages.entity.Message;
+import com.hire_me.Ping.messages.entity.MessageContent;
+import com.hire_me.Ping.messages.entity.MessageChange;
+import com.hire_me.Ping.messages.event.MessageChangedEvent;
+import com.hire_me.Ping.messages.ingest.MessageIngestPipeline;
 import com.hire_me.Ping.messages.mapper.MessageMapper;
+import com.hire_me.Ping.messages.ratelimit.PostRateLimiter;
+import com.hire_me.Ping.messages.repository.MessageChangeRepository;
 import com.hire_me.Ping.messages.repository.MessageRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.DateTimeException;
 import java.time.Instant;  // Changed from LocalDateTime
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class MessageService {
 
+  private static final int MAX_IDEMPOTENCY_KEY = 64;   // message.idempotency_key column length
+
   private final MessageRepository repository;
   private final MessageMapper mapper;
+  private final ApplicationEventPublisher events;
+  private final RecentMessageCache hotCache;
+  private final MessageWriter writer;
+  private final MessageIngestPipeline ingest;
+  private final MessageChangeLog changeLog;
+  private final MessageChangeRepository changes;
+  private final PostRateLimiter rateLimiter;
+  private final IdempotencyCache idempotency;
+  private final BlobStore blobs;
+  private final ColdMessageStore cold;
+  private final ColdTierMover coldTier;
+  private final MessageByIdCache byId;
+  private final MessageRevisionService revisions;
 
-  public MessageService(MessageRepository repository, MessageMapper mapper) {
+  public MessageService(MessageRepository repository,
+                        MessageMapper mapper,
+                        ApplicationEventPublisher events,
+                        RecentMessageCache hotCache,
+                        MessageWriter writer,
+                        MessageIngestPipeline ingest,
+                        MessageChangeLog changeLog,
+                        MessageChangeRepository changes,
+                        PostRateLimiter rateLimiter,
+                        IdempotencyCache idempotency,
+                        BlobStore blobs,
+                        ColdMessageStore cold,
+                        ColdTierMover coldTier,
+                        MessageByIdCache byId,
+                        MessageRevisionService revisions) {
     this.repository = repository;
     this.mapper = mapper;
+    this.events = events;
+    this.hotCache = hotCache;
+    this.writer = writer;
+    this.ingest = ingest;
+    this.changeLog = changeLog;
+    this.changes = changes;
+    this.rateLimiter = rateLimiter;
+    this.idempotency = idempotency;
+    this.blobs = blobs;
+    this.cold = cold;
+    this.coldTier = coldTier;
+    this.byId = byId;
+    this.revisions = revisions;
   }
 
-  public static record PageParams(UUID after, int limit) {}
+  /**
+   * Keyset page request. {@code before} pages towards older messages, {@code after} towards newer ones;
+   * both are message ids whose (createdAt, id) position is the cursor. Neither = newest page.
+   */
+  public static record PageParams(UUID before, UUID after, int limit) {
+    public int safeLimit() {
+      return Math.max(1, Math.min(limit, 100));
+    }
+  }
 
   // ===============================
   // CHANNEL MESSAGE OPERATIONS
   // ===============================
 
+  // SUPPORTS: a hot-cache hit must not open a transaction (and borrow a pool connection)
+  @Transactional(propagation = Propagation.SUPPORTS)
   public List<MessageResponse> listChannel(UUID channelId, PageParams params) {
+    PageRequest page = PageRequest.of(0, params.safeLimit());
     List<Message> messages;
-    
-    if (params.after() != null) {
-      messages = repository.findByChannelIdAndIdAfterOrderByCreatedAtDesc(
-          channelId, params.after(), PageRequest.of(0, params.limit()));
+
+    if (params.before() != null && params.after() != null) {
+      throw new IllegalArgumentException("Use either 'before' or 'after', not both");
+    } else if (cold.has(channelId) && (params.before() != null || params.after() != null)) {
+      return deepPage(channelId, params, channelQueries(channelId));
+    } else if (params.before() != null) {
+      messages = repository.findChannelPageBefore(channelId, params.before(), page);
+    } else if (params.after() != null) {
+      messages = newestFirst(repository.findChannelPageAfter(channelId, params.after(), page));
     } else {
-      messages = repository.findByChannelIdOrderByCreatedAtDesc(
-          channelId, PageRequest.of(0, params.limit()));
+      return newestChannelPage(channelId, params.safeLimit());
     }
-    
+
     return messages.stream()
         .map(mapper::toResponse)
         .toList();
   }
 
+  // First page: served from the hot-tail cache when warm; a miss loads enough rows to warm it.
+  private List<MessageResponse> newestChannelPage(UUID channelId, int limit) {
+    List<MessageResponse> cached = hotCache.newest(channelId, limit);
+    if (cached != null) {
+      return withColdOlder(channelId, null, null, cached, limit);
+    }
+
+    long stamp = hotCache.beginLoad(channelId);
+    int fetch = Math.max(limit, hotCache.capacity());
+    List<MessageResponse> loaded = repository
+        .findByChannelIdAndParentMessageIdIsNullOrderByCreatedAtDescIdDesc(channelId, PageRequest.of(0, fetch))
+        .stream()
+        .map(mapper::toResponse)
+        .toList();
+    hotCache.fill(channelId, loaded, stamp, fetch);
+    return withColdOlder(channelId, null, null, loaded.size() > limit ? loaded.subList(0, limit) : loaded, limit);
+  }
+
+  @Transactional(propagation = Propagation.SUPPORTS)
   public MessageResponse postToChannel(UUID channelId, MessageCreateRequest req) {
+    return postToChannel(channelId, req, null);
+  }
+
+  // SUPPORTS: no transaction (or pool connection) is held here; MessageWriter commits the insert
+  @Transactional(propagation = Propagation.SUPPORTS)
+  public MessageResponse postToChannel(UUID channelId, MessageCreateRequest req, String idempotencyKey) {
     if (req.senderUserId() == null) {
       throw new IllegalArgumentException("Sender user ID cannot be null");
     }
-    if (req.content() == null || req.content().trim().isEmpty()) {
-      throw new IllegalArgumentException("Message content cannot be empty");
-    }
-    
-    Message message = new Message();
-    message.setId(UUID.randomUUID());
-    message.setChannelId(channelId);
-    message.setSenderUserId(req.senderUserId());
-    message.setContent(req.content().trim());
-    message.setContentType(req.contentType() != null ? req.contentType() : Message.ContentType.TEXT);
-    message.setDeleted(false);
-    message.setCreatedAt(Instant.now());  // Changed from LocalDateTime.now()
-    
-    Message saved = repository.save(message);
-    return mapper.toResponse(saved);
+    checkBody(req);
+
+    return idempotent(req.senderUserId(), idempotencyKey, channelId, () -> {
+      rateLimiter.acquire(req.senderUserId(), channelId);
+
+      Message message = new Message();
+      message.setChannelId(channelId);
+      message.setSenderUserId(req.senderUserId());
+      message.setContent(req.content() == null ? "" : req.content().trim());
+      message.setAttachmentSha256(req.attachmentSha256());
+      message.setContentType(req.contentType() != null ? req.contentType() : Message.ContentType.TEXT);
+      message.setDeleted(false);
+      message.setCreatedAt(Instant.now());  // Changed from LocalDateTime.now()
+      message.setIdempotencyKey(idempotencyKey);
+
+      return insert(message);
+    });
   }
 
   // ===============================
@@ -74,40 +197,326 @@ public class MessageService {
   // ===============================
 
   public List<MessageResponse> listDm(UUID dmId, PageParams params) {
+    PageRequest page = PageRequest.of(0, params.safeLimit());
     List<Message> messages;
-    
-    if (params.after() != null) {
-      messages = repository.findByDirectConversationIdAndIdAfterOrderByCreatedAtDesc(
-          dmId, params.after(), PageRequest.of(0, params.limit()));
+
+    if (params.before() != null && params.after() != null) {
+      throw new IllegalArgumentException("Use either 'before' or 'after', not both");
+    } else if (cold.has(dmId) && (params.before() != null || params.after() != null)) {
+      return deepPage(dmId, params, dmQueries(dmId));
+    } else if (params.before() != null) {
+      messages = repository.findDmPageBefore(dmId, params.before(), page);
+    } else if (params.after() != null) {
+      messages = newestFirst(repository.findDmPageAfter(dmId, params.after(), page));
     } else {
-      messages = repository.findByDirectConversationIdOrderByCreatedAtDesc(
-          dmId, PageRequest.of(0, params.limit()));
+      messages = repository.findByDirectConversationIdAndParentMessageIdIsNullOrderByCreatedAtDescIdDesc(dmId, page);
+      return withColdOlder(dmId, null, null, messages.stream().map(mapper::toResponse).toList(), params.safeLimit());
     }
-    
+
     return messages.stream()
         .map(mapper::toResponse)
         .toList();
   }
 
+  @Transactional(propagation = Propagation.SUPPORTS)
   public MessageResponse postToDm(UUID dmId, MessageCreateRequest req) {
+    return postToDm(dmId, req, null);
+  }
+
+  // SUPPORTS: no transaction (or pool connection) is held here; MessageWriter commits the insert
+  @Transactional(propagation = Propagation.SUPPORTS)
+  public MessageResponse postToDm(UUID dmId, MessageCreateRequest req, String idempotencyKey) {
     if (req.senderUserId() == null) {
       throw new IllegalArgumentException("Sender user ID cannot be null");
     }
-    if (req.content() == null || req.content().trim().isEmpty()) {
-      throw new IllegalArgumentException("Message content cannot be empty");
+    checkBody(req);
+
+    return idempotent(req.senderUserId(), idempotencyKey, dmId, () -> {
+      rateLimiter.acquire(req.senderUserId(), dmId);
+
+      Message message = new Message();
+      message.setDirectConversationId(dmId);
+      message.setSenderUserId(req.senderUserId());
+      message.setContent(req.content() == null ? "" : req.content().trim());
+      message.setAttachmentSha256(req.attachmentSha256());
+      message.setContentType(req.contentType() != null ? req.contentType() : Message.ContentType.TEXT);
+      message.setDeleted(false);
+      message.setCreatedAt(Instant.now());  // Changed from LocalDateTime.now()
+      message.setIdempotencyKey(idempotencyKey);
+
+      return insert(message);
+    });
+  }
+
+  // ===============================
+  // AROUND-ANCHOR WINDOWS
+  // ===============================
+
+  /** Where a window is centred: a position in the conversation's (createdAt, id) order. */
+  private record Anchor(Instant createdAt, UUID id, UUID messageId) {}
+
+  // Seeks from a position in one conversation's top-level messages
+  private interface WindowQueries {
+    List<Message> olderThan(Instant createdAt, UUID id, PageRequest page);
+    List<Message> from(Instant createdAt, UUID id, PageRequest page);
+  }
+
+  private WindowQueries channelQueries(UUID channelId) {
+    return new WindowQueries() {
+      public List<Message> olderThan(Instant createdAt, UUID id, PageRequest page) {
+        return repository.findChannelOlderThan(channelId, createdAt, id, page);
+      }
+      public List<Message> from(Instant createdAt, UUID id, PageRequest page) {
+        return repository.findChannelFrom(channelId, createdAt, id, page);
+      }
+    };
+  }
+
+  private WindowQueries dmQueries(UUID dmId) {
+    return new WindowQueries() {
+      public List<Message> olderThan(Instant createdAt, UUID id, PageRequest page) {
+        return repository.findDmOlderThan(dmId, createdAt, id, page);
+      }
+      public List<Message> from(Instant createdAt, UUID id, PageRequest page) {
+        return repository.findDmFrom(dmId, createdAt, id, page);
+      }
+    };
+  }
+
+  private static final UUID MIN_UUID = new UUID(0, 0);
+
+  /**
+   * Up to {@code before} messages older than the anchor, the anchor, and up to {@code after} newer
+   * ones, for jumping to a search hit, a notification or a date. {@code around} is a message id or
+   * a timestamp (ISO-8601 instant or epoch millis); a timestamp centres on the first message at or
+   * after it.
+   */
+  @Transactional(readOnly = true)
+  public MessageWindowResponse channelWindow(UUID channelId, String around, int before, int after) {
+    return window(channelId, anchor(around, channelId), before, after, channelQueries(channelId));
+  }
+
+  @Transactional(readOnly = true)
+  public MessageWindowResponse dmWindow(UUID dmId, String around, int before, int after) {
+    return window(dmId, anchor(around, dmId), before, after, dmQueries(dmId));
+  }
+
+  // Two seeks from the anchor's position, one each way; one extra row per side says whether there is more
+  private MessageWindowResponse window(UUID conversationId, Anchor anchor, int before, int after, WindowQueries queries) {
+    int older = Math.max(0, Math.min(before, 100));
+    int newer = Math.max(0, Math.min(after, 100)) + 1;   // the anchor itself comes first on this side
+
+    List<MessageResponse> olderRows = withColdOlder(conversationId, anchor.createdAt(), anchor.id(),
+        responses(queries.olderThan(anchor.createdAt(), anchor.id(), PageRequest.of(0, older + 1))), older + 1);
+    List<MessageResponse> newerRows = withColdNewer(conversationId, anchor.createdAt(), anchor.id(), true,
+        responses(queries.from(anchor.createdAt(), anchor.id(), PageRequest.of(0, newer + 1))), newer + 1);
+
+    boolean hasOlder = olderRows.size() > older;
+    boolean hasNewer = newerRows.size() > newer;
+    if (hasOlder) {
+      olderRows = olderRows.subList(0, older);
     }
-    
+    if (hasNewer) {
+      newerRows = newerRows.subList(0, newer);
+    }
+    UUID anchorId = anchor.messageId() != null ? anchor.messageId()
+        : newerRows.isEmpty() ? null : newerRows.get(0).id();
+
+    List<MessageResponse> messages = new ArrayList<>(olderRows.size() + newerRows.size());
+    messages.addAll(newestFirst(newerRows));
+    messages.addAll(olderRows);
+    return new MessageWindowResponse(messages, anchorId, hasOlder, hasNewer);
+  }
+
+  // A message anchor must be in this conversation (in the table or its cold tier); a thread reply
+  // centres on its root, which is what the conversation's pages show
+  private Anchor anchor(String around, UUID conversationId) {
+    if (around == null || around.isBlank()) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'around' needs a message id or a timestamp");
+    }
+    Instant at = parseTimestamp(around.trim());
+    if (at != null) {
+      return new Anchor(at, MIN_UUID, null);
+    }
+    UUID messageId;
+    try {
+      messageId = UUID.fromString(around.trim());
+    } catch (IllegalArgumentException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "'around' is neither a message id nor a timestamp: " + around);
+    }
+    MessageResponse m = locate(conversationId, messageId);
+    if (m != null && m.parentMessageId() != null) {
+      m = locate(conversationId, m.parentMessageId());
+    }
+    if (m == null) {
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Message not found: " + messageId);
+    }
+    return new Anchor(m.createdAt(), m.id(), m.id());
+  }
+
+  private static Instant parseTimestamp(String value) {
+    if (!value.isEmpty() && value.chars().allMatch(Character::isDigit)) {
+      try {
+        return Instant.ofEpochMilli(Long.parseLong(value));
+      } catch (NumberFormatException | DateTimeException e) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Timestamp out of range: " + value);
+      }
+    }
+    if (value.length() == 36 && value.charAt(8) == '-') {
+      return null;   // uuid
+    }
+    try {
+      return Instant.parse(value);
+    } catch (DateTimeParseException e) {
+      return null;
+    }
+  }
+
+  // ===============================
+  // DEEP HISTORY (COLD TIER)
+  // ===============================
+
+  // The (createdAt, id) order of the indexes; uuids compare bytewise there, i.e. as strings
+  private static final Comparator<MessageResponse> OLDEST_FIRST =
+      Comparator.comparing(MessageResponse::createdAt).thenComparing(m -> m.id().toString());
+
+  // A before/after page of a conversation with archived months: the cursor may be in either tier
+  private List<MessageResponse> deepPage(UUID conversationId, PageParams params, WindowQueries queries) {
+    int limit = params.safeLimit();
+    UUID cursor = params.before() != null ? params.before() : params.after();
+    MessageResponse at = locate(conversationId, cursor);
+    if (at == null) {
+      return List.of();
+    }
+    if (params.before() != null) {
+      return withColdOlder(conversationId, at.createdAt(), at.id(),
+          responses(queries.olderThan(at.createdAt(), at.id(), PageRequest.of(0, limit))), limit);
+    }
+    List<MessageResponse> hot = responses(queries.from(at.createdAt(), at.id(), PageRequest.of(0, limit + 1)))
+        .stream()
+        .filter(m -> !m.id().equals(cursor))
+        .toList();
+    return newestFirst(withColdNewer(conversationId, at.createdAt(), at.id(), false, hot, limit));
+  }
+
+  // A message of the conversation, from the table or else its cold tier; null if neither has it
+  private MessageResponse locate(UUID conversationId, UUID messageId) {
+    return repository.findById(messageId)
+        .filter(m -> conversationId.equals(m.getChannelId()) || conversationId.equals(m.getDirectConversationId()))
+        .map(mapper::toResponse)
+        .orElseGet(() -> cold.find(conversationId, messageId).orElse(null));
+  }
+
+  /**
+   * Completes a newest-first page of table rows older than (at, id) (null = from the newest) with
+   * the conversation's cold rows. Nothing to merge when the page is full and its last row is newer
+   * than everything archived: the usual case, decided without touching the disk.
+   */
+  private List<MessageResponse> withColdOlder(UUID conversationId, Instant at, UUID id, List<MessageResponse> hot, int limit) {
+    YearMonth newest = cold.newestMonth(conversationId);
+    if (newest == null || (hot.size() >= limit
+        && !hot.get(hot.size() - 1).createdAt().isBefore(ColdMessageStore.startOf(newest.plusMonths(1))))) {
+      return hot;
+    }
+    return merge(hot, cold.before(conversationId, at, id, limit), OLDEST_FIRST.reversed(), limit);
+  }
+
+  // Same for an oldest-first page from (at, id) on: only a position inside the archived months needs the disk
+  private List<MessageResponse> withColdNewer(UUID conversationId, Instant at, UUID id, boolean inclusive,
+                                              List<MessageResponse> hot, int limit) {
+    YearMonth newest = cold.newestMonth(conversationId);
+    if (newest == null || !at.isBefore(ColdMessageStore.startOf(newest.plusMonths(1)))) {
+      return hot;
+    }
+    return merge(hot, cold.from(conversationId, at, id, inclusive, limit), OLDEST_FIRST, limit);
+  }
+
+  // A row in both tiers (changed while being moved) is read from the table
+  private static List<MessageResponse> merge(List<MessageResponse> hot, List<MessageResponse> archived,
+                                             Comparator<MessageResponse> order, int limit) {
+    if (archived.isEmpty()) {
+      return hot;
+    }
+    Set<UUID> hotIds = new HashSet<>();
+    hot.forEach(m -> hotIds.add(m.id()));
+    List<MessageResponse> all = new ArrayList<>(hot);
+    archived.stream().filter(m -> !hotIds.contains(m.id())).forEach(all::add);
+    all.sort(order);
+    return all.size() > limit ? all.subList(0, limit) : all;
+  }
+
+  private List<MessageResponse> responses(List<Message> rows) {
+    return rows.stream().map(mapper::toResponse).toList();
+  }
+
+  // ===============================
+  // THREADS
+  // ===============================
+
+  /**
+   * Replies in the thread of {@code messageId}, in the root's channel or DM. Replying to a reply
+   * lands in the same thread: threads are one level deep, so a root's summary covers all of them.
+   */
+  @Transactional(propagation = Propagation.SUPPORTS)
+  public MessageResponse reply(UUID messageId, MessageCreateRequest req) {
+    if (req.senderUserId() == null) {
+      throw new IllegalArgumentException("Sender user ID cannot be null");
+    }
+    checkBody(req);
+
+    MessageResponse parent = writable(messageId)
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Message not found: " + messageId));
+    UUID rootId = parent.parentMessageId() != null ? parent.parentMessageId() : parent.id();
+    rateLimiter.acquire(req.senderUserId(),
+        parent.channelId() != null ? parent.channelId() : parent.directConversationId());
+
     Message message = new Message();
-    message.setId(UUID.randomUUID());
-    message.setDirectConversationId(dmId);
+    message.setChannelId(parent.channelId());
+    message.setDirectConversationId(parent.directConversationId());
+    message.setParentMessageId(rootId);
     message.setSenderUserId(req.senderUserId());
-    message.setContent(req.content().trim());
+    message.setContent(req.content() == null ? "" : req.content().trim());
+    message.setAttachmentSha256(req.attachmentSha256());
     message.setContentType(req.contentType() != null ? req.contentType() : Message.ContentType.TEXT);
     message.setDeleted(false);
-    message.setCreatedAt(Instant.now());  // Changed from LocalDateTime.now()
-    
-    Message saved = repository.save(message);
-    return mapper.toResponse(saved);
+    message.setCreatedAt(Instant.now());
+
+    return insert(message);
+  }
+
+  /** Oldest-first page of a thread's replies; {@code after} is the last reply id the client has. */
+  @Transactional(readOnly = true)
+  public List<MessageResponse> listReplies(UUID rootId, UUID after, int limit) {
+    PageRequest page = PageRequest.of(0, Math.max(1, Math.min(limit, 100)));
+    List<MessageResponse> archived = cold.replies(rootId);
+    if (!archived.isEmpty()) {
+      return coldRepliesPage(rootId, archived, after, page.getPageSize());
+    }
+    List<Message> replies = after == null
+        ? repository.findByParentMessageIdOrderByCreatedAtAscIdAsc(rootId, page)
+        : repository.findRepliesAfter(rootId, after, page);
+    return replies.stream()
+        .map(mapper::toResponse)
+        .toList();
+  }
+
+  // A thread in the cold tier, or caught between tiers by a move: merged whole, as threads are short
+  private List<MessageResponse> coldRepliesPage(UUID rootId, List<MessageResponse> archived, UUID after, int limit) {
+    List<MessageResponse> thread = merge(
+        responses(repository.findByParentMessageIdOrderByCreatedAtAscIdAsc(rootId, Pageable.unpaged())),
+        archived, OLDEST_FIRST, Integer.MAX_VALUE);
+    int from = 0;
+    if (after != null) {
+      while (from < thread.size() && !thread.get(from).id().equals(after)) {
+        from++;
+      }
+      if (from == thread.size()) {
+        return List.of();   // unknown cursor, as on the table
+      }
+      from++;
+    }
+    return List.copyOf(thread.subList(from, Math.min(thread.size(), from + limit)));
   }
 
   // ===============================
@@ -119,36 +528,219 @@ public class MessageService {
       throw new IllegalArgumentException("Message content cannot be empty");
     }
     
-    Message message = repository.findById(messageId)
+    MessageResponse current = writable(messageId)
         .orElseThrow(() -> new RuntimeException("Message not found: " + messageId));
     
-    if (message.isDeleted()) {
+    if (current.deleted()) {
       throw new RuntimeException("Cannot edit deleted message");
     }
     
-    message.setContent(req.content().trim());
-    message.setEditedAt(Instant.now());  // Changed from LocalDateTime.now()
-    
-    Message saved = repository.save(message);
-    return mapper.toResponse(saved);
+    // a conditional UPDATE instead of load-and-save: the cached copy has answered the read
+    Instant now = Instant.now();  // Changed from LocalDateTime.now()
+    if (repository.editContent(messageId, MessageContent.of(req.content().trim()), now) == 0) {
+      byId.evictLocal(List.of(messageId));   // deleted or purged since it was cached
+      throw new RuntimeException(repository.existsById(messageId)
+          ? "Cannot edit deleted message" : "Message not found: " + messageId);
+    }
+    // after the UPDATE: its row lock orders concurrent edits, so the history has no gaps or forks
+    revisions.record(messageId, current.content(),
+        current.editedAt() != null ? current.editedAt() : current.createdAt(), req.content().trim(), now);
+    Message edited = mapper.toEntity(current);
+    edited.setContent(req.content().trim());
+    edited.setEditedAt(now);
+    return published(MessageChangedEvent.Kind.UPDATED, edited);
   }
 
   public void delete(UUID messageId) {
-    Message message = repository.findById(messageId)
+    MessageResponse current = writable(messageId)
         .orElseThrow(() -> new RuntimeException("Message not found: " + messageId));
     
-    message.setDeleted(true);
-    repository.save(message);
+    if (repository.markDeleted(messageId, Instant.now()) == 0) {
+      byId.evictLocal(List.of(messageId));
+      if (repository.existsById(messageId)) return;   // deleted already: nothing changes, nothing to announce
+      throw new RuntimeException("Message not found: " + messageId);
+    }
+    Message deleted = mapper.toEntity(current);
+    deleted.setDeleted(true);
+    published(MessageChangedEvent.Kind.DELETED, deleted);
+    if (current.parentMessageId() != null) {
+      writer.recountThreads(List.of(current.parentMessageId()));   // the root's summary counts live replies
+    }
+  }
+
+  // Read-through MessageByIdCache; edits and deletes evict after commit
+  private Optional<MessageResponse> cached(UUID messageId) {
+    return byId.get(messageId, id -> repository.findById(id).map(mapper::toResponse));
+  }
+
+  // A message about to be changed: cold ones are thawed back into the table first, thread and all
+  private Optional<MessageResponse> writable(UUID messageId) {
+    Optional<MessageResponse> current = cached(messageId);
+    if (current.isEmpty() && coldTier.thaw(messageId)) {
+      current = cached(messageId);
+    }
+    return current;
+  }
+
+  // Direct path: one transaction per post. Batched path: wait for the group commit holding this post,
+  // at most commit-timeout-ms; a 503 then may still commit, so a retry should reuse its Idempotency-Key.
+  private MessageResponse insert(Message message) {
+    if (!ingest.isEnabled()) {
+      return writer.insertAll(List.of(message)).get(0);
+    }
+    try {
+      return ingest.submit(message).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof TimeoutException) {
+        throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Message was not committed in time; retry");
+      }
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  // Text, an attachment, or both; an attachment must have been uploaded first
+  private void checkBody(MessageCreateRequest req) {
+    if (req.attachmentSha256() == null) {
+      if (req.content() == null || req.content().trim().isEmpty()) {
+        throw new IllegalArgumentException("Message content cannot be empty");
+      }
+    } else if (!blobs.exists(req.attachmentSha256())) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown attachment: " + req.attachmentSha256());
+    }
+  }
+
+  /**
+   * Runs {@code post} at most once per (sender, Idempotency-Key). A retry is answered from
+   * IdempotencyCache (waiting for the original if it is still being written); past the cache
+   * window, or on another node, the unique constraint rejects the insert and the stored row is
+   * returned instead. Only retries pay for that lookup, so first posts cost nothing extra.
+   */
+  private MessageResponse idempotent(UUID senderId, String key, UUID conversationId,
+                                     Supplier<MessageResponse> post) {
+    if (key == null) {
+      return post.get();
+    }
+    if (key.isBlank() || key.length() > MAX_IDEMPOTENCY_KEY) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "Idempotency-Key must be 1-" + MAX_IDEMPOTENCY_KEY + " characters");
+    }
+    while (true) {
+      CompletableFuture<MessageResponse> mine = new CompletableFuture<>();
+      CompletableFuture<MessageResponse> original = idempotency.claim(senderId, key, mine);
+      if (original != null) {
+        try {
+          return sameConversation(original.join(), conversationId);
+        } catch (CompletionException | CancellationException e) {
+          continue;   // the original failed and gave up its claim: this retry writes for real
+        }
+      }
+      try {
+        MessageResponse saved = insertOrFind(senderId, key, conversationId, post);
+        mine.complete(saved);
+        return saved;
+      } catch (RuntimeException e) {
+        idempotency.release(senderId, key, mine);
+        mine.completeExceptionally(e);
+        throw e;
+      }
+    }
+  }
+
+  private MessageResponse insertOrFind(UUID senderId, String key, UUID conversationId,
+                                       Supplier<MessageResponse> post) {
+    try {
+      return post.get();
+    } catch (DataIntegrityViolationException e) {
+      return repository.findBySenderUserIdAndIdempotencyKey(senderId, key)
+          .map(m -> sameConversation(mapper.toResponse(m), conversationId))
+          .orElseThrow(() -> e);
+    }
+  }
+
+  private static MessageResponse sameConversation(MessageResponse m, UUID conversationId) {
+    UUID target = m.channelId() != null ? m.channelId() : m.directConversationId();
+    if (!conversationId.equals(target)) {
+      throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+          "Idempotency-Key was already used for a post to another conversation");
+    }
+    return m;
+  }
+
+  // Listeners (hot cache, ...) react AFTER_COMMIT, so publishing inside the transaction is safe
+  private MessageResponse published(MessageChangedEvent.Kind kind, Message saved) {
+    long seq = changeLog.record(MessageChange.Kind.valueOf(kind.name()), saved);
+    MessageResponse response = mapper.toResponse(saved);
+    events.publishEvent(new MessageChangedEvent(kind, response, seq));
+    return response;
+  }
+
+  // ===============================
+  // DELTA SYNC
+  // ===============================
+
+  /**
+   * Changes in a channel/DM after {@code sinceSeq}, collapsed to the latest change per message.
+   * Without sinceSeq only the current position is returned, so a client can start tracking
+   * (read it BEFORE loading the first page, then nothing posted in between is missed).
+   */
+  @Transactional(readOnly = true)
+  public MessageChangesResponse changesSince(UUID conversationId, Long sinceSeq, int limit) {
+    if (sinceSeq == null) {
+      Long last = changes.findLastSeq(conversationId);
+      return new MessageChangesResponse(List.of(), last == null ? 0 : last, false);
+    }
+    int safeLimit = Math.max(1, Math.min(limit, 1000));
+    List<MessageChange> page = changes.findByConversationIdAndSeqGreaterThanOrderBySeqAsc(
+        conversationId, sinceSeq, PageRequest.of(0, safeLimit + 1));
+    boolean hasMore = page.size() > safeLimit;
+    if (hasMore) {
+      page = page.subList(0, safeLimit);
+    }
+    if (page.isEmpty()) {
+      return new MessageChangesResponse(List.of(), sinceSeq, false);
+    }
+
+    // a message edited five times since the client looked is sent once, in its latest state
+    Map<UUID, MessageChange> latest = new LinkedHashMap<>();
+    for (MessageChange c : page) {
+      latest.remove(c.getMessageId());
+      latest.put(c.getMessageId(), c);
+    }
+    Map<UUID, Message> current = repository.findAllById(latest.keySet()).stream()
+        .collect(Collectors.toMap(Message::getId, Function.identity()));
+
+    List<MessageChangeResponse> out = new ArrayList<>(latest.size());
+    for (MessageChange c : latest.values()) {
+      Message m = current.get(c.getMessageId());
+      // not in the table: purged, or moved to the cold tier (a client that has been away that long)
+      MessageResponse r = m != null ? mapper.toResponse(m) : cold.find(conversationId, c.getMessageId()).orElse(null);
+      MessageChange.Kind kind = r == null || r.deleted() ? MessageChange.Kind.DELETED : c.getKind();
+      out.add(new MessageChangeResponse(c.getSeq(), kind, c.getMessageId(),
+          kind == MessageChange.Kind.DELETED ? null : r));
+    }
+    return new MessageChangesResponse(out, page.get(page.size() - 1).getSeq(), hasMore);
   }
 
   // ===============================
   // UTILITY METHODS
   // ===============================
 
+  // SUPPORTS: a cache hit must not open a transaction
+  @Transactional(propagation = Propagation.SUPPORTS)
   public MessageResponse findById(UUID messageId) {
-    Message message = repository.findById(messageId)
-        .orElseThrow(() -> new RuntimeException("Message not found: " + messageId));
-    return mapper.toResponse(message);
+    return cached(messageId)
+        .or(() -> cold.find(messageId))
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Message not found: " + messageId));
+  }
+
+  // "after" pages come back oldest-first from the index; flip them so every page reads newest-first
+  private static <T> List<T> newestFirst(List<T> ascending) {
+    List<T> copy = new ArrayList<>(ascending);
+    Collections.reverse(copy);
+    return copy;
   }
 
   public List<MessageResponse> listUserMessages(UUID userId, int limit) {
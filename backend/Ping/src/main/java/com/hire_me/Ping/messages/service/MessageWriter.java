@@ -0,0 +1,103 @@
+package com.hire_me.Ping.messages.service;
+
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.entity.Message;
+import com.hire_me.Ping.messages.entity.MessageChange;
+import com.hire_me.Ping.messages.event.MessageChangedEvent;
+import com.hire_me.Ping.messages.mapper.MessageMapper;
+import com.hire_me.Ping.messages.repository.MessageRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Inserts new messages in ONE transaction and announces them (CREATED events fire after commit).
+ * Used for a single post on the direct path and for whole batches by MessageIngestPipeline;
+ * with hibernate.jdbc.batch_size set, a batch becomes a handful of JDBC round trips.
+ *
+ * Thread replies also bump their root's reply_count/last_reply_at in the same transaction
+ * (one UPDATE per root, however many replies the batch holds) and announce the root as UPDATED.
+ * When replies go away instead, {@link #recountThreads} recomputes the summary from the replies left.
+ */
+@Component
+public class MessageWriter {
+
+  private final MessageRepository repository;
+  private final MessageMapper mapper;
+  private final ApplicationEventPublisher events;
+  private final MessageChangeLog changeLog;
+
+  public MessageWriter(MessageRepository repository, MessageMapper mapper, ApplicationEventPublisher events,
+                       MessageChangeLog changeLog) {
+    this.repository = repository;
+    this.mapper = mapper;
+    this.events = events;
+    this.changeLog = changeLog;
+  }
+
+  @Transactional
+  public List<MessageResponse> insertAll(List<Message> messages) {
+    List<Message> saved = repository.saveAll(messages);
+    long[] seqs = changeLog.record(MessageChange.Kind.CREATED, saved);
+    List<MessageResponse> out = new ArrayList<>(saved.size());
+    for (int i = 0; i < saved.size(); i++) {
+      MessageResponse m = mapper.toResponse(saved.get(i));
+      events.publishEvent(new MessageChangedEvent(MessageChangedEvent.Kind.CREATED, m, seqs[i]));
+      out.add(m);
+    }
+    bumpThreads(saved);
+    return out;
+  }
+
+  private void bumpThreads(List<Message> saved) {
+    Map<UUID, List<Message>> byRoot = new TreeMap<>(Comparator.comparing(UUID::toString));
+    for (Message m : saved) {
+      if (m.getParentMessageId() != null) {
+        byRoot.computeIfAbsent(m.getParentMessageId(), k -> new ArrayList<>()).add(m);
+      }
+    }
+    if (byRoot.isEmpty()) return;
+
+    // roots locked in a fixed order so two batches replying to the same threads cannot deadlock
+    for (Map.Entry<UUID, List<Message>> e : byRoot.entrySet()) {
+      Instant last = e.getValue().stream().map(Message::getCreatedAt).max(Comparator.naturalOrder()).orElseThrow();
+      repository.bumpThread(e.getKey(), e.getValue().size(), last);
+    }
+    announceRoots(byRoot.keySet());
+  }
+
+  /**
+   * Recomputes reply_count/last_reply_at of thread roots from their live (not deleted) replies,
+   * after a reply was deleted or purged, and announces the roots as UPDATED. Runs in the caller's
+   * transaction; roots locked in the same fixed order as bumps.
+   */
+  @Transactional
+  public void recountThreads(Collection<UUID> rootIds) {
+    Set<UUID> roots = new TreeSet<>(Comparator.comparing(UUID::toString));
+    roots.addAll(rootIds);
+    roots.removeIf(id -> repository.lockThreadRoot(id).isEmpty());
+    if (roots.isEmpty()) return;
+    roots.forEach(repository::recountThread);
+    announceRoots(roots);
+  }
+
+  private void announceRoots(Collection<UUID> rootIds) {
+    List<Message> roots = repository.findAllById(rootIds);
+    long[] seqs = changeLog.record(MessageChange.Kind.UPDATED, roots);
+    for (int i = 0; i < roots.size(); i++) {
+      events.publishEvent(new MessageChangedEvent(MessageChangedEvent.Kind.UPDATED,
+          mapper.toResponse(roots.get(i)), seqs[i]));
+    }
+  }
+}
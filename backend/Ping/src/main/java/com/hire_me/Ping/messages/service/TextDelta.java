@@ -0,0 +1,55 @@
+package com.hire_me.Ping.messages.service;
+
+/**
+ * Compact delta between two revisions of a message: what is kept of the old text's start and
+ * end, and what replaces everything in between. Encoded as {@code <prefix>:<suffix>:<inserted>},
+ * e.g. fixing one typo in a 2 KB message stores "812:1190:the" instead of another 2 KB.
+ *
+ * Edits to chat messages are almost always one contiguous change (a typo, an added sentence),
+ * which this captures exactly; scattered changes degrade gracefully towards a full copy, and
+ * MessageRevisionService stores a snapshot instead when the delta would not be smaller. Applying
+ * is two substrings and a concat. Boundaries never split a surrogate pair, so the inserted part is
+ * always valid text for the database.
+ */
+final class TextDelta {
+
+  private TextDelta() {}
+
+  static String diff(String from, String to) {
+    int max = Math.min(from.length(), to.length());
+    int prefix = 0;
+    while (prefix < max && from.charAt(prefix) == to.charAt(prefix)) {
+      prefix++;
+    }
+    if (prefix > 0 && prefix < max && Character.isHighSurrogate(from.charAt(prefix - 1))) {
+      prefix--;
+    }
+    int suffix = 0;
+    while (suffix < max - prefix
+        && from.charAt(from.length() - 1 - suffix) == to.charAt(to.length() - 1 - suffix)) {
+      suffix++;
+    }
+    if (suffix > 0 && suffix < max - prefix && Character.isLowSurrogate(to.charAt(to.length() - suffix))) {
+      suffix--;
+    }
+    return prefix + ":" + suffix + ":" + to.substring(prefix, to.length() - suffix);
+  }
+
+  static String apply(String from, String delta) {
+    int a = delta.indexOf(':');
+    int b = delta.indexOf(':', a + 1);
+    if (a < 0 || b < 0) {
+      throw new IllegalArgumentException("Not a text delta: " + delta);
+    }
+    int prefix = Integer.parseInt(delta, 0, a, 10);
+    int suffix = Integer.parseInt(delta, a + 1, b, 10);
+    if (prefix + suffix > from.length()) {
+      throw new IllegalArgumentException("Delta keeps " + (prefix + suffix) + " chars of a " + from.length() + "-char text");
+    }
+    return new StringBuilder(prefix + (delta.length() - b - 1) + suffix)
+        .append(from, 0, prefix)
+        .append(delta, b + 1, delta.length())
+        .append(from, from.length() - suffix, from.length())
+        .toString();
+  }
+}
@@ -1,43 +1,170 @@
 package com.hire_me.Ping.messages.ws;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.hire_me.Ping.channels.ws.ChannelTopics;
+import com.hire_me.Ping.dms.ws.DmTopics;
 import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.event.MessageChangedEvent;
+import com.hire_me.Ping.reactions.dto.ReactionCount;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
-// Handles WebSocket events for messages
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Real-time message delivery over STOMP.
+ *
+ * Every committed MessageChangedEvent is queued for its topic
+ * ({@code /topic/channels/{id}} or {@code /topic/dms/{id}}). The first event for a topic opens a
+ * short window; everything that arrives for that topic inside it goes out as ONE frame whose body
+ * is an array of {@link Payload}s, oldest first. A busy channel therefore costs the broker one
+ * frame per window instead of one per message. Frames are always arrays, even with one event.
+ */
 @Component
 public class MessageEvents {
 
   private final SimpMessagingTemplate simp;
+  private final long windowMs;
+  private final int maxPerFrame;
+  private final Map<String, List<Payload>> pending = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService flusher;
+
+  private final Counter frames;
+  private final Counter delivered;
 
-  public MessageEvents(SimpMessagingTemplate simp) {
+  public MessageEvents(SimpMessagingTemplate simp,
+                       @Value("${app.messages.fanout.coalesce-window-ms:25}") long windowMs,
+                       @Value("${app.messages.fanout.max-per-frame:200}") int maxPerFrame,
+                       MeterRegistry meters) {
     this.simp = simp;
+    this.windowMs = windowMs;
+    this.maxPerFrame = maxPerFrame;
+    this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "message-fanout");
+      t.setDaemon(true);
+      return t;
+    });
+    this.frames = Counter.builder("messages.fanout.frames").register(meters);
+    this.delivered = Counter.builder("messages.fanout.events").register(meters);
   }
 
   // Types of message events
-  public enum EventType { created, updated, deleted }
+  public enum EventType { created, updated, deleted, reactions, previews }
 
   // Payload sent to clients
+  @JsonInclude(JsonInclude.Include.NON_NULL)
   public static final class Payload {
     private EventType type;
     private MessageResponse message;
+    private long seq;   // per-conversation change number; resume with GET .../changes?sinceSeq=
+    private UUID messageId;                  // reactions and previews
+    private List<ReactionCount> reactions;   // reactions only: absolute counts of the emojis that changed
+    private String attachmentSha256;         // previews only
+    private List<Integer> previewSizes;      // previews only: GET /api/blobs/{sha256}/previews/{size}
 
     // Constructor, getters
-    public Payload(EventType type, MessageResponse message) {
+    public Payload(EventType type, MessageResponse message, long seq) {
       this.type = type;
       this.message = message;
+      this.seq = seq;
+    }
+    // Reaction counts are not numbered changes: clients apply them as absolute values
+    public static Payload reactions(UUID messageId, List<ReactionCount> counts) {
+      Payload p = new Payload(EventType.reactions, null, 0);
+      p.messageId = messageId;
+      p.reactions = counts;
+      return p;
+    }
+    // Previews of an IMAGE attachment are ready; like reactions, not a numbered change
+    public static Payload previews(UUID messageId, String attachmentSha256, List<Integer> sizes) {
+      Payload p = new Payload(EventType.previews, null, 0);
+      p.messageId = messageId;
+      p.attachmentSha256 = attachmentSha256;
+      p.previewSizes = sizes;
+      return p;
     }
     public EventType getType() { return type; }
     public MessageResponse getMessage() { return message; }
+    public long getSeq() { return seq; }
+    public UUID getMessageId() { return messageId; }
+    public List<ReactionCount> getReactions() { return reactions; }
+    public String getAttachmentSha256() { return attachmentSha256; }
+    public List<Integer> getPreviewSizes() { return previewSizes; }
+  }
+
+  // Only committed changes reach subscribers
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void onMessageChanged(MessageChangedEvent event) {
+    MessageResponse msg = event.message();
+    EventType type = switch (event.kind()) {
+      case CREATED -> EventType.created;
+      case UPDATED -> EventType.updated;
+      case DELETED -> EventType.deleted;
+    };
+    if (msg.channelId() != null) {
+      toChannel(msg.channelId(), new Payload(type, msg, event.seq()));
+    } else if (msg.directConversationId() != null) {
+      toDm(msg.directConversationId(), new Payload(type, msg, event.seq()));
+    }
+  }
+
+  // Send message event to channel subscribers
+  public void toChannel(UUID channelId, Payload payload) {
+    enqueue(ChannelTopics.getChannelTopic(channelId), payload);
+  }
+
+  // Send message event to DM subscribers
+  public void toDm(UUID dmId, Payload payload) {
+    enqueue(DmTopics.conversation(dmId), payload);
+  }
+
+  private void enqueue(String topic, Payload payload) {
+    if (windowMs <= 0) {
+      send(topic, List.of(payload));
+      return;
+    }
+    List<Payload> batch = pending.compute(topic, (t, list) -> {
+      if (list == null) {
+        list = new ArrayList<>();
+        flusher.schedule(() -> flush(t), windowMs, TimeUnit.MILLISECONDS);
+      }
+      list.add(payload);
+      return list;
+    });
+    if (batch.size() >= maxPerFrame && pending.remove(topic, batch)) {
+      send(topic, batch);   // full frame goes now; the scheduled flush finds nothing or a new batch
+    }
+  }
+
+  private void flush(String topic) {
+    List<Payload> batch = pending.remove(topic);
+    if (batch != null) {
+      send(topic, batch);
+    }
   }
 
-  // Send message event to channel or DM subscribers
-  public void toChannel(Long channelId, EventType type, MessageResponse msg) {
-    simp.convertAndSend("/topic/channels/" + channelId, new Payload(type, msg));
+  private void send(String topic, List<Payload> batch) {
+    simp.convertAndSend(topic, batch);
+    frames.increment();
+    delivered.increment(batch.size());
   }
 
-  // Send message event to channel or DM subscribers
-  public void toDm(Long dmId, EventType type, MessageResponse msg) {
-    simp.convertAndSend("/topic/dms/" + dmId, new Payload(type, msg));
+  @PreDestroy
+  void shutdown() {
+    flusher.shutdownNow();
+    pending.keySet().forEach(this::flush);
   }
 }
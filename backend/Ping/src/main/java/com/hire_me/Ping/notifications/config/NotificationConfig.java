@@ -3,14 +3,22 @@ package com.hire_me.Ping.notifications.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.hire_me.Ping.channels.repository.ChannelMemberRepository;
+import com.hire_me.Ping.config.BinaryWireFormat;
+import com.hire_me.Ping.config.StompCborNegotiation;
+import com.hire_me.Ping.dms.repo.DirectParticipantRepository;
+import com.hire_me.Ping.notifications.service.rules.NotificationRules;
+import com.hire_me.Ping.notifications.service.rules.NotificationRulesImpl;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.messaging.converter.DefaultContentTypeResolver;
 import org.springframework.messaging.converter.MappingJackson2MessageConverter;
 import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
@@ -26,6 +34,12 @@ public class NotificationConfig implements WebSocketMessageBrokerConfigurer {
     @Value("${app.cors.allowed-origins:*}")
     private List<String> allowedOrigins;
 
+    private final StompCborNegotiation cborNegotiation;
+
+    public NotificationConfig(StompCborNegotiation cborNegotiation) {
+        this.cborNegotiation = cborNegotiation;
+    }
+
     // ======= WebSocket / STOMP =======
 
     @Override
@@ -51,20 +65,32 @@ public class NotificationConfig implements WebSocketMessageBrokerConfigurer {
     /**
      * Make STOMP payloads use JSON with the same ObjectMapper as REST,
      * including proper Java time (OffsetDateTime) as ISO-8601 (not timestamps).
+     * Sessions that CONNECT with "accept: application/cbor" get CBOR bodies instead (see StompCborNegotiation).
      */
     @Override
     public boolean configureMessageConverters(List<MessageConverter> converters) {
         DefaultContentTypeResolver resolver = new DefaultContentTypeResolver();
         resolver.setDefaultMimeType(MediaType.APPLICATION_JSON);
 
-        MappingJackson2MessageConverter jacksonConverter = new MappingJackson2MessageConverter();
+        MappingJackson2MessageConverter jacksonConverter = cborNegotiation.jsonConverter();
         jacksonConverter.setObjectMapper(objectMapper()); // reuse same mapper as REST
         jacksonConverter.setContentTypeResolver(resolver);
 
         converters.add(jacksonConverter);
+        converters.add(cborNegotiation.cborConverter());
         return false; // keep default converters too (String, bytes, etc.)
     }
 
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(cborNegotiation.inbound());
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(cborNegotiation.outbound());
+    }
+
     // ======= JSON config (shared) =======
 
     @Bean
@@ -74,4 +100,20 @@ public class NotificationConfig implements WebSocketMessageBrokerConfigurer {
                 .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS) // ISO-8601 for OffsetDateTime
                 .build();
     }
+
+    // ======= Notification policy =======
+
+    @Bean
+    public NotificationRules notificationRules(ChannelMemberRepository channelMembers,
+                                               DirectParticipantRepository dmParticipants) {
+        return new NotificationRulesImpl(channelMembers, dmParticipants);
+    }
+
+    // ======= CBOR config (REST) =======
+
+    /** Served when the request says Accept: application/cbor; bodies sent as application/cbor are read too. */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter() {
+        return new MappingJackson2CborHttpMessageConverter(BinaryWireFormat.newCborMapper());
+    }
 }
@@ -3,6 +3,8 @@ package com.hire_me.Ping.notifications.entity;
 import java.time.OffsetDateTime;
 import java.util.UUID;
 
+import com.hire_me.Ping.common.id.TimeOrderedId;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -33,7 +35,10 @@ import jakarta.persistence.UniqueConstraint;
 )
 public class Notification {
 
+    // Time-ordered UUIDv7, assigned on insert: a new row appends to the PK index, and with no
+    // id set save() persists instead of merging (no SELECT per notification)
     @Id
+    @TimeOrderedId
     @Column(name = "id", nullable = false, updatable = false)
     private UUID id;
 
@@ -80,7 +85,6 @@ public class Notification {
     }
 
     private Notification(
-            UUID id,
             UUID recipientUserId,
             UUID actorUserId,
             UUID directConversationId,
@@ -92,7 +96,6 @@ public class Notification {
             OffsetDateTime createdAt,
             OffsetDateTime readAt
     ) {
-        this.id = id;
         this.recipientUserId = recipientUserId;
         this.actorUserId = actorUserId;
         this.directConversationId = directConversationId;
@@ -120,7 +123,6 @@ public class Notification {
     ) {
         var now = OffsetDateTime.now();
         return new Notification(
-                UUID.randomUUID(),         // generate id here (simpler than generator config)
                 recipientUserId,
                 actorUserId,
                 directConversationId,
@@ -147,7 +149,6 @@ public class Notification {
     ) {
         var now = OffsetDateTime.now();
         return new Notification(
-                UUID.randomUUID(),
                 recipientUserId,
                 actorUserId,
                 null,              // directConversationId not used
@@ -194,7 +195,6 @@ public class Notification {
      */
     @PrePersist
     protected void onCreate() {
-        if (this.id == null) this.id = UUID.randomUUID();
         if (this.createdAt == null) this.createdAt = OffsetDateTime.now();
         if (this.status == null) this.status = NotificationStatus.UNREAD;
         if (this.type == null) this.type = NotificationType.MESSAGE;
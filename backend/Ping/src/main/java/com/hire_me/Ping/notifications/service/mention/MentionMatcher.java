@@ -0,0 +1,225 @@
+package com.hire_me.Ping.notifications.service.mention;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds {@code @username}, {@code @here} and {@code @channel} mentions in one pass over a message.
+ *
+ * Every active username (lower-cased) and keyword is a path in a character trie. Mentions are
+ * anchored at '@', so at each '@' that starts a word the trie is walked forward and the LONGEST
+ * name followed by a word boundary wins ({@code @bobby} is not {@code @bob}). A walk stops at the
+ * first character no name continues with, so extraction is linear in the message length (times
+ * at most the longest username) with no regex and no lookup per token.
+ *
+ * A user may be literally named "here" or "channel". Their name and the keyword then end on the
+ * same node, and {@code @here} mentions them individually as well as broadcasting.
+ *
+ * The trie is persistent: adding, renaming or removing a user copies only the nodes on that
+ * name's path and publishes a new root, so readers never lock and never see a half-applied
+ * change, and the matcher tracks the user table one row at a time instead of being rebuilt.
+ */
+public final class MentionMatcher {
+
+  public enum Keyword { HERE, CHANNEL }
+
+  /** Result of one extraction; {@code users} holds the ids of every @username found. */
+  public record Mentions(Set<UUID> users, boolean here, boolean channel) {
+    static final Mentions NONE = new Mentions(Set.of(), false, false);
+
+    public boolean isEmpty() {
+      return users.isEmpty() && !here && !channel;
+    }
+  }
+
+  private static final class Node {
+    static final Node EMPTY = new Node(new char[0], new Node[0], null, null);
+
+    final char[] keys;        // sorted
+    final Node[] children;
+    final UUID[] users;       // users whose lower-cased name ends here (null = none)
+    final Keyword keyword;
+
+    Node(char[] keys, Node[] children, UUID[] users, Keyword keyword) {
+      this.keys = keys;
+      this.children = children;
+      this.users = users;
+      this.keyword = keyword;
+    }
+
+    Node child(char c) {
+      int i = Arrays.binarySearch(keys, c);
+      return i >= 0 ? children[i] : null;
+    }
+
+    boolean terminal() {
+      return users != null || keyword != null;
+    }
+
+    boolean isEmpty() {
+      return keys.length == 0 && !terminal();
+    }
+
+    Node withChild(char c, Node child) {
+      int i = Arrays.binarySearch(keys, c);
+      if (i >= 0) {
+        if (child.isEmpty()) {   // prune the branch
+          char[] k = new char[keys.length - 1];
+          Node[] n = new Node[children.length - 1];
+          System.arraycopy(keys, 0, k, 0, i);
+          System.arraycopy(keys, i + 1, k, i, keys.length - i - 1);
+          System.arraycopy(children, 0, n, 0, i);
+          System.arraycopy(children, i + 1, n, i, children.length - i - 1);
+          return new Node(k, n, users, keyword);
+        }
+        Node[] n = children.clone();
+        n[i] = child;
+        return new Node(keys, n, users, keyword);
+      }
+      if (child.isEmpty()) {
+        return this;
+      }
+      int at = -i - 1;
+      char[] k = new char[keys.length + 1];
+      Node[] n = new Node[children.length + 1];
+      System.arraycopy(keys, 0, k, 0, at);
+      System.arraycopy(keys, at, k, at + 1, keys.length - at);
+      System.arraycopy(children, 0, n, 0, at);
+      System.arraycopy(children, at, n, at + 1, children.length - at);
+      k[at] = c;
+      n[at] = child;
+      return new Node(k, n, users, keyword);
+    }
+  }
+
+  private volatile Node root = Node.EMPTY;
+  private final Map<UUID, String> usernames = new ConcurrentHashMap<>();
+
+  public MentionMatcher() {
+    root = insert(root, "here", 0, null, Keyword.HERE);
+    root = insert(root, "channel", 0, null, Keyword.CHANNEL);
+  }
+
+  /** Adds the user, or re-points them after a rename. */
+  public synchronized void put(UUID userId, String username) {
+    String previous = usernames.put(userId, username);
+    if (username.equals(previous)) {
+      return;
+    }
+    Node r = root;
+    if (previous != null) {
+      r = delete(r, key(previous), 0, userId);
+    }
+    root = insert(r, key(username), 0, userId, null);
+  }
+
+  /** Forgets the user (deleted or deactivated). */
+  public synchronized void remove(UUID userId) {
+    String previous = usernames.remove(userId);
+    if (previous != null) {
+      root = delete(root, key(previous), 0, userId);
+    }
+  }
+
+  /** Current username of a user the matcher knows, or null. */
+  public String usernameOf(UUID userId) {
+    return usernames.get(userId);
+  }
+
+  public int size() {
+    return usernames.size();
+  }
+
+  public Mentions extract(String text) {
+    if (text == null || text.indexOf('@') < 0) {
+      return Mentions.NONE;
+    }
+    Node r = root;
+    Set<UUID> users = null;
+    boolean here = false;
+    boolean channel = false;
+
+    int n = text.length();
+    for (int i = 0; i < n; i++) {
+      if (text.charAt(i) != '@' || (i > 0 && isNameChar(text.charAt(i - 1)))) {
+        continue;   // not a mention start (e.g. the '@' of an email address)
+      }
+      Node node = r;
+      Node matched = null;
+      int end = i;
+      for (int j = i + 1; j < n; j++) {
+        node = node.child(Character.toLowerCase(text.charAt(j)));
+        if (node == null) break;
+        if (node.terminal() && (j + 1 == n || !isNameChar(text.charAt(j + 1)))) {
+          matched = node;
+          end = j;
+        }
+      }
+      if (matched == null) continue;
+      if (matched.users != null) {   // user names first: a user named "here" is still mentioned
+        if (users == null) users = new HashSet<>();
+        users.addAll(Arrays.asList(matched.users));
+      }
+      if (matched.keyword == Keyword.HERE) {
+        here = true;
+      } else if (matched.keyword == Keyword.CHANNEL) {
+        channel = true;
+      }
+      i = end;
+    }
+    return users == null && !here && !channel
+      ? Mentions.NONE
+      : new Mentions(users == null ? Set.of() : users, here, channel);
+  }
+
+  private static boolean isNameChar(char c) {
+    return Character.isLetterOrDigit(c) || c == '_';
+  }
+
+  // Per character, exactly as extract() folds the message text
+  private static String key(String username) {
+    char[] chars = username.toCharArray();
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = Character.toLowerCase(chars[i]);
+    }
+    return new String(chars);
+  }
+
+  // Path copy: returns a new node for this level, sharing every untouched subtree
+  private static Node insert(Node node, String key, int depth, UUID userId, Keyword keyword) {
+    if (depth == key.length()) {
+      if (keyword != null) {
+        return new Node(node.keys, node.children, node.users, keyword);
+      }
+      UUID[] users = node.users == null ? new UUID[] { userId } : append(node.users, userId);
+      return new Node(node.keys, node.children, users, node.keyword);
+    }
+    char c = key.charAt(depth);
+    Node child = node.child(c);
+    return node.withChild(c, insert(child == null ? Node.EMPTY : child, key, depth + 1, userId, keyword));
+  }
+
+  private static Node delete(Node node, String key, int depth, UUID userId) {
+    if (depth == key.length()) {
+      if (node.users == null) return node;
+      UUID[] users = Arrays.stream(node.users).filter(u -> !u.equals(userId)).toArray(UUID[]::new);
+      return new Node(node.keys, node.children, users.length == 0 ? null : users, node.keyword);
+    }
+    char c = key.charAt(depth);
+    Node child = node.child(c);
+    return child == null ? node : node.withChild(c, delete(child, key, depth + 1, userId));
+  }
+
+  private static UUID[] append(UUID[] users, UUID userId) {
+    for (UUID u : users) {
+      if (u.equals(userId)) return users;
+    }
+    UUID[] out = Arrays.copyOf(users, users.length + 1);
+    out[users.length] = userId;
+    return out;
+  }
+}
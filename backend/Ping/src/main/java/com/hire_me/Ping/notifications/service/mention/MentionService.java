@@ -0,0 +1,144 @@
+package com.hire_me.Ping.notifications.service.mention;
+
+import com.hire_me.Ping.channels.repository.ChannelMemberRepository;
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.event.MessageChangedEvent;
+import com.hire_me.Ping.notifications.entity.NotificationType;
+import com.hire_me.Ping.notifications.service.NotificationService;
+import com.hire_me.Ping.notifications.service.rules.NotificationRules;
+import com.hire_me.Ping.users.entity.User;
+import com.hire_me.Ping.users.event.UserChangedEvent;
+import com.hire_me.Ping.users.repo.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Turns @mentions in channel posts into MENTION notifications.
+ *
+ * Extraction runs on the posting thread right after commit, against the in-memory
+ * MentionMatcher (no regex, no DB). Only posts that mention someone cost anything more: their
+ * recipients are resolved through NotificationRules and notified on a background thread, so a
+ * post with {@code @channel} in a big channel does not hold up the poster's response.
+ *
+ * The matcher is loaded with every ACTIVE user at startup and then follows UserChangedEvents one
+ * user at a time. There is no presence tracking yet, so {@code @here} reaches the same members
+ * as {@code @channel}.
+ */
+@Service
+public class MentionService {
+
+  private static final Logger log = LoggerFactory.getLogger(MentionService.class);
+  private static final int SNIPPET = 200;
+
+  private final MentionMatcher matcher = new MentionMatcher();
+  private final UserRepository users;
+  private final ChannelMemberRepository channelMembers;
+  private final NotificationRules rules;
+  private final NotificationService notifications;
+  private final TransactionTemplate ownTx;
+  private final ExecutorService delivery;
+  private final Counter delivered;
+
+  public MentionService(UserRepository users,
+                        ChannelMemberRepository channelMembers,
+                        NotificationRules rules,
+                        NotificationService notifications,
+                        PlatformTransactionManager txManager,
+                        MeterRegistry meters) {
+    this.users = users;
+    this.channelMembers = channelMembers;
+    this.rules = rules;
+    this.notifications = notifications;
+    // runs after the post committed: must not join its finished transaction
+    this.ownTx = new TransactionTemplate(txManager);
+    this.ownTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.delivery = Executors.newSingleThreadExecutor(r -> {
+      Thread t = new Thread(r, "mention-delivery");
+      t.setDaemon(true);
+      return t;
+    });
+    this.delivered = Counter.builder("notifications.mentions").register(meters);
+  }
+
+  public MentionMatcher matcher() {
+    return matcher;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void loadUsers() {
+    for (User u : users.findByAccountStatus(User.AccountStatus.ACTIVE)) {
+      matcher.put(u.getId(), u.getUsername());
+    }
+    log.info("Mention matcher loaded {} users", matcher.size());
+  }
+
+  // fallbackExecution: a save outside a transaction still counts
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onUserChanged(UserChangedEvent event) {
+    if (event.active() && event.username() != null) {
+      matcher.put(event.userId(), event.username());
+    } else {
+      matcher.remove(event.userId());
+    }
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void onMessageChanged(MessageChangedEvent event) {
+    MessageResponse m = event.message();
+    if (event.kind() != MessageChangedEvent.Kind.CREATED || m.channelId() == null) {
+      return;   // edits do not re-notify; DMs notify every participant anyway
+    }
+    MentionMatcher.Mentions found = matcher.extract(m.content());
+    if (!found.isEmpty()) {
+      delivery.execute(() -> deliver(m, found));
+    }
+  }
+
+  private void deliver(MessageResponse m, MentionMatcher.Mentions found) {
+    try {
+      ownTx.executeWithoutResult(status -> {
+        Set<UUID> mentioned = new HashSet<>(found.users());
+        if (found.here() || found.channel()) {
+          mentioned.addAll(channelMembers.findUserIdsByChannelId(m.channelId()));
+        }
+        Set<UUID> recipients = rules.recipientsForChannelMention(m.channelId(), m.senderUserId(), mentioned);
+        String text = text(m);
+        for (UUID recipient : recipients) {
+          notifications.createNotification(recipient, m.senderUserId(), null, m.channelId(), m.id(),
+              NotificationType.MENTION, text);
+        }
+        delivered.increment(recipients.size());
+      });
+    } catch (RuntimeException e) {
+      log.warn("Could not deliver mentions of message {}", m.id(), e);
+    }
+  }
+
+  private String text(MessageResponse m) {
+    String actor = matcher.usernameOf(m.senderUserId());
+    String snippet = m.content().length() > SNIPPET ? m.content().substring(0, SNIPPET) + "…" : m.content();
+    return (actor != null ? "@" + actor : "Someone") + " mentioned you: " + snippet;
+  }
+
+  @PreDestroy
+  void shutdown() {
+    delivery.shutdown();
+  }
+}
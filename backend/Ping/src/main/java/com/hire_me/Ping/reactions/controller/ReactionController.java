@@ -0,0 +1,43 @@
+package com.hire_me.Ping.reactions.controller;
+
+import com.hire_me.Ping.reactions.dto.ReactionCount;
+import com.hire_me.Ping.reactions.service.ReactionService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.UUID;
+
+// REST controller for emoji reactions on messages
+@RestController
+@RequestMapping("/api/messages/{messageId}/reactions")
+public class ReactionController {
+
+  private final ReactionService service;
+
+  public ReactionController(ReactionService service) {
+    this.service = service;
+  }
+
+  // Counts per emoji, most used first
+  @GetMapping
+  public ResponseEntity<List<ReactionCount>> counts(@PathVariable UUID messageId) {
+    return ResponseEntity.ok(service.counts(messageId));
+  }
+
+  // React; 202 because the row is written by the next batched flush (counts follow over STOMP)
+  @PutMapping("/{emoji}")
+  public ResponseEntity<ReactionCount> add(@PathVariable UUID messageId,
+                                           @PathVariable String emoji,
+                                           @RequestParam UUID userId) {
+    return ResponseEntity.accepted().body(service.react(messageId, emoji, userId, true));
+  }
+
+  // Take a reaction back
+  @DeleteMapping("/{emoji}")
+  public ResponseEntity<ReactionCount> remove(@PathVariable UUID messageId,
+                                              @PathVariable String emoji,
+                                              @RequestParam UUID userId) {
+    return ResponseEntity.accepted().body(service.react(messageId, emoji, userId, false));
+  }
+}
@@ -0,0 +1,7 @@
+package com.hire_me.Ping.reactions.dto;
+
+// Current number of reactions with one emoji on a message
+public record ReactionCount(
+    String emoji,
+    long count
+) {}
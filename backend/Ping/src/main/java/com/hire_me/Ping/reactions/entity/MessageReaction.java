@@ -0,0 +1,69 @@
+package com.hire_me.Ping.reactions.entity;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Who reacted with what: at most one row per (message, emoji, user).
+ * Written only by ReactionService's batched flush; counts live in MessageReactionCount.
+ */
+@Entity
+@Table(name = "message_reaction")
+@IdClass(MessageReaction.Key.class)
+public class MessageReaction {
+
+    @Id
+    @Column(name = "message_id")
+    private UUID messageId;
+
+    @Id
+    @Column(name = "emoji", length = 32)
+    private String emoji;
+
+    @Id
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public UUID getMessageId() { return messageId; }
+    public void setMessageId(UUID messageId) { this.messageId = messageId; }
+
+    public String getEmoji() { return emoji; }
+    public void setEmoji(String emoji) { this.emoji = emoji; }
+
+    public UUID getUserId() { return userId; }
+    public void setUserId(UUID userId) { this.userId = userId; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    public static class Key implements Serializable {
+        private UUID messageId;
+        private String emoji;
+        private UUID userId;
+
+        public Key() {}
+
+        public Key(UUID messageId, String emoji, UUID userId) {
+            this.messageId = messageId;
+            this.emoji = emoji;
+            this.userId = userId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key k && Objects.equals(messageId, k.messageId)
+                && Objects.equals(emoji, k.emoji) && Objects.equals(userId, k.userId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(messageId, emoji, userId);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.hire_me.Ping.reactions.entity;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Materialized count per (message, emoji). Bumped by deltas once per flush, so a message that
+ * collects thousands of reactions a second still sees a handful of updates to this row.
+ */
+@Entity
+@Table(name = "message_reaction_count")
+@IdClass(MessageReactionCount.Key.class)
+public class MessageReactionCount {
+
+    @Id
+    @Column(name = "message_id")
+    private UUID messageId;
+
+    @Id
+    @Column(name = "emoji", length = 32)
+    private String emoji;
+
+    @Column(name = "reaction_count", nullable = false)
+    private long count;
+
+    public UUID getMessageId() { return messageId; }
+    public void setMessageId(UUID messageId) { this.messageId = messageId; }
+
+    public String getEmoji() { return emoji; }
+    public void setEmoji(String emoji) { this.emoji = emoji; }
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+
+    public static class Key implements Serializable {
+        private UUID messageId;
+        private String emoji;
+
+        public Key() {}
+
+        public Key(UUID messageId, String emoji) {
+            this.messageId = messageId;
+            this.emoji = emoji;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key k && Objects.equals(messageId, k.messageId) && Objects.equals(emoji, k.emoji);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(messageId, emoji);
+        }
+    }
+}
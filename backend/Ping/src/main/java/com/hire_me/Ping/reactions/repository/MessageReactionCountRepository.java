@@ -0,0 +1,23 @@
+package com.hire_me.Ping.reactions.repository;
+
+import com.hire_me.Ping.reactions.entity.MessageReactionCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface MessageReactionCountRepository extends JpaRepository<MessageReactionCount, MessageReactionCount.Key> {
+
+  List<MessageReactionCount> findByMessageIdAndCountGreaterThan(UUID messageId, long count);
+
+  // Retention purge: the reactions of messages that are being hard-deleted
+  @Modifying
+  @Query("DELETE FROM MessageReactionCount r WHERE r.messageId IN :messageIds")
+  int deleteByMessageIdIn(@Param("messageIds") Collection<UUID> messageIds);
+}
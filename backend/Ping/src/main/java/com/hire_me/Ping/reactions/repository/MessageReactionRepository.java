@@ -0,0 +1,22 @@
+package com.hire_me.Ping.reactions.repository;
+
+import com.hire_me.Ping.reactions.entity.MessageReaction;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.UUID;
+
+@Repository
+public interface MessageReactionRepository extends JpaRepository<MessageReaction, MessageReaction.Key> {
+
+  long countByMessageIdAndEmoji(UUID messageId, String emoji);
+
+  // Retention purge: the reactions of messages that are being hard-deleted
+  @Modifying
+  @Query("DELETE FROM MessageReaction r WHERE r.messageId IN :messageIds")
+  int deleteByMessageIdIn(@Param("messageIds") Collection<UUID> messageIds);
+}
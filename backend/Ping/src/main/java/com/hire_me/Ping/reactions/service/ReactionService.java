@@ -0,0 +1,495 @@
+package com.hire_me.Ping.reactions.service;
+
+import com.hire_me.Ping.messages.entity.Message;
+import com.hire_me.Ping.messages.event.MessagesPurgedEvent;
+import com.hire_me.Ping.messages.repository.MessageRepository;
+import com.hire_me.Ping.messages.ws.MessageEvents;
+import com.hire_me.Ping.reactions.dto.ReactionCount;
+import com.hire_me.Ping.reactions.entity.MessageReactionCount;
+import com.hire_me.Ping.reactions.repository.MessageReactionCountRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Emoji reactions, aggregated in memory and persisted in batches.
+ *
+ * A click only touches memory and takes no lock: the user's latest intent goes into the message's
+ * current {@link Epoch} (a concurrent map, so repeated clicks by one user before a flush collapse
+ * into one entry) and, when that changed the intent, the epoch's pending delta for the emoji moves
+ * by one on a LongAdder. A message collecting thousands of reactions a second costs a few
+ * concurrent map operations per click and no DB writes on the request path.
+ *
+ * A flush does the reconciling. It swaps each touched message's epoch for a fresh one and waits
+ * for the clicks still writing the old one to leave it (a handful of map operations), so the
+ * sealed epoch's toggles and pending deltas are complete and consistent with each other. Clicks
+ * meanwhile go into the new epoch; the sealed one still counts towards live counts until its
+ * deltas are persisted. Idle eviction seals the same way, with a marker that sends a click to
+ * reload the message.
+ *
+ * Every flush interval one thread seals the epochs and, in one transaction, applies them as
+ * batched inserts/deletes on message_reaction plus ONE delta update per touched (message, emoji)
+ * on message_reaction_count. Only toggles that changed a row are counted, so double clicks and
+ * removing a reaction that was never there cannot skew the totals. The new absolute counts then
+ * go out as one {@code reactions} payload per message on the conversation's STOMP topic.
+ *
+ * Between flushes a live count is persisted + pending and can be off by a duplicate click until the
+ * next flush corrects it; persisted counts are exact. One flusher per node writes the tables.
+ */
+@Service
+public class ReactionService {
+
+  private static final Logger log = LoggerFactory.getLogger(ReactionService.class);
+
+  private static final int MAX_EMOJI_LENGTH = 32;
+
+  // INSERT ... SELECT rather than VALUES: the Postgres driver does not rewrite it into a multi-row
+  // insert, so every batch entry reports its own update count (0 = the user had already reacted)
+  private static final String ADD_SQL =
+      "INSERT INTO message_reaction (message_id, emoji, user_id, created_at) SELECT ?, ?, ?, ? " +
+      "WHERE NOT EXISTS (SELECT 1 FROM message_reaction WHERE message_id = ? AND emoji = ? AND user_id = ?)";
+  private static final String REMOVE_SQL =
+      "DELETE FROM message_reaction WHERE message_id = ? AND emoji = ? AND user_id = ?";
+  private static final String BUMP_SQL =
+      "UPDATE message_reaction_count SET reaction_count = reaction_count + ? WHERE message_id = ? AND emoji = ?";
+  private static final String CREATE_SQL =
+      "INSERT INTO message_reaction_count (message_id, emoji, reaction_count) VALUES (?, ?, ?)";
+
+  record Target(UUID messageId, String emoji) {}
+
+  record Toggle(UUID messageId, String emoji, UUID userId) {
+    Target target() { return new Target(messageId, emoji); }
+  }
+
+  // One (message, emoji) count as of the last flush; clicks since live in the epochs
+  static final class Tally {
+    volatile long persisted;   // written by the flusher only
+
+    Tally(long persisted) {
+      this.persisted = persisted;
+    }
+  }
+
+  // The clicks on one message between two flushes. Clicks write it without a lock, each counted
+  // in writers while inside; a flush seals it by swapping in a fresh one and awaiting writers == 0.
+  static final class Epoch {
+    final Map<Toggle, Boolean> toggles = new ConcurrentHashMap<>();
+    final Map<String, LongAdder> pending = new ConcurrentHashMap<>();
+    final AtomicInteger writers = new AtomicInteger();
+
+    long pending(String emoji) {
+      LongAdder delta = pending.get(emoji);
+      return delta == null ? 0 : delta.sum();
+    }
+
+    void add(String emoji, long delta) {
+      pending.computeIfAbsent(emoji, k -> new LongAdder()).add(delta);
+    }
+
+    void awaitWriters() {
+      while (writers.get() > 0) {
+        Thread.yield();
+      }
+    }
+  }
+
+  // Current epoch of a message being evicted or gone: a click that sees it loads the message again
+  static final Epoch EVICTED = new Epoch();
+
+  // All tallies of one message, loaded from the DB on its first reaction since it went idle.
+  // current/flushing are only swapped by the flusher thread (flush, evictIdle) and purges, both
+  // under the service's monitor.
+  static final class MessageTallies {
+    final UUID channelId;
+    final UUID dmId;
+    final Map<String, Tally> byEmoji = new ConcurrentHashMap<>();
+    final AtomicReference<Epoch> current = new AtomicReference<>(new Epoch());
+    volatile Epoch flushing;   // sealed, being persisted: still part of the live counts
+    volatile long lastTouched;
+
+    MessageTallies(UUID channelId, UUID dmId) {
+      this.channelId = channelId;
+      this.dmId = dmId;
+    }
+
+    // Joins the current epoch as a writer (leave with writers.decrementAndGet()); null once evicted.
+    // The re-check after joining pairs with seal(): either the flusher sees this writer, or this
+    // writer sees the swap and tries again on the new epoch.
+    Epoch enter() {
+      while (true) {
+        Epoch e = current.get();
+        if (e == EVICTED) return null;
+        e.writers.incrementAndGet();
+        if (current.get() == e) return e;
+        e.writers.decrementAndGet();
+      }
+    }
+
+    // Swaps in a fresh epoch and returns the old one once no click is writing it
+    Epoch seal() {
+      Epoch e = current.get();
+      flushing = e;                 // before the swap, so live() never misses its deltas
+      current.set(new Epoch());
+      e.awaitWriters();
+      return e;
+    }
+
+    long live(String emoji) {
+      Tally tally = byEmoji.get(emoji);
+      Epoch now = current.get();
+      Epoch sealed = flushing;
+      long live = (tally == null ? 0 : tally.persisted) + now.pending(emoji);
+      if (sealed != null && sealed != now) live += sealed.pending(emoji);
+      return Math.max(0, live);
+    }
+  }
+
+  private final JdbcTemplate jdbc;
+  private final TransactionTemplate tx;
+  private final MessageRepository messages;
+  private final MessageReactionCountRepository counts;
+  private final MessageEvents fanout;
+  private final long idleEvictMs;
+
+  private final Map<UUID, MessageTallies> tallies = new ConcurrentHashMap<>();
+  private final Set<UUID> unflushed = ConcurrentHashMap.newKeySet();   // messages that may have toggles
+  private final ScheduledExecutorService flusher;
+
+  private final Counter clicks;
+  private final Counter flushedRows;
+
+  public ReactionService(JdbcTemplate jdbc,
+                         PlatformTransactionManager txManager,
+                         MessageRepository messages,
+                         MessageReactionCountRepository counts,
+                         MessageEvents fanout,
+                         @Value("${app.reactions.flush-interval-ms:250}") long flushIntervalMs,
+                         @Value("${app.reactions.idle-evict-ms:60000}") long idleEvictMs,
+                         MeterRegistry meters) {
+    this.jdbc = jdbc;
+    this.tx = new TransactionTemplate(txManager);
+    this.messages = messages;
+    this.counts = counts;
+    this.fanout = fanout;
+    this.idleEvictMs = idleEvictMs;
+    this.clicks = Counter.builder("reactions.toggles").register(meters);
+    this.flushedRows = Counter.builder("reactions.flushed").register(meters);
+    this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "reaction-flush");
+      t.setDaemon(true);
+      return t;
+    });
+    flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  /** Adds ({@code on}) or removes the user's reaction; returns the emoji's live count. */
+  public ReactionCount react(UUID messageId, String emoji, UUID userId, boolean on) {
+    if (userId == null) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "userId is required");
+    }
+    String e = normalize(emoji);
+    Toggle toggle = new Toggle(messageId, e, userId);
+    while (true) {
+      MessageTallies message = load(messageId);
+      Epoch epoch = message.enter();
+      if (epoch == null) {
+        Thread.yield();   // being evicted: it is either kept or gone from tallies in a moment
+        continue;
+      }
+      try {
+        message.lastTouched = System.currentTimeMillis();
+        message.byEmoji.computeIfAbsent(e, k -> new Tally(0));
+        Boolean previous = epoch.toggles.put(toggle, on);
+        if (previous == null || previous != on) {
+          epoch.add(e, on ? 1 : -1);
+        }
+      } finally {
+        epoch.writers.decrementAndGet();
+      }
+      unflushed.add(messageId);
+      clicks.increment();
+      return new ReactionCount(e, message.live(e));
+    }
+  }
+
+  /** Current counts on a message, most used first. */
+  public List<ReactionCount> counts(UUID messageId) {
+    List<ReactionCount> out = new ArrayList<>();
+    MessageTallies live = tallies.get(messageId);
+    if (live != null) {
+      live.byEmoji.keySet().forEach(emoji -> out.add(new ReactionCount(emoji, live.live(emoji))));
+    } else {
+      for (MessageReactionCount c : counts.findByMessageIdAndCountGreaterThan(messageId, 0)) {
+        out.add(new ReactionCount(c.getEmoji(), c.getCount()));
+      }
+    }
+    out.removeIf(c -> c.count() == 0);
+    out.sort(Comparator.comparingLong(ReactionCount::count).reversed().thenComparing(ReactionCount::emoji));
+    return out;
+  }
+
+  private MessageTallies load(UUID messageId) {
+    MessageTallies loaded = tallies.get(messageId);
+    if (loaded != null) {
+      return loaded;
+    }
+    Message m = messages.findById(messageId)
+        .filter(found -> !found.isDeleted())
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Message not found: " + messageId));
+    loaded = new MessageTallies(m.getChannelId(), m.getDirectConversationId());
+    for (MessageReactionCount c : counts.findByMessageIdAndCountGreaterThan(messageId, 0)) {
+      loaded.byEmoji.put(c.getEmoji(), new Tally(c.getCount()));
+    }
+    MessageTallies raced = tallies.putIfAbsent(messageId, loaded);
+    return raced != null ? raced : loaded;
+  }
+
+  private static String normalize(String emoji) {
+    String e = emoji == null ? "" : emoji.strip();
+    if (e.isEmpty() || e.length() > MAX_EMOJI_LENGTH) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Emoji must be 1-" + MAX_EMOJI_LENGTH + " characters");
+    }
+    return e;
+  }
+
+  // Purged messages: drop their live tallies and unflushed clicks, or a flush would write them back
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public synchronized void onMessagesPurged(MessagesPurgedEvent event) {
+    for (UUID id : new HashSet<>(event.messageIds())) {
+      unflushed.remove(id);
+      MessageTallies dropped = tallies.remove(id);
+      if (dropped != null) {
+        dropped.current.set(EVICTED);   // clicks still inside it are dropped with it
+      }
+    }
+  }
+
+  // ===============================
+  // FLUSH
+  // ===============================
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (RuntimeException e) {
+      log.warn("Reaction flush failed", e);
+    }
+  }
+
+  /** Persists every toggle made so far and pushes the new counts. Runs on the flusher thread (and from tests). */
+  synchronized void flush() {
+    // seal each touched message's epoch; its optimistic deltas count until the exact ones applied
+    // below are persisted, and a click landing afterwards goes into the next round
+    Map<UUID, Epoch> sealed = new HashMap<>();
+    Map<Toggle, Boolean> batch = new HashMap<>();
+    for (UUID id : unflushed) {
+      unflushed.remove(id);
+      MessageTallies message = tallies.get(id);
+      if (message == null || message.current.get() == EVICTED) {
+        continue;
+      }
+      Epoch epoch = message.seal();
+      if (epoch.toggles.isEmpty()) {
+        message.flushing = null;
+        continue;
+      }
+      sealed.put(id, epoch);
+      batch.putAll(epoch.toggles);
+    }
+    if (batch.isEmpty()) {
+      evictIdle();
+      return;
+    }
+
+    Map<Target, Long> applied;
+    try {
+      applied = tx.execute(status -> apply(batch));
+    } catch (RuntimeException e) {
+      requeue(sealed);
+      throw e;
+    }
+
+    applied.forEach((k, delta) -> {
+      Tally tally = tally(k);
+      if (tally != null) tally.persisted += delta;
+    });
+    sealed.keySet().forEach(id -> tallies.get(id).flushing = null);
+    push(batch.keySet().stream().map(Toggle::target).collect(Collectors.toSet()));
+    evictIdle();
+  }
+
+  // Returns the exact count change per (message, emoji)
+  private Map<Target, Long> apply(Map<Toggle, Boolean> batch) {
+    List<Toggle> adds = new ArrayList<>();
+    List<Toggle> removes = new ArrayList<>();
+    batch.forEach((t, on) -> (on ? adds : removes).add(t));
+
+    Timestamp now = Timestamp.from(Instant.now());
+    int[] added = jdbc.batchUpdate(ADD_SQL, new BatchPreparedStatementSetter() {
+      @Override
+      public void setValues(PreparedStatement ps, int i) throws SQLException {
+        Toggle t = adds.get(i);
+        ps.setObject(1, t.messageId());
+        ps.setString(2, t.emoji());
+        ps.setObject(3, t.userId());
+        ps.setTimestamp(4, now);
+        ps.setObject(5, t.messageId());
+        ps.setString(6, t.emoji());
+        ps.setObject(7, t.userId());
+      }
+
+      @Override
+      public int getBatchSize() {
+        return adds.size();
+      }
+    });
+    int[] removed = jdbc.batchUpdate(REMOVE_SQL, new BatchPreparedStatementSetter() {
+      @Override
+      public void setValues(PreparedStatement ps, int i) throws SQLException {
+        Toggle t = removes.get(i);
+        ps.setObject(1, t.messageId());
+        ps.setString(2, t.emoji());
+        ps.setObject(3, t.userId());
+      }
+
+      @Override
+      public int getBatchSize() {
+        return removes.size();
+      }
+    });
+
+    // sorted so concurrent flushers on other nodes lock count rows in the same order
+    Map<Target, Long> deltas = new TreeMap<>(Comparator
+        .comparing((Target t) -> t.messageId().toString())
+        .thenComparing(Target::emoji));
+    for (int i = 0; i < added.length; i++) {
+      if (added[i] > 0) deltas.merge(adds.get(i).target(), 1L, Long::sum);
+    }
+    for (int i = 0; i < removed.length; i++) {
+      if (removed[i] > 0) deltas.merge(removes.get(i).target(), -1L, Long::sum);
+    }
+    deltas.values().removeIf(d -> d == 0);
+    if (deltas.isEmpty()) {
+      return deltas;
+    }
+
+    List<Object[]> bumps = new ArrayList<>(deltas.size());
+    deltas.forEach((t, d) -> bumps.add(new Object[] { d, t.messageId(), t.emoji() }));
+    int[] bumped = jdbc.batchUpdate(BUMP_SQL, bumps);
+    List<Object[]> creates = new ArrayList<>();
+    for (int i = 0; i < bumped.length; i++) {
+      if (bumped[i] == 0) {
+        Object[] b = bumps.get(i);
+        creates.add(new Object[] { b[1], b[2], Math.max(0L, (Long) b[0]) });
+      }
+    }
+    if (!creates.isEmpty()) {
+      jdbc.batchUpdate(CREATE_SQL, creates);
+    }
+    flushedRows.increment(adds.size() + removes.size());
+    return deltas;
+  }
+
+  // One payload per message with the absolute counts of the emojis that changed
+  private void push(Iterable<Target> touched) {
+    Map<UUID, List<ReactionCount>> byMessage = new HashMap<>();
+    for (Target t : touched) {
+      Tally tally = tally(t);
+      if (tally != null) {
+        byMessage.computeIfAbsent(t.messageId(), k -> new ArrayList<>())
+            .add(new ReactionCount(t.emoji(), tallies.get(t.messageId()).live(t.emoji())));
+      }
+    }
+    byMessage.forEach((messageId, changed) -> {
+      MessageTallies m = tallies.get(messageId);
+      MessageEvents.Payload payload = MessageEvents.Payload.reactions(messageId, changed);
+      if (m.channelId != null) {
+        fanout.toChannel(m.channelId, payload);
+      } else if (m.dmId != null) {
+        fanout.toDm(m.dmId, payload);
+      }
+    });
+  }
+
+  // A failed flush: the sealed clicks go back into the current epoch, behind any that landed
+  // meanwhile, joined as a writer like a click so the next seal sees them
+  private void requeue(Map<UUID, Epoch> sealed) {
+    sealed.forEach((id, old) -> {
+      MessageTallies message = tallies.get(id);
+      Epoch epoch = message.enter();   // never null: only this thread evicts, purges wait for it
+      try {
+        old.toggles.forEach(epoch.toggles::putIfAbsent);
+        old.pending.forEach((emoji, delta) -> epoch.add(emoji, delta.sum()));
+      } finally {
+        epoch.writers.decrementAndGet();
+      }
+      message.flushing = null;
+      unflushed.add(id);
+    });
+  }
+
+  // Only messages without unflushed clicks. The marker goes in first; a click that got into the
+  // epoch before it keeps the message, a click after it waits and then loads the message again.
+  private void evictIdle() {
+    long cutoff = System.currentTimeMillis() - idleEvictMs;
+    for (Map.Entry<UUID, MessageTallies> e : tallies.entrySet()) {
+      MessageTallies message = e.getValue();
+      Epoch epoch = message.current.get();
+      if (message.lastTouched >= cutoff || epoch == EVICTED || !epoch.toggles.isEmpty()) {
+        continue;
+      }
+      message.current.set(EVICTED);
+      epoch.awaitWriters();
+      if (epoch.toggles.isEmpty()) {
+        tallies.remove(e.getKey(), message);
+      } else {
+        message.current.set(epoch);
+      }
+    }
+  }
+
+  private Tally tally(Target t) {
+    MessageTallies m = tallies.get(t.messageId());
+    return m == null ? null : m.byEmoji.get(t.emoji());
+  }
+
+  @PreDestroy
+  void shutdown() {
+    flusher.shutdownNow();
+    flushQuietly();
+  }
+}
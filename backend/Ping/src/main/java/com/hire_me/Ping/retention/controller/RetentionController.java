@@ -0,0 +1,69 @@
+package com.hire_me.Ping.retention.controller;
+
+import com.hire_me.Ping.retention.dto.RetentionPolicyRequest;
+import com.hire_me.Ping.retention.entity.RetentionPolicy;
+import com.hire_me.Ping.retention.service.RetentionPurgeJob;
+import com.hire_me.Ping.retention.service.RetentionService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+// REST controller for message retention policies
+@RestController
+@RequestMapping("/api")
+public class RetentionController {
+
+  private final RetentionService service;
+  private final RetentionPurgeJob purgeJob;
+
+  public RetentionController(RetentionService service, RetentionPurgeJob purgeJob) {
+    this.service = service;
+    this.purgeJob = purgeJob;
+  }
+
+  /* -------- Workspace-wide policy (every channel without its own, and all DMs) -------- */
+
+  @GetMapping("/retention")
+  public ResponseEntity<?> getWorkspacePolicy() {
+    return ResponseEntity.ok(service.workspacePolicy());
+  }
+
+  @PutMapping("/retention")
+  public ResponseEntity<?> setWorkspacePolicy(@RequestBody RetentionPolicyRequest req) {
+    return ResponseEntity.ok(service.setWorkspacePolicy(req));
+  }
+
+  // Keep everything forever again
+  @DeleteMapping("/retention")
+  public ResponseEntity<?> clearWorkspacePolicy() {
+    service.clear(RetentionPolicy.WORKSPACE);
+    return ResponseEntity.noContent().build();
+  }
+
+  // Run a purge now instead of waiting for the next scheduled one
+  @PostMapping("/retention/run")
+  public ResponseEntity<?> runNow() {
+    return ResponseEntity.ok(purgeJob.runOnce());
+  }
+
+  /* -------- Channel policy (null fields inherit the workspace policy) -------- */
+
+  @GetMapping("/channels/{channelId}/retention")
+  public ResponseEntity<?> getChannelPolicy(@PathVariable UUID channelId) {
+    return ResponseEntity.ok(service.channelPolicy(channelId));
+  }
+
+  @PutMapping("/channels/{channelId}/retention")
+  public ResponseEntity<?> setChannelPolicy(@PathVariable UUID channelId,
+                                            @RequestBody RetentionPolicyRequest req) {
+    return ResponseEntity.ok(service.setChannelPolicy(channelId, req));
+  }
+
+  // Back to the workspace policy
+  @DeleteMapping("/channels/{channelId}/retention")
+  public ResponseEntity<?> clearChannelPolicy(@PathVariable UUID channelId) {
+    service.clear(channelId);
+    return ResponseEntity.noContent().build();
+  }
+}
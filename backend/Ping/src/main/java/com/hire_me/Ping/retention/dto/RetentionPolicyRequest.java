@@ -0,0 +1,7 @@
+package com.hire_me.Ping.retention.dto;
+
+// Either field may be null: "inherit the workspace policy" for a channel, "keep forever" for the workspace
+public record RetentionPolicyRequest(
+    Integer maxAgeDays,
+    Integer purgeDeletedAfterHours
+) {}
@@ -0,0 +1,12 @@
+package com.hire_me.Ping.retention.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// channelId is null for the workspace policy; updatedAt is null when nothing has been set
+public record RetentionPolicyResponse(
+    UUID channelId,
+    Integer maxAgeDays,
+    Integer purgeDeletedAfterHours,
+    Instant updatedAt
+) {}
@@ -0,0 +1,9 @@
+package com.hire_me.Ping.retention.dto;
+
+// Outcome of one purge run; complete = false when it stopped at max-run-ms and the next run continues
+public record RetentionRunResponse(
+    long purged,
+    long bytesReclaimed,
+    long durationMs,
+    boolean complete
+) {}
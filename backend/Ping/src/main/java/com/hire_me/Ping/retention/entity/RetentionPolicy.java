@@ -0,0 +1,51 @@
+package com.hire_me.Ping.retention.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * How long messages are kept. One row per channel with its own policy, plus the workspace-wide
+ * row under {@link #WORKSPACE} that covers every other channel and all DMs. A null field in a
+ * channel row inherits the workspace value; null there means keep forever.
+ */
+@Entity
+@Table(name = "retention_policy")
+public class RetentionPolicy {
+
+    public static final UUID WORKSPACE = new UUID(0, 0);
+
+    @Id
+    @Column(name = "scope_id")
+    private UUID scopeId;   // channel id, or WORKSPACE
+
+    // Messages (with their thread replies) older than this are purged
+    @Column(name = "max_age_days")
+    private Integer maxAgeDays;
+
+    // Soft-deleted messages are purged this long after their deletion
+    @Column(name = "purge_deleted_after_hours")
+    private Integer purgeDeletedAfterHours;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    public RetentionPolicy() {}
+
+    public RetentionPolicy(UUID scopeId) {
+        this.scopeId = scopeId;
+    }
+
+    public UUID getScopeId() { return scopeId; }
+    public void setScopeId(UUID scopeId) { this.scopeId = scopeId; }
+
+    public Integer getMaxAgeDays() { return maxAgeDays; }
+    public void setMaxAgeDays(Integer maxAgeDays) { this.maxAgeDays = maxAgeDays; }
+
+    public Integer getPurgeDeletedAfterHours() { return purgeDeletedAfterHours; }
+    public void setPurgeDeletedAfterHours(Integer purgeDeletedAfterHours) { this.purgeDeletedAfterHours = purgeDeletedAfterHours; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+}
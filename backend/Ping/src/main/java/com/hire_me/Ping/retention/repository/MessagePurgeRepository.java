@@ -0,0 +1,84 @@
+package com.hire_me.Ping.retention.repository;
+
+import com.hire_me.Ping.messages.entity.Message;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Retention's view of the message table. Candidate queries are keyset pages: each continues
+ * after the (position, id) of the previous chunk's last row, so a run never rescans the index
+ * entries of rows it has just deleted.
+ */
+@Repository
+public interface MessagePurgeRepository extends org.springframework.data.repository.Repository<Message, UUID> {
+
+  // Expired by age in one channel (idx_msg_channel_created)
+  @Query("SELECT new com.hire_me.Ping.retention.repository.PurgeCandidate(" +
+         "m.id, m.createdAt, m.channelId, m.directConversationId, m.parentMessageId, LENGTH(m.content)) FROM Message m " +
+         "WHERE m.channelId = :channelId AND m.createdAt < :cutoff " +
+         "AND (m.createdAt, m.id) > (:afterPosition, :afterId) " +
+         "ORDER BY m.createdAt ASC, m.id ASC")
+  List<PurgeCandidate> findExpiredInChannel(@Param("channelId") UUID channelId,
+                                            @Param("cutoff") Instant cutoff,
+                                            @Param("afterPosition") Instant afterPosition,
+                                            @Param("afterId") UUID afterId,
+                                            Pageable pageable);
+
+  // Expired by age anywhere but the channels with a policy of their own (idx_msg_created_at)
+  @Query("SELECT new com.hire_me.Ping.retention.repository.PurgeCandidate(" +
+         "m.id, m.createdAt, m.channelId, m.directConversationId, m.parentMessageId, LENGTH(m.content)) FROM Message m " +
+         "WHERE m.createdAt < :cutoff AND (m.channelId IS NULL OR m.channelId NOT IN :excluded) " +
+         "AND (m.createdAt, m.id) > (:afterPosition, :afterId) " +
+         "ORDER BY m.createdAt ASC, m.id ASC")
+  List<PurgeCandidate> findExpiredOutside(@Param("excluded") Collection<UUID> excluded,
+                                          @Param("cutoff") Instant cutoff,
+                                          @Param("afterPosition") Instant afterPosition,
+                                          @Param("afterId") UUID afterId,
+                                          Pageable pageable);
+
+  // Soft-deleted long enough ago, in one channel (idx_msg_deleted). A deleted root stays while it
+  // has live replies: it is what the thread hangs off. Once they are all deleted it goes, and takes
+  // them along. Checked on the replies themselves (idx_msg_parent_created), not reply_count.
+  @Query("SELECT new com.hire_me.Ping.retention.repository.PurgeCandidate(" +
+         "m.id, m.deletedAt, m.channelId, m.directConversationId, m.parentMessageId, LENGTH(m.content)) FROM Message m " +
+         "WHERE m.deleted = true AND m.deletedAt < :cutoff AND m.channelId = :channelId " +
+         "AND NOT EXISTS (SELECT r.id FROM Message r WHERE r.parentMessageId = m.id AND r.deleted = false) " +
+         "AND (m.deletedAt, m.id) > (:afterPosition, :afterId) " +
+         "ORDER BY m.deletedAt ASC, m.id ASC")
+  List<PurgeCandidate> findDeletedInChannel(@Param("channelId") UUID channelId,
+                                            @Param("cutoff") Instant cutoff,
+                                            @Param("afterPosition") Instant afterPosition,
+                                            @Param("afterId") UUID afterId,
+                                            Pageable pageable);
+
+  @Query("SELECT new com.hire_me.Ping.retention.repository.PurgeCandidate(" +
+         "m.id, m.deletedAt, m.channelId, m.directConversationId, m.parentMessageId, LENGTH(m.content)) FROM Message m " +
+         "WHERE m.deleted = true AND m.deletedAt < :cutoff " +
+         "AND NOT EXISTS (SELECT r.id FROM Message r WHERE r.parentMessageId = m.id AND r.deleted = false) " +
+         "AND (m.channelId IS NULL OR m.channelId NOT IN :excluded) " +
+         "AND (m.deletedAt, m.id) > (:afterPosition, :afterId) " +
+         "ORDER BY m.deletedAt ASC, m.id ASC")
+  List<PurgeCandidate> findDeletedOutside(@Param("excluded") Collection<UUID> excluded,
+                                          @Param("cutoff") Instant cutoff,
+                                          @Param("afterPosition") Instant afterPosition,
+                                          @Param("afterId") UUID afterId,
+                                          Pageable pageable);
+
+  // A purged thread root takes its replies along (idx_msg_parent_created)
+  @Query("SELECT new com.hire_me.Ping.retention.repository.PurgeCandidate(" +
+         "m.id, m.createdAt, m.channelId, m.directConversationId, m.parentMessageId, LENGTH(m.content)) FROM Message m " +
+         "WHERE m.parentMessageId IN :rootIds")
+  List<PurgeCandidate> findRepliesOf(@Param("rootIds") Collection<UUID> rootIds);
+
+  @Modifying
+  @Query("DELETE FROM Message m WHERE m.id IN :ids")
+  int deleteByIdIn(@Param("ids") Collection<UUID> ids);
+}
@@ -0,0 +1,13 @@
+package com.hire_me.Ping.retention.repository;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A message due for purging, as much of it as the purge needs: {@code position} (created_at or
+ * deleted_at, whichever the pass walks) and {@code id} are the keyset cursor, contentLength
+ * feeds the bytes-reclaimed metric, and parentMessageId names the thread root a purged reply
+ * leaves behind.
+ */
+public record PurgeCandidate(UUID id, Instant position, UUID channelId, UUID directConversationId,
+                             UUID parentMessageId, Integer contentLength) {}
@@ -0,0 +1,11 @@
+package com.hire_me.Ping.retention.repository;
+
+import com.hire_me.Ping.retention.entity.RetentionPolicy;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface RetentionPolicyRepository extends JpaRepository<RetentionPolicy, UUID> {
+}
@@ -0,0 +1,339 @@
+package com.hire_me.Ping.retention.service;
+
+import com.hire_me.Ping.messages.cold.ColdMessageStore;
+import com.hire_me.Ping.messages.event.MessagesPurgedEvent;
+import com.hire_me.Ping.messages.repository.ColdMessageRepository;
+import com.hire_me.Ping.messages.repository.MessageRevisionRepository;
+import com.hire_me.Ping.messages.service.MessageWriter;
+import com.hire_me.Ping.reactions.repository.MessageReactionCountRepository;
+import com.hire_me.Ping.reactions.repository.MessageReactionRepository;
+import com.hire_me.Ping.retention.dto.RetentionRunResponse;
+import com.hire_me.Ping.retention.entity.RetentionPolicy;
+import com.hire_me.Ping.retention.repository.MessagePurgeRepository;
+import com.hire_me.Ping.retention.repository.PurgeCandidate;
+import com.hire_me.Ping.retention.repository.RetentionPolicyRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * Enforces retention policies by hard-deleting messages in the background.
+ *
+ * Two passes per run: messages past their conversation's max age (a thread root takes its
+ * replies along), then soft-deleted messages past purge-deleted-after-hours (except thread
+ * roots with live replies, which stay as the thread's tombstone). A root that outlives purged
+ * replies gets its reply_count/last_reply_at recounted from the replies left. Channels with a
+ * policy of their own are walked one by one on idx_msg_channel_created; everything else in one
+ * walk over the global index.
+ *
+ * Deletes go in keyset-ordered chunks of {@code chunk-size}, each in its own short transaction
+ * with a pause between them, so no lock is held for long and replicas keep up. A run stops at
+ * {@code max-run-ms} and the next one carries on. Reactions and edit history go with their
+ * messages. Each chunk publishes a MessagesPurgedEvent so caches and the search index forget the
+ * rows. Blobs, notifications and the change log are left alone: delta sync already reports a
+ * missing row as deleted.
+ *
+ * The age pass also covers the cold tier (months ColdTierMover took out of the table), at its
+ * granularity: a cold month goes once all of it is past the cutoff, its segment file at once.
+ */
+@Service
+public class RetentionPurgeJob {
+
+  private static final Logger log = LoggerFactory.getLogger(RetentionPurgeJob.class);
+  private static final UUID MIN_UUID = new UUID(0, 0);
+
+  // One keyset page of candidates after (afterPosition, afterId)
+  private interface ChunkQuery {
+    List<PurgeCandidate> next(Instant afterPosition, UUID afterId, PageRequest page);
+  }
+
+  private static final class Run {
+    final long deadlineNanos;
+    long purged;
+    long bytes;
+    boolean complete = true;
+
+    Run(long deadlineNanos) {
+      this.deadlineNanos = deadlineNanos;
+    }
+  }
+
+  private final RetentionPolicyRepository policies;
+  private final MessagePurgeRepository messages;
+  private final MessageReactionRepository reactions;
+  private final MessageReactionCountRepository reactionCounts;
+  private final MessageRevisionRepository revisions;
+  private final MessageWriter writer;
+  private final ColdMessageStore cold;
+  private final ColdMessageRepository coldLocations;
+  private final ApplicationEventPublisher events;
+  private final TransactionTemplate tx;
+  private final int chunkSize;
+  private final long pauseMs;
+  private final long maxRunMs;
+
+  private final AtomicBoolean running = new AtomicBoolean();
+  private final ScheduledExecutorService scheduler;
+
+  private final Counter purgedByAge;
+  private final Counter purgedDeleted;
+  private final Counter bytesReclaimed;
+  private final Timer runs;
+
+  public RetentionPurgeJob(RetentionPolicyRepository policies,
+                           MessagePurgeRepository messages,
+                           MessageReactionRepository reactions,
+                           MessageReactionCountRepository reactionCounts,
+                           MessageRevisionRepository revisions,
+                           MessageWriter writer,
+                           ColdMessageStore cold,
+                           ColdMessageRepository coldLocations,
+                           ApplicationEventPublisher events,
+                           PlatformTransactionManager txManager,
+                           @Value("${app.retention.enabled:true}") boolean enabled,
+                           @Value("${app.retention.interval-ms:600000}") long intervalMs,
+                           @Value("${app.retention.chunk-size:500}") int chunkSize,
+                           @Value("${app.retention.pause-ms:100}") long pauseMs,
+                           @Value("${app.retention.max-run-ms:60000}") long maxRunMs,
+                           MeterRegistry meters) {
+    this.policies = policies;
+    this.messages = messages;
+    this.reactions = reactions;
+    this.reactionCounts = reactionCounts;
+    this.revisions = revisions;
+    this.writer = writer;
+    this.cold = cold;
+    this.coldLocations = coldLocations;
+    this.events = events;
+    this.tx = new TransactionTemplate(txManager);
+    this.chunkSize = Math.max(1, chunkSize);
+    this.pauseMs = pauseMs;
+    this.maxRunMs = maxRunMs;
+
+    this.purgedByAge = Counter.builder("messages.retention.purged").tag("reason", "age").register(meters);
+    this.purgedDeleted = Counter.builder("messages.retention.purged").tag("reason", "deleted").register(meters);
+    this.bytesReclaimed = Counter.builder("messages.retention.reclaimed").baseUnit("bytes").register(meters);
+    this.runs = Timer.builder("messages.retention.run").register(meters);
+
+    if (enabled) {
+      this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "retention-purge");
+        t.setDaemon(true);
+        return t;
+      });
+      scheduler.scheduleWithFixedDelay(this::runQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    } else {
+      this.scheduler = null;
+    }
+  }
+
+  /**
+   * One purge run, on the calling thread.
+   *
+   * @throws ResponseStatusException 409 if a run is already in progress
+   */
+  public RetentionRunResponse runOnce() {
+    if (!running.compareAndSet(false, true)) {
+      throw new ResponseStatusException(HttpStatus.CONFLICT, "A retention run is already in progress");
+    }
+    long started = System.nanoTime();
+    Run run = new Run(started + TimeUnit.MILLISECONDS.toNanos(maxRunMs));
+    try {
+      Instant now = Instant.now();
+      RetentionPolicy workspace = null;
+      List<RetentionPolicy> channels = new ArrayList<>();
+      for (RetentionPolicy p : policies.findAll()) {
+        if (RetentionPolicy.WORKSPACE.equals(p.getScopeId())) {
+          workspace = p;
+        } else {
+          channels.add(p);
+        }
+      }
+
+      Set<UUID> ownAge = new HashSet<>();
+      for (RetentionPolicy p : channels) {
+        if (p.getMaxAgeDays() != null) {
+          ownAge.add(p.getScopeId());
+          Instant cutoff = now.minus(Duration.ofDays(p.getMaxAgeDays()));
+          purge(run, purgedByAge, (at, id, page) -> messages.findExpiredInChannel(p.getScopeId(), cutoff, at, id, page));
+          dropCold(run, cutoff, p.getScopeId()::equals);
+        }
+      }
+      if (workspace != null && workspace.getMaxAgeDays() != null) {
+        Instant cutoff = now.minus(Duration.ofDays(workspace.getMaxAgeDays()));
+        Set<UUID> excluded = nonEmpty(ownAge);
+        purge(run, purgedByAge, (at, id, page) -> messages.findExpiredOutside(excluded, cutoff, at, id, page));
+        dropCold(run, cutoff, conversationId -> !excluded.contains(conversationId));
+      }
+
+      Set<UUID> ownDeleted = new HashSet<>();
+      for (RetentionPolicy p : channels) {
+        if (p.getPurgeDeletedAfterHours() != null) {
+          ownDeleted.add(p.getScopeId());
+          Instant cutoff = now.minus(Duration.ofHours(p.getPurgeDeletedAfterHours()));
+          purge(run, purgedDeleted, (at, id, page) -> messages.findDeletedInChannel(p.getScopeId(), cutoff, at, id, page));
+        }
+      }
+      if (workspace != null && workspace.getPurgeDeletedAfterHours() != null) {
+        Instant cutoff = now.minus(Duration.ofHours(workspace.getPurgeDeletedAfterHours()));
+        Set<UUID> excluded = nonEmpty(ownDeleted);
+        purge(run, purgedDeleted, (at, id, page) -> messages.findDeletedOutside(excluded, cutoff, at, id, page));
+      }
+    } finally {
+      running.set(false);
+    }
+    long elapsed = System.nanoTime() - started;
+    runs.record(elapsed, TimeUnit.NANOSECONDS);
+    if (run.purged > 0) {
+      log.info("Retention purged {} messages (~{} bytes) in {} ms{}", run.purged, run.bytes,
+          elapsed / 1_000_000, run.complete ? "" : ", continuing next run");
+    }
+    return new RetentionRunResponse(run.purged, run.bytes, elapsed / 1_000_000, run.complete);
+  }
+
+  private void runQuietly() {
+    try {
+      runOnce();
+    } catch (ResponseStatusException busy) {
+      // a manual run is in progress; this one is skipped
+    } catch (RuntimeException e) {
+      log.warn("Retention run failed", e);
+    }
+  }
+
+  // Walks one pass to its end, or until the run's deadline
+  private void purge(Run run, Counter purged, ChunkQuery query) {
+    Instant afterPosition = Instant.EPOCH;
+    UUID afterId = MIN_UUID;
+    while (run.complete) {
+      if (System.nanoTime() - run.deadlineNanos > 0) {
+        run.complete = false;
+        return;
+      }
+      List<PurgeCandidate> chunk = query.next(afterPosition, afterId, PageRequest.of(0, chunkSize));
+      if (chunk.isEmpty()) {
+        return;
+      }
+      PurgeCandidate last = chunk.get(chunk.size() - 1);
+      afterPosition = last.position();
+      afterId = last.id();
+
+      long[] done = tx.execute(status -> deleteChunk(chunk));
+      run.purged += done[0];
+      run.bytes += done[1];
+      purged.increment(done[0]);
+      bytesReclaimed.increment(done[1]);
+
+      if (chunk.size() < chunkSize) {
+        return;
+      }
+      pause(run);
+    }
+  }
+
+  // Cold months entirely before the cutoff; their reactions go in chunks like the table's rows
+  private void dropCold(Run run, Instant cutoff, Predicate<UUID> which) {
+    ColdMessageStore.Dropped dropped;
+    try {
+      dropped = cold.dropBefore(ColdMessageStore.monthOf(cutoff), which);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    List<UUID> ids = dropped.messageIds();
+    for (int i = 0; i < ids.size(); i += chunkSize) {
+      List<UUID> chunk = ids.subList(i, Math.min(ids.size(), i + chunkSize));
+      tx.executeWithoutResult(status -> {
+        reactions.deleteByMessageIdIn(chunk);
+        reactionCounts.deleteByMessageIdIn(chunk);
+        revisions.deleteByMessageIdIn(chunk);
+        coldLocations.deleteByMessageIdIn(chunk);
+        events.publishEvent(new MessagesPurgedEvent(dropped.conversationIds(), chunk));
+      });
+    }
+    run.purged += ids.size();
+    run.bytes += dropped.bytes();
+    purgedByAge.increment(ids.size());
+    bytesReclaimed.increment(dropped.bytes());
+  }
+
+  // Returns {rows deleted, content bytes}; bytes are the content's length, a lower bound of the row size
+  private long[] deleteChunk(List<PurgeCandidate> chunk) {
+    Map<UUID, PurgeCandidate> doomed = new LinkedHashMap<>();
+    chunk.forEach(c -> doomed.put(c.id(), c));
+    messages.findRepliesOf(List.copyOf(doomed.keySet())).forEach(c -> doomed.putIfAbsent(c.id(), c));
+
+    List<UUID> ids = List.copyOf(doomed.keySet());
+    reactions.deleteByMessageIdIn(ids);
+    reactionCounts.deleteByMessageIdIn(ids);
+    revisions.deleteByMessageIdIn(ids);
+    int deleted = messages.deleteByIdIn(ids);
+
+    long bytes = 0;
+    Set<UUID> conversations = new HashSet<>();
+    Set<UUID> survivingRoots = new HashSet<>();
+    for (PurgeCandidate c : doomed.values()) {
+      bytes += c.contentLength() == null ? 0 : c.contentLength();
+      conversations.add(c.channelId() != null ? c.channelId() : c.directConversationId());
+      if (c.parentMessageId() != null && !doomed.containsKey(c.parentMessageId())) {
+        survivingRoots.add(c.parentMessageId());
+      }
+    }
+    events.publishEvent(new MessagesPurgedEvent(conversations, ids));
+    if (!survivingRoots.isEmpty()) {
+      writer.recountThreads(survivingRoots);
+    }
+    return new long[] {deleted, bytes};
+  }
+
+  private void pause(Run run) {
+    if (pauseMs <= 0) {
+      return;
+    }
+    try {
+      Thread.sleep(pauseMs);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      run.complete = false;
+    }
+  }
+
+  // NOT IN () is not valid JPQL; no channel has the nil id
+  private static Set<UUID> nonEmpty(Set<UUID> ids) {
+    return ids.isEmpty() ? Set.of(MIN_UUID) : ids;
+  }
+
+  @PreDestroy
+  void shutdown() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package com.hire_me.Ping.retention.service;
+
+import com.hire_me.Ping.retention.dto.RetentionPolicyRequest;
+import com.hire_me.Ping.retention.dto.RetentionPolicyResponse;
+import com.hire_me.Ping.retention.entity.RetentionPolicy;
+import com.hire_me.Ping.retention.repository.RetentionPolicyRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/** Workspace-wide and per-channel retention policies; RetentionPurgeJob enforces them. */
+@Service
+public class RetentionService {
+
+  private final RetentionPolicyRepository policies;
+
+  public RetentionService(RetentionPolicyRepository policies) {
+    this.policies = policies;
+  }
+
+  @Transactional(readOnly = true)
+  public RetentionPolicyResponse workspacePolicy() {
+    return toResponse(RetentionPolicy.WORKSPACE);
+  }
+
+  @Transactional
+  public RetentionPolicyResponse setWorkspacePolicy(RetentionPolicyRequest req) {
+    return save(RetentionPolicy.WORKSPACE, req);
+  }
+
+  @Transactional(readOnly = true)
+  public RetentionPolicyResponse channelPolicy(UUID channelId) {
+    return toResponse(channelId);
+  }
+
+  @Transactional
+  public RetentionPolicyResponse setChannelPolicy(UUID channelId, RetentionPolicyRequest req) {
+    return save(channelId, req);
+  }
+
+  /** Back to the workspace policy (for the workspace itself: keep everything forever). */
+  @Transactional
+  public void clear(UUID scopeId) {
+    policies.deleteById(scopeId);
+  }
+
+  private RetentionPolicyResponse save(UUID scopeId, RetentionPolicyRequest req) {
+    RetentionPolicy policy = policies.findById(scopeId).orElseGet(() -> new RetentionPolicy(scopeId));
+    policy.setMaxAgeDays(positive(req.maxAgeDays(), "maxAgeDays"));
+    policy.setPurgeDeletedAfterHours(positive(req.purgeDeletedAfterHours(), "purgeDeletedAfterHours"));
+    policy.setUpdatedAt(Instant.now());
+    return toResponse(policies.save(policy));
+  }
+
+  private RetentionPolicyResponse toResponse(UUID scopeId) {
+    return policies.findById(scopeId)
+        .map(this::toResponse)
+        .orElseGet(() -> new RetentionPolicyResponse(channelIdOf(scopeId), null, null, null));
+  }
+
+  private RetentionPolicyResponse toResponse(RetentionPolicy p) {
+    return new RetentionPolicyResponse(channelIdOf(p.getScopeId()), p.getMaxAgeDays(),
+        p.getPurgeDeletedAfterHours(), p.getUpdatedAt());
+  }
+
+  private static UUID channelIdOf(UUID scopeId) {
+    return RetentionPolicy.WORKSPACE.equals(scopeId) ? null : scopeId;
+  }
+
+  private static Integer positive(Integer value, String field) {
+    if (value != null && value < 1) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, field + " must be at least 1 (or null)");
+    }
+    return value;
+  }
+}
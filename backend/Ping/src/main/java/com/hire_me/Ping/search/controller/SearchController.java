@@ -0,0 +1,41 @@
+package com.hire_me.Ping.search.controller;
+
+import com.hire_me.Ping.search.dto.MessageSearchResponse;
+import com.hire_me.Ping.search.service.MessageSearchService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+// REST controller for search endpoints
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+  private final MessageSearchService service;
+
+  public SearchController(MessageSearchService service) {
+    this.service = service;
+  }
+
+  // Search messages visible to userId (channels they belong to, DMs they are still in)
+  // ?q=terms (all must match), optional senderId / channelId filters, ?cursor= from the previous page
+  @GetMapping("/messages")
+  public ResponseEntity<MessageSearchResponse> searchMessages(@RequestParam UUID userId,
+                                                              @RequestParam String q,
+                                                              @RequestParam(required = false) UUID senderId,
+                                                              @RequestParam(required = false) UUID channelId,
+                                                              @RequestParam(defaultValue = "20") int limit,
+                                                              @RequestParam(required = false) String cursor) {
+    return ResponseEntity.ok(service.search(userId, q, senderId, channelId, limit, cursor));
+  }
+
+  // Rebuild the index from the message table
+  @PostMapping("/messages/rebuild")
+  public ResponseEntity<Void> rebuild() {
+    return service.rebuild()
+        ? ResponseEntity.noContent().build()
+        : ResponseEntity.status(HttpStatus.CONFLICT).build();
+  }
+}
@@ -0,0 +1,9 @@
+package com.hire_me.Ping.search.dto;
+
+import java.util.List;
+
+// A page of search results; pass nextCursor back as ?cursor= to continue (null when exhausted)
+public record MessageSearchResponse(
+    List<SearchHit> hits,
+    String nextCursor
+) {}
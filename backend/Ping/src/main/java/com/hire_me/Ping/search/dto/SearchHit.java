@@ -0,0 +1,9 @@
+package com.hire_me.Ping.search.dto;
+
+import com.hire_me.Ping.messages.dto.MessageResponse;
+
+// One ranked search result
+public record SearchHit(
+    MessageResponse message,
+    double score
+) {}
@@ -0,0 +1,340 @@
+package com.hire_me.Ping.search.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over message content.
+ *
+ * Every indexed message gets an increasing int ordinal; postings are append-only int lists
+ * sorted by ordinal, so incremental adds never re-sort. An edit retires the old ordinal and
+ * appends a new one; a delete just retires it. Dead ordinals are skipped at query time and
+ * dropped on the next bulk rebuild. Re-indexing a message at the version it is indexed at
+ * (see {@link #upsert(UUID, UUID, UUID, long, long, String)}) is a no-op, so a message that is
+ * republished unchanged does not leave a dead ordinal behind.
+ *
+ * Queries are AND over terms, scored with BM25 and boosted by recency
+ * (half-life {@link #RECENCY_HALF_LIFE_MS}), and filtered by conversation (channel or DM)
+ * and sender through int-keyed bitsets, so the hot loop never hashes a UUID. A page scores
+ * against the snapshot its first page saw (see {@link Cursor}), so later pages continue the
+ * same ranking however the clock and the index moved in between.
+ *
+ * Thread-safety: one read/write lock; writes are tiny, queries run concurrently.
+ */
+public class MessageSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double RECENCY_WEIGHT = 1.0;
+    private static final long RECENCY_HALF_LIFE_MS = 30L * 24 * 3600 * 1000;
+    private static final int MAX_TERM_LENGTH = 64;
+    private static final long ANY_VERSION = Long.MIN_VALUE;
+
+    private static final AtomicLong GENERATIONS = new AtomicLong();
+
+    private final long generation = GENERATIONS.incrementAndGet();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // ---- per-document columns, indexed by ordinal ----
+    private UUID[] messageIds = new UUID[1024];
+    private int[] conversations = new int[1024];
+    private int[] senders = new int[1024];
+    private long[] createdAt = new long[1024];
+    private long[] versions = new long[1024];
+    private int[] lengths = new int[1024];
+    private final BitSet dead = new BitSet();
+    private int size;
+    private int live;
+    private long totalLength;
+
+    private final Map<UUID, Integer> ordinalByMessage = new HashMap<>();
+    private final Map<UUID, Integer> conversationKeys = new HashMap<>();
+    private final Map<UUID, Integer> senderKeys = new HashMap<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    /** Identifies this index instance; cursors from another generation are rejected. */
+    public long generation() {
+        return generation;
+    }
+
+    public int liveDocuments() {
+        lock.readLock().lock();
+        try {
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Retired ordinals still taking up space until the next rebuild. */
+    public int deadDocuments() {
+        lock.readLock().lock();
+        try {
+            return size - live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // =========================================================
+    // WRITES
+    // =========================================================
+
+    /** Add or replace a message. {@code conversationId} is its channel id or DM id. */
+    public void upsert(UUID messageId, UUID conversationId, UUID senderId, long createdAtMillis, String content) {
+        upsert(messageId, conversationId, senderId, createdAtMillis, ANY_VERSION, content);
+    }
+
+    /**
+     * Add or replace a message, unless it is already indexed at {@code version} (its last edit
+     * time): a thread root is republished on every reply with its content unchanged.
+     */
+    public void upsert(UUID messageId, UUID conversationId, UUID senderId, long createdAtMillis, long version, String content) {
+        if (version != ANY_VERSION) {
+            lock.readLock().lock();
+            try {
+                Integer current = ordinalByMessage.get(messageId);
+                if (current != null && versions[current] == version) return;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        Map<String, Integer> tf = termFrequencies(content);
+        lock.writeLock().lock();
+        try {
+            retire(messageId);
+            if (tf.isEmpty()) return;
+
+            int ord = size++;
+            ensureCapacity(size);
+            messageIds[ord] = messageId;
+            conversations[ord] = conversationKeys.computeIfAbsent(conversationId, k -> conversationKeys.size());
+            senders[ord] = senderKeys.computeIfAbsent(senderId, k -> senderKeys.size());
+            createdAt[ord] = createdAtMillis;
+            versions[ord] = version;
+            int length = tf.values().stream().mapToInt(Integer::intValue).sum();
+            lengths[ord] = length;
+            totalLength += length;
+            live++;
+            ordinalByMessage.put(messageId, ord);
+
+            for (Map.Entry<String, Integer> e : tf.entrySet()) {
+                postings.computeIfAbsent(e.getKey(), k -> new Postings()).add(ord, e.getValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(UUID messageId) {
+        lock.writeLock().lock();
+        try {
+            retire(messageId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void retire(UUID messageId) {
+        Integer old = ordinalByMessage.remove(messageId);
+        if (old != null) {
+            dead.set(old);
+            live--;
+            totalLength -= lengths[old];
+        }
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= messageIds.length) return;
+        int cap = Math.max(needed, messageIds.length * 2);
+        messageIds = Arrays.copyOf(messageIds, cap);
+        conversations = Arrays.copyOf(conversations, cap);
+        senders = Arrays.copyOf(senders, cap);
+        createdAt = Arrays.copyOf(createdAt, cap);
+        versions = Arrays.copyOf(versions, cap);
+        lengths = Arrays.copyOf(lengths, cap);
+    }
+
+    // =========================================================
+    // QUERIES
+    // =========================================================
+
+    /**
+     * Ranked AND search.
+     *
+     * @param allowedConversations channels/DMs the caller may see (required)
+     * @param senderId             optional sender filter
+     * @param after                cursor from a previous page of THIS index, or null
+     * @param nowMillis            recency reference of a first page; later pages keep the cursor's
+     */
+    public Page search(String query, Collection<UUID> allowedConversations, UUID senderId,
+                       int limit, Cursor after, long nowMillis) {
+        List<String> terms = new ArrayList<>(termFrequencies(query).keySet());
+        if (terms.isEmpty() || allowedConversations.isEmpty()) {
+            return new Page(List.of(), null);
+        }
+
+        lock.readLock().lock();
+        try {
+            BitSet allowed = new BitSet();
+            for (UUID c : allowedConversations) {
+                Integer key = conversationKeys.get(c);
+                if (key != null) allowed.set(key);
+            }
+            int sender = -1;
+            if (senderId != null) {
+                Integer key = senderKeys.get(senderId);
+                if (key == null) return new Page(List.of(), null);
+                sender = key;
+            }
+
+            Postings[] lists = new Postings[terms.size()];
+            for (int i = 0; i < lists.length; i++) {
+                lists[i] = postings.get(terms.get(i));
+                if (lists[i] == null) return new Page(List.of(), null);
+            }
+            Arrays.sort(lists, Comparator.comparingInt(p -> p.size));   // drive from the rarest term
+
+            // later pages score as the first one did: same clock, same collection statistics,
+            // and only documents that were indexed by then
+            Snapshot snap = after != null ? after.snapshot() : new Snapshot(nowMillis, size, live, totalLength);
+            double avgLength = snap.live() == 0 ? 1 : (double) snap.totalLength() / snap.live();
+            double[] idf = new double[lists.length];
+            for (int i = 0; i < lists.length; i++) {
+                double df = lists[i].seek(snap.watermark(), 0);   // postings below the watermark never change
+                idf[i] = Math.log(1 + (snap.live() - df + 0.5) / (df + 0.5));
+            }
+
+            // min-heap of the best limit+1 hits after the cursor (extra one tells us there is a next page)
+            PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, Hit.ORDER.reversed());
+            int[] pos = new int[lists.length];
+            Postings driver = lists[0];
+
+            candidates:
+            for (int d = 0; d < driver.size; d++) {
+                int ord = driver.ordinals[d];
+                if (ord >= snap.watermark()) break;
+                if (dead.get(ord) || !allowed.get(conversations[ord])) continue;
+                if (sender >= 0 && senders[ord] != sender) continue;
+
+                double score = idf[0] * bm25(driver.freqs[d], lengths[ord], avgLength);
+                for (int i = 1; i < lists.length; i++) {
+                    int at = lists[i].seek(ord, pos[i]);
+                    pos[i] = at;
+                    if (at >= lists[i].size || lists[i].ordinals[at] != ord) continue candidates;
+                    score += idf[i] * bm25(lists[i].freqs[at], lengths[ord], avgLength);
+                }
+
+                double age = Math.max(0, snap.nowMillis() - createdAt[ord]);
+                score *= 1 + RECENCY_WEIGHT * Math.pow(0.5, age / RECENCY_HALF_LIFE_MS);
+
+                Hit hit = new Hit(ord, messageIds[ord], score);
+                if (after != null && !after.precedes(hit)) continue;
+                top.add(hit);
+                if (top.size() > limit + 1) top.poll();
+            }
+
+            List<Hit> hits = new ArrayList<>(top);
+            hits.sort(Hit.ORDER);
+            boolean more = hits.size() > limit;
+            if (more) hits = hits.subList(0, limit);
+            Cursor next = more ? new Cursor(generation, snap, hits.get(hits.size() - 1).score(), hits.get(hits.size() - 1).ordinal()) : null;
+            return new Page(List.copyOf(hits), next);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static double bm25(int tf, int length, double avgLength) {
+        return tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / avgLength));
+    }
+
+    // =========================================================
+    // TOKENIZER
+    // =========================================================
+
+    /** Lower-cased letter/digit runs; anything else separates terms. */
+    static Map<String, Integer> termFrequencies(String text) {
+        Map<String, Integer> tf = new HashMap<>();
+        if (text == null) return tf;
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean word = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                if (i - start <= MAX_TERM_LENGTH) {
+                    tf.merge(text.substring(start, i).toLowerCase(), 1, Integer::sum);
+                }
+                start = -1;
+            }
+        }
+        return tf;
+    }
+
+    // =========================================================
+    // TYPES
+    // =========================================================
+
+    /** Growable ordinal/term-frequency pair list, ordinals ascending. */
+    private static final class Postings {
+        int[] ordinals = new int[4];
+        int[] freqs = new int[4];
+        int size;
+
+        void add(int ord, int tf) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            ordinals[size] = ord;
+            freqs[size] = tf;
+            size++;
+        }
+
+        /** First index >= from whose ordinal is >= ord (galloping, then binary search). */
+        int seek(int ord, int from) {
+            int step = 1;
+            int hi = from;
+            while (hi < size && ordinals[hi] < ord) {
+                from = hi + 1;
+                hi += step;
+                step <<= 1;
+            }
+            int idx = Arrays.binarySearch(ordinals, from, Math.min(hi + 1, size), ord);
+            return idx >= 0 ? idx : -idx - 1;
+        }
+    }
+
+    public record Hit(int ordinal, UUID messageId, double score) {
+        // best first: higher score, then newer (higher) ordinal
+        static final Comparator<Hit> ORDER = Comparator.comparingDouble(Hit::score).reversed()
+                .thenComparing(Comparator.comparingInt(Hit::ordinal).reversed());
+    }
+
+    /**
+     * What a query's first page scored against: the clock, the ordinals assigned by then, and
+     * the document count and total length behind idf and the average length.
+     */
+    public record Snapshot(long nowMillis, int watermark, int live, long totalLength) {}
+
+    /** Position after the last hit of a page, and the snapshot the query's pages are scored against. */
+    public record Cursor(long generation, Snapshot snapshot, double score, int ordinal) {
+        boolean precedes(Hit hit) {
+            return hit.score() < score || (hit.score() == score && hit.ordinal() < ordinal);
+        }
+    }
+
+    public record Page(List<Hit> hits, Cursor next) {}
+}
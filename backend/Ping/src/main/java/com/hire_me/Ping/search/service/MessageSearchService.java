@@ -0,0 +1,297 @@
+package com.hire_me.Ping.search.service;
+
+import com.hire_me.Ping.channels.repository.ChannelMemberRepository;
+import com.hire_me.Ping.dms.repo.DirectConversationRepository;
+import com.hire_me.Ping.messages.cold.ColdMessageStore;
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.entity.Message;
+import com.hire_me.Ping.messages.event.MessageChangedEvent;
+import com.hire_me.Ping.messages.event.MessagesImportedEvent;
+import com.hire_me.Ping.messages.event.MessagesPurgedEvent;
+import com.hire_me.Ping.messages.mapper.MessageMapper;
+import com.hire_me.Ping.messages.repository.MessageRepository;
+import com.hire_me.Ping.search.dto.MessageSearchResponse;
+import com.hire_me.Ping.search.dto.SearchHit;
+import com.hire_me.Ping.search.index.MessageSearchIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Full-text search over message content.
+ *
+ * The index lives in memory (see MessageSearchIndex) and is kept current by
+ * MessageChangedEvents AFTER_COMMIT. {@link #rebuild()} reads the cold tier's segments and then
+ * scans the table in primary-key chunks into a fresh index, replays the events that committed
+ * meanwhile, then swaps it in; it runs once at startup and can be triggered via
+ * POST /api/search/messages/rebuild. Moving rows between the tiers leaves the index alone, and
+ * hits are resolved from the table or else the cold tier.
+ */
+@Service
+public class MessageSearchService {
+
+  private static final Logger log = LoggerFactory.getLogger(MessageSearchService.class);
+  private static final int MAX_LIMIT = 50;
+  private static final int CURSOR_BYTES = 8 + 8 + 4 + 4 + 8 + 8 + 4;
+  // edits and deletes leave dead ordinals; once they outnumber the live ones a rebuild drops them
+  private static final int COMPACT_MIN_DEAD = 10_000;
+
+  private final MessageRepository messages;
+  private final MessageMapper mapper;
+  private final ColdMessageStore cold;
+  private final ChannelMemberRepository channelMembers;
+  private final DirectConversationRepository dms;
+  private final int rebuildChunk;
+  private final boolean rebuildOnStartup;
+  private final Timer queryTimer;
+
+  private volatile MessageSearchIndex index = new MessageSearchIndex();
+  private final AtomicBoolean rebuilding = new AtomicBoolean();
+  private final AtomicBoolean rebuildPending = new AtomicBoolean();   // a change the running rebuild may have missed
+  private List<Consumer<MessageSearchIndex>> replay;   // guarded by this; non-null while a rebuild runs
+
+  public MessageSearchService(MessageRepository messages,
+                              MessageMapper mapper,
+                              ColdMessageStore cold,
+                              ChannelMemberRepository channelMembers,
+                              DirectConversationRepository dms,
+                              @Value("${app.search.rebuild-chunk:5000}") int rebuildChunk,
+                              @Value("${app.search.rebuild-on-startup:true}") boolean rebuildOnStartup,
+                              MeterRegistry meters) {
+    this.messages = messages;
+    this.mapper = mapper;
+    this.cold = cold;
+    this.channelMembers = channelMembers;
+    this.dms = dms;
+    this.rebuildChunk = rebuildChunk;
+    this.rebuildOnStartup = rebuildOnStartup;
+    this.queryTimer = Timer.builder("search.messages.query").publishPercentiles(0.5, 0.99).register(meters);
+    Gauge.builder("search.messages.documents", this, s -> s.index.liveDocuments()).register(meters);
+  }
+
+  /* -------- Query -------- */
+
+  public MessageSearchResponse search(UUID userId, String q, UUID senderId, UUID channelId,
+                                      int limit, String cursor) {
+    if (q == null || q.isBlank()) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "q is required");
+    }
+    int safeLimit = Math.min(Math.max(limit, 1), MAX_LIMIT);
+
+    Set<UUID> visible = new HashSet<>(channelMembers.findChannelIdsByUserId(userId));
+    visible.addAll(dms.findActiveConversationIdsByUser(userId));
+    if (channelId != null) {
+      visible = visible.contains(channelId) ? Set.of(channelId) : Set.of();
+    }
+
+    MessageSearchIndex current = index;
+    MessageSearchIndex.Cursor after = decodeCursor(cursor, current);
+    Set<UUID> scope = visible;
+    MessageSearchIndex.Page page = queryTimer.record(() ->
+        current.search(q, scope, senderId, safeLimit, after, System.currentTimeMillis()));
+
+    // one round trip for the bodies, then back into rank order
+    List<UUID> ids = page.hits().stream().map(MessageSearchIndex.Hit::messageId).toList();
+    Map<UUID, MessageResponse> byId = messages.findAllById(ids).stream()
+        .collect(Collectors.toMap(Message::getId, mapper::toResponse));
+    List<SearchHit> hits = new ArrayList<>(ids.size());
+    for (MessageSearchIndex.Hit hit : page.hits()) {
+      MessageResponse m = byId.get(hit.messageId());
+      if (m == null) {
+        m = cold.find(hit.messageId()).orElse(null);   // archived; a lookup each, deep history is a rare hit
+      }
+      if (m != null && !m.deleted()) {
+        hits.add(new SearchHit(m, hit.score()));
+      }
+    }
+    return new MessageSearchResponse(hits, encodeCursor(page.next()));
+  }
+
+  /* -------- Incremental indexing -------- */
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public synchronized void onMessageChanged(MessageChangedEvent event) {
+    apply(index, event);
+    if (replay != null) {
+      replay.add(target -> apply(target, event));
+    }
+    compactIfSparse();
+  }
+
+  private void compactIfSparse() {
+    MessageSearchIndex current = index;
+    int dead = current.deadDocuments();
+    if (dead >= COMPACT_MIN_DEAD && dead > current.liveDocuments() && !rebuilding.get()) {
+      requestRebuild();
+    }
+  }
+
+  // Retention purges skip per-row events as well; the rows are gone, so only removal is needed
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public synchronized void onMessagesPurged(MessagesPurgedEvent event) {
+    MessageSearchIndex current = index;
+    event.messageIds().forEach(current::remove);
+    if (replay != null) {
+      replay.add(target -> event.messageIds().forEach(target::remove));
+    }
+  }
+
+  private static void apply(MessageSearchIndex target, MessageChangedEvent event) {
+    MessageResponse m = event.message();
+    if (event.kind() == MessageChangedEvent.Kind.DELETED || m.deleted()) {
+      target.remove(m.id());
+    } else {
+      target.upsert(m.id(), conversationOf(m), m.senderUserId(), m.createdAt().toEpochMilli(), versionOf(m), m.content());
+    }
+  }
+
+  // Changes only with an edit; a reply bumping its root's thread summary leaves it as it was
+  private static long versionOf(MessageResponse m) {
+    return (m.editedAt() != null ? m.editedAt() : m.createdAt()).toEpochMilli();
+  }
+
+  private static UUID conversationOf(MessageResponse m) {
+    return m.channelId() != null ? m.channelId() : m.directConversationId();
+  }
+
+  /* -------- Bulk rebuild -------- */
+
+  // Imports skip per-row events; re-reading the table is cheaper than replaying them one by one.
+  // Off the request thread so the import response does not wait for it.
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void onMessagesImported(MessagesImportedEvent event) {
+    requestRebuild();
+  }
+
+  // If a rebuild is already running its scan may have passed the new rows, so it runs once more
+  // when it finishes; any number of requests meanwhile add up to that one extra pass
+  private void requestRebuild() {
+    rebuildPending.set(true);
+    CompletableFuture.runAsync(this::rebuild);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuildOnStartup() {
+    if (rebuildOnStartup) {
+      rebuild();
+    }
+  }
+
+  /** @return false if a rebuild was already running */
+  public boolean rebuild() {
+    if (!rebuilding.compareAndSet(false, true)) {
+      return false;
+    }
+    rebuildPending.set(false);   // the scan below starts after whatever asked for it committed
+    try {
+      synchronized (this) {
+        replay = new ArrayList<>();
+      }
+      long started = System.nanoTime();
+      MessageSearchIndex fresh = new MessageSearchIndex();
+      // cold rows first: for a row in both tiers (changed while being moved) the table's copy wins
+      for (UUID conversation : cold.conversations()) {
+        try {
+          cold.forEachStored(conversation, m -> {
+            if (!m.deleted()) {
+              fresh.upsert(m.id(), conversation, m.senderUserId(), m.createdAt().toEpochMilli(), versionOf(m), m.content());
+            }
+          });
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+      UUID last = new UUID(0, 0);
+      List<Message> chunk;
+      do {
+        chunk = messages.findByDeletedFalseAndIdGreaterThanOrderByIdAsc(last, PageRequest.of(0, rebuildChunk));
+        for (Message m : chunk) {
+          UUID conversation = m.getChannelId() != null ? m.getChannelId() : m.getDirectConversationId();
+          Instant version = m.getEditedAt() != null ? m.getEditedAt() : m.getCreatedAt();
+          fresh.upsert(m.getId(), conversation, m.getSenderUserId(), m.getCreatedAt().toEpochMilli(),
+              version.toEpochMilli(), m.getContent());
+        }
+        if (!chunk.isEmpty()) {
+          last = chunk.get(chunk.size() - 1).getId();
+        }
+      } while (chunk.size() == rebuildChunk);
+
+      synchronized (this) {
+        replay.forEach(change -> change.accept(fresh));
+        index = fresh;
+      }
+      log.info("Search index rebuilt: {} messages in {} ms",
+          fresh.liveDocuments(), (System.nanoTime() - started) / 1_000_000);
+      return true;
+    } finally {
+      synchronized (this) {
+        replay = null;
+      }
+      rebuilding.set(false);
+      if (rebuildPending.get()) {
+        CompletableFuture.runAsync(this::rebuild);
+      }
+    }
+  }
+
+  /* -------- Cursor encoding -------- */
+
+  private static String encodeCursor(MessageSearchIndex.Cursor c) {
+    if (c == null) return null;
+    MessageSearchIndex.Snapshot s = c.snapshot();
+    ByteBuffer buf = ByteBuffer.allocate(CURSOR_BYTES)
+        .putLong(c.generation())
+        .putLong(s.nowMillis()).putInt(s.watermark()).putInt(s.live()).putLong(s.totalLength())
+        .putDouble(c.score()).putInt(c.ordinal());
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(buf.array());
+  }
+
+  private static MessageSearchIndex.Cursor decodeCursor(String cursor, MessageSearchIndex current) {
+    if (cursor == null || cursor.isBlank()) return null;
+    ByteBuffer buf;
+    try {
+      buf = ByteBuffer.wrap(Base64.getUrlDecoder().decode(cursor));
+    } catch (IllegalArgumentException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed cursor");
+    }
+    if (buf.remaining() != CURSOR_BYTES) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed cursor");
+    }
+    long generation = buf.getLong();
+    MessageSearchIndex.Snapshot snapshot =
+        new MessageSearchIndex.Snapshot(buf.getLong(), buf.getInt(), buf.getInt(), buf.getLong());
+    MessageSearchIndex.Cursor c = new MessageSearchIndex.Cursor(generation, snapshot, buf.getDouble(), buf.getInt());
+    if (c.generation() != current.generation()) {
+      // ordinals are per index instance; after a rebuild the client has to restart the query
+      throw new ResponseStatusException(HttpStatus.GONE, "Cursor expired, repeat the search");
+    }
+    return c;
+  }
+}
@@ -0,0 +1,41 @@
+package com.hire_me.Ping.unread.controller;
+
+import com.hire_me.Ping.unread.dto.UnreadCountResponse;
+import com.hire_me.Ping.unread.service.ReadMarkerService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.UUID;
+
+// REST controller for read markers and unread badges
+@RestController
+@RequestMapping("/api")
+public class UnreadController {
+
+  private final ReadMarkerService service;
+
+  public UnreadController(ReadMarkerService service) {
+    this.service = service;
+  }
+
+  // Every unread count (channels and DMs) for the sidebar
+  @GetMapping("/users/{userId}/unread")
+  public ResponseEntity<List<UnreadCountResponse>> unread(@PathVariable UUID userId) {
+    return ResponseEntity.ok(service.unreadCounts(userId));
+  }
+
+  // Mark everything currently in the channel as read
+  @PostMapping("/channels/{channelId}/read")
+  public ResponseEntity<Void> markChannelRead(@PathVariable UUID channelId, @RequestParam UUID userId) {
+    service.markChannelRead(channelId, userId);
+    return ResponseEntity.noContent().build();
+  }
+
+  // Mark everything currently in the DM as read
+  @PostMapping("/dms/{dmId}/read")
+  public ResponseEntity<Void> markDmRead(@PathVariable UUID dmId, @RequestParam UUID userId) {
+    service.markDmRead(dmId, userId);
+    return ResponseEntity.noContent().build();
+  }
+}
@@ -0,0 +1,14 @@
+package com.hire_me.Ping.unread.dto;
+
+import java.util.UUID;
+
+// Badge for one channel or DM. lastReadSeq/latestSeq line up with the change log (GET .../changes?sinceSeq=)
+public record UnreadCountResponse(
+    UUID conversationId,
+    Kind kind,
+    long unread,
+    long lastReadSeq,
+    long latestSeq
+) {
+  public enum Kind { CHANNEL, DM }
+}
@@ -0,0 +1,154 @@
+package com.hire_me.Ping.unread.service;
+
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.entity.MessageChange;
+import com.hire_me.Ping.messages.event.MessageChangedEvent;
+import com.hire_me.Ping.unread.dto.UnreadCountResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Read markers and unread badges for channels and DMs.
+ *
+ * Nothing is counted at read time. Each conversation keeps a running message_count
+ * (conversation_sequence, bumped by MessageChangeLog in the posting transaction) and each member
+ * keeps read_count, the count they had seen. unread = message_count - read_count, so the badge
+ * for every conversation of a user is one indexed join, independent of history size.
+ *
+ * All updates are single atomic statements; markers only move forward (GREATEST), so concurrent
+ * posts and mark-reads cannot lose or double count.
+ *
+ * Deleting a message takes it back out of message_count. Members whose last_read_seq is past its
+ * create seq had counted it as read, so their read_count goes down with it; for everyone else it
+ * simply stops being unread.
+ */
+@Service
+@Transactional
+public class ReadMarkerService {
+
+  private static final String MARK_CHANNEL_SQL =
+      "UPDATE channel_members SET " +
+      "read_count = GREATEST(read_count, COALESCE((SELECT s.message_count FROM conversation_sequence s WHERE s.conversation_id = ?), 0)), " +
+      "last_read_seq = GREATEST(last_read_seq, COALESCE((SELECT s.last_seq FROM conversation_sequence s WHERE s.conversation_id = ?), 0)) " +
+      "WHERE channel_id = ? AND user_id = ?";
+
+  private static final String MARK_DM_SQL =
+      "UPDATE direct_participant SET " +
+      "read_count = GREATEST(read_count, COALESCE((SELECT s.message_count FROM conversation_sequence s WHERE s.conversation_id = ?), 0)), " +
+      "last_read_seq = GREATEST(last_read_seq, COALESCE((SELECT s.last_seq FROM conversation_sequence s WHERE s.conversation_id = ?), 0)) " +
+      "WHERE direct_conversation_id = ? AND user_id = ? AND left_at IS NULL";
+
+  // Your own message is never unread for you
+  private static final String OWN_CHANNEL_SQL =
+      "UPDATE channel_members SET read_count = read_count + 1, last_read_seq = GREATEST(last_read_seq, ?) " +
+      "WHERE channel_id = ? AND user_id = ?";
+
+  private static final String OWN_DM_SQL =
+      "UPDATE direct_participant SET read_count = read_count + 1, last_read_seq = GREATEST(last_read_seq, ?) " +
+      "WHERE direct_conversation_id = ? AND user_id = ? AND left_at IS NULL";
+
+  private static final String UNREAD_SQL =
+      "SELECT m.channel_id AS conversation_id, 'CHANNEL' AS kind, " +
+      "       GREATEST(COALESCE(s.message_count, 0) - m.read_count, 0) AS unread, " +
+      "       m.last_read_seq AS last_read_seq, COALESCE(s.last_seq, 0) AS latest_seq " +
+      "FROM channel_members m LEFT JOIN conversation_sequence s ON s.conversation_id = m.channel_id " +
+      "WHERE m.user_id = ? " +
+      "UNION ALL " +
+      "SELECT p.direct_conversation_id, 'DM', " +
+      "       GREATEST(COALESCE(s.message_count, 0) - p.read_count, 0), " +
+      "       p.last_read_seq, COALESCE(s.last_seq, 0) " +
+      "FROM direct_participant p LEFT JOIN conversation_sequence s ON s.conversation_id = p.direct_conversation_id " +
+      "WHERE p.user_id = ? AND p.left_at IS NULL";
+
+  private static final String CREATE_SEQ_SQL =
+      "SELECT seq FROM message_change WHERE message_id = ? AND kind = ?";
+
+  private static final String UNCOUNT_SQL =
+      "UPDATE conversation_sequence SET message_count = GREATEST(message_count - 1, 0) WHERE conversation_id = ?";
+
+  private static final String UNCOUNT_CHANNEL_READ_SQL =
+      "UPDATE channel_members SET read_count = GREATEST(read_count - 1, 0) " +
+      "WHERE channel_id = ? AND last_read_seq >= ?";
+
+  private static final String UNCOUNT_DM_READ_SQL =
+      "UPDATE direct_participant SET read_count = GREATEST(read_count - 1, 0) " +
+      "WHERE direct_conversation_id = ? AND last_read_seq >= ? AND left_at IS NULL";
+
+  private static final String POSITION_SQL =
+      "SELECT message_count, last_seq FROM conversation_sequence WHERE conversation_id = ?";
+
+  private final JdbcTemplate jdbc;
+
+  public ReadMarkerService(JdbcTemplate jdbc) {
+    this.jdbc = jdbc;
+  }
+
+  /** Where a conversation stands now; new members start here so old history is not unread. */
+  public record Position(long messageCount, long lastSeq) {
+    public static final Position START = new Position(0, 0);
+  }
+
+  @Transactional(readOnly = true)
+  public Position position(UUID conversationId) {
+    List<Position> rows = jdbc.query(POSITION_SQL,
+        (rs, i) -> new Position(rs.getLong("message_count"), rs.getLong("last_seq")), conversationId);
+    return rows.isEmpty() ? Position.START : rows.get(0);
+  }
+
+  public void markChannelRead(UUID channelId, UUID userId) {
+    if (jdbc.update(MARK_CHANNEL_SQL, channelId, channelId, channelId, userId) == 0) {
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User " + userId + " is not a member of channel " + channelId);
+    }
+  }
+
+  public void markDmRead(UUID dmId, UUID userId) {
+    if (jdbc.update(MARK_DM_SQL, dmId, dmId, dmId, userId) == 0) {
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User " + userId + " is not in DM " + dmId);
+    }
+  }
+
+  /** Every unread badge of a user, one query. */
+  @Transactional(readOnly = true)
+  public List<UnreadCountResponse> unreadCounts(UUID userId) {
+    return jdbc.query(UNREAD_SQL, (rs, i) -> new UnreadCountResponse(
+        rs.getObject("conversation_id", UUID.class),
+        UnreadCountResponse.Kind.valueOf(rs.getString("kind")),
+        rs.getLong("unread"),
+        rs.getLong("last_read_seq"),
+        rs.getLong("latest_seq")), userId, userId);
+  }
+
+  // Runs inside the posting (or deleting) transaction; a create has already bumped message_count
+  @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+  public void onMessageChanged(MessageChangedEvent event) {
+    MessageResponse m = event.message();
+    if (m.parentMessageId() != null) return;   // replies are not counted in message_count either
+    if (event.kind() == MessageChangedEvent.Kind.CREATED) {
+      if (m.channelId() != null) {
+        jdbc.update(OWN_CHANNEL_SQL, event.seq(), m.channelId(), m.senderUserId());
+      } else if (m.directConversationId() != null) {
+        jdbc.update(OWN_DM_SQL, event.seq(), m.directConversationId(), m.senderUserId());
+      }
+    } else if (event.kind() == MessageChangedEvent.Kind.DELETED) {
+      uncount(m);
+    }
+  }
+
+  private void uncount(MessageResponse m) {
+    UUID conversation = m.channelId() != null ? m.channelId() : m.directConversationId();
+    if (conversation == null) return;
+    // no create on record (older than the change log): treat it as read by everyone
+    List<Long> created = jdbc.queryForList(CREATE_SEQ_SQL, Long.class, m.id(), MessageChange.Kind.CREATED.ordinal());
+    long createSeq = created.isEmpty() ? 0 : created.get(0);
+    jdbc.update(UNCOUNT_SQL, conversation);
+    jdbc.update(m.channelId() != null ? UNCOUNT_CHANNEL_READ_SQL : UNCOUNT_DM_READ_SQL, conversation, createSeq);
+  }
+}
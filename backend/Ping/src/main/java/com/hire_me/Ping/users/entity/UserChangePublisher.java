@@ -0,0 +1,35 @@
+package com.hire_me.Ping.users.entity;
+
+import com.hire_me.Ping.users.event.UserChangedEvent;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener on User: every write that reaches the database, whichever service or
+ * repository made it, is announced as a UserChangedEvent. Runs at flush time inside the writing
+ * transaction, so listeners should use AFTER_COMMIT to skip rolled-back changes.
+ */
+@Component
+public class UserChangePublisher {
+
+    private final ApplicationEventPublisher events;
+
+    public UserChangePublisher(ApplicationEventPublisher events) {
+        this.events = events;
+    }
+
+    @PostPersist
+    @PostUpdate
+    void saved(User user) {
+        events.publishEvent(new UserChangedEvent(user.getId(), user.getUsername(),
+                user.getAccountStatus() == User.AccountStatus.ACTIVE));
+    }
+
+    @PostRemove
+    void removed(User user) {
+        events.publishEvent(new UserChangedEvent(user.getId(), user.getUsername(), false));
+    }
+}
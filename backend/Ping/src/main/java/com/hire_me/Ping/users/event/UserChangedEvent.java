@@ -0,0 +1,14 @@
+package com.hire_me.Ping.users.event;
+
+import java.util.UUID;
+
+/**
+ * Published whenever a user row is inserted, updated or deleted (see UserChangePublisher),
+ * so in-memory views of the user table (mention matching, ...) can update one entry at a time.
+ * {@code active} is false for deleted and non-ACTIVE accounts.
+ */
+public record UserChangedEvent(
+        UUID userId,
+        String username,
+        boolean active
+) {}
@@ -0,0 +1,193 @@
+package com.hire_me.Ping.attachments.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.server.ResponseStatusException;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.hire_me.Ping.messages.dto.MessageCreateRequest;
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.entity.Message.ContentType;
+import com.hire_me.Ping.messages.service.MessageService;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "app.search.rebuild-on-startup=false",
+        "app.attachments.max-bytes=1048576"
+})
+@AutoConfigureMockMvc
+class BlobStoreTest {
+
+    @TempDir
+    static Path root;
+
+    @DynamicPropertySource
+    static void storeRoot(DynamicPropertyRegistry registry) {
+        registry.add("app.attachments.root", () -> root.toString());
+    }
+
+    @Autowired MockMvc mvc;
+    @Autowired MessageService messages;
+
+    @Test
+    void identicalUploads_areStoredOnce() throws Exception {
+        byte[] bytes = randomBytes(300_000);
+        String sha = sha256(bytes);
+
+        for (int i = 0; i < 2; i++) {
+            mvc.perform(post("/api/blobs").contentType("image/png").content(bytes).with(csrf()))
+                    .andExpect(status().isCreated())
+                    .andExpect(header().string(HttpHeaders.LOCATION, "/api/blobs/" + sha))
+                    .andExpect(jsonPath("$.sha256").value(sha))
+                    .andExpect(jsonPath("$.size").value(bytes.length))
+                    .andExpect(jsonPath("$.contentType").value("image/png"));
+        }
+
+        try (Stream<Path> files = Files.walk(root)) {
+            // other tests share the store: count the copies of this blob (named by its hash, or not)
+            assertThat(files.filter(Files::isRegularFile).toList())
+                    .filteredOn(p -> isCopyOf(p, bytes))
+                    .singleElement()
+                    .satisfies(p -> assertThat(p.getFileName().toString()).isEqualTo(sha));
+        }
+    }
+
+    @Test
+    void download_supportsRangesAndConditionalRequests() throws Exception {
+        byte[] bytes = randomBytes(100_000);
+        String sha = upload(bytes);
+        String etag = "\"" + sha + "\"";
+
+        mvc.perform(get("/api/blobs/{sha}", sha))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, bytes.length))
+                .andExpect(content().bytes(bytes));
+
+        // resume from byte 60000
+        byte[] tail = new byte[bytes.length - 60_000];
+        System.arraycopy(bytes, 60_000, tail, 0, tail.length);
+        mvc.perform(get("/api/blobs/{sha}", sha).header(HttpHeaders.RANGE, "bytes=60000-").header(HttpHeaders.IF_RANGE, etag))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 60000-99999/100000"))
+                .andExpect(content().bytes(tail));
+
+        // suffix range
+        mvc.perform(get("/api/blobs/{sha}", sha).header(HttpHeaders.RANGE, "bytes=-10"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 99990-99999/100000"));
+
+        // a stale If-Range gets the whole file
+        mvc.perform(get("/api/blobs/{sha}", sha).header(HttpHeaders.RANGE, "bytes=0-9").header(HttpHeaders.IF_RANGE, "\"other\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(bytes));
+
+        mvc.perform(get("/api/blobs/{sha}", sha).header(HttpHeaders.RANGE, "bytes=200000-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */100000"));
+
+        mvc.perform(get("/api/blobs/{sha}", sha).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        mvc.perform(get("/api/blobs/{sha}", "0".repeat(64))).andExpect(status().isNotFound());
+        mvc.perform(get("/api/blobs/{sha}", "not-a-hash")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void onlyRasterImagesRenderInline() throws Exception {
+        byte[] page = "<script>alert(document.cookie)</script>".getBytes(StandardCharsets.UTF_8);
+        String html = sha256(page);
+        mvc.perform(post("/api/blobs").contentType("text/html").content(page).with(csrf())).andExpect(status().isCreated());
+        mvc.perform(get("/api/blobs/{sha}", html))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Content-Type-Options", "nosniff"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment"));
+
+        byte[] image = randomBytes(1_000);
+        String png = sha256(image);
+        mvc.perform(post("/api/blobs").contentType("image/png").content(image).with(csrf())).andExpect(status().isCreated());
+        mvc.perform(get("/api/blobs/{sha}", png))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Content-Type-Options", "nosniff"))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_DISPOSITION));
+    }
+
+    @Test
+    void uploadsOverTheLimit_areRejectedAndLeaveNothingBehind() throws Exception {
+        mvc.perform(post("/api/blobs").contentType("application/octet-stream").content(randomBytes(1_048_577)).with(csrf()))
+                .andExpect(status().isPayloadTooLarge());
+
+        try (Stream<Path> files = Files.walk(root.resolve("incoming"))) {
+            assertThat(files.filter(Files::isRegularFile)).isEmpty();
+        }
+    }
+
+    @Test
+    void messages_referenceBlobsByHash() throws Exception {
+        String sha = upload(randomBytes(1_000));
+        UUID channel = UUID.randomUUID();
+
+        MessageResponse posted = messages.postToChannel(channel,
+                new MessageCreateRequest(UUID.randomUUID(), null, ContentType.IMAGE, sha));
+        assertThat(posted.attachmentSha256()).isEqualTo(sha);
+        assertThat(posted.content()).isEmpty();
+        assertThat(messages.findById(posted.id()).attachmentSha256()).isEqualTo(sha);
+
+        assertThatThrownBy(() -> messages.postToChannel(channel,
+                new MessageCreateRequest(UUID.randomUUID(), "look", ContentType.IMAGE, "f".repeat(64))))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode().value()).isEqualTo(400));
+    }
+
+    private String upload(byte[] bytes) throws Exception {
+        mvc.perform(post("/api/blobs").contentType("application/octet-stream").content(bytes).with(csrf()))
+                .andExpect(status().isCreated());
+        return sha256(bytes);
+    }
+
+    private static boolean isCopyOf(Path file, byte[] bytes) {
+        try {
+            return Files.size(file) == bytes.length && Arrays.equals(Files.readAllBytes(file), bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] randomBytes(int n) {
+        byte[] bytes = new byte[n];
+        new Random(n).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static String sha256(byte[] bytes) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+}
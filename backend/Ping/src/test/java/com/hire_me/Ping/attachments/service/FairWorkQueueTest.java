@@ -0,0 +1,63 @@
+package com.hire_me.Ping.attachments.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+class FairWorkQueueTest {
+
+    @Test
+    void keysAreServedRoundRobin() throws Exception {
+        FairWorkQueue<String, String> queue = new FairWorkQueue<>(100, 100);
+        for (int i = 1; i <= 4; i++) {
+            queue.offer("busy", "busy-" + i);
+        }
+        queue.offer("quiet", "quiet-1");
+        queue.offer("other", "other-1");
+        queue.offer("quiet", "quiet-2");
+
+        List<String> order = new ArrayList<>();
+        String item;
+        while ((item = queue.poll(0, TimeUnit.MILLISECONDS)) != null) {
+            order.add(item);
+        }
+        // the busy key's backlog does not hold the others up
+        assertThat(order).containsExactly("busy-1", "quiet-1", "other-1", "busy-2", "quiet-2", "busy-3", "busy-4");
+        assertThat(queue.size()).isZero();
+    }
+
+    @Test
+    void offersPastEitherBoundAreRefused() throws Exception {
+        FairWorkQueue<String, Integer> queue = new FairWorkQueue<>(3, 2);
+        assertThat(queue.offer("a", 1)).isTrue();
+        assertThat(queue.offer("a", 2)).isTrue();
+        assertThat(queue.offer("a", 3)).isFalse();   // per key
+        assertThat(queue.offer("b", 4)).isTrue();
+        assertThat(queue.offer("c", 5)).isFalse();   // total
+        assertThat(queue.size()).isEqualTo(3);
+
+        assertThat(queue.poll(0, TimeUnit.MILLISECONDS)).isEqualTo(1);
+        assertThat(queue.offer("c", 5)).isTrue();
+    }
+
+    @Test
+    void pollWaitsForWork() throws Exception {
+        FairWorkQueue<String, String> queue = new FairWorkQueue<>(10, 10);
+        assertThat(queue.poll(20, TimeUnit.MILLISECONDS)).isNull();
+
+        Thread producer = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.offer("k", "late");
+        });
+        producer.start();
+        assertThat(queue.poll(5, TimeUnit.SECONDS)).isEqualTo("late");
+        producer.join();
+    }
+}
@@ -0,0 +1,150 @@
+package com.hire_me.Ping.attachments.service;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import javax.imageio.ImageIO;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hire_me.Ping.messages.dto.MessageCreateRequest;
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.entity.Message.ContentType;
+import com.hire_me.Ping.messages.service.MessageService;
+import com.hire_me.Ping.messages.ws.MessageEvents;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "app.search.rebuild-on-startup=false",
+        "app.attachments.previews.sizes=160,480,1080"
+})
+@AutoConfigureMockMvc
+class PreviewServiceTest {
+
+    @TempDir
+    static Path root;
+
+    @DynamicPropertySource
+    static void storeRoot(DynamicPropertyRegistry registry) {
+        registry.add("app.attachments.root", () -> root.toString());
+    }
+
+    @Autowired MockMvc mvc;
+    @Autowired MessageService messages;
+    @Autowired MeterRegistry meters;
+    @Autowired ObjectMapper json;
+    @MockitoBean SimpMessagingTemplate simp;
+
+    @Test
+    void imagePost_getsPreviewsInTheBackgroundAndIsNotified() throws Exception {
+        String sha = upload(png(2000, 1000, 1));
+        UUID channel = UUID.randomUUID();
+
+        MessageResponse posted = messages.postToChannel(channel,
+                new MessageCreateRequest(UUID.randomUUID(), null, ContentType.IMAGE, sha));
+
+        verify(simp, timeout(10_000)).convertAndSend(eq("/topic/channels/" + channel), argThat(previewsOf(posted.id(), sha)));
+
+        assertThat(fetchPreview(sha, 1080)).satisfies(img -> {
+            assertThat(img.getWidth()).isEqualTo(1080);
+            assertThat(img.getHeight()).isEqualTo(540);
+        });
+        assertThat(fetchPreview(sha, 160)).satisfies(img -> {
+            assertThat(img.getWidth()).isEqualTo(160);
+            assertThat(img.getHeight()).isEqualTo(80);
+        });
+
+        mvc.perform(get("/api/blobs/{sha}/previews/{size}", sha, 480).header(HttpHeaders.IF_NONE_MATCH, "\"" + sha + "-480\""))
+                .andExpect(status().isNotModified());
+        // not a configured size
+        mvc.perform(get("/api/blobs/{sha}/previews/{size}", sha, 300)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void sameImagePostedTwice_isScaledOnceAndBothMessagesAreNotified() throws Exception {
+        String sha = upload(png(1200, 1600, 2));
+        UUID channel = UUID.randomUUID();
+        UUID dm = UUID.randomUUID();
+        double before = meters.counter("attachments.previews.generated").count();
+
+        MessageResponse first = messages.postToChannel(channel,
+                new MessageCreateRequest(UUID.randomUUID(), "one", ContentType.IMAGE, sha));
+        MessageResponse second = messages.postToDm(dm,
+                new MessageCreateRequest(UUID.randomUUID(), "two", ContentType.IMAGE, sha));
+
+        verify(simp, timeout(10_000)).convertAndSend(eq("/topic/channels/" + channel), argThat(previewsOf(first.id(), sha)));
+        verify(simp, timeout(10_000)).convertAndSend(eq("/topic/dms/" + dm), argThat(previewsOf(second.id(), sha)));
+        assertThat(meters.counter("attachments.previews.generated").count() - before).isEqualTo(1.0);
+
+        assertThat(fetchPreview(sha, 480).getHeight()).isEqualTo(480);
+    }
+
+    // Frames are arrays of payloads; match the one announcing this message's previews
+    private org.mockito.ArgumentMatcher<Object> previewsOf(UUID messageId, String sha) {
+        return frame -> frame instanceof List<?> list && list.stream().anyMatch(p ->
+                p instanceof MessageEvents.Payload payload
+                        && payload.getType() == MessageEvents.EventType.previews
+                        && messageId.equals(payload.getMessageId())
+                        && sha.equals(payload.getAttachmentSha256())
+                        && payload.getPreviewSizes().equals(List.of(160, 480, 1080)));
+    }
+
+    private BufferedImage fetchPreview(String sha, int size) throws Exception {
+        byte[] body = mvc.perform(get("/api/blobs/{sha}/previews/{size}", sha, size))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/jpeg"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + sha + "-" + size + "\""))
+                .andReturn().getResponse().getContentAsByteArray();
+        return ImageIO.read(new ByteArrayInputStream(body));
+    }
+
+    private String upload(byte[] bytes) throws Exception {
+        String body = mvc.perform(post("/api/blobs").contentType("image/png").content(bytes).with(csrf()))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.sha256").exists())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode node = json.readTree(body);
+        return node.get("sha256").asText();
+    }
+
+    private static byte[] png(int width, int height, int seed) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, new Color(seed * 40, 80, 160), width, height, Color.ORANGE));
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,103 @@
+package com.hire_me.Ping.common.id;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Insert throughput into a uuid-keyed table: random v4 vs time-ordered v7 keys.
+ *
+ * Each invocation inserts and commits one JDBC batch into a table that already holds
+ * {@code preload} rows, so the primary-key B-tree is big enough for page splits to matter.
+ * Defaults to an in-memory H2; point it at Postgres with -Dbench.jdbc.url / .user / .password.
+ *
+ * Run: mvn test-compile exec:java -Dexec.classpathScope=test
+ *        -Dexec.mainClass=com.hire_me.Ping.common.id.UuidInsertBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class UuidInsertBenchmark {
+
+    private static final int BATCH = 500;
+
+    @Param({"v4", "v7"})
+    public String scheme;
+
+    @Param({"200000"})
+    public int preload;
+
+    private Connection connection;
+    private PreparedStatement insert;
+    private Supplier<UUID> ids;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        ids = "v7".equals(scheme) ? UuidV7::next : UUID::randomUUID;
+        connection = DriverManager.getConnection(
+                System.getProperty("bench.jdbc.url", "jdbc:h2:mem:uuidbench_" + scheme),
+                System.getProperty("bench.jdbc.user", "sa"),
+                System.getProperty("bench.jdbc.password", ""));
+        connection.setAutoCommit(false);
+        try (Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS uuid_bench");
+            st.execute("CREATE TABLE uuid_bench (id UUID PRIMARY KEY, created_at TIMESTAMP, content VARCHAR(255))");
+        }
+        insert = connection.prepareStatement("INSERT INTO uuid_bench (id, created_at, content) VALUES (?, CURRENT_TIMESTAMP, ?)");
+        for (int i = 0; i < preload; i += BATCH) {
+            insertBatch();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int insertBatch() throws SQLException {
+        for (int i = 0; i < BATCH; i++) {
+            insert.setObject(1, ids.get());
+            insert.setString(2, "benchmark message body");
+            insert.addBatch();
+        }
+        int rows = insert.executeBatch().length;
+        connection.commit();
+        return rows;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE uuid_bench");
+        }
+        connection.commit();
+        connection.close();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(UuidInsertBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,41 @@
+package com.hire_me.Ping.common.id;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+
+class UuidV7Test {
+
+    @Test
+    void next_setsVersionVariantAndTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID id = UuidV7.next();
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        assertThat(UuidV7.timestampMillis(id)).isGreaterThanOrEqualTo(before);
+    }
+
+    @Test
+    void next_isStrictlyIncreasingInDatabaseOrder() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {   // several thousand per millisecond -> exercises the counter
+            ids.add(UuidV7.next().toString());
+        }
+
+        // string order == bytewise order == how Postgres/H2 sort a uuid column
+        for (int i = 1; i < ids.size(); i++) {
+            assertThat(ids.get(i)).isGreaterThan(ids.get(i - 1));
+        }
+    }
+
+    @Test
+    void timestampMillis_rejectsRandomIds() {
+        assertThatThrownBy(() -> UuidV7.timestampMillis(UUID.randomUUID()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
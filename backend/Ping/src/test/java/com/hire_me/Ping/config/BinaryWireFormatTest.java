@@ -0,0 +1,106 @@
+package com.hire_me.Ping.config;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hire_me.Ping.messages.dto.MessageCreateRequest;
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.entity.Message.ContentType;
+
+@SpringBootTest(properties = "app.search.rebuild-on-startup=false")
+@AutoConfigureMockMvc
+class BinaryWireFormatTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired StompCborNegotiation negotiation;
+    @Autowired ObjectMapper objectMapper;
+
+    ObjectMapper cbor = BinaryWireFormat.newCborMapper();
+
+    @Test
+    void rest_negotiatesCborByAcceptAndContentType() throws Exception {
+        UUID channel = UUID.randomUUID();
+        MessageCreateRequest req = new MessageCreateRequest(UUID.randomUUID(), "binary please", ContentType.TEXT);
+
+        byte[] posted = mvc.perform(post("/api/channels/{id}/messages", channel)
+                        .contentType(BinaryWireFormat.CBOR)
+                        .accept(BinaryWireFormat.CBOR)
+                        .content(cbor.writeValueAsBytes(req))
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(BinaryWireFormat.CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        MessageResponse created = cbor.readValue(posted, MessageResponse.class);
+        assertThat(created.content()).isEqualTo("binary please");
+
+        // UUIDs travel as 16-byte binary, timestamps as epoch millis
+        JsonNode tree = cbor.readTree(posted);
+        assertThat(tree.get("id").isBinary()).isTrue();
+        assertThat(tree.get("createdAt").isIntegralNumber()).isTrue();
+
+        mvc.perform(get("/api/channels/{id}/messages", channel).accept(MediaType.APPLICATION_JSON))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void stomp_reencodesFramesOnlyForSessionsThatAskedForCbor() throws Exception {
+        connect("cbor-session", "application/cbor");
+        connect("json-session", null);
+
+        MessageResponse msg = new MessageResponse(UUID.randomUUID(), UUID.randomUUID(), null, UUID.randomUUID(),
+                "hello", ContentType.TEXT, false, Instant.now(), null, null, 0, null, null);
+        SimpMessageHeaderAccessor published = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        published.setLeaveMutable(true);
+        var converter = negotiation.jsonConverter();
+        converter.setObjectMapper(objectMapper);
+        Message<?> json = converter.toMessage(List.of(msg), published.getMessageHeaders());
+
+        Message<?> toCbor = negotiation.outbound().preSend(deliverTo("cbor-session", json), null);
+        Message<?> toJson = negotiation.outbound().preSend(deliverTo("json-session", json), null);
+
+        assertThat(SimpMessageHeaderAccessor.wrap(toCbor).getContentType().toString()).isEqualTo("application/cbor");
+        List<?> decoded = cbor.readValue((byte[]) toCbor.getPayload(), List.class);
+        assertThat(((Map<?, ?>) decoded.get(0)).get("content")).isEqualTo("hello");
+        assertThat(toJson.getPayload()).isSameAs(json.getPayload());
+    }
+
+    private void connect(String sessionId, String accept) {
+        StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+        connect.setSessionId(sessionId);
+        if (accept != null) {
+            connect.setNativeHeader("accept", accept);
+        }
+        negotiation.inbound().preSend(MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()), null);
+    }
+
+    // What the simple broker does per subscriber: copy the published headers, set the session
+    private static Message<?> deliverTo(String sessionId, Message<?> published) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.copyHeadersIfAbsent(published.getHeaders());
+        return MessageBuilder.createMessage(published.getPayload(), accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,163 @@
+package com.hire_me.Ping.config;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.hire_me.Ping.common.id.UuidV7;
+import com.hire_me.Ping.kanban.dto.BoardResponse;
+import com.hire_me.Ping.kanban.dto.CardResponse;
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.entity.Message;
+import com.hire_me.Ping.notifications.dto.NotificationResponse;
+import com.hire_me.Ping.notifications.entity.NotificationStatus;
+import com.hire_me.Ping.notifications.entity.NotificationType;
+
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * JSON (the REST/STOMP mapper configuration) vs CBOR (BinaryWireFormat) for typical payloads:
+ * a page of 50 messages, a board with 4 columns x 10 cards, a page of 50 notifications.
+ *
+ * Encoded sizes are printed once per trial; the benchmarks measure encode and decode cost.
+ *
+ * Run: mvn test-compile exec:java -Dexec.classpathScope=test
+ *        -Dexec.mainClass=com.hire_me.Ping.config.WireFormatBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"messages", "board", "notifications"})
+    public String payload;
+
+    @Param({"json", "cbor"})
+    public String format;
+
+    private ObjectMapper mapper;
+    private Object value;
+    private Class<?> type;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        mapper = "cbor".equals(format)
+                ? BinaryWireFormat.newCborMapper()
+                : Jackson2ObjectMapperBuilder.json()
+                        .modules(new JavaTimeModule())
+                        .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                        .build();
+        switch (payload) {
+            case "messages" -> { value = messages(); type = MessageResponse[].class; }
+            case "board" -> { value = board(); type = BoardResponse.class; }
+            default -> { value = notifications(); type = NotificationResponse[].class; }
+        }
+        encoded = mapper.writeValueAsBytes(value);
+        System.out.printf("%n%s/%s: %d bytes%n", payload, format, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return mapper.writeValueAsBytes(value);
+    }
+
+    @Benchmark
+    public Object deserialize() throws Exception {
+        return mapper.readValue(encoded, type);
+    }
+
+    private static MessageResponse[] messages() {
+        MessageResponse[] out = new MessageResponse[50];
+        UUID channel = UUID.randomUUID();
+        Instant now = Instant.now();
+        for (int i = 0; i < out.length; i++) {
+            out[i] = new MessageResponse(UuidV7.next(), channel, null, UUID.randomUUID(),
+                    "status update number " + i + ", shipping the release after lunch",
+                    Message.ContentType.TEXT, false, now.minusSeconds(i * 7L), i % 5 == 0 ? now : null, null, 0, null, null);
+        }
+        return out;
+    }
+
+    private static BoardResponse board() {
+        Instant now = Instant.now();
+        BoardResponse board = new BoardResponse();
+        board.setId(UUID.randomUUID());
+        board.setName("Sprint 42");
+        board.setDescription("Backend team board");
+        board.setOwnerId(UUID.randomUUID());
+        board.setCreatedAt(now);
+        board.setUpdatedAt(now);
+        for (int c = 0; c < 4; c++) {
+            BoardResponse.Column column = new BoardResponse.Column();
+            column.setId(UUID.randomUUID());
+            column.setName("Column " + c);
+            column.setPosition(c);
+            column.setCreatedAt(now);
+            column.setUpdatedAt(now);
+            List<CardResponse> cards = new ArrayList<>();
+            for (int k = 0; k < 10; k++) {
+                CardResponse card = new CardResponse();
+                card.setId(UUID.randomUUID());
+                card.setColumnId(column.getId());
+                card.setTitle("Card " + c + "-" + k);
+                card.setDescription("Investigate and fix the flaky test in module " + k);
+                card.setPosition(k);
+                card.setDueAt(now.plusSeconds(86_400L * k));
+                card.setPriorityId(UUID.randomUUID());
+                card.setPriorityLabel("High");
+                card.setPriorityColor("#ff0000");
+                card.setCreatedBy(board.getOwnerId());
+                card.setCreatedAt(now);
+                card.setUpdatedAt(now);
+                card.setAssignees(List.of(UUID.randomUUID(), UUID.randomUUID()));
+                cards.add(card);
+            }
+            column.setCards(cards);
+            board.getColumns().add(column);
+        }
+        return board;
+    }
+
+    private static NotificationResponse[] notifications() {
+        NotificationResponse[] out = new NotificationResponse[50];
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        for (int i = 0; i < out.length; i++) {
+            out[i] = new NotificationResponse(UuidV7.next(), "Alice sent a message to Bob",
+                    NotificationType.MESSAGE, i % 2 == 0 ? NotificationStatus.UNREAD : NotificationStatus.READ,
+                    now.minusMinutes(i), i % 2 == 0 ? null : now,
+                    UUID.randomUUID(), UUID.randomUUID(), null);
+        }
+        return out;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(WireFormatBenchmark.class.getSimpleName()).build()).run();
+    }
+}
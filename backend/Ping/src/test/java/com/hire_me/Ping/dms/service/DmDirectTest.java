@@ -0,0 +1,158 @@
+package com.hire_me.Ping.dms.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.hire_me.Ping.dms.dto.DmResponse;
+import com.hire_me.Ping.dms.entity.DirectConversation;
+import com.hire_me.Ping.dms.entity.DirectParticipant;
+import com.hire_me.Ping.dms.repo.DirectConversationRepository;
+import com.hire_me.Ping.dms.repo.DirectParticipantRepository;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "app.search.rebuild-on-startup=false"
+})
+@AutoConfigureMockMvc
+class DmDirectTest {
+
+    static final int CLICKS = 8;
+
+    @Autowired DmService dms;
+    @Autowired DirectConversationRepository conversations;
+    @Autowired DirectParticipantRepository participants;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired MockMvc mvc;
+
+    @Test
+    void concurrentOpens_ofOnePair_createExactlyOneDm() throws Exception {
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        ExecutorService pool = Executors.newFixedThreadPool(CLICKS);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<DmService.Opened>> clicks = new ArrayList<>();
+        try {
+            for (int i = 0; i < CLICKS; i++) {
+                boolean fromA = i % 2 == 0;
+                clicks.add(pool.submit(() -> {
+                    go.await();
+                    return fromA ? dms.openDirect(a, b) : dms.openDirect(b, a);
+                }));
+            }
+            go.countDown();
+            List<DmService.Opened> opened = new ArrayList<>();
+            for (Future<DmService.Opened> f : clicks) {
+                opened.add(f.get());
+            }
+
+            assertThat(opened).extracting(o -> o.dm().getId()).containsOnly(opened.get(0).dm().getId());
+            assertThat(opened).filteredOn(DmService.Opened::created).hasSize(1);
+            assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM direct_conversation WHERE pair_key = ?",
+                    Integer.class, DirectConversation.pairKey(a, b))).isEqualTo(1);
+            assertThat(participants.findByDirectConversationId(opened.get(0).dm().getId()))
+                    .extracting(DirectParticipant::getUserId).containsExactlyInAnyOrder(a, b);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void reopening_findsTheSameDm_andBringsBackAUserWhoLeft() throws Exception {
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        String body = "{\"userId\":\"" + a + "\",\"otherUserId\":\"" + b + "\"}";
+        mvc.perform(post("/api/dms/direct").with(csrf()).contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.participants.length()").value(2));
+        UUID id = dms.openDirect(b, a).dm().getId();
+
+        dms.removeParticipant(id, b);
+        DmResponse back = dms.openDirect(a, b).dm();
+        assertThat(back.getId()).isEqualTo(id);
+        assertThat(back.getParticipants()).allMatch(p -> p.getLeftAt() == null);
+
+        mvc.perform(post("/api/dms/direct").with(csrf()).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":\"" + a + "\",\"otherUserId\":\"" + a + "\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void aPairFromBeforePairKeys_keepsItsOldestDm() {
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        UUID older = legacyDm(a, b);
+        legacyDm(a, b);   // the duplicate the old lookup allowed
+
+        DmService.Opened opened = dms.openDirect(b, a);
+        assertThat(opened.created()).isFalse();
+        assertThat(opened.dm().getId()).isEqualTo(older);
+        assertThat(conversations.findByPairKey(DirectConversation.pairKey(a, b)))
+                .map(DirectConversation::getId).contains(older);
+    }
+
+    @Test
+    void aLegacyPairOneUserLeft_isReopenedNotDuplicated() {
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        UUID legacy = legacyDm(a, b);
+        dms.removeParticipant(legacy, b);
+
+        DmService.Opened opened = dms.openDirect(a, b);
+        assertThat(opened.created()).isFalse();
+        assertThat(opened.dm().getId()).isEqualTo(legacy);
+        assertThat(opened.dm().getParticipants()).allMatch(p -> p.getLeftAt() == null);
+    }
+
+    @Test
+    void creatingAnExistingPair_answers200_andAppliesTheCreatorsSettings() throws Exception {
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        String first = "{\"createdByUserId\":\"" + a + "\",\"group\":false,\"participants\":[{\"userId\":\"" + b + "\"}]}";
+        mvc.perform(post("/api/dms").with(csrf()).contentType(MediaType.APPLICATION_JSON).content(first))
+                .andExpect(status().isCreated());
+
+        String again = "{\"createdByUserId\":\"" + b + "\",\"group\":false,\"participants\":["
+                + "{\"userId\":\"" + b + "\",\"notifyLevel\":\"NONE\"},{\"userId\":\"" + a + "\",\"notifyLevel\":\"NONE\"}]}";
+        mvc.perform(post("/api/dms").with(csrf()).contentType(MediaType.APPLICATION_JSON).content(again))
+                .andExpect(status().isOk());
+
+        UUID id = conversations.findByPairKey(DirectConversation.pairKey(a, b)).orElseThrow().getId();
+        assertThat(participants.findByDirectConversationId(id))
+                .extracting(DirectParticipant::getUserId, DirectParticipant::getNotifyLevel)
+                .containsExactlyInAnyOrder(
+                        tuple(a, DirectParticipant.NotifyLevel.ALL),
+                        tuple(b, DirectParticipant.NotifyLevel.NONE));
+    }
+
+    private UUID legacyDm(UUID a, UUID b) {
+        DirectConversation conv = new DirectConversation();
+        conv.setCreatedByUserId(a);
+        conv = conversations.save(conv);
+        for (UUID user : List.of(a, b)) {
+            DirectParticipant p = new DirectParticipant();
+            p.setDirectConversationId(conv.getId());
+            p.setUserId(user);
+            participants.save(p);
+        }
+        return conv.getId();
+    }
+}
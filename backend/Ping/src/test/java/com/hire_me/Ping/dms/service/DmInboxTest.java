@@ -0,0 +1,124 @@
+package com.hire_me.Ping.dms.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.hire_me.Ping.dms.dto.DmCreateRequest;
+import com.hire_me.Ping.dms.dto.DmParticipantRequest;
+import com.hire_me.Ping.dms.dto.DmResponse;
+import com.hire_me.Ping.messages.dto.MessageCreateRequest;
+import com.hire_me.Ping.messages.entity.Message.ContentType;
+import com.hire_me.Ping.messages.service.MessageService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.search.rebuild-on-startup=false",
+        "app.messages.rate-limit.enabled=false"
+})
+class DmInboxTest {
+
+    @Autowired DmService dms;
+    @Autowired MessageService messages;
+    @Autowired EntityManagerFactory emf;
+
+    @Test
+    void inboxPage_takesTheSameTwoQueries_forFewOrManyConversations() {
+        UUID user = UUID.randomUUID();
+        create(user, 3);
+        assertThat(queriesFor(() -> dms.listForUser(user, null, 100))).isEqualTo(2);
+
+        create(user, 60);
+        assertThat(queriesFor(() -> dms.listForUser(user, null, 100))).isEqualTo(2);
+
+        List<DmResponse> all = dms.listForUser(user, null, 100);
+        DmResponse cursor = all.get(29);
+        assertThat(queriesFor(() -> dms.listForUser(user, cursor.getId(), 100))).isEqualTo(2);
+    }
+
+    @Test
+    void pagesWalkTheInboxMostRecentFirst_withEachConversationsOwnParticipants() {
+        UUID user = UUID.randomUUID();
+        List<DmResponse> created = create(user, 12);
+        UUID leftOne = created.get(5).getId();
+        dms.removeParticipant(leftOne, user);
+
+        List<UUID> walked = new ArrayList<>();
+        List<DmResponse> page = dms.listForUser(user, null, 5);
+        while (!page.isEmpty()) {
+            for (DmResponse dm : page) {
+                walked.add(dm.getId());
+                DmResponse full = dms.get(dm.getId());
+                assertThat(dm.getParticipants()).extracting(DmResponse.ParticipantInfo::getUserId)
+                        .containsExactlyElementsOf(full.getParticipants().stream()
+                                .map(DmResponse.ParticipantInfo::getUserId).toList());
+            }
+            page = dms.listForUser(user, page.get(page.size() - 1).getId(), 5);
+        }
+
+        List<UUID> expected = new ArrayList<>(created.stream().map(DmResponse::getId).toList());
+        expected.remove(leftOne);
+        expected.sort(null);
+        List<UUID> sortedWalk = new ArrayList<>(walked);
+        sortedWalk.sort(null);
+        assertThat(walked).hasSize(11).doesNotHaveDuplicates();
+        assertThat(sortedWalk).isEqualTo(expected);
+        for (int i = 1; i < walked.size(); i++) {
+            assertThat(dms.get(walked.get(i)).getUpdatedAt()).isBeforeOrEqualTo(dms.get(walked.get(i - 1)).getUpdatedAt());
+        }
+    }
+
+    @Test
+    void aNewMessage_movesItsConversationToTheTopOfTheInbox() {
+        UUID user = UUID.randomUUID();
+        List<DmResponse> created = create(user, 8);
+        UUID oldest = created.get(0).getId();
+        UUID middle = created.get(3).getId();
+        assertThat(dms.listForUser(user, null, 3)).extracting(DmResponse::getId).doesNotContain(oldest);
+
+        messages.postToDm(oldest, new MessageCreateRequest(user, "back again", ContentType.TEXT));
+        messages.postToDm(middle, new MessageCreateRequest(user, "and here", ContentType.TEXT));
+
+        List<DmResponse> first = dms.listForUser(user, null, 3);
+        assertThat(first).extracting(DmResponse::getId).startsWith(middle, oldest);
+        List<UUID> rest = dms.listForUser(user, first.get(2).getId(), 100).stream().map(DmResponse::getId).toList();
+        assertThat(rest).hasSize(5).doesNotContain(oldest, middle);
+    }
+
+    private long queriesFor(Runnable work) {
+        Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+        work.run();
+        return stats.getPrepareStatementCount();
+    }
+
+    // Group DMs of the user and two others each
+    private List<DmResponse> create(UUID user, int n) {
+        List<DmResponse> out = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            DmCreateRequest req = new DmCreateRequest();
+            req.setCreatedByUserId(user);
+            req.setGroup(true);
+            req.setTitle("group " + i);
+            req.setParticipants(List.of(participant(UUID.randomUUID()), participant(UUID.randomUUID())));
+            out.add(dms.create(req).dm());
+        }
+        return out;
+    }
+
+    private static DmParticipantRequest participant(UUID userId) {
+        DmParticipantRequest p = new DmParticipantRequest();
+        p.setUserId(userId);
+        return p;
+    }
+}
@@ -0,0 +1,59 @@
+package com.hire_me.Ping.messages.cache;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.entity.Message;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IdempotencyCacheTest {
+
+    final AtomicLong now = new AtomicLong(1_000);
+    final IdempotencyCache cache = new IdempotencyCache(true, 1_000, 3, now::get, new SimpleMeterRegistry());
+    final UUID sender = UUID.randomUUID();
+
+    @Test
+    void claimedKeyReplaysUntilItExpires() {
+        CompletableFuture<MessageResponse> mine = new CompletableFuture<>();
+        assertThat(cache.claim(sender, "a", mine)).isNull();
+        MessageResponse posted = response();
+        mine.complete(posted);
+
+        assertThat(cache.claim(sender, "a", new CompletableFuture<>())).isCompletedWithValue(posted);
+        assertThat(cache.claim(UUID.randomUUID(), "a", new CompletableFuture<>())).isNull();
+
+        now.addAndGet(1_000);
+        assertThat(cache.claim(sender, "a", new CompletableFuture<>())).isNull();
+    }
+
+    @Test
+    void releasedClaimCanBeTakenAgain() {
+        CompletableFuture<MessageResponse> mine = new CompletableFuture<>();
+        cache.claim(sender, "a", mine);
+        cache.release(sender, "a", mine);
+        assertThat(cache.claim(sender, "a", new CompletableFuture<>())).isNull();
+    }
+
+    @Test
+    void oldestEntriesGoFirstOverTheBound() {
+        for (String key : new String[] {"a", "b", "c", "d"}) {
+            cache.claim(sender, key, CompletableFuture.completedFuture(response()));
+            now.incrementAndGet();
+        }
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.claim(sender, "a", new CompletableFuture<>())).isNull();
+        assertThat(cache.claim(sender, "d", new CompletableFuture<>())).isNotNull();
+    }
+
+    private static MessageResponse response() {
+        return new MessageResponse(UUID.randomUUID(), UUID.randomUUID(), null, UUID.randomUUID(), "hi",
+                Message.ContentType.TEXT, false, Instant.now(), null, null, 0, null, null);
+    }
+}
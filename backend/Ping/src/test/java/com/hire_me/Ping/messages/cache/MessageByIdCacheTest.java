@@ -0,0 +1,102 @@
+package com.hire_me.Ping.messages.cache;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.entity.Message;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MessageByIdCacheTest {
+
+    final AtomicLong now = new AtomicLong(1_000);
+    final MeterRegistry meters = new SimpleMeterRegistry();
+    final List<UUID> broadcast = new ArrayList<>();
+    final StaticListableBeanFactory beans = new StaticListableBeanFactory();
+    final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void readsThrough_untilTheEntryExpires() {
+        MessageByIdCache cache = cache(16, 1_000);
+        UUID id = UUID.randomUUID();
+
+        assertThat(cache.get(id, loader())).map(MessageResponse::id).contains(id);
+        assertThat(cache.get(id, loader())).map(MessageResponse::id).contains(id);
+        assertThat(loads).hasValue(1);
+
+        now.addAndGet(1_000);
+        cache.get(id, loader());
+        assertThat(loads).hasValue(2);
+        assertThat(meters.counter("messages.by_id_cache.evictions", "cause", "expired").count()).isEqualTo(1.0);
+        assertThat(meters.get("messages.by_id_cache.hit_ratio").gauge().value()).isEqualTo(1.0 / 3);
+
+        UUID missing = UUID.randomUUID();
+        assertThat(cache.get(missing, x -> Optional.empty())).isEmpty();
+        assertThat(cache.size()).isEqualTo(1);   // misses are not cached
+    }
+
+    @Test
+    void leastRecentlyUsedGoesFirstOverTheBound() {
+        MessageByIdCache cache = cache(32, 60_000);   // two per stripe
+        UUID a = new UUID(1, 0);                      // all in stripe 0
+        UUID b = new UUID(2, 0);
+        UUID c = new UUID(3, 0);
+        cache.get(a, loader());
+        cache.get(b, loader());
+        cache.get(a, loader());   // a is now more recent than b
+        cache.get(c, loader());
+
+        loads.set(0);
+        cache.get(a, loader());
+        cache.get(c, loader());
+        assertThat(loads).hasValue(0);
+        cache.get(b, loader());
+        assertThat(loads).hasValue(1);
+        assertThat(meters.get("messages.by_id_cache.evictions").tag("cause", "size").functionCounter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void evictionDuringALoad_keepsTheStaleValueOut_andReachesPeers() {
+        beans.addBean("peers", (MessageCacheInvalidations) broadcast::addAll);
+        MessageByIdCache cache = cache(16, 60_000);
+        UUID id = UUID.randomUUID();
+
+        // an edit commits while the old row is being read
+        cache.get(id, x -> {
+            cache.evict(List.of(id));
+            return loader().apply(x);
+        });
+        assertThat(cache.size()).isZero();
+        assertThat(broadcast).containsExactly(id);
+
+        cache.get(id, loader());
+        cache.evictLocal(List.of(id));   // from another node: not sent back out
+        assertThat(cache.size()).isZero();
+        assertThat(broadcast).containsExactly(id);
+    }
+
+    private MessageByIdCache cache(int maxEntries, long ttlMs) {
+        return new MessageByIdCache(true, maxEntries, ttlMs, now::get,
+                beans.getBeanProvider(MessageCacheInvalidations.class), meters);
+    }
+
+    private Function<UUID, Optional<MessageResponse>> loader() {
+        return id -> {
+            loads.incrementAndGet();
+            return Optional.of(new MessageResponse(id, UUID.randomUUID(), null, UUID.randomUUID(), "hi",
+                    Message.ContentType.TEXT, false, Instant.now(), null, null, 0, null, null));
+        };
+    }
+}
@@ -0,0 +1,89 @@
+package com.hire_me.Ping.messages.cache;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.hire_me.Ping.common.id.UuidV7;
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.entity.Message;
+import com.hire_me.Ping.messages.event.MessageChangedEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RecentMessageCacheTest {
+
+    SimpleMeterRegistry meters;
+    RecentMessageCache cache;
+    UUID channel;
+    Instant clock;
+
+    @BeforeEach
+    void setUp() {
+        meters = new SimpleMeterRegistry();
+        cache = new RecentMessageCache(true, 3, 2, Long.MAX_VALUE, meters);
+        channel = UUID.randomUUID();
+        clock = Instant.parse("2025-09-19T13:00:00Z");
+    }
+
+    MessageResponse msg(UUID channelId, String content) {
+        clock = clock.plusSeconds(1);
+        return new MessageResponse(UuidV7.next(), channelId, null, UUID.randomUUID(), content,
+                Message.ContentType.TEXT, false, clock, null, null, 0, null, null);
+    }
+
+    @Test
+    void miss_thenFill_thenHit() {
+        assertThat(cache.newest(channel, 2)).isNull();
+
+        MessageResponse older = msg(channel, "a");
+        MessageResponse newer = msg(channel, "b");
+        cache.fill(channel, List.of(newer, older), cache.beginLoad(channel), 3);
+
+        assertThat(cache.newest(channel, 2)).containsExactly(newer, older);
+        assertThat(meters.counter("messages.hot_cache.requests", "result", "hit").count()).isEqualTo(1);
+        assertThat(meters.counter("messages.hot_cache.requests", "result", "miss").count()).isEqualTo(1);
+    }
+
+    @Test
+    void committedPosts_slideTheWindow() {
+        List<MessageResponse> all = new ArrayList<>();
+        for (int i = 0; i < 3; i++) all.add(0, msg(channel, "m" + i));
+        cache.fill(channel, all, cache.beginLoad(channel), 3);
+
+        MessageResponse latest = msg(channel, "new");
+        cache.onMessageChanged(new MessageChangedEvent(MessageChangedEvent.Kind.CREATED, latest, 1L));
+
+        assertThat(cache.newest(channel, 3)).containsExactly(latest, all.get(0), all.get(1));
+    }
+
+    @Test
+    void fillThatRacedWithACommit_isDropped() {
+        long stamp = cache.beginLoad(channel);
+        cache.onMessageChanged(new MessageChangedEvent(MessageChangedEvent.Kind.CREATED, msg(channel, "racing"), 1L));
+
+        cache.fill(channel, List.of(), stamp, 3);
+
+        assertThat(cache.newest(channel, 1)).isNull();
+    }
+
+    @Test
+    void coldestChannel_isEvictedWhenOverChannelCap() {
+        UUID warm = UUID.randomUUID();
+        UUID cold = UUID.randomUUID();
+        cache.fill(cold, List.of(msg(cold, "x")), cache.beginLoad(cold), 3);
+        cache.fill(warm, List.of(msg(warm, "y")), cache.beginLoad(warm), 3);
+        cache.newest(warm, 1);
+
+        cache.fill(channel, List.of(msg(channel, "z")), cache.beginLoad(channel), 3);
+
+        assertThat(cache.newest(cold, 1)).isNull();
+        assertThat(cache.newest(warm, 1)).isNotNull();
+        assertThat(meters.counter("messages.hot_cache.evictions").count()).isEqualTo(1);
+    }
+}
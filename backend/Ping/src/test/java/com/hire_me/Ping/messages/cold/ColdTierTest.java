@@ -0,0 +1,262 @@
+package com.hire_me.Ping.messages.cold;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.hire_me.Ping.dms.dto.DmCreateRequest;
+import com.hire_me.Ping.dms.dto.DmParticipantRequest;
+import com.hire_me.Ping.dms.service.DmService;
+import com.hire_me.Ping.messages.dto.MessageChangeResponse;
+import com.hire_me.Ping.messages.dto.MessageCreateRequest;
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.dto.MessageUpdateRequest;
+import com.hire_me.Ping.messages.dto.MessageWindowResponse;
+import com.hire_me.Ping.messages.entity.Message.ContentType;
+import com.hire_me.Ping.messages.entity.MessageChange;
+import com.hire_me.Ping.messages.repository.MessageRepository;
+import com.hire_me.Ping.messages.service.MessageArchiveService;
+import com.hire_me.Ping.messages.service.MessageService;
+import com.hire_me.Ping.messages.service.MessageService.PageParams;
+import com.hire_me.Ping.retention.dto.RetentionPolicyRequest;
+import com.hire_me.Ping.retention.repository.RetentionPolicyRepository;
+import com.hire_me.Ping.retention.service.RetentionPurgeJob;
+import com.hire_me.Ping.retention.service.RetentionService;
+import com.hire_me.Ping.search.dto.SearchHit;
+import com.hire_me.Ping.search.service.MessageSearchService;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "app.search.rebuild-on-startup=false",
+        "app.messages.rate-limit.enabled=false",
+        "app.messages.cold.enabled=false",   // runs are started by the tests
+        "app.messages.cold.delete-chunk=3",
+        "app.messages.cold.pause-ms=0",
+        "app.retention.enabled=false",
+        "app.retention.pause-ms=0"
+})
+class ColdTierTest {
+
+    @TempDir
+    static Path root;
+
+    @DynamicPropertySource
+    static void coldRoot(DynamicPropertyRegistry registry) {
+        registry.add("app.messages.cold.root", () -> root.toString());
+    }
+
+    @Autowired ColdTierMover mover;
+    @Autowired ColdMessageStore store;
+    @Autowired MessageService messages;
+    @Autowired MessageArchiveService archive;
+    @Autowired MessageRepository repository;
+    @Autowired RetentionPurgeJob retention;
+    @Autowired RetentionService policies;
+    @Autowired RetentionPolicyRepository policyRows;
+    @Autowired MessageSearchService search;
+    @Autowired DmService dms;
+    @Autowired JdbcTemplate jdbc;
+
+    @AfterEach
+    void clearPolicies() {
+        policyRows.deleteAll();
+    }
+
+    @Test
+    void oldMonths_moveToSegments_andPagesReadAcrossBothTiers() throws Exception {
+        UUID channel = UUID.randomUUID();
+        long since = messages.changesSince(channel, null, 10).nextSeq();
+        List<UUID> ancient = post(channel, 4, 14);
+        List<UUID> old = post(channel, 5, 8);
+        List<UUID> recent = post(channel, 6, 0);
+        UUID reply = messages.reply(old.get(1), request("archived thread reply")).id();
+        backdate(reply, 8);
+        messages.delete(old.get(2));
+
+        messages.listChannel(channel, new PageParams(null, null, 50));   // warm the hot cache
+        assertThat(mover.runOnce()).isGreaterThanOrEqualTo(4 + 5 + 1);
+
+        assertThat(repository.findAllById(concat(ancient, old, List.of(reply)))).isEmpty();
+        assertThat(repository.findAllById(recent)).hasSize(6);
+        assertThat(Files.exists(root.resolve(monthsAgo(14).toString()).resolve(channel + ".ndjson.gz"))).isTrue();
+        assertThat(Files.exists(root.resolve(monthsAgo(8).toString()).resolve(channel + ".ndjson.gz"))).isTrue();
+
+        // newest-first paging walks from the table into the archive without gaps or repeats
+        List<UUID> expected = concat(ancient, old, recent);
+        Collections.reverse(expected);
+        List<UUID> walked = new ArrayList<>();
+        List<MessageResponse> page = messages.listChannel(channel, new PageParams(null, null, 4));
+        while (!page.isEmpty()) {
+            page.forEach(m -> walked.add(m.id()));
+            page = messages.listChannel(channel, new PageParams(page.get(page.size() - 1).id(), null, 4));
+        }
+        assertThat(walked).containsExactlyElementsOf(expected);
+
+        // and back up from an archived cursor
+        List<MessageResponse> newer = messages.listChannel(channel, new PageParams(null, ancient.get(3), 3));
+        assertThat(newer).extracting(MessageResponse::id).containsExactly(old.get(2), old.get(1), old.get(0));
+        assertThat(newer.get(0).content()).isEqualTo("[This message was deleted]");
+        assertThat(newer.get(1).replyCount()).isEqualTo(1);
+
+        // jump to an archived message (and via its archived reply)
+        MessageWindowResponse window = messages.channelWindow(channel, old.get(4).toString(), 2, 2);
+        assertThat(window.anchorId()).isEqualTo(old.get(4));
+        assertThat(window.messages()).extracting(MessageResponse::id)
+                .containsExactly(recent.get(1), recent.get(0), old.get(4), old.get(3), old.get(2));
+        assertThat(window.hasOlder()).isTrue();
+        assertThat(window.hasNewer()).isTrue();
+        assertThat(messages.channelWindow(channel, reply.toString(), 0, 0).anchorId()).isEqualTo(old.get(1));
+
+        // delta sync does not mistake archived messages for deleted ones
+        List<MessageChangeResponse> changes = messages.changesSince(channel, since, 1000).changes();
+        assertThat(changes).filteredOn(c -> c.kind() == MessageChange.Kind.DELETED)
+                .extracting(MessageChangeResponse::messageId).containsExactly(old.get(2));
+
+        // an export still has the whole history, deleted content included
+        ByteArrayOutputStream dump = new ByteArrayOutputStream();
+        archive.exportChannel(channel, dump);
+        assertThat(dump.toString().lines()).hasSize(4 + 5 + 1 + 6);
+    }
+
+    @Test
+    void retention_dropsColdMonthsPastTheCutoff() {
+        UUID channel = UUID.randomUUID();
+        List<UUID> ancient = post(channel, 3, 14);
+        List<UUID> old = post(channel, 2, 8);
+        mover.runOnce();
+        assertThat(store.has(channel)).isTrue();
+
+        policies.setChannelPolicy(channel, new RetentionPolicyRequest(365, null));
+        var run = retention.runOnce();
+
+        assertThat(run.purged()).isGreaterThanOrEqualTo(3);
+        assertThat(run.bytesReclaimed()).isPositive();
+        assertThat(Files.exists(root.resolve(monthsAgo(14).toString()).resolve(channel + ".ndjson.gz"))).isFalse();
+        assertThat(messages.listChannel(channel, new PageParams(null, null, 50)))
+                .extracting(MessageResponse::id).containsExactly(old.get(1), old.get(0));
+        assertThat(store.find(channel, ancient.get(0))).isEmpty();
+    }
+
+    @Test
+    void archivedMessages_canBeEditedDeletedAndRepliedTo() {
+        UUID channel = UUID.randomUUID();
+        List<UUID> old = post(channel, 4, 8);
+        UUID root = old.get(0);
+        UUID reply = messages.reply(root, request("archived reply")).id();
+        backdate(reply, 8);
+        mover.runOnce();
+        assertThat(repository.findAllById(concat(old, List.of(reply)))).isEmpty();
+
+        // a cold thread reads whole, and single messages resolve by id alone
+        assertThat(messages.listReplies(root, null, 10)).extracting(MessageResponse::id).containsExactly(reply);
+        assertThat(messages.findById(reply).content()).isEqualTo("archived reply");
+
+        // an edit thaws the message back into the table
+        messages.edit(old.get(1), new MessageUpdateRequest("edited while archived"));
+        assertThat(repository.existsById(old.get(1))).isTrue();
+        assertThat(store.find(channel, old.get(1))).isEmpty();
+        assertThat(messages.findById(old.get(1)).content()).isEqualTo("edited while archived");
+
+        messages.delete(old.get(2));
+        assertThat(messages.findById(old.get(2)).deleted()).isTrue();
+
+        // replying to a reply thaws its whole thread, so the root's summary is kept in the table
+        UUID late = messages.reply(reply, request("late reply")).id();
+        assertThat(repository.findAllById(List.of(root, reply))).hasSize(2);
+        assertThat(messages.findById(root).replyCount()).isEqualTo(2);
+        assertThat(messages.listReplies(root, null, 10)).extracting(MessageResponse::id).containsExactly(reply, late);
+
+        List<MessageResponse> page = messages.listChannel(channel, new PageParams(null, null, 50));
+        assertThat(page).extracting(MessageResponse::id).containsExactly(old.get(3), old.get(2), old.get(1), old.get(0));
+        assertThat(page.get(1).content()).isEqualTo("[This message was deleted]");
+
+        // the next run moves the changed rows out again; the thread with a new reply stays
+        mover.runOnce();
+        assertThat(repository.findAllById(List.of(old.get(1), old.get(2)))).isEmpty();
+        assertThat(messages.findById(old.get(1)).content()).isEqualTo("edited while archived");
+        assertThat(repository.findAllById(List.of(root, reply, late))).hasSize(3);
+    }
+
+    @Test
+    void search_findsArchivedMessages_afterARebuild() {
+        UUID user = UUID.randomUUID();
+        UUID dm = dm(user);
+        UUID kept = messages.postToDm(dm, new MessageCreateRequest(user, "glacier expedition notes", ContentType.TEXT)).id();
+        UUID gone = messages.postToDm(dm, new MessageCreateRequest(user, "glacier expedition typo", ContentType.TEXT)).id();
+        backdate(kept, 8);
+        backdate(gone, 8);
+        messages.delete(gone);
+        mover.runOnce();
+        assertThat(repository.findAllById(List.of(kept, gone))).isEmpty();
+
+        assertThat(search.rebuild()).isTrue();
+
+        assertThat(search.search(user, "glacier", null, null, 10, null).hits())
+                .extracting(SearchHit::message).extracting(MessageResponse::id).containsExactly(kept);
+    }
+
+    private UUID dm(UUID user) {
+        DmParticipantRequest other = new DmParticipantRequest();
+        other.setUserId(UUID.randomUUID());
+        DmCreateRequest req = new DmCreateRequest();
+        req.setCreatedByUserId(user);
+        req.setGroup(true);
+        req.setTitle("archive");
+        req.setParticipants(List.of(other));
+        return dms.create(req).dm().getId();
+    }
+
+    // n messages in the middle of the month {@code monthsAgo} months back, a minute apart
+    private List<UUID> post(UUID channel, int n, int monthsAgo) {
+        List<UUID> ids = new ArrayList<>();
+        Instant base = monthsAgo(monthsAgo).atDay(10).atStartOfDay(ZoneOffset.UTC).toInstant();
+        for (int i = 0; i < n; i++) {
+            UUID id = messages.postToChannel(channel, request("message " + i)).id();
+            if (monthsAgo > 0) {
+                jdbc.update("UPDATE message SET created_at = ? WHERE id = ?", Timestamp.from(base.plusSeconds(60L * i)), id);
+            }
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private void backdate(UUID id, int monthsAgo) {
+        Instant at = monthsAgo(monthsAgo).atDay(20).atStartOfDay(ZoneOffset.UTC).toInstant();
+        jdbc.update("UPDATE message SET created_at = ? WHERE id = ?", Timestamp.from(at), id);
+    }
+
+    private static YearMonth monthsAgo(int months) {
+        return YearMonth.now(ZoneOffset.UTC).minusMonths(months);
+    }
+
+    @SafeVarargs
+    private static List<UUID> concat(List<UUID>... lists) {
+        List<UUID> out = new ArrayList<>();
+        for (List<UUID> l : lists) {
+            out.addAll(l);
+        }
+        return out;
+    }
+
+    private static MessageCreateRequest request(String text) {
+        return new MessageCreateRequest(UUID.randomUUID(), text, ContentType.TEXT);
+    }
+}
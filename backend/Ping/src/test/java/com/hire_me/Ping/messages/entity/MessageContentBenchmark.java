@@ -0,0 +1,141 @@
+package com.hire_me.Ping.messages.entity;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.hire_me.Ping.common.id.UuidV7;
+import com.hire_me.Ping.messages.dto.MessageResponse;
+
+/**
+ * What compressing long message bodies costs listChannel: read a page of 50 rows, decode the
+ * content (MessageContent) and write the page as JSON, for a channel where one message in ten is
+ * a pasted log or code block of 2-8 KB and the rest are short chat lines.
+ *
+ * {@code minLength = 0} stores everything plain (the baseline). Column bytes of both variants are
+ * printed once per trial; the benchmark measures the page read.
+ *
+ * Run: mvn test-compile exec:java -Dexec.classpathScope=test
+ *        -Dexec.mainClass=com.hire_me.Ping.messages.entity.MessageContentBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageContentBenchmark {
+
+    private static final int ROWS = 5_000;
+    private static final int PAGE = 50;
+
+    @Param({"0", "1024"})
+    public int minLength;
+
+    private Connection connection;
+    private PreparedStatement page;
+    private ObjectMapper json;
+    private List<UUID> anchors;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:contentbench_" + minLength, "sa", "");
+        try (Statement st = connection.createStatement()) {
+            st.execute("CREATE TABLE message_bench (id UUID PRIMARY KEY, created_at TIMESTAMP, content VARCHAR(65535))");
+        }
+        Random random = new Random(42);
+        anchors = new ArrayList<>();
+        long plainChars = 0;
+        long storedChars = 0;
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO message_bench (id, created_at, content) VALUES (?, CURRENT_TIMESTAMP, ?)")) {
+            for (int i = 0; i < ROWS; i++) {
+                String text = i % 10 == 0 ? pasted(random) : "chat line " + i + ", nothing much to say here";
+                String stored = MessageContent.encode(text, minLength);
+                plainChars += text.length();
+                storedChars += stored.length();
+                UUID id = UuidV7.next();
+                insert.setObject(1, id);
+                insert.setString(2, stored);
+                insert.addBatch();
+                if (i % PAGE == 0 && i + PAGE <= ROWS) {
+                    anchors.add(id);
+                }
+            }
+            insert.executeBatch();
+        }
+        System.out.printf("%nmin-length %d: content column %,d chars for %,d chars of text (%.0f%% saved)%n",
+                minLength, storedChars, plainChars, 100.0 * (plainChars - storedChars) / plainChars);
+
+        page = connection.prepareStatement(
+                "SELECT id, created_at, content FROM message_bench WHERE id >= ? ORDER BY id LIMIT " + PAGE);
+        json = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    @Benchmark
+    public byte[] listPage() throws Exception {
+        page.setObject(1, anchors.get(next++ % anchors.size()));
+        List<MessageResponse> out = new ArrayList<>(PAGE);
+        try (ResultSet rs = page.executeQuery()) {
+            while (rs.next()) {
+                out.add(new MessageResponse(rs.getObject(1, UUID.class), null, null, null,
+                        MessageContent.fromColumn(rs.getString(3)).text(), Message.ContentType.TEXT, false,
+                        rs.getTimestamp(2).toInstant(), null, null, 0, null, null));
+            }
+        }
+        return json.writeValueAsBytes(out);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    // A stack trace or log excerpt: repetitive, like the real ones
+    private static String pasted(Random random) {
+        StringBuilder sb = new StringBuilder("2025-03-14 09:26:53.589 ERROR [http-nio-8080-exec-")
+                .append(random.nextInt(200)).append("] o.a.c.c.C.[.[.[/].[dispatcherServlet] : request failed\n");
+        int frames = 25 + random.nextInt(75);
+        for (int i = 0; i < frames; i++) {
+            sb.append("\tat com.example.").append(random.nextBoolean() ? "service" : "web")
+              .append(".Handler").append(random.nextInt(12)).append(".handle(Handler")
+              .append(random.nextInt(12)).append(".java:").append(random.nextInt(400)).append(")\n");
+        }
+        return sb.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MessageContentBenchmark.class.getSimpleName()).build()).run();
+    }
+}
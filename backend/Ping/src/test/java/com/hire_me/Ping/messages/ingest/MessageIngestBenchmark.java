@@ -0,0 +1,87 @@
+package com.hire_me.Ping.messages.ingest;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.hire_me.Ping.PingApplication;
+import com.hire_me.Ping.messages.dto.MessageCreateRequest;
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.entity.Message;
+import com.hire_me.Ping.messages.service.MessageService;
+
+/**
+ * Post throughput with many concurrent posters: one transaction per post
+ * ({@code batched = false}) vs the group-commit path (MessageIngestPipeline).
+ *
+ * Each trial boots the application on its default in-memory H2 with the ingest mode under test
+ * and the rate limiter off; every operation is one MessageService.postToChannel call.
+ *
+ * Run: mvn test-compile exec:java -Dexec.classpathScope=test
+ *        -Dexec.mainClass=com.hire_me.Ping.messages.ingest.MessageIngestBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Threads(32)
+@Fork(1)
+public class MessageIngestBenchmark {
+
+    @Param({"false", "true"})
+    public boolean batched;
+
+    private ConfigurableApplicationContext context;
+    private MessageService service;
+    private final UUID channel = UUID.randomUUID();
+    private final AtomicInteger posts = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // arguments, not builder properties: those are defaults that application.properties overrides
+        context = new SpringApplicationBuilder(PingApplication.class).run(
+                "--server.port=0",
+                "--app.messages.ingest.batched=" + batched,
+                "--app.messages.rate-limit.enabled=false",
+                "--app.search.rebuild-on-startup=false",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN");
+        service = context.getBean(MessageService.class);
+    }
+
+    @Benchmark
+    public MessageResponse post() {
+        return service.postToChannel(channel,
+                new MessageCreateRequest(UUID.randomUUID(), "load " + posts.incrementAndGet(), Message.ContentType.TEXT));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MessageIngestBenchmark.class.getSimpleName()).build()).run();
+    }
+}
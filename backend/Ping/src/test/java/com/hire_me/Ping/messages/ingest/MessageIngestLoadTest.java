@@ -0,0 +1,63 @@
+package com.hire_me.Ping.messages.ingest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.hire_me.Ping.messages.dto.MessageCreateRequest;
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.entity.Message;
+import com.hire_me.Ping.messages.service.MessageService;
+
+/**
+ * Concurrent posters on the group-commit path: every accepted post comes back with its own id
+ * and is in the table. Throughput is measured by MessageIngestBenchmark.
+ */
+@SpringBootTest(properties = {
+        "app.messages.ingest.batched=true",
+        "app.messages.rate-limit.enabled=false",
+        "app.search.rebuild-on-startup=false",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.format_sql=false"
+})
+class MessageIngestLoadTest {
+
+    static final int THREADS = 8;
+    static final int POSTS = 200;
+
+    @Autowired MessageService service;
+    @Autowired JdbcTemplate jdbc;
+
+    @Test
+    void batchedPath_persistsEveryConcurrentPost() throws Exception {
+        UUID channel = UUID.randomUUID();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<MessageResponse> posted = new ArrayList<>();
+        try {
+            List<Future<MessageResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < POSTS; i++) {
+                MessageCreateRequest req = new MessageCreateRequest(UUID.randomUUID(), "load " + i, Message.ContentType.TEXT);
+                futures.add(pool.submit(() -> service.postToChannel(channel, req)));
+            }
+            for (Future<MessageResponse> f : futures) {
+                posted.add(f.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertThat(posted).extracting(MessageResponse::id).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(posted).extracting(MessageResponse::content).doesNotHaveDuplicates().hasSize(POSTS);
+        assertThat(jdbc.queryForList("SELECT id FROM message WHERE channel_id = ?", UUID.class, channel))
+                .containsExactlyInAnyOrderElementsOf(posted.stream().map(MessageResponse::id).toList());
+    }
+}
@@ -0,0 +1,77 @@
+package com.hire_me.Ping.messages.ingest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.junit.jupiter.api.Test;
+
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.entity.Message;
+import com.hire_me.Ping.messages.service.MessageWriter;
+
+class MessageIngestPipelineTest {
+
+    final MessageWriter writer = mock(MessageWriter.class);
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicReference<Thread> writerThread = new AtomicReference<>();
+
+    MessageIngestPipeline pipeline(long commitTimeoutMs) {
+        // the first batch holds the writer until released; every batch commits
+        when(writer.insertAll(anyList())).thenAnswer(inv -> {
+            if (writerThread.compareAndSet(null, Thread.currentThread())) {
+                started.countDown();
+                while (release.getCount() > 0) {
+                    Thread.yield();   // not interruptible: the interrupt must reach the writer loop
+                }
+            }
+            return Collections.nCopies(inv.<List<?>>getArgument(0).size(), (MessageResponse) null);
+        });
+        MessageIngestPipeline p = new MessageIngestPipeline(writer, true, 2, 1, 100, 1000, commitTimeoutMs);
+        p.start();
+        return p;
+    }
+
+    @Test
+    void interruptedWriter_commitsEverythingAcceptedAndExits() throws Exception {
+        MessageIngestPipeline p = pipeline(10_000);
+        List<CompletableFuture<MessageResponse>> posts = new ArrayList<>();
+        posts.add(p.submit(new Message()));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 5; i++) {
+            posts.add(p.submit(new Message()));   // queued behind the held batch
+        }
+
+        writerThread.get().interrupt();
+        release.countDown();
+
+        CompletableFuture.allOf(posts.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        writerThread.get().join(5_000);
+        assertThat(writerThread.get().isAlive()).isFalse();
+    }
+
+    @Test
+    void aPostNotCommittedInTime_timesOut() throws Exception {
+        MessageIngestPipeline p = pipeline(50);
+        CompletableFuture<MessageResponse> post = p.submit(new Message());
+        try {
+            assertThat(post).failsWithin(5, TimeUnit.SECONDS)
+                    .withThrowableOfType(ExecutionException.class)
+                    .withCauseInstanceOf(TimeoutException.class);
+        } finally {
+            release.countDown();
+            p.stop();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.hire_me.Ping.messages.ratelimit;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Cost of PostRateLimiter.acquire on the post path, with generous limits.
+ *
+ * - senders = 1:     every call hits the same sender and channel buckets (worst-case CAS contention);
+ *                    the loop outruns even these limits, so this mixes admitted and rejected calls
+ * - senders = 10000: a realistic spread over many warm buckets, all admitted
+ *
+ * Run: mvn test-compile exec:java -Dexec.classpathScope=test
+ *        -Dexec.mainClass=com.hire_me.Ping.messages.ratelimit.PostRateLimiterBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostRateLimiterBenchmark {
+
+    @Param({"1", "10000"})
+    public int senders;
+
+    private PostRateLimiter limiter;
+    private UUID[] senderIds;
+    private UUID[] channelIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        limiter = new PostRateLimiter(true, 1_000_000, 4000, 1_000_000, 4000, 60_000, new SimpleMeterRegistry());
+        senderIds = new UUID[senders];
+        channelIds = new UUID[Math.max(1, senders / 10)];
+        for (int i = 0; i < senderIds.length; i++) {
+            senderIds[i] = UUID.randomUUID();
+        }
+        for (int i = 0; i < channelIds.length; i++) {
+            channelIds[i] = UUID.randomUUID();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        limiter.shutdown();
+    }
+
+    @Benchmark
+    public boolean acquire() {
+        return tryAcquire();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean acquireContended() {
+        return tryAcquire();
+    }
+
+    private boolean tryAcquire() {
+        int i = ThreadLocalRandom.current().nextInt(senderIds.length);
+        try {
+            limiter.acquire(senderIds[i], channelIds[i % channelIds.length]);
+            return true;
+        } catch (RateLimitedException e) {
+            return false;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PostRateLimiterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
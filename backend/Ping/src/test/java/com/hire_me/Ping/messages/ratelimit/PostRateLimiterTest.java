@@ -0,0 +1,152 @@
+package com.hire_me.Ping.messages.ratelimit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.hire_me.Ping.messages.controller.MessageController;
+import com.hire_me.Ping.messages.service.MessageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PostRateLimiterTest {
+
+    final AtomicLong now = new AtomicLong(1_000);
+
+    PostRateLimiter limiter(int userRate, int userBurst, int conversationRate, int conversationBurst) {
+        return new PostRateLimiter(true,
+                PostRateLimiter.Limit.of(userRate, userBurst),
+                PostRateLimiter.Limit.of(conversationRate, conversationBurst),
+                60_000, now::get, new SimpleMeterRegistry(), false);
+    }
+
+    @Test
+    void burstThenRejectUntilRefilled() {
+        PostRateLimiter limiter = limiter(2, 5, 1000, 1000);
+        UUID sender = UUID.randomUUID();
+        UUID channel = UUID.randomUUID();
+
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire(sender, channel);
+        }
+        // 2 tokens/s: the next one is 500 ms away, rounded up to a whole second
+        assertThatThrownBy(() -> limiter.acquire(sender, channel))
+                .isInstanceOfSatisfying(RateLimitedException.class, e -> {
+                    assertThat(e.getStatusCode().value()).isEqualTo(429);
+                    assertThat(e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+                });
+
+        now.addAndGet(499);
+        assertThatThrownBy(() -> limiter.acquire(sender, channel)).isInstanceOf(RateLimitedException.class);
+        now.addAndGet(1);
+        limiter.acquire(sender, channel);
+
+        // another sender in the same channel is not affected
+        limiter.acquire(UUID.randomUUID(), channel);
+    }
+
+    @Test
+    void conversationLimitHandsTheSendersTokenBack() {
+        PostRateLimiter limiter = limiter(1, 2, 1, 3);
+        UUID channel = UUID.randomUUID();
+        UUID quiet = UUID.randomUUID();
+
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire(UUID.randomUUID(), channel);
+        }
+        assertThatThrownBy(() -> limiter.acquire(quiet, channel))
+                .hasMessageContaining("conversation");
+        assertThatThrownBy(() -> limiter.acquire(quiet, channel))
+                .hasMessageContaining("conversation");
+
+        // both rejected posts were refunded: the quiet sender still has their full burst elsewhere
+        limiter.acquire(quiet, UUID.randomUUID());
+        limiter.acquire(quiet, UUID.randomUUID());
+        assertThatThrownBy(() -> limiter.acquire(quiet, UUID.randomUUID()))
+                .hasMessageContaining("sender");
+    }
+
+    @Test
+    void concurrentAcquiresNeverAdmitMoreThanTheBurst() throws Exception {
+        PostRateLimiter limiter = limiter(1, 500, 1, 4000);   // frozen clock: nothing refills
+        UUID sender = UUID.randomUUID();
+        UUID channel = UUID.randomUUID();
+        int threads = 8;
+        AtomicInteger admitted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 1000; i++) {
+                        try {
+                            limiter.acquire(sender, channel);
+                            admitted.incrementAndGet();
+                        } catch (RateLimitedException expected) {
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertThat(admitted.get()).isEqualTo(500);
+    }
+
+    @Test
+    void idleBucketsAreEvictedOnceFull() {
+        PostRateLimiter limiter = limiter(10, 10, 10, 10);
+        limiter.acquire(UUID.randomUUID(), UUID.randomUUID());
+        assertThat(limiter.bucketCount()).isEqualTo(2);
+
+        now.addAndGet(59_999);
+        limiter.evictIdle();
+        assertThat(limiter.bucketCount()).isEqualTo(2);
+
+        now.addAndGet(1);
+        limiter.evictIdle();
+        assertThat(limiter.bucketCount()).isZero();
+    }
+
+    @Test
+    void rejectedPostIs429WithRetryAfter() throws Exception {
+        MessageService service = mock(MessageService.class);
+        when(service.postToChannel(eq(UUID.fromString("00000000-0000-0000-0000-000000000001")), any(), any()))
+                .thenThrow(new RateLimitedException("Too many messages from this sender", 2_500));
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(new MessageController(service, null, null)).build();
+
+        mvc.perform(post("/api/channels/{id}/messages", "00000000-0000-0000-0000-000000000001")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"senderUserId\":\"" + UUID.randomUUID() + "\",\"content\":\"spam\"}"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "3"));
+    }
+}
@@ -0,0 +1,76 @@
+package com.hire_me.Ping.messages.repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import com.hire_me.Ping.messages.entity.Message;
+
+@DataJpaTest
+class MessageRepositoryTest {
+
+    @Autowired
+    MessageRepository repo;
+
+    UUID channel;
+    List<Message> saved;   // oldest -> newest
+
+    @BeforeEach
+    void setUp() {
+        channel = UUID.randomUUID();
+        saved = new ArrayList<>();
+        Instant base = Instant.parse("2025-09-19T13:00:00Z");
+        for (int i = 0; i < 7; i++) {
+            Message m = new Message();
+            m.setChannelId(channel);
+            m.setSenderUserId(UUID.randomUUID());
+            m.setContent("m" + i);
+            m.setContentType(Message.ContentType.TEXT);
+            saved.add(m);
+        }
+        repo.saveAllAndFlush(saved);
+        // two rows share a timestamp so the id tiebreaker is exercised
+        for (int i = 0; i < saved.size(); i++) {
+            saved.get(i).setCreatedAt(base.plusSeconds(i == 4 ? 3 : i));
+        }
+        repo.saveAllAndFlush(saved);
+        saved.sort((a, b) -> {
+            int cmp = a.getCreatedAt().compareTo(b.getCreatedAt());
+            // databases order uuids bytewise, which matches the string form (UUID.compareTo is signed)
+            return cmp != 0 ? cmp : a.getId().toString().compareTo(b.getId().toString());
+        });
+    }
+
+    @Test
+    void pageBefore_walksOlderWithoutGapsOrDuplicates() {
+        List<Message> walked = new ArrayList<>(
+                repo.findByChannelIdAndParentMessageIdIsNullOrderByCreatedAtDescIdDesc(channel, PageRequest.of(0, 3)));
+        while (true) {
+            UUID cursor = walked.get(walked.size() - 1).getId();
+            List<Message> page = repo.findChannelPageBefore(channel, cursor, PageRequest.of(0, 3));
+            if (page.isEmpty()) break;
+            walked.addAll(page);
+        }
+
+        List<Message> expected = new ArrayList<>(saved);
+        java.util.Collections.reverse(expected);
+        assertThat(walked).extracting(Message::getId).containsExactlyElementsOf(expected.stream().map(Message::getId).toList());
+    }
+
+    @Test
+    void pageAfter_returnsClosestNewerRows() {
+        UUID cursor = saved.get(2).getId();
+        List<Message> page = repo.findChannelPageAfter(channel, cursor, PageRequest.of(0, 2));
+
+        assertThat(page).extracting(Message::getId)
+                .containsExactly(saved.get(3).getId(), saved.get(4).getId());
+    }
+}
@@ -0,0 +1,74 @@
+package com.hire_me.Ping.messages.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.entity.Message;
+
+/**
+ * Round trip: import a generated dump, export it again, import the export into a second channel.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "app.search.rebuild-on-startup=false"
+})
+class MessageArchiveServiceTest {
+
+    static final int ROWS = 500;
+
+    @Autowired MessageArchiveService archive;
+    @Autowired ObjectMapper objectMapper;
+
+    @Test
+    void exportThenImport_roundTripsEveryRowInOrder() throws Exception {
+        UUID source = UUID.randomUUID();
+        UUID sender = UUID.randomUUID();
+        Instant base = Instant.parse("2025-01-01T00:00:00Z");
+
+        StringBuilder dump = new StringBuilder();
+        for (int i = 0; i < ROWS; i++) {
+            MessageResponse m = new MessageResponse(null, null, null, sender, "line " + i,
+                    Message.ContentType.TEXT, i % 100 == 0, base.plusMillis(i), null, null, 0, null, null);
+            dump.append(objectMapper.writeValueAsString(m)).append('\n');
+        }
+
+        assertThat(archive.importChannel(source, stream(dump.toString()))).isEqualTo(ROWS);
+
+        List<String> exported = export(source);
+        assertThat(exported).hasSize(ROWS);
+        MessageResponse first = objectMapper.readValue(exported.get(0), MessageResponse.class);
+        MessageResponse last = objectMapper.readValue(exported.get(ROWS - 1), MessageResponse.class);
+        assertThat(first.content()).isEqualTo("line 0");
+        assertThat(first.deleted()).isTrue();
+        assertThat(first.createdAt()).isEqualTo(base);
+        assertThat(first.channelId()).isEqualTo(source);
+        assertThat(last.content()).isEqualTo("line " + (ROWS - 1));
+
+        UUID copy = UUID.randomUUID();
+        assertThat(archive.importChannel(copy, stream(String.join("\n", exported)))).isEqualTo(ROWS);
+        List<String> copied = export(copy);
+        assertThat(copied).hasSize(ROWS);
+        assertThat(objectMapper.readValue(copied.get(ROWS - 1), MessageResponse.class).id()).isNotEqualTo(last.id());
+    }
+
+    private List<String> export(UUID channelId) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        archive.exportChannel(channelId, out);
+        return out.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+
+    private static ByteArrayInputStream stream(String s) {
+        return new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,113 @@
+package com.hire_me.Ping.messages.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import com.hire_me.Ping.messages.dto.MessageChangeResponse;
+import com.hire_me.Ping.messages.dto.MessageChangesResponse;
+import com.hire_me.Ping.messages.dto.MessageCreateRequest;
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.dto.MessageUpdateRequest;
+import com.hire_me.Ping.messages.entity.MessageChange;
+import com.hire_me.Ping.messages.entity.Message.ContentType;
+import com.hire_me.Ping.messages.repository.MessageChangeRepository;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "app.search.rebuild-on-startup=false",
+        "app.messages.rate-limit.enabled=false"
+})
+class MessageChangesTest {
+
+    @Autowired MessageService service;
+    @Autowired MessageChangeRepository changes;
+
+    MessageResponse post(UUID channel, String content) {
+        return service.postToChannel(channel, new MessageCreateRequest(UUID.randomUUID(), content, ContentType.TEXT));
+    }
+
+    @Test
+    void delta_returnsOnlyTheLatestChangePerMessage() {
+        UUID channel = UUID.randomUUID();
+        MessageResponse kept = post(channel, "one");
+        long start = service.changesSince(channel, null, 100).nextSeq();
+        assertThat(start).isEqualTo(1);
+
+        MessageResponse edited = post(channel, "two");
+        MessageResponse removed = post(channel, "three");
+        service.edit(edited.id(), new MessageUpdateRequest("two, edited"));
+        service.edit(edited.id(), new MessageUpdateRequest("two, edited again"));
+        service.delete(removed.id());
+
+        MessageChangesResponse delta = service.changesSince(channel, start, 100);
+
+        assertThat(delta.nextSeq()).isEqualTo(6);
+        assertThat(delta.hasMore()).isFalse();
+        assertThat(delta.changes()).extracting(MessageChangeResponse::messageId)
+                .containsExactly(edited.id(), removed.id())
+                .doesNotContain(kept.id());
+        assertThat(delta.changes().get(0).message().content()).isEqualTo("two, edited again");
+        assertThat(delta.changes().get(1).kind()).isEqualTo(MessageChange.Kind.DELETED);
+        assertThat(delta.changes().get(1).message()).isNull();
+
+        assertThat(service.changesSince(channel, delta.nextSeq(), 100).changes()).isEmpty();
+    }
+
+    @Test
+    void delta_pagesWithHasMore() {
+        UUID channel = UUID.randomUUID();
+        for (int i = 0; i < 5; i++) {
+            post(channel, "m" + i);
+        }
+
+        MessageChangesResponse first = service.changesSince(channel, 0L, 3);
+        MessageChangesResponse second = service.changesSince(channel, first.nextSeq(), 3);
+
+        assertThat(first.changes()).hasSize(3);
+        assertThat(first.hasMore()).isTrue();
+        assertThat(second.changes()).hasSize(2);
+        assertThat(second.hasMore()).isFalse();
+        assertThat(second.nextSeq()).isEqualTo(5);
+    }
+
+    @Test
+    void concurrentPosts_getGapFreeSequence() throws Exception {
+        UUID channel = UUID.randomUUID();
+        int threads = 8;
+        int perThread = 40;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        post(channel, "concurrent " + i);
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        int total = threads * perThread;
+        List<Long> seqs = changes.findByConversationIdAndSeqGreaterThanOrderBySeqAsc(channel, 0, PageRequest.of(0, total + 1))
+                .stream().map(MessageChange::getSeq).toList();
+        assertThat(seqs).containsExactlyElementsOf(LongStream.rangeClosed(1, total).boxed().toList());
+        assertThat(service.changesSince(channel, null, 1).nextSeq()).isEqualTo(total);
+    }
+}
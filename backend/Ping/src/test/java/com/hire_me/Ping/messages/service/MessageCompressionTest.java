@@ -0,0 +1,102 @@
+package com.hire_me.Ping.messages.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hire_me.Ping.messages.dto.MessageCreateRequest;
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.dto.MessageUpdateRequest;
+import com.hire_me.Ping.messages.entity.Message.ContentType;
+import com.hire_me.Ping.messages.entity.MessageContent;
+import com.hire_me.Ping.messages.service.MessageService.PageParams;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "app.search.rebuild-on-startup=false",
+        "app.messages.rate-limit.enabled=false",
+        "app.messages.compression.min-length=512"
+})
+class MessageCompressionTest {
+
+    @Autowired MessageService messages;
+    @Autowired MessageArchiveService archive;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired ObjectMapper objectMapper;
+
+    @Test
+    void longBodiesAreStoredCompressed_andReadBackUnchanged() throws Exception {
+        UUID channel = UUID.randomUUID();
+        String log = stackTrace(80);
+        String edited = log + "\nCaused by: java.net.SocketTimeoutException: Read timed out";
+        String marked = MessageContent.MARKER + "not an encoding";
+
+        UUID big = post(channel, log);
+        UUID small = post(channel, "short and plain");
+        UUID odd = post(channel, marked);
+
+        String stored = column(big);
+        assertThat(stored.charAt(0)).isEqualTo(MessageContent.MARKER);
+        assertThat(stored.length()).isLessThan(log.length() / 3);
+        assertThat(column(small)).isEqualTo("short and plain");
+        assertThat(column(odd)).isNotEqualTo(marked);
+
+        assertThat(messages.findById(big).content()).isEqualTo(log);
+        assertThat(messages.findById(odd).content()).isEqualTo(marked);
+
+        messages.edit(big, new MessageUpdateRequest(edited));
+        assertThat(column(big).charAt(0)).isEqualTo(MessageContent.MARKER);
+        assertThat(messages.listChannel(channel, new PageParams(null, null, 10)))
+                .extracting(MessageResponse::content).containsExactly(marked, "short and plain", edited);
+
+        // dumps hold plain text, and an import compresses it again
+        ByteArrayOutputStream dump = new ByteArrayOutputStream();
+        archive.exportChannel(channel, dump);
+        List<String> lines = dump.toString().lines().toList();
+        assertThat(objectMapper.readValue(lines.get(0), MessageResponse.class).content()).isEqualTo(edited);
+
+        UUID copy = UUID.randomUUID();
+        archive.importChannel(copy, new ByteArrayInputStream(dump.toByteArray()));
+        assertThat(jdbc.queryForObject("SELECT content FROM message WHERE channel_id = ? AND content_type = 'TEXT' " +
+                "ORDER BY created_at, id LIMIT 1", String.class, copy).charAt(0)).isEqualTo(MessageContent.MARKER);
+        assertThat(messages.listChannel(copy, new PageParams(null, null, 10)))
+                .extracting(MessageResponse::content).containsExactly(marked, "short and plain", edited);
+    }
+
+    @Test
+    void incompressibleBodiesStayPlain() {
+        StringBuilder noise = new StringBuilder();
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            noise.append((char) ('!' + random.nextInt(90)));
+        }
+        assertThat(MessageContent.encode(noise.toString(), 512)).isEqualTo(noise.toString());
+        assertThat(MessageContent.encode(stackTrace(40), 0)).isEqualTo(stackTrace(40));
+    }
+
+    private UUID post(UUID channel, String content) {
+        return messages.postToChannel(channel, new MessageCreateRequest(UUID.randomUUID(), content, ContentType.TEXT)).id();
+    }
+
+    private String column(UUID id) {
+        return jdbc.queryForObject("SELECT content FROM message WHERE id = ?", String.class, id);
+    }
+
+    static String stackTrace(int frames) {
+        StringBuilder sb = new StringBuilder("java.lang.IllegalStateException: connection pool exhausted\n");
+        for (int i = 0; i < frames; i++) {
+            sb.append("\tat com.example.service.Handler").append(i % 7).append(".process(Handler")
+              .append(i % 7).append(".java:").append(100 + i).append(")\n");
+        }
+        return sb.toString().strip();   // posts are trimmed
+    }
+}
@@ -0,0 +1,148 @@
+package com.hire_me.Ping.messages.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.server.ResponseStatusException;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hire_me.Ping.messages.dto.MessageCreateRequest;
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.entity.Message;
+import com.hire_me.Ping.messages.entity.Message.ContentType;
+import com.hire_me.Ping.messages.repository.MessageRepository;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "app.search.rebuild-on-startup=false"
+})
+@AutoConfigureMockMvc
+class MessageIdempotencyTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper json;
+    @Autowired MessageService messages;
+    @Autowired MessageRepository repository;
+
+    @Test
+    void retryWithSameKey_returnsTheOriginalFromMemory() throws Exception {
+        UUID channel = UUID.randomUUID();
+        UUID sender = UUID.randomUUID();
+        String key = UUID.randomUUID().toString();
+        MessageCreateRequest req = new MessageCreateRequest(sender, "sent from a train", ContentType.TEXT);
+
+        MessageResponse first = postOverHttp(channel, req, key);
+        MessageResponse retry = postOverHttp(channel, req, key);
+        assertThat(retry).isEqualTo(first);
+        assertThat(postsBy(sender)).hasSize(1);
+
+        // the replay does not read the table: it still answers after the row is gone
+        repository.deleteById(first.id());
+        assertThat(messages.postToChannel(channel, req, key)).isEqualTo(first);
+
+        // no key, no dedupe
+        messages.postToChannel(channel, req);
+        messages.postToChannel(channel, req);
+        assertThat(postsBy(sender)).hasSize(2);
+    }
+
+    @Test
+    void keyAlreadyStoredElsewhere_isCaughtByTheUniqueConstraint() {
+        UUID dm = UUID.randomUUID();
+        UUID sender = UUID.randomUUID();
+        String key = "retry-" + UUID.randomUUID();
+
+        // as written by another node: the row exists, this node's cache has never seen the key
+        Message stored = new Message();
+        stored.setDirectConversationId(dm);
+        stored.setSenderUserId(sender);
+        stored.setContent("hello");
+        stored.setContentType(ContentType.TEXT);
+        stored.setCreatedAt(Instant.now());
+        stored.setIdempotencyKey(key);
+        stored = repository.save(stored);
+
+        MessageResponse replay = messages.postToDm(dm, new MessageCreateRequest(sender, "hello", ContentType.TEXT), key);
+        assertThat(replay.id()).isEqualTo(stored.getId());
+        assertThat(postsBy(sender)).hasSize(1);
+
+        // the same key from another sender is a different post
+        messages.postToDm(dm, new MessageCreateRequest(UUID.randomUUID(), "hello", ContentType.TEXT), key);
+    }
+
+    @Test
+    void concurrentRetries_insertOnce() throws Exception {
+        UUID channel = UUID.randomUUID();
+        UUID sender = UUID.randomUUID();
+        String key = UUID.randomUUID().toString();
+        MessageCreateRequest req = new MessageCreateRequest(sender, "tapped send eight times", ContentType.TEXT);
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<MessageResponse>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return messages.postToChannel(channel, req, key);
+                }));
+            }
+            start.countDown();
+            UUID id = results.get(0).get().id();
+            for (Future<MessageResponse> f : results) {
+                assertThat(f.get().id()).isEqualTo(id);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertThat(postsBy(sender)).hasSize(1);
+    }
+
+    @Test
+    void sameKeyForAnotherConversation_isRejected() {
+        UUID sender = UUID.randomUUID();
+        String key = UUID.randomUUID().toString();
+        MessageCreateRequest req = new MessageCreateRequest(sender, "hi", ContentType.TEXT);
+        messages.postToChannel(UUID.randomUUID(), req, key);
+
+        assertThatThrownBy(() -> messages.postToChannel(UUID.randomUUID(), req, key))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode().value()).isEqualTo(422));
+        assertThatThrownBy(() -> messages.postToChannel(UUID.randomUUID(), req, "k".repeat(65)))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode().value()).isEqualTo(400));
+    }
+
+    private MessageResponse postOverHttp(UUID channel, MessageCreateRequest req, String key) throws Exception {
+        byte[] body = mvc.perform(post("/api/channels/{id}/messages", channel)
+                        .header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json.writeValueAsBytes(req))
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        return json.readValue(body, MessageResponse.class);
+    }
+
+    private List<Message> postsBy(UUID sender) {
+        return repository.findBySenderUserIdOrderByCreatedAtDesc(sender, PageRequest.of(0, 10));
+    }
+}
@@ -0,0 +1,95 @@
+package com.hire_me.Ping.messages.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.hire_me.Ping.messages.dto.MessageCreateRequest;
+import com.hire_me.Ping.messages.dto.MessageRevisionResponse;
+import com.hire_me.Ping.messages.dto.MessageUpdateRequest;
+import com.hire_me.Ping.messages.entity.MessageRevision;
+import com.hire_me.Ping.messages.entity.Message.ContentType;
+import com.hire_me.Ping.messages.repository.MessageRevisionRepository;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "app.search.rebuild-on-startup=false",
+        "app.messages.rate-limit.enabled=false",
+        "app.messages.revisions.snapshot-every=4"
+})
+@AutoConfigureMockMvc
+class MessageRevisionsTest {
+
+    @Autowired MessageService messages;
+    @Autowired MessageRevisionService revisions;
+    @Autowired MessageRevisionRepository rows;
+    @Autowired MockMvc mvc;
+
+    @Test
+    void textDelta_roundTrips() {
+        String[][] pairs = {
+                {"hello world", "hello there world"},
+                {"typo hre", "typo here"},
+                {"abc", ""},
+                {"", "abc"},
+                {"aaaa", "aa"},
+                {"same", "same"},
+                {"smile 😀!", "smile 😁!"},   // differ only in the low surrogate
+        };
+        for (String[] p : pairs) {
+            String delta = TextDelta.diff(p[0], p[1]);
+            assertThat(TextDelta.apply(p[0], delta)).isEqualTo(p[1]);
+        }
+        assertThat(TextDelta.diff("typo hre", "typo here")).isEqualTo("6:2:e");
+        assertThat(TextDelta.diff("smile 😀!", "smile 😁!")).isEqualTo("6:1:😁");
+    }
+
+    @Test
+    void edits_areStoredAsDeltasWithPeriodicSnapshots_andEveryRevisionRebuilds() throws Exception {
+        UUID id = messages.postToChannel(UUID.randomUUID(),
+                new MessageCreateRequest(UUID.randomUUID(), "draft 0 of a longish message", ContentType.TEXT)).id();
+        assertThat(revisions.list(id)).extracting(MessageRevisionResponse::content)
+                .containsExactly("draft 0 of a longish message");
+        assertThat(rows.findByMessageIdOrderByRevisionAsc(id)).isEmpty();
+
+        List<String> expected = new ArrayList<>(List.of("draft 0 of a longish message"));
+        for (int i = 1; i <= 9; i++) {
+            String content = "draft " + i + " of a longish message";
+            messages.edit(id, new MessageUpdateRequest(content));
+            expected.add(content);
+        }
+
+        assertThat(rows.findByMessageIdOrderByRevisionAsc(id)).extracting(MessageRevision::getKind).containsExactly(
+                MessageRevision.Kind.SNAPSHOT, MessageRevision.Kind.DELTA, MessageRevision.Kind.DELTA,
+                MessageRevision.Kind.DELTA, MessageRevision.Kind.SNAPSHOT, MessageRevision.Kind.DELTA,
+                MessageRevision.Kind.DELTA, MessageRevision.Kind.DELTA, MessageRevision.Kind.SNAPSHOT,
+                MessageRevision.Kind.DELTA);
+        assertThat(revisions.list(id)).extracting(MessageRevisionResponse::content).containsExactlyElementsOf(expected);
+        for (int r = 0; r <= 9; r++) {
+            assertThat(revisions.get(id, r).content()).isEqualTo(expected.get(r));
+        }
+
+        mvc.perform(get("/api/messages/{id}/revisions", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(10))
+                .andExpect(jsonPath("$[7].content").value("draft 7 of a longish message"));
+        mvc.perform(get("/api/messages/{id}/revisions/{revision}", id, 6))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.revision").value(6))
+                .andExpect(jsonPath("$.content").value("draft 6 of a longish message"));
+        mvc.perform(get("/api/messages/{id}/revisions/{revision}", id, 10))
+                .andExpect(status().isNotFound());
+        mvc.perform(get("/api/messages/{id}/revisions", UUID.randomUUID()))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,144 @@
+package com.hire_me.Ping.messages.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.hire_me.Ping.messages.dto.MessageCreateRequest;
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.dto.MessageUpdateRequest;
+import com.hire_me.Ping.messages.entity.Message.ContentType;
+import com.hire_me.Ping.messages.service.MessageService.PageParams;
+import com.hire_me.Ping.unread.service.ReadMarkerService;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "app.search.rebuild-on-startup=false",
+        "app.messages.rate-limit.enabled=false"
+})
+class MessageThreadsTest {
+
+    @Autowired MessageService messages;
+    @Autowired ReadMarkerService readMarkers;
+    @Autowired MessageArchiveService archive;
+
+    @Test
+    void concurrentReplies_areAllCountedOnTheRoot() throws Exception {
+        UUID channel = UUID.randomUUID();
+        MessageResponse root = messages.postToChannel(channel, post("root"));
+        messages.listChannel(channel, new PageParams(null, null, 20));   // warm the hot cache
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<MessageResponse>> replies = new ArrayList<>();
+        try {
+            for (int i = 0; i < 40; i++) {
+                String text = "reply " + i;
+                replies.add(pool.submit(() -> messages.reply(root.id(), post(text))));
+            }
+            for (Future<MessageResponse> f : replies) {
+                assertThat(f.get().parentMessageId()).isEqualTo(root.id());
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        // the page carries the thread summary and no replies, from the cache and from the DB alike
+        List<MessageResponse> page = messages.listChannel(channel, new PageParams(null, null, 20));
+        assertThat(page).singleElement().satisfies(m -> {
+            assertThat(m.replyCount()).isEqualTo(40);
+            assertThat(m.lastReplyAt()).isNotNull();
+        });
+        MessageResponse fromDb = messages.findById(root.id());
+        assertThat(fromDb.replyCount()).isEqualTo(40);
+        assertThat(fromDb.lastReplyAt()).isEqualTo(page.get(0).lastReplyAt());
+
+        // replies do not count towards the channel's unread badge
+        assertThat(readMarkers.position(channel).messageCount()).isEqualTo(1);
+    }
+
+    @Test
+    void replies_pageOldestFirstAndReplyToReplyJoinsTheThread() {
+        UUID channel = UUID.randomUUID();
+        MessageResponse root = messages.postToChannel(channel, post("root"));
+        List<UUID> ids = new ArrayList<>();
+        MessageResponse first = messages.reply(root.id(), post("r0"));
+        ids.add(first.id());
+        for (int i = 1; i < 7; i++) {
+            ids.add(messages.reply(first.id(), post("r" + i)).id());
+        }
+
+        List<UUID> walked = new ArrayList<>();
+        List<MessageResponse> page = messages.listReplies(root.id(), null, 3);
+        while (!page.isEmpty()) {
+            page.forEach(m -> walked.add(m.id()));
+            page = messages.listReplies(root.id(), page.get(page.size() - 1).id(), 3);
+        }
+        assertThat(walked).containsExactlyElementsOf(ids);
+        assertThat(messages.listReplies(first.id(), null, 10)).isEmpty();
+
+        // an edit of the root must not write back the reply count it loaded
+        messages.edit(root.id(), new MessageUpdateRequest("root, edited"));
+        assertThat(messages.findById(root.id()).replyCount()).isEqualTo(7);
+    }
+
+    @Test
+    void deletingReplies_recountsTheRootsSummary() {
+        UUID channel = UUID.randomUUID();
+        MessageResponse root = messages.postToChannel(channel, post("root"));
+        MessageResponse r0 = messages.reply(root.id(), post("r0"));
+        MessageResponse r1 = messages.reply(root.id(), post("r1"));
+        messages.listChannel(channel, new PageParams(null, null, 20));   // warm the hot cache
+
+        messages.delete(r1.id());
+        messages.delete(r1.id());   // a repeated delete changes nothing
+        assertThat(messages.findById(root.id())).satisfies(m -> {
+            assertThat(m.replyCount()).isEqualTo(1);
+            assertThat(m.lastReplyAt()).isEqualTo(messages.findById(r0.id()).createdAt());
+        });
+        assertThat(messages.listChannel(channel, new PageParams(null, null, 20)))
+                .singleElement().extracting(MessageResponse::replyCount).isEqualTo(1);
+
+        messages.delete(r0.id());
+        assertThat(messages.findById(root.id())).satisfies(m -> {
+            assertThat(m.replyCount()).isZero();
+            assertThat(m.lastReplyAt()).isNull();
+        });
+
+        messages.reply(root.id(), post("r2"));
+        assertThat(messages.findById(root.id()).replyCount()).isEqualTo(1);
+    }
+
+    @Test
+    void exportImport_repointsRepliesAtTheImportedRoot() throws Exception {
+        UUID source = UUID.randomUUID();
+        MessageResponse root = messages.postToChannel(source, post("root"));
+        messages.reply(root.id(), post("r0"));
+        messages.reply(root.id(), post("r1"));
+
+        ByteArrayOutputStream dump = new ByteArrayOutputStream();
+        archive.exportChannel(source, dump);
+        UUID copy = UUID.randomUUID();
+        assertThat(archive.importChannel(copy, new ByteArrayInputStream(dump.toByteArray()))).isEqualTo(3);
+
+        MessageResponse copiedRoot = messages.listChannel(copy, new PageParams(null, null, 10)).get(0);
+        assertThat(copiedRoot.id()).isNotEqualTo(root.id());
+        assertThat(copiedRoot.replyCount()).isEqualTo(2);
+        assertThat(messages.listReplies(copiedRoot.id(), null, 10))
+                .extracting(MessageResponse::content).containsExactly("r0", "r1");
+        assertThat(readMarkers.position(copy).messageCount()).isEqualTo(1);
+    }
+
+    private static MessageCreateRequest post(String text) {
+        return new MessageCreateRequest(UUID.randomUUID(), text, ContentType.TEXT);
+    }
+}
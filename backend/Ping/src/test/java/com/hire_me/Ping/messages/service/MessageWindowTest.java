@@ -0,0 +1,129 @@
+package com.hire_me.Ping.messages.service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.hire_me.Ping.messages.dto.MessageCreateRequest;
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.dto.MessageWindowResponse;
+import com.hire_me.Ping.messages.entity.Message.ContentType;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "app.search.rebuild-on-startup=false",
+        "app.messages.rate-limit.enabled=false"
+})
+@AutoConfigureMockMvc
+class MessageWindowTest {
+
+    @Autowired MessageService messages;
+    @Autowired MockMvc mvc;
+
+    UUID channel;
+    List<MessageResponse> posted;   // oldest -> newest
+
+    @BeforeEach
+    void setUp() {
+        channel = UUID.randomUUID();
+        posted = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            // re-read: the column's precision, not the clock's, decides where a timestamp falls
+            posted.add(messages.findById(messages.postToChannel(channel, post("m" + i)).id()));
+        }
+    }
+
+    @Test
+    void messageAnchor_isCentredWithNeighboursOnBothSides() {
+        MessageWindowResponse window = messages.channelWindow(channel, posted.get(30).id().toString(), 5, 5);
+
+        assertThat(window.anchorId()).isEqualTo(posted.get(30).id());
+        assertThat(window.messages()).extracting(MessageResponse::id).containsExactlyElementsOf(ids(35, 25));
+        assertThat(window.hasOlder()).isTrue();
+        assertThat(window.hasNewer()).isTrue();
+
+        // near the start of history the older side is short
+        window = messages.channelWindow(channel, posted.get(2).id().toString(), 5, 5);
+        assertThat(window.messages()).extracting(MessageResponse::id).containsExactlyElementsOf(ids(7, 0));
+        assertThat(window.hasOlder()).isFalse();
+        assertThat(window.hasNewer()).isTrue();
+    }
+
+    @Test
+    void timestampAnchor_startsAtTheFirstMessageAtOrAfterIt() {
+        Instant target = posted.get(40).createdAt().truncatedTo(ChronoUnit.MILLIS);
+        MessageResponse first = posted.stream()
+                .filter(m -> !m.createdAt().isBefore(target))
+                .findFirst().orElseThrow();
+        int at = posted.indexOf(first);
+
+        MessageWindowResponse window = messages.channelWindow(channel, target.toString(), 3, 3);
+        assertThat(window.anchorId()).isEqualTo(first.id());
+        assertThat(window.messages()).extracting(MessageResponse::id).containsExactlyElementsOf(ids(at + 3, at - 3));
+
+        // epoch millis work too; past the newest message there is only the older side
+        String future = Long.toString(posted.get(59).createdAt().toEpochMilli() + 60_000);
+        window = messages.channelWindow(channel, future, 2, 2);
+        assertThat(window.anchorId()).isNull();
+        assertThat(window.messages()).extracting(MessageResponse::id).containsExactlyElementsOf(ids(59, 58));
+        assertThat(window.hasOlder()).isTrue();
+        assertThat(window.hasNewer()).isFalse();
+    }
+
+    @Test
+    void replyAnchor_centresOnItsThreadRoot() {
+        MessageResponse reply = messages.reply(posted.get(10).id(), post("in thread"));
+
+        MessageWindowResponse window = messages.channelWindow(channel, reply.id().toString(), 1, 1);
+        assertThat(window.anchorId()).isEqualTo(posted.get(10).id());
+        assertThat(window.messages()).extracting(MessageResponse::id).containsExactlyElementsOf(ids(11, 9));
+    }
+
+    @Test
+    void endpoint_routesAroundAndRejectsBadAnchors() throws Exception {
+        mvc.perform(get("/api/channels/{id}/messages", channel)
+                        .param("around", posted.get(20).id().toString()).param("before", "2").param("after", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.anchorId").value(posted.get(20).id().toString()))
+                .andExpect(jsonPath("$.messages.length()").value(4))
+                .andExpect(jsonPath("$.messages[0].id").value(posted.get(21).id().toString()));
+
+        // a message from another conversation
+        UUID elsewhere = messages.postToChannel(UUID.randomUUID(), post("elsewhere")).id();
+        mvc.perform(get("/api/channels/{id}/messages", channel).param("around", elsewhere.toString()))
+                .andExpect(status().isNotFound());
+        mvc.perform(get("/api/channels/{id}/messages", channel).param("around", "yesterday"))
+                .andExpect(status().isBadRequest());
+
+        // without ?around= the plain newest-first page is unchanged
+        mvc.perform(get("/api/channels/{id}/messages", channel).param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3));
+    }
+
+    // ids of posted[from] down to posted[to], i.e. newest-first
+    private List<UUID> ids(int from, int to) {
+        List<UUID> out = new ArrayList<>();
+        for (int i = from; i >= to; i--) {
+            out.add(posted.get(i).id());
+        }
+        return out;
+    }
+
+    private static MessageCreateRequest post(String text) {
+        return new MessageCreateRequest(UUID.randomUUID(), text, ContentType.TEXT);
+    }
+}
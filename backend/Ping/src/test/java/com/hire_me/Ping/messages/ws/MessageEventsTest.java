@@ -0,0 +1,85 @@
+package com.hire_me.Ping.messages.ws;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import com.hire_me.Ping.common.id.UuidV7;
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.entity.Message;
+import com.hire_me.Ping.messages.event.MessageChangedEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MessageEventsTest {
+
+    SimpMessagingTemplate simp;
+    SimpleMeterRegistry meters;
+    MessageEvents events;
+
+    @BeforeEach
+    void setUp() {
+        simp = mock(SimpMessagingTemplate.class);
+        meters = new SimpleMeterRegistry();
+        events = new MessageEvents(simp, 50, 10, meters);
+    }
+
+    MessageResponse channelMsg(UUID channelId) {
+        return new MessageResponse(UuidV7.next(), channelId, null, UUID.randomUUID(), "hi",
+                Message.ContentType.TEXT, false, Instant.now(), null, null, 0, null, null);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void burstToOneTopic_isCoalescedIntoOneFrame() {
+        UUID channel = UUID.randomUUID();
+        for (int i = 0; i < 5; i++) {
+            events.onMessageChanged(new MessageChangedEvent(MessageChangedEvent.Kind.CREATED, channelMsg(channel), i + 1));
+        }
+
+        ArgumentCaptor<Object> frame = ArgumentCaptor.forClass(Object.class);
+        verify(simp, timeout(1000).times(1)).convertAndSend(eq("/topic/channels/" + channel), frame.capture());
+        List<MessageEvents.Payload> batch = (List<MessageEvents.Payload>) frame.getValue();
+        assertThat(batch).hasSize(5).allMatch(p -> p.getType() == MessageEvents.EventType.created);
+        assertThat(batch).extracting(MessageEvents.Payload::getSeq).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(meters.counter("messages.fanout.frames").count()).isEqualTo(1);
+        assertThat(meters.counter("messages.fanout.events").count()).isEqualTo(5);
+    }
+
+    @Test
+    void fullFrame_isSentWithoutWaitingForTheWindow() {
+        UUID channel = UUID.randomUUID();
+        for (int i = 0; i < 10; i++) {
+            events.onMessageChanged(new MessageChangedEvent(MessageChangedEvent.Kind.CREATED, channelMsg(channel), 1L));
+        }
+
+        // max-per-frame reached: sent synchronously on the posting thread
+        verify(simp, times(1)).convertAndSend(eq("/topic/channels/" + channel), any(Object.class));
+    }
+
+    @Test
+    void dmAndChannelTopics_areSeparate() {
+        UUID channel = UUID.randomUUID();
+        UUID dm = UUID.randomUUID();
+        MessageResponse dmMsg = new MessageResponse(UuidV7.next(), null, dm, UUID.randomUUID(), "yo",
+                Message.ContentType.TEXT, false, Instant.now(), null, null, 0, null, null);
+
+        events.onMessageChanged(new MessageChangedEvent(MessageChangedEvent.Kind.CREATED, channelMsg(channel), 1L));
+        events.onMessageChanged(new MessageChangedEvent(MessageChangedEvent.Kind.DELETED, dmMsg, 1L));
+
+        verify(simp, timeout(1000)).convertAndSend(eq("/topic/channels/" + channel), any(Object.class));
+        verify(simp, timeout(1000)).convertAndSend(eq("/topic/dms/" + dm), any(Object.class));
+    }
+}
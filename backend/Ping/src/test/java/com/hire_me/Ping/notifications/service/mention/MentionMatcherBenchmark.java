@@ -0,0 +1,136 @@
+package com.hire_me.Ping.notifications.service.mention;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Mention extraction over a batch of 256 chat messages (about a third mention someone):
+ *
+ * - trie:             MentionMatcher (what the post path uses)
+ * - regexAlternation: one precompiled {@code @(name1|name2|...)} pattern over every username
+ * - regexTokens:      {@code @[\w.]+} tokens, each looked up in a HashMap
+ *
+ * Run: mvn test-compile exec:java -Dexec.classpathScope=test
+ *        -Dexec.mainClass=com.hire_me.Ping.notifications.service.mention.MentionMatcherBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MentionMatcherBenchmark {
+
+    @Param({"1000", "10000"})
+    public int users;
+
+    private MentionMatcher trie;
+    private Pattern alternation;
+    private Pattern token;
+    private Map<String, UUID> byName;
+    private List<String> messages;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(7);
+        trie = new MentionMatcher();
+        byName = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            String name = "user" + Integer.toString(random.nextInt(1 << 30), 36) + i;
+            UUID id = UUID.randomUUID();
+            names.add(name);
+            byName.put(name, id);
+            trie.put(id, name);
+        }
+
+        String alternatives = names.stream()
+                .sorted(Comparator.comparingInt(String::length).reversed())
+                .map(Pattern::quote)
+                .collect(Collectors.joining("|"));
+        alternation = Pattern.compile("(?<![\\w])@(" + alternatives + ")(?![\\w])", Pattern.CASE_INSENSITIVE);
+        token = Pattern.compile("(?<![\\w])@([\\w.]+)");
+
+        String[] filler = {
+            "shipping the release after lunch, ping me if the build breaks",
+            "can someone review the migration PR before standup?",
+            "lgtm, merging now",
+            "the flaky test is back, looking into it this afternoon",
+        };
+        messages = new ArrayList<>();
+        for (int i = 0; i < 256; i++) {
+            StringBuilder text = new StringBuilder(filler[i % filler.length]);
+            if (i % 3 == 0) {
+                text.insert(0, "@" + names.get(random.nextInt(users)) + " ");
+            }
+            if (i % 7 == 0) {
+                text.append(" cc @").append(names.get(random.nextInt(users))).append(" @here");
+            }
+            messages.add(text.toString());
+        }
+    }
+
+    @Benchmark
+    public void trie(Blackhole bh) {
+        for (String m : messages) {
+            bh.consume(trie.extract(m));
+        }
+    }
+
+    @Benchmark
+    public void regexAlternation(Blackhole bh) {
+        for (String m : messages) {
+            Set<UUID> found = new HashSet<>();
+            Matcher matcher = alternation.matcher(m);
+            while (matcher.find()) {
+                found.add(byName.get(matcher.group(1).toLowerCase()));
+            }
+            bh.consume(found);
+        }
+    }
+
+    @Benchmark
+    public void regexTokens(Blackhole bh) {
+        for (String m : messages) {
+            Set<UUID> found = new HashSet<>();
+            Matcher matcher = token.matcher(m);
+            while (matcher.find()) {
+                UUID id = byName.get(matcher.group(1).toLowerCase());
+                if (id != null) found.add(id);
+            }
+            bh.consume(found);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MentionMatcherBenchmark.class.getSimpleName()).build()).run();
+    }
+}
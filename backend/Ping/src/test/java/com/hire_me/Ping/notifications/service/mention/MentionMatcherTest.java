@@ -0,0 +1,65 @@
+package com.hire_me.Ping.notifications.service.mention;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MentionMatcherTest {
+
+    MentionMatcher matcher;
+    UUID bob = UUID.randomUUID();
+    UUID bobby = UUID.randomUUID();
+    UUID ann = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        matcher = new MentionMatcher();
+        matcher.put(bob, "bob");
+        matcher.put(bobby, "Bobby");
+        matcher.put(ann, "ann.lee");
+    }
+
+    @Test
+    void longestNameAtAWordBoundaryWins() {
+        assertThat(matcher.extract("@bobby can you ask @bob?").users()).containsExactlyInAnyOrder(bob, bobby);
+        assertThat(matcher.extract("@bobbyx and @bo").isEmpty()).isTrue();
+        assertThat(matcher.extract("thanks @ANN.LEE.").users()).containsExactly(ann);
+    }
+
+    @Test
+    void ignoresEmailAddressesAndFindsKeywords() {
+        MentionMatcher.Mentions m = matcher.extract("mail bob@bob.com, @here @channel!");
+        assertThat(m.users()).isEmpty();
+        assertThat(m.here()).isTrue();
+        assertThat(m.channel()).isTrue();
+        assertThat(matcher.extract("no mentions here").isEmpty()).isTrue();
+    }
+
+    @Test
+    void aUserNamedLikeAKeyword_isMentionedAndTheKeywordStillBroadcasts() {
+        UUID here = UUID.randomUUID();
+        matcher.put(here, "Here");
+        MentionMatcher.Mentions m = matcher.extract("@here look");
+        assertThat(m.users()).containsExactly(here);
+        assertThat(m.here()).isTrue();
+
+        matcher.remove(here);
+        m = matcher.extract("@here look");
+        assertThat(m.users()).isEmpty();
+        assertThat(m.here()).isTrue();
+    }
+
+    @Test
+    void renamesAndRemovalsApplyIncrementally() {
+        matcher.put(bob, "robert");
+        assertThat(matcher.extract("@bob @robert").users()).containsExactly(bob);
+        assertThat(matcher.extract("@bobby").users()).containsExactly(bobby);   // sibling branch intact
+
+        matcher.remove(bobby);
+        assertThat(matcher.extract("@bobby").isEmpty()).isTrue();
+        assertThat(matcher.usernameOf(bobby)).isNull();
+        assertThat(matcher.size()).isEqualTo(2);
+    }
+}
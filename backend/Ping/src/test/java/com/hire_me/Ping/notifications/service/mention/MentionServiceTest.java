@@ -0,0 +1,88 @@
+package com.hire_me.Ping.notifications.service.mention;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.hire_me.Ping.channels.entity.Channel;
+import com.hire_me.Ping.channels.entity.ChannelMember;
+import com.hire_me.Ping.channels.repository.ChannelMemberRepository;
+import com.hire_me.Ping.channels.repository.ChannelRepository;
+import com.hire_me.Ping.messages.dto.MessageCreateRequest;
+import com.hire_me.Ping.messages.entity.Message.ContentType;
+import com.hire_me.Ping.messages.service.MessageService;
+import com.hire_me.Ping.notifications.entity.Notification;
+import com.hire_me.Ping.notifications.entity.NotificationType;
+import com.hire_me.Ping.notifications.repository.NotificationRepository;
+import com.hire_me.Ping.users.entity.User;
+import com.hire_me.Ping.users.repo.UserRepository;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "app.search.rebuild-on-startup=false"
+})
+class MentionServiceTest {
+
+    @Autowired MessageService messages;
+    @Autowired UserRepository users;
+    @Autowired ChannelRepository channels;
+    @Autowired ChannelMemberRepository members;
+    @Autowired NotificationRepository notifications;
+
+    @Test
+    void channelPosts_notifyMentionedMembersOnly() throws Exception {
+        String tag = UUID.randomUUID().toString().substring(0, 6);
+        User alice = user("alice" + tag);
+        User bob = user("bob" + tag);
+        User carol = user("carol" + tag);
+        User outsider = user("dave" + tag);
+        Channel channel = channels.save(new Channel("mentions-" + tag, alice));
+        for (User u : List.of(alice, bob, carol)) {
+            members.save(new ChannelMember(channel, u, ChannelMember.Role.MEMBER));
+        }
+
+        post(channel, alice, "@BOB" + tag + " and @dave" + tag + ", not carol" + tag + "@example.com");
+        awaitMentions(bob, 1);
+        assertThat(mentions(outsider)).isEmpty();
+        assertThat(mentions(carol)).isEmpty();
+        assertThat(mentions(bob).get(0).getText()).startsWith("@alice" + tag + " mentioned you:");
+
+        // renamed users are matched by their new name right after the change commits
+        bob.setUsername("rob" + tag);
+        users.save(bob);
+        post(channel, alice, "@bob" + tag + " @rob" + tag);
+        awaitMentions(bob, 2);
+
+        post(channel, bob, "@channel standup in 5");
+        awaitMentions(alice, 1);
+        awaitMentions(carol, 1);
+        assertThat(mentions(bob)).hasSize(2);   // not notified about their own @channel
+    }
+
+    private User user(String name) {
+        return users.save(new User(null, name, name + "@ping.test", name, ""));
+    }
+
+    private void post(Channel channel, User sender, String text) {
+        messages.postToChannel(channel.getId(), new MessageCreateRequest(sender.getId(), text, ContentType.TEXT));
+    }
+
+    private List<Notification> mentions(User u) {
+        return notifications.findByRecipientUserIdOrderByCreatedAtDesc(u.getId()).stream()
+                .filter(n -> n.getType() == NotificationType.MENTION)
+                .toList();
+    }
+
+    private void awaitMentions(User u, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (mentions(u).size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(mentions(u)).hasSize(count);
+    }
+}
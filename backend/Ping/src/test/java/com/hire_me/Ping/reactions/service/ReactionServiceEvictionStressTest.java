@@ -0,0 +1,16 @@
+package com.hire_me.Ping.reactions.service;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * The same clicks with every flush also evicting every message it can, so clicks keep racing
+ * eviction of the tallies they just loaded.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "app.search.rebuild-on-startup=false",
+        "app.reactions.flush-interval-ms=5",
+        "app.reactions.idle-evict-ms=0"
+})
+class ReactionServiceEvictionStressTest extends ReactionServiceStressTest {
+}
@@ -0,0 +1,90 @@
+package com.hire_me.Ping.reactions.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.hire_me.Ping.messages.dto.MessageCreateRequest;
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.entity.Message.ContentType;
+import com.hire_me.Ping.messages.service.MessageService;
+import com.hire_me.Ping.reactions.dto.ReactionCount;
+import com.hire_me.Ping.reactions.entity.MessageReactionCount;
+import com.hire_me.Ping.reactions.repository.MessageReactionCountRepository;
+import com.hire_me.Ping.reactions.repository.MessageReactionRepository;
+
+/**
+ * Thousands of users react to one message from many threads while the flusher runs every few
+ * milliseconds; afterwards the persisted counts must match the set of reactions exactly.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "app.search.rebuild-on-startup=false",
+        "app.reactions.flush-interval-ms=5"
+})
+class ReactionServiceStressTest {
+
+    static final int USERS = 4000;
+    static final int THREADS = 8;
+
+    @Autowired ReactionService reactions;
+    @Autowired MessageService messages;
+    @Autowired MessageReactionCountRepository counts;
+    @Autowired MessageReactionRepository rows;
+    @MockitoBean SimpMessagingTemplate simp;
+
+    @Test
+    void concurrentClicks_loseNoIncrements() throws Exception {
+        UUID channel = UUID.randomUUID();
+        MessageResponse announcement = messages.postToChannel(channel,
+                new MessageCreateRequest(UUID.randomUUID(), "we shipped!", ContentType.TEXT));
+        UUID id = announcement.id();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        try {
+            for (int w = 0; w < THREADS; w++) {
+                int worker = w;
+                workers.add(pool.submit(() -> {
+                    for (int u = worker; u < USERS; u += THREADS) {
+                        UUID user = new UUID(42, u);
+                        reactions.react(id, "👍", user, true);
+                        if (u % 3 == 0) reactions.react(id, "👍", user, true);     // double click
+                        if (u % 5 == 0) reactions.react(id, "👍", user, false);    // changed their mind
+                        if (u % 2 == 0) reactions.react(id, "🎉", user, true);
+                    }
+                }));
+            }
+            for (Future<?> f : workers) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        reactions.react(id, "👍", UUID.randomUUID(), false);   // removing a reaction nobody made
+        reactions.flush();
+
+        long thumbs = USERS - USERS / 5;
+        long party = USERS / 2;
+        assertThat(rows.countByMessageIdAndEmoji(id, "👍")).isEqualTo(thumbs);
+        assertThat(counts.findById(new MessageReactionCount.Key(id, "👍")).orElseThrow().getCount()).isEqualTo(thumbs);
+        assertThat(counts.findById(new MessageReactionCount.Key(id, "🎉")).orElseThrow().getCount()).isEqualTo(party);
+        assertThat(reactions.counts(id)).containsExactly(new ReactionCount("👍", thumbs), new ReactionCount("🎉", party));
+
+        verify(simp, timeout(1000).atLeastOnce()).convertAndSend(eq("/topic/channels/" + channel), any(Object.class));
+    }
+}
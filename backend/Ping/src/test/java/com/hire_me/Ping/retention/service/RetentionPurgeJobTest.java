@@ -0,0 +1,211 @@
+package com.hire_me.Ping.retention.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.hire_me.Ping.messages.dto.MessageCreateRequest;
+import com.hire_me.Ping.messages.dto.MessageResponse;
+import com.hire_me.Ping.messages.entity.Message.ContentType;
+import com.hire_me.Ping.messages.repository.MessageRepository;
+import com.hire_me.Ping.messages.service.MessageService;
+import com.hire_me.Ping.messages.service.MessageService.PageParams;
+import com.hire_me.Ping.retention.dto.RetentionPolicyRequest;
+import com.hire_me.Ping.retention.dto.RetentionRunResponse;
+import com.hire_me.Ping.retention.entity.RetentionPolicy;
+import com.hire_me.Ping.retention.repository.RetentionPolicyRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "app.search.rebuild-on-startup=false",
+        "app.messages.rate-limit.enabled=false",
+        "app.retention.enabled=false",
+        "app.retention.chunk-size=7",
+        "app.retention.pause-ms=0"
+})
+@AutoConfigureMockMvc
+class RetentionPurgeJobTest {
+
+    @Autowired RetentionPurgeJob job;
+    @Autowired RetentionService policies;
+    @Autowired RetentionPolicyRepository policyRows;
+    @Autowired MessageService messages;
+    @Autowired MessageRepository repository;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired MeterRegistry meters;
+    @Autowired MockMvc mvc;
+
+    @AfterEach
+    void clearPolicies() {
+        policyRows.deleteAll();
+    }
+
+    @Test
+    void expiredMessages_arePurgedInChunksPerPolicy() {
+        UUID strict = UUID.randomUUID();    // own policy: 30 days
+        UUID relaxed = UUID.randomUUID();   // workspace policy: 3650 days
+        UUID dm = UUID.randomUUID();
+
+        List<UUID> strictOld = post(strict, 20, Duration.ofDays(40));
+        List<UUID> strictRecent = post(strict, 5, Duration.ofDays(10));
+        List<UUID> relaxedOld = post(relaxed, 10, Duration.ofDays(40));
+        List<UUID> relaxedAncient = post(relaxed, 3, Duration.ofDays(4000));
+        List<UUID> dmAncient = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            MessageResponse m = messages.postToDm(dm, request("dm " + i));
+            backdate(m.id(), Duration.ofDays(4000));
+            dmAncient.add(m.id());
+        }
+        // an expired root takes its (recent) thread along
+        UUID reply = messages.reply(strictOld.get(0), request("late reply")).id();
+        jdbc.update("INSERT INTO message_reaction_count (message_id, emoji, reaction_count) VALUES (?, ?, ?)",
+                strictOld.get(1), ":+1:", 3);
+
+        messages.listChannel(strict, new PageParams(null, null, 50));   // warm the hot cache
+        policies.setChannelPolicy(strict, new RetentionPolicyRequest(30, null));
+        policies.setWorkspacePolicy(new RetentionPolicyRequest(3650, null));
+        double before = meters.counter("messages.retention.purged", "reason", "age").count();
+
+        RetentionRunResponse run = job.runOnce();
+
+        assertThat(run.purged()).isEqualTo(20 + 1 + 3 + 2);
+        assertThat(run.complete()).isTrue();
+        assertThat(run.bytesReclaimed()).isPositive();
+        assertThat(meters.counter("messages.retention.purged", "reason", "age").count() - before).isEqualTo(26.0);
+
+        assertThat(repository.findAllById(concat(strictOld, relaxedAncient, dmAncient, List.of(reply)))).isEmpty();
+        assertThat(repository.findAllById(concat(strictRecent, relaxedOld))).hasSize(15);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM message_reaction_count WHERE message_id = ?",
+                Long.class, strictOld.get(1))).isZero();
+        // the cached tail was dropped, so the page reflects the purge
+        assertThat(messages.listChannel(strict, new PageParams(null, null, 50)))
+                .extracting(MessageResponse::id).containsExactlyInAnyOrderElementsOf(strictRecent);
+
+        assertThat(job.runOnce().purged()).isZero();
+    }
+
+    @Test
+    void softDeletedMessages_arePurgedAfterTheirGracePeriod() {
+        UUID channel = UUID.randomUUID();
+        UUID strict = UUID.randomUUID();
+        List<UUID> ids = post(channel, 4, Duration.ZERO);
+        List<UUID> strictIds = post(strict, 1, Duration.ZERO);
+        UUID root = ids.get(3);
+        UUID reply = messages.reply(root, request("still here")).id();
+
+        for (UUID id : List.of(ids.get(0), ids.get(1), root, strictIds.get(0))) {
+            messages.delete(id);
+        }
+        deletedAgo(ids.get(0), Duration.ofHours(48));
+        deletedAgo(root, Duration.ofHours(48));
+        deletedAgo(ids.get(1), Duration.ofHours(1));
+        deletedAgo(strictIds.get(0), Duration.ofHours(2));
+
+        policies.setWorkspacePolicy(new RetentionPolicyRequest(null, 24));
+        policies.setChannelPolicy(strict, new RetentionPolicyRequest(null, 1));
+
+        assertThat(job.runOnce().purged()).isEqualTo(2);
+        assertThat(repository.findById(ids.get(0))).isEmpty();
+        assertThat(repository.findById(strictIds.get(0))).isEmpty();
+        assertThat(repository.findById(ids.get(1))).isPresent();    // deleted too recently
+        assertThat(repository.findById(ids.get(2))).isPresent();    // never deleted
+        assertThat(repository.findById(root)).isPresent();          // tombstone of a live thread
+        assertThat(repository.findById(reply)).isPresent();
+    }
+
+    @Test
+    void purgedReplies_leaveTheirRootsSummaryRight() {
+        UUID channel = UUID.randomUUID();
+        List<UUID> roots = post(channel, 2, Duration.ZERO);
+        UUID live = roots.get(0);
+        UUID dead = roots.get(1);
+        UUID gone = messages.reply(live, request("gone")).id();
+        UUID kept = messages.reply(live, request("kept")).id();
+        UUID orphan = messages.reply(dead, request("orphan")).id();
+        // deleted behind the summary's back: reply_count still counts them
+        for (UUID id : List.of(gone, dead, orphan)) {
+            jdbc.update("UPDATE message SET deleted = true WHERE id = ?", id);
+            deletedAgo(id, Duration.ofHours(48));
+        }
+
+        policies.setWorkspacePolicy(new RetentionPolicyRequest(null, 24));
+
+        assertThat(job.runOnce().purged()).isEqualTo(3);
+        assertThat(repository.findAllById(List.of(gone, dead, orphan))).isEmpty();
+        var root = repository.findById(live).orElseThrow();
+        assertThat(root.getReplyCount()).isEqualTo(1);
+        assertThat(root.getLastReplyAt()).isEqualTo(repository.findById(kept).orElseThrow().getCreatedAt());
+    }
+
+    @Test
+    void policies_areValidatedAndInherit() throws Exception {
+        UUID channel = UUID.randomUUID();
+        mvc.perform(put("/api/retention").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"maxAgeDays\":0}"))
+                .andExpect(status().isBadRequest());
+
+        mvc.perform(put("/api/channels/{id}/retention", channel).with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"purgeDeletedAfterHours\":12}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.channelId").value(channel.toString()))
+                .andExpect(jsonPath("$.purgeDeletedAfterHours").value(12))
+                .andExpect(jsonPath("$.maxAgeDays").doesNotExist());
+
+        mvc.perform(get("/api/retention"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.maxAgeDays").doesNotExist());
+        assertThat(policyRows.findById(RetentionPolicy.WORKSPACE)).isEmpty();
+    }
+
+    private List<UUID> post(UUID channel, int n, Duration age) {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            UUID id = messages.postToChannel(channel, request("message " + i)).id();
+            if (!age.isZero()) {
+                backdate(id, age);
+            }
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private void backdate(UUID id, Duration age) {
+        jdbc.update("UPDATE message SET created_at = ? WHERE id = ?", Timestamp.from(Instant.now().minus(age)), id);
+    }
+
+    private void deletedAgo(UUID id, Duration ago) {
+        jdbc.update("UPDATE message SET deleted_at = ? WHERE id = ?", Timestamp.from(Instant.now().minus(ago)), id);
+    }
+
+    @SafeVarargs
+    private static List<UUID> concat(List<UUID>... lists) {
+        List<UUID> out = new ArrayList<>();
+        for (List<UUID> l : lists) {
+            out.addAll(l);
+        }
+        return out;
+    }
+
+    private static MessageCreateRequest request(String text) {
+        return new MessageCreateRequest(UUID.randomUUID(), text, ContentType.TEXT);
+    }
+}
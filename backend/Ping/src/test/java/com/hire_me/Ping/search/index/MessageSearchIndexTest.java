@@ -0,0 +1,153 @@
+package com.hire_me.Ping.search.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.hire_me.Ping.common.id.UuidV7;
+
+class MessageSearchIndexTest {
+
+    static final long NOW = 1_760_000_000_000L;
+
+    MessageSearchIndex index;
+    UUID channel;
+    UUID otherChannel;
+    UUID alice;
+    UUID bob;
+
+    @BeforeEach
+    void setUp() {
+        index = new MessageSearchIndex();
+        channel = UUID.randomUUID();
+        otherChannel = UUID.randomUUID();
+        alice = UUID.randomUUID();
+        bob = UUID.randomUUID();
+    }
+
+    UUID add(UUID conversation, UUID sender, long ageMillis, String content) {
+        UUID id = UuidV7.next();
+        index.upsert(id, conversation, sender, NOW - ageMillis, content);
+        return id;
+    }
+
+    List<UUID> ids(MessageSearchIndex.Page page) {
+        return page.hits().stream().map(MessageSearchIndex.Hit::messageId).toList();
+    }
+
+    @Test
+    void matchesAllTermsCaseInsensitively() {
+        UUID both = add(channel, alice, 0, "Deploy the BACKEND today");
+        add(channel, alice, 0, "deploy the frontend");
+        add(channel, alice, 0, "backend is down");
+
+        var page = index.search("backend deploy", Set.of(channel), null, 10, null, NOW);
+
+        assertThat(ids(page)).containsExactly(both);
+        assertThat(page.next()).isNull();
+    }
+
+    @Test
+    void filtersByConversationAndSender() {
+        UUID mine = add(channel, alice, 0, "release notes");
+        add(channel, bob, 0, "release notes");
+        add(otherChannel, alice, 0, "release notes");
+
+        var page = index.search("release", Set.of(channel), alice, 10, null, NOW);
+
+        assertThat(ids(page)).containsExactly(mine);
+        assertThat(index.search("release", Set.of(), null, 10, null, NOW).hits()).isEmpty();
+        assertThat(index.search("release", Set.of(channel), UUID.randomUUID(), 10, null, NOW).hits()).isEmpty();
+    }
+
+    @Test
+    void ranksByRelevanceThenRecency() {
+        UUID old = add(channel, alice, 365L * 24 * 3600 * 1000, "incident review");
+        UUID fresh = add(channel, alice, 0, "incident review");
+        UUID dense = add(channel, alice, 365L * 24 * 3600 * 1000, "incident incident incident");
+        add(channel, alice, 0, "lunch");
+
+        var page = index.search("incident", Set.of(channel), null, 10, null, NOW);
+
+        assertThat(ids(page).get(0)).isEqualTo(fresh);
+        assertThat(ids(page).indexOf(dense)).isLessThan(ids(page).indexOf(old));
+    }
+
+    @Test
+    void editsReplaceAndDeletesRemove() {
+        UUID id = add(channel, alice, 0, "typo in mesage");
+        index.upsert(id, channel, alice, NOW, "typo in message");
+
+        assertThat(index.search("mesage", Set.of(channel), null, 10, null, NOW).hits()).isEmpty();
+        assertThat(ids(index.search("message", Set.of(channel), null, 10, null, NOW))).containsExactly(id);
+
+        index.remove(id);
+        assertThat(index.search("message", Set.of(channel), null, 10, null, NOW).hits()).isEmpty();
+        assertThat(index.liveDocuments()).isZero();
+    }
+
+    @Test
+    void cursorWalksEveryHitExactlyOnce() {
+        List<UUID> expected = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            expected.add(add(channel, alice, i * 1000L, "standup " + "notes ".repeat(i % 4)));
+        }
+
+        List<UUID> seen = new ArrayList<>();
+        MessageSearchIndex.Cursor cursor = null;
+        int pages = 0;
+        do {
+            var page = index.search("standup", Set.of(channel), null, 10, cursor, NOW);
+            seen.addAll(ids(page));
+            cursor = page.next();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(seen).hasSize(25).containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    @Test
+    void laterPagesKeepTheFirstPagesRanking_whileTheClockAndIndexMove() {
+        List<UUID> expected = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            // ages and lengths spread out, so recency and length normalisation both matter
+            expected.add(add(channel, alice, i * 3_600_000L * 24, "retro " + "action items ".repeat(i % 5)));
+        }
+        UUID doomed = add(channel, bob, 0, "unrelated chatter");
+
+        List<UUID> seen = new ArrayList<>();
+        long now = NOW;
+        var page = index.search("retro", Set.of(channel), null, 10, null, now);
+        seen.addAll(ids(page));
+        while (page.next() != null) {
+            // between pages: a month passes, new matches arrive, and the collection shrinks and grows
+            now += 30L * 24 * 3600 * 1000;
+            add(channel, bob, 0, "retro retro retro");
+            add(channel, bob, 0, "quick retro");
+            index.remove(doomed);
+            add(channel, bob, 0, "filler text ".repeat(50));
+            page = index.search("retro", Set.of(channel), null, 10, page.next(), now);
+            seen.addAll(ids(page));
+        }
+
+        assertThat(seen).doesNotHaveDuplicates().containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    @Test
+    void republishingAnUnchangedVersion_leavesNoDeadOrdinal() {
+        UUID id = UuidV7.next();
+        index.upsert(id, channel, alice, NOW, NOW, "thread root");
+        index.upsert(id, channel, alice, NOW, NOW, "thread root");
+        assertThat(index.deadDocuments()).isZero();
+
+        index.upsert(id, channel, alice, NOW, NOW + 1, "thread root, edited");
+        assertThat(index.deadDocuments()).isEqualTo(1);
+        assertThat(ids(index.search("edited", Set.of(channel), null, 10, null, NOW))).containsExactly(id);
+    }
+}
@@ -0,0 +1,159 @@
+package com.hire_me.Ping.unread.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.hire_me.Ping.channels.entity.Channel;
+import com.hire_me.Ping.channels.entity.ChannelMember;
+import com.hire_me.Ping.channels.repository.ChannelMemberRepository;
+import com.hire_me.Ping.channels.repository.ChannelRepository;
+import com.hire_me.Ping.dms.entity.DirectParticipant;
+import com.hire_me.Ping.dms.repo.DirectParticipantRepository;
+import com.hire_me.Ping.messages.dto.MessageCreateRequest;
+import com.hire_me.Ping.messages.entity.Message.ContentType;
+import com.hire_me.Ping.messages.service.MessageService;
+import com.hire_me.Ping.unread.dto.UnreadCountResponse;
+import com.hire_me.Ping.users.entity.User;
+import com.hire_me.Ping.users.repo.UserRepository;
+
+/**
+ * Load test: every member posts concurrently while one member keeps marking the channel read.
+ * Afterwards each badge must equal exactly the messages posted by the others. Also checks that
+ * deleted messages leave the badges, whether or not a member had read them.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "app.search.rebuild-on-startup=false",
+        "app.messages.rate-limit.enabled=false"
+})
+class UnreadCountsLoadTest {
+
+    static final int MEMBERS = 6;
+    static final int POSTS_EACH = 50;
+
+    @Autowired MessageService messages;
+    @Autowired ReadMarkerService readMarkers;
+    @Autowired UserRepository users;
+    @Autowired ChannelRepository channels;
+    @Autowired ChannelMemberRepository members;
+    @Autowired DirectParticipantRepository participants;
+
+    @Test
+    void concurrentPostsAndMarkReads_keepBadgesExact() throws Exception {
+        String tag = UUID.randomUUID().toString().substring(0, 8);
+        List<User> team = new ArrayList<>();
+        for (int i = 0; i < MEMBERS; i++) {
+            team.add(users.save(new User(null, "u" + i + tag, "u" + i + tag + "@ping.test", "User " + i, "")));
+        }
+        Channel channel = channels.save(new Channel("load-" + tag, team.get(0)));
+        for (User u : team) {
+            members.save(new ChannelMember(channel, u, ChannelMember.Role.MEMBER));
+        }
+        UUID dm = UUID.randomUUID();
+        for (User u : team.subList(0, 2)) {
+            DirectParticipant p = new DirectParticipant();
+            p.setDirectConversationId(dm);
+            p.setUserId(u.getId());
+            participants.save(p);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(MEMBERS + 1);
+        AtomicBoolean posting = new AtomicBoolean(true);
+        try {
+            List<Future<?>> posters = new ArrayList<>();
+            for (User u : team) {
+                posters.add(pool.submit(() -> {
+                    for (int i = 0; i < POSTS_EACH; i++) {
+                        messages.postToChannel(channel.getId(),
+                                new MessageCreateRequest(u.getId(), "load " + i, ContentType.TEXT));
+                    }
+                }));
+            }
+            Future<?> reader = pool.submit(() -> {
+                while (posting.get()) {
+                    readMarkers.markChannelRead(channel.getId(), team.get(0).getId());
+                }
+            });
+            for (int i = 0; i < 10; i++) {
+                messages.postToDm(dm, new MessageCreateRequest(team.get(1).getId(), "dm " + i, ContentType.TEXT));
+            }
+            for (Future<?> f : posters) {
+                f.get();
+            }
+            posting.set(false);
+            reader.get();
+        } finally {
+            pool.shutdown();
+        }
+
+        long othersPosts = (long) (MEMBERS - 1) * POSTS_EACH;
+        for (User u : team.subList(1, MEMBERS)) {
+            assertThat(badges(u).get(channel.getId()).unread()).isEqualTo(othersPosts);
+        }
+        assertThat(badges(team.get(0)).get(channel.getId()).unread()).isBetween(0L, othersPosts);
+        assertThat(badges(team.get(0)).get(dm).unread()).isEqualTo(10);
+        assertThat(badges(team.get(1)).get(dm).unread()).isZero();
+
+        readMarkers.markChannelRead(channel.getId(), team.get(0).getId());
+        Map<UUID, UnreadCountResponse> after = badges(team.get(0));
+        assertThat(after.get(channel.getId()).unread()).isZero();
+        assertThat(after.get(channel.getId()).lastReadSeq()).isEqualTo(MEMBERS * POSTS_EACH);
+        assertThat(after.get(dm).kind()).isEqualTo(UnreadCountResponse.Kind.DM);
+    }
+
+    @Test
+    void deletedMessages_leaveTheBadges() {
+        String tag = UUID.randomUUID().toString().substring(0, 8);
+        List<User> team = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            team.add(users.save(new User(null, "d" + i + tag, "d" + i + tag + "@ping.test", "User " + i, "")));
+        }
+        Channel channel = channels.save(new Channel("deletes-" + tag, team.get(0)));
+        for (User u : team) {
+            members.save(new ChannelMember(channel, u, ChannelMember.Role.MEMBER));
+        }
+        User author = team.get(0), reader = team.get(1), away = team.get(2);
+
+        List<UUID> posted = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            posted.add(messages.postToChannel(channel.getId(),
+                    new MessageCreateRequest(author.getId(), "m" + i, ContentType.TEXT)).id());
+        }
+        readMarkers.markChannelRead(channel.getId(), reader.getId());
+        posted.add(messages.postToChannel(channel.getId(),
+                new MessageCreateRequest(author.getId(), "m3", ContentType.TEXT)).id());
+
+        messages.delete(posted.get(1));   // read by the reader
+        messages.delete(posted.get(3));   // not yet
+        messages.delete(posted.get(1));   // a repeated delete changes nothing
+        assertThat(unread(author, channel)).isZero();
+        assertThat(unread(reader, channel)).isZero();
+        assertThat(unread(away, channel)).isEqualTo(2);
+
+        messages.postToChannel(channel.getId(), new MessageCreateRequest(author.getId(), "m4", ContentType.TEXT));
+        assertThat(unread(author, channel)).isZero();
+        assertThat(unread(reader, channel)).isEqualTo(1);
+        assertThat(unread(away, channel)).isEqualTo(3);
+    }
+
+    private long unread(User u, Channel channel) {
+        return badges(u).get(channel.getId()).unread();
+    }
+
+    private Map<UUID, UnreadCountResponse> badges(User u) {
+        return readMarkers.unreadCounts(u.getId()).stream()
+                .collect(Collectors.toMap(UnreadCountResponse::conversationId, b -> b));
+    }
+}
@@ -1,5 +1,5 @@
 import React, { useEffect, useState } from 'react';
-import { DmService } from '../services/dmService';
+import { DmService, DM_PAGE_SIZE } from '../services/dmService';
 import { UserService } from '../services/userService';
 import { DmResponse } from '../types/api';
 import { User } from '../types/user';
@@ -14,6 +14,8 @@ export function DmList({ currentUserId, onSelectDm, selectedDmId }: DmListProps)
   const [dms, setDms] = useState<DmResponse[]>([]);
   const [users, setUsers] = useState<User[]>([]);
   const [loading, setLoading] = useState(true);
+  const [hasMore, setHasMore] = useState(false);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [error, setError] = useState<string | null>(null);
 
   useEffect(() => {
@@ -29,6 +31,7 @@ export function DmList({ currentUserId, onSelectDm, selectedDmId }: DmListProps)
         ]);
         
         setDms(dmsData);
+        setHasMore(dmsData.length === DM_PAGE_SIZE);
         setUsers(usersData);
       } catch (err) {
         setError(err instanceof Error ? err.message : 'Failed to load conversations');
@@ -41,6 +44,21 @@ export function DmList({ currentUserId, onSelectDm, selectedDmId }: DmListProps)
     loadData();
   }, [currentUserId]);
 
+  const loadMore = async () => {
+    if (dms.length === 0) return;
+    try {
+      setLoadingMore(true);
+      const page = await DmService.getDmsForUser(currentUserId, dms[dms.length - 1].id);
+      // a DM that got new activity meanwhile may come round again: keep its first position
+      setDms(prev => [...prev, ...page.filter(dm => !prev.some(p => p.id === dm.id))]);
+      setHasMore(page.length === DM_PAGE_SIZE);
+    } catch (err) {
+      console.error('Error loading more conversations:', err);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const getUserById = (userId: string) => {
     return users.find(user => user.id === userId);
   };
@@ -66,7 +84,7 @@ export function DmList({ currentUserId, onSelectDm, selectedDmId }: DmListProps)
   };
 
   const getLastActivity = (dm: DmResponse): string => {
-    const date = new Date(dm.createdAt);
+    const date = new Date(dm.updatedAt || dm.createdAt);
     const now = new Date();
     const diffInHours = (now.getTime() - date.getTime()) / (1000 * 60 * 60);
 
@@ -179,6 +197,15 @@ export function DmList({ currentUserId, onSelectDm, selectedDmId }: DmListProps)
               </div>
             </button>
           ))}
+          {hasMore && (
+            <button
+              onClick={loadMore}
+              disabled={loadingMore}
+              className="w-full p-2 text-sm text-blue-600 hover:bg-gray-100 rounded-lg disabled:text-gray-400"
+            >
+              {loadingMore ? 'Loading...' : 'Load more'}
+            </button>
+          )}
         </div>
       )}
     </div>
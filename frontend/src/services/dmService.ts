@@ -9,16 +9,20 @@ import {
   DmQueryParams 
 } from '../types/api';
 
+// Page size of the DM inbox; a shorter page means there are no more
+export const DM_PAGE_SIZE = 50;
+
 export class DmService {
   // ===============================
   // CORE DM OPERATIONS
   // ===============================
   
   /**
-   * Get all DM conversations for a user
+   * Get one page of a user's DM conversations, most recently active first.
+   * Pass the id of the last DM received as `before` to get the next page.
    */
-  static async getDmsForUser(userId: string): Promise<DmResponse[]> {
-    return ApiService.get<DmResponse[]>(`/dms/user/${userId}`);
+  static async getDmsForUser(userId: string, before?: string): Promise<DmResponse[]> {
+    return DmService.getUserDms(userId, { limit: DM_PAGE_SIZE, before });
   }
 
   /**
@@ -35,6 +39,13 @@ export class DmService {
     return ApiService.post<DmResponse>('/dms', request);
   }
 
+  /**
+   * Get the 1:1 DM between two users, creating it on first use (safe under concurrent clicks)
+   */
+  static async openDirectDm(userId: string, otherUserId: string): Promise<DmResponse> {
+    return ApiService.post<DmResponse>('/dms/direct', { userId, otherUserId });
+  }
+
   /** 
    * Get all DM conversations for a user with query params
    */
@@ -40,6 +40,7 @@ export interface DmUpdateRequest {
 
 export interface DmQueryParams {
   limit?: number;
+  before?: string;  // id of the last DM on the previous page
   offset?: number;
   includeLeft?: boolean;
 }